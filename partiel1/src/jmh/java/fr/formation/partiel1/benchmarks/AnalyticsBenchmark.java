@@ -0,0 +1,51 @@
+package fr.formation.partiel1.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fr.formation.partiel1.services.*;
+
+/**
+ * Benchmarks of the reports of {@code TransferAnalytics}, each one a scan
+ * of all the bank transfers of a store.
+ *
+ * @author Frank MARSHALL
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    @Param({ "1000000" })
+    public int size;
+
+    @Param({ "indexed", "columnar" })
+    public String store;
+
+    private TransferAnalytics analytics;
+
+    @Setup
+    public void setUp() {
+	analytics = new TransferAnalytics(Transfers.store(store, size));
+    }
+
+    @Benchmark
+    public List<CounterpartyStatistics> topCounterparties() {
+	return analytics.topCounterparties(100);
+    }
+
+    @Benchmark
+    public List<CountryStatistics> countries() {
+	return analytics.countries();
+    }
+
+    @Benchmark
+    public List<DailyDistribution> daily() {
+	return analytics.daily(null, null);
+    }
+}
@@ -0,0 +1,62 @@
+package fr.formation.partiel1.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fr.formation.partiel1.entities.BankTransfer;
+import fr.formation.partiel1.services.DuplicateFilter;
+
+/**
+ * Benchmarks of {@code DuplicateFilter}, checking bank transfers never
+ * registered, the common case, and duplicates.
+ *
+ * @author Frank MARSHALL
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DedupBenchmark {
+
+    @Param({ "100000" })
+    public int size;
+
+    private DuplicateFilter filter;
+
+    private BankTransfer[] seen;
+
+    private BankTransfer[] unseen;
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+	filter = new DuplicateFilter(24L * 60L * 60L * 1000L, 4 * size);
+	seen = new BankTransfer[size];
+	unseen = new BankTransfer[size];
+	for (int i = 0; i < size; i++) {
+	    seen[i] = Transfers.transfer(i);
+	    unseen[i] = Transfers.transfer(size + i);
+	    filter.add(seen[i]);
+	}
+    }
+
+    private int next() {
+	int i = index;
+	index = i + 1 == size ? 0 : i + 1;
+	return i;
+    }
+
+    @Benchmark
+    public boolean unseen() {
+	return filter.isDuplicate(unseen[next()]);
+    }
+
+    @Benchmark
+    public boolean seen() {
+	return filter.isDuplicate(seen[next()]);
+    }
+}
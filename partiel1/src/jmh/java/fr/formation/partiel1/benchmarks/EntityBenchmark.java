@@ -0,0 +1,122 @@
+package fr.formation.partiel1.benchmarks;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Benchmarks of the construction and validation of bank transfers, of the
+ * parsing of amounts, as {@code Money} or {@code BigDecimal}, of the parsing
+ * of IBANs, cached or not, and of the {@code equals},
+ * {@code hashCode} and {@code toString} methods of IBANs and BBANs.
+ *
+ * @author Frank MARSHALL
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityBenchmark {
+
+    private Money amount;
+
+    private LocalDateTime requestDate;
+
+    private LocalDateTime executionDate;
+
+    private Iban origin;
+
+    private Iban originCopy;
+
+    private Iban destination;
+
+    private String text;
+
+    private IbanCache cache;
+
+    @Setup
+    public void setUp() {
+	amount = Money.parse("1000.50", BankTransfer.CURRENCY);
+	requestDate = Transfers.START;
+	executionDate = requestDate.plusDays(2L);
+	origin = Transfers.iban(1);
+	originCopy = Transfers.iban(1);
+	destination = Transfers.iban(2);
+	text = "FR7630006000011234567890189";
+	cache = new IbanCache(1024);
+    }
+
+    @Benchmark
+    public Money parseMoney() {
+	return Money.parse("1000.50", BankTransfer.CURRENCY);
+    }
+
+    @Benchmark
+    public BigDecimal parseDecimal() {
+	return new BigDecimal("1000.50");
+    }
+
+    @Benchmark
+    public Iban parseIban() {
+	return IbanParser.parse(text);
+    }
+
+    @Benchmark
+    public Iban cachedIban() {
+	return cache.get(text);
+    }
+
+    @Benchmark
+    public BankTransfer newBankTransfer() {
+	return new BankTransfer(amount, requestDate, executionDate, origin,
+		destination);
+    }
+
+    @Benchmark
+    public boolean validate() {
+	return BankTransfer.isValidAmount(amount)
+		&& BankTransfer.areValidDates(requestDate, executionDate)
+		&& BankTransfer.areValidAccounts(origin, destination);
+    }
+
+    @Benchmark
+    public boolean ibanEquals() {
+	return origin.equals(originCopy);
+    }
+
+    @Benchmark
+    public boolean ibanNotEquals() {
+	return origin.equals(destination);
+    }
+
+    @Benchmark
+    public int ibanHashCode() {
+	return origin.hashCode();
+    }
+
+    @Benchmark
+    public String ibanToString() {
+	return origin.toString();
+    }
+
+    @Benchmark
+    public boolean bbanEquals() {
+	return origin.getBban().equals(originCopy.getBban());
+    }
+
+    @Benchmark
+    public int bbanHashCode() {
+	return origin.getBban().hashCode();
+    }
+
+    @Benchmark
+    public String bbanToString() {
+	return origin.getBban().toString();
+    }
+}
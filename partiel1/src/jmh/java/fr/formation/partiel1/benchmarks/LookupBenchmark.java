@@ -0,0 +1,128 @@
+package fr.formation.partiel1.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import fr.formation.partiel1.controllers.BankTransferController;
+import fr.formation.partiel1.entities.Iban;
+import fr.formation.partiel1.services.BankTransferRegistry;
+import fr.formation.partiel1.stores.*;
+
+/**
+ * Benchmarks of the lookup paths of {@code BankTransferController}, and of
+ * the store lookups behind them.
+ * <p>
+ * The controller uses the registry of the application, so each store type
+ * runs in its own fork. Its requests being served asynchronously, the
+ * controller benchmarks include the hand-off to the request thread. Their
+ * responses are cached, so they measure the cache hits of repeated reads.
+ *
+ * @author Frank MARSHALL
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LookupBenchmark {
+
+    @Param({ "100000" })
+    public int size;
+
+    @Param({ "indexed", "columnar" })
+    public String store;
+
+    @Param({ "1" })
+    public int shards;
+
+    private BankTransferController controller;
+
+    private TransferStore transfers;
+
+    private String middle;
+
+    private Request request;
+
+    private LocalDateTime from;
+
+    private Iban account;
+
+    @Setup
+    public void setUp() {
+	System.setProperty(TransferStore.TYPE_PROPERTY, store);
+	System.setProperty(TransferStore.SHARDS_PROPERTY,
+		Integer.toString(shards));
+	BankTransferRegistry registry = BankTransferRegistry.getInstance();
+	registry.registerAll(Transfers.list(size));
+	controller = new BankTransferController();
+	transfers = registry.getStore();
+	middle = transfers.page(null, size / 2).getNext().toString();
+	// Unconditional requests, evaluatePreconditions() returns null:
+	request = (Request) Proxy.newProxyInstance(
+		Request.class.getClassLoader(),
+		new Class<?>[] { Request.class },
+		(proxy, method, args) -> null);
+	from = Transfers.START.plusSeconds(size / 2);
+	account = Transfers.account(size / 2);
+    }
+
+    private static Object await(Consumer<AsyncResponse> request)
+	    throws Exception {
+	CompletableFuture<Object> result = new CompletableFuture<>();
+	// Only resume(Object) or resume(Throwable) is called:
+	AsyncResponse response = (AsyncResponse) Proxy.newProxyInstance(
+		AsyncResponse.class.getClassLoader(),
+		new Class<?>[] { AsyncResponse.class },
+		(proxy, method, args) -> result.complete(args[0]));
+	request.accept(response);
+	return result.get();
+    }
+
+    @Benchmark
+    public Object controllerLast() throws Exception {
+	return await(response -> controller.last(false, request,
+		response));
+    }
+
+    @Benchmark
+    public Object controllerFirstPage() throws Exception {
+	return await(response -> controller.all(null, 100, false, request,
+		response));
+    }
+
+    @Benchmark
+    public Object controllerMiddlePage() throws Exception {
+	return await(response -> controller.all(middle, 100, false,
+		request, response));
+    }
+
+    @Benchmark
+    public Object between() {
+	return transfers.between(from, from.plusMinutes(10L));
+    }
+
+    @Benchmark
+    public Object executingBetween() {
+	LocalDateTime execution = from.plusDays(2L);
+	return transfers.executingBetween(execution,
+		execution.plusMinutes(10L));
+    }
+
+    @Benchmark
+    public Object lastFrom() {
+	return transfers.lastFrom(account, 10);
+    }
+
+    @Benchmark
+    public Object lastTo() {
+	return transfers.lastTo(account, 10);
+    }
+}
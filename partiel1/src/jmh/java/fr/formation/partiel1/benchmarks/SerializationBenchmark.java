@@ -0,0 +1,73 @@
+package fr.formation.partiel1.benchmarks;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.fasterxml.jackson.databind.*;
+
+import fr.formation.partiel1.json.IbanSerializer;
+import fr.formation.partiel1.stores.TransferStore;
+
+/**
+ * Benchmarks of the JSON serialization of all the bank transfers of a
+ * store, as written by the {@code /bankTransfer/all} endpoint.
+ * <p>
+ * The largest stores need a large heap, given by the fork.
+ *
+ * @author Frank MARSHALL
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SerializationBenchmark {
+
+    @Param({ "1000", "10000", "100000", "1000000", "10000000" })
+    public int size;
+
+    @Param({ "indexed", "columnar" })
+    public String store;
+
+    @Param({ "false", "true" })
+    public boolean compact;
+
+    private TransferStore transfers;
+
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+	transfers = Transfers.store(store, size);
+	ObjectWriter writer = new ObjectMapper().writer();
+	this.writer = compact ? IbanSerializer.compact(writer) : writer;
+    }
+
+    @Benchmark
+    public long all() throws IOException {
+	CountingOutputStream output = new CountingOutputStream();
+	writer.writeValue(output, transfers.all());
+	return output.count;
+    }
+
+    /**
+     * Counts the bytes written, and discards them.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+	private long count;
+
+	@Override
+	public void write(int b) {
+	    count++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+	    count += len;
+	}
+    }
+}
@@ -0,0 +1,113 @@
+package fr.formation.partiel1.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import fr.formation.partiel1.entities.*;
+import fr.formation.partiel1.stores.*;
+
+/**
+ * Generates the bank transfers of the benchmarks.
+ * <p>
+ * Bank transfers are generated in request date order, one per second, so
+ * that filling a store never moves the ones already added; their accounts
+ * are taken from a fixed set of {@value #ACCOUNTS} IBANs.
+ *
+ * @author Frank MARSHALL
+ */
+final class Transfers {
+
+    /**
+     * The number of distinct accounts.
+     */
+    static final int ACCOUNTS = 1000;
+
+    /**
+     * The request date of the first bank transfer.
+     */
+    static final LocalDateTime START = LocalDateTime.of(2018, 1, 1, 0, 0);
+
+    private static final Iban[] IBANS = new Iban[ACCOUNTS];
+    static {
+	for (int i = 0; i < ACCOUNTS; i++) {
+	    IBANS[i] = IbanPool.shared().intern(iban(i));
+	}
+    }
+
+    private Transfers() {
+    }
+
+    /**
+     * Returns a new IBAN, distinct for each number.
+     *
+     * @param number
+     *            a number
+     * @return a new IBAN; never {@code null}
+     */
+    static Iban iban(int number) {
+	Bban bban = new Bban("30002", String.format("%05d", number % 100_000),
+		String.format("%011d", number), "25");
+	return new Iban("FR", "76", bban);
+    }
+
+    /**
+     * Returns the account of given number, modulo {@value #ACCOUNTS}.
+     *
+     * @param number
+     *            a number
+     * @return an account; never {@code null}
+     */
+    static Iban account(int number) {
+	return IBANS[Math.floorMod(number, ACCOUNTS)];
+    }
+
+    /**
+     * Returns the bank transfer of given number.
+     *
+     * @param number
+     *            a number
+     * @return a new bank transfer; never {@code null}
+     */
+    static BankTransfer transfer(int number) {
+	LocalDateTime requestDate = START.plusSeconds(number);
+	return new BankTransfer(
+		Money.ofMinor(100_00L + number % 1000, BankTransfer.CURRENCY),
+		requestDate, number % 2 == 0 ? null : requestDate.plusDays(2L),
+		account(number), account(number * 7 + 1));
+    }
+
+    /**
+     * Returns a new store of given type, filled with given number of bank
+     * transfers.
+     *
+     * @param type
+     *            the type of store, as given to
+     *            {@link TransferStore#TYPE_PROPERTY}
+     * @param size
+     *            the number of bank transfers
+     * @return a new store; never {@code null}
+     */
+    static TransferStore store(String type, int size) {
+	System.setProperty(TransferStore.TYPE_PROPERTY, type);
+	TransferStore store = TransferStore.create();
+	for (int i = 0; i < size; i++) {
+	    store.add(transfer(i));
+	}
+	return store;
+    }
+
+    /**
+     * Returns a list of given number of bank transfers.
+     *
+     * @param size
+     *            the number of bank transfers
+     * @return a new list of bank transfers; never {@code null}
+     */
+    static List<BankTransfer> list(int size) {
+	List<BankTransfer> transfers = new ArrayList<>(size);
+	for (int i = 0; i < size; i++) {
+	    transfers.add(transfer(i));
+	}
+	return transfers;
+    }
+}
@@ -0,0 +1,103 @@
+package fr.formation.partiel1.benchmarks;
+
+import java.io.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.*;
+
+import fr.formation.partiel1.entities.BankTransfer;
+import fr.formation.partiel1.wire.*;
+
+/**
+ * Benchmarks of the bulk export of bank transfers, in JSON as written by the
+ * {@code /bankTransfer/all} endpoint and in the binary format.
+ * <p>
+ * The JSON is written as objects, the default format of the endpoint.
+ * <p>
+ * The size of the payload of each benchmark is reported as the
+ * {@code bytes} secondary result.
+ *
+ * @author Frank MARSHALL
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class WireBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<List<BankTransfer>> LIST =
+	    new TypeReference<List<BankTransfer>>() {
+	    };
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private List<BankTransfer> transfers;
+
+    private byte[] json;
+
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws IOException {
+	transfers = Transfers.list(size);
+	json = MAPPER.writeValueAsBytes(transfers);
+	ByteArrayOutputStream output = new ByteArrayOutputStream();
+	encode(output);
+	binary = output.toByteArray();
+    }
+
+    private void encode(OutputStream output) throws IOException {
+	TransferEncoder encoder = new TransferEncoder(output);
+	for (BankTransfer transfer : transfers) {
+	    encoder.write(transfer);
+	}
+	encoder.finish();
+    }
+
+    /**
+     * The size of the payload encoded or decoded by a benchmark.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+
+	public long bytes;
+    }
+
+    @Benchmark
+    public int encodeBinary(Payload payload) throws IOException {
+	payload.bytes = binary.length;
+	ByteArrayOutputStream output = new ByteArrayOutputStream(
+		binary.length);
+	encode(output);
+	return output.size();
+    }
+
+    @Benchmark
+    public List<BankTransfer> decodeJson(Payload payload)
+	    throws IOException {
+	payload.bytes = json.length;
+	return MAPPER.readValue(json, LIST);
+    }
+
+    @Benchmark
+    public int decodeBinary(Payload payload) throws IOException {
+	payload.bytes = binary.length;
+	TransferDecoder decoder = new TransferDecoder(
+		new ByteArrayInputStream(binary));
+	int count = 0;
+	while (decoder.read() != null) {
+	    count++;
+	}
+	return count;
+    }
+}
@@ -0,0 +1,74 @@
+package fr.formation.partiel1.controllers;
+
+import java.util.concurrent.*;
+
+import javax.ws.rs.container.AsyncResponse;
+
+/**
+ * Serves the requests of the controllers asynchronously, off the threads of
+ * the servlet container.
+ * <p>
+ * On Java 21 or later, each request is served by its own virtual thread, so
+ * the number of requests in progress is only limited by the memory. On
+ * earlier versions, requests are served by a pool of platform threads whose
+ * size is given by the {@value #THREADS_PROPERTY} system property, defaults
+ * to {@value #DEFAULT_THREADS}.
+ *
+ * @author Frank MARSHALL
+ */
+final class Async {
+
+    /**
+     * The name of the system property giving the number of platform threads
+     * serving the requests, before Java 21.
+     */
+    static final String THREADS_PROPERTY = "partiel1.async.threads";
+
+    private static final int DEFAULT_THREADS = 256;
+
+    private static final Executor EXECUTOR = create();
+
+    private Async() {
+    }
+
+    /**
+     * Resumes given response with the result of given task, computed
+     * asynchronously.
+     * <p>
+     * If the task fails, the response is resumed with its exception, which
+     * is then mapped as if thrown by the resource method.
+     *
+     * @param response
+     *            a suspended response
+     * @param task
+     *            the computation of the entity or the {@code Response}
+     */
+    static void resume(AsyncResponse response, Callable<?> task) {
+	EXECUTOR.execute(() -> {
+	    try {
+		response.resume(task.call());
+	    } catch (Throwable ex) {
+		response.resume(ex);
+	    }
+	});
+    }
+
+    private static Executor create() {
+	try {
+	    return (Executor) Executors.class
+		    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+	} catch (ReflectiveOperationException ex) { // Before Java 21
+	    int threads = Integer.getInteger(THREADS_PROPERTY,
+		    DEFAULT_THREADS);
+	    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads,
+		    threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+		    runnable -> {
+			Thread thread = new Thread(runnable, "request");
+			thread.setDaemon(true);
+			return thread;
+		    });
+	    executor.allowCoreThreadTimeOut(true);
+	    return executor;
+	}
+    }
+}
@@ -1,16 +1,42 @@
 package fr.formation.partiel1.controllers;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.io.*;
+import java.net.URI;
+import java.time.*;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletionException;
 
 import javax.ws.rs.*;
-import javax.ws.rs.core.MediaType;
+import javax.ws.rs.container.*;
+import javax.ws.rs.core.*;
+import javax.ws.rs.sse.*;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.*;
+
+import org.glassfish.jersey.media.multipart.*;
 
 import fr.formation.partiel1.entities.*;
+import fr.formation.partiel1.json.IbanSerializer;
+import fr.formation.partiel1.metrics.Metrics;
+import fr.formation.partiel1.services.*;
+import fr.formation.partiel1.stores.*;
+import fr.formation.partiel1.wire.*;
 
 /**
  * A Rest controller to deal with bank transfers.
+ * <p>
+ * Requests are served asynchronously, so that a slow lookup or a write to
+ * the journal never holds a thread of the servlet container.
+ * <p>
+ * The listings of bank transfers carry an {@code ETag}, derived from the
+ * version of the registry, and a {@code Last-Modified} header, and honor
+ * conditional requests with a {@code 304 Not Modified} response. Their
+ * serialized bodies are cached until the next registration.
+ *
+ * @see Async
  *
  * @author Frank MARSHALL
  */
@@ -18,52 +44,712 @@ import fr.formation.partiel1.entities.*;
 @Produces(MediaType.APPLICATION_JSON)
 public class BankTransferController {
 
-    private static final List<BankTransfer> TRANSFERS = new ArrayList<>();
+    /**
+     * The media type of newline delimited JSON.
+     */
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int DEFAULT_LIMIT = 100;
+
+    private static final int MAX_LIMIT = 1000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+	    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    // Writes the IBANs in electronic format:
+    private static final ObjectWriter COMPACT = IbanSerializer
+	    .compact(MAPPER.writer());
+
+    private static final BankTransferRegistry REGISTRY = BankTransferRegistry
+	    .getInstance();
+
+    private static final TransferStore TRANSFERS = REGISTRY.getStore();
+
+    private static final TransferAnalytics ANALYTICS = new TransferAnalytics(
+	    TRANSFERS);
+
+    private static final ResponseCache CACHE = new ResponseCache(256);
+
+    private static final TransferFeed FEED = TransferFeed.create();
+
+    // Tells apart the entity tags of successive runs of the application:
+    private static final String EPOCH = Long
+	    .toString(System.currentTimeMillis(), 36);
     static {
-	buildBankTransfers();
+	REGISTRY.addRegistrationListener(FEED::created);
+	REGISTRY.addExecutionListener(FEED::executed);
+	Metrics.shared().gauge("partiel1_feed_subscribers",
+		"Clients of the feed of events.", FEED::size);
+	if (TRANSFERS.size() == 0) { // Nothing replayed from the journal
+	    buildBankTransfers();
+	}
     }
 
     /**
      * Returns a singleton list containing the last bank transfer based on its
      * request date.
      *
-     * @return a singleton list containing the last bank transfer; never
-     *         {@code null}, may be empty
+     * @param compact
+     *            {@code true} to write the IBANs in electronic format
+     * @param request
+     *            the request, for its preconditions
+     * @param response
+     *            the response, resumed with a singleton list containing the
+     *            last bank transfer, or an empty list
      */
     @GET
     @Path("/last")
-    public List<BankTransfer> last() {
-	return Collections.singletonList(TRANSFERS.get(0));
+    public void last(@QueryParam("compact") boolean compact,
+	    @Context Request request, @Suspended AsyncResponse response) {
+	Async.resume(response, () -> conditional(request, "",
+		version -> ok(CACHE.get("last?compact=" + compact, version,
+			() -> new ResponseCache.Entry(version,
+				write(TRANSFERS.last(1), compact), null)))));
     }
 
     /**
-     * Returns a list of all the bank transfers.
+     * Returns a list of the bank transfers, most recent first.
+     * <p>
+     * Without any parameter all the bank transfers are returned. Otherwise a
+     * page of at most {@code limit} bank transfers requested before
+     * {@code cursor} is returned; the URI of the next page, if any, is given
+     * in a {@code Link} header with the {@code next} relation, relative to
+     * the URI of the request.
      *
-     * @return a list of all the bank transfers; never {@code null}, may be
-     *         empty
+     * @param cursor
+     *            the cursor to the page to return, as given in the
+     *            {@code next} link of the previous page; {@code null} for
+     *            the first page
+     * @param limit
+     *            the maximum number of bank transfers to return, capped to
+     *            {@value #MAX_LIMIT}; {@code null} for the default
+     * @param compact
+     *            {@code true} to write the IBANs in electronic format
+     * @param request
+     *            the request, for its preconditions
+     * @param response
+     *            the response, resumed with a list of bank transfers, or
+     *            with a {@code BadRequestException} if {@code cursor} is
+     *            malformed or {@code limit} is not positive
      */
     @GET
     @Path("/all")
-    public List<BankTransfer> all() {
-	return Collections.unmodifiableList(TRANSFERS);
+    public void all(@QueryParam("cursor") String cursor,
+	    @QueryParam("limit") Integer limit,
+	    @QueryParam("compact") boolean compact, @Context Request request,
+	    @Suspended AsyncResponse response) {
+	Async.resume(response, () -> conditional(request, "",
+		version -> all(cursor, limit, compact, version)));
+    }
+
+    private static Response.ResponseBuilder all(String cursor,
+	    Integer limit, boolean compact, long version) throws IOException {
+	if (cursor == null && limit == null) {
+	    if (TRANSFERS.size() > MAX_LIMIT) { // Streamed, not cached
+		return Response.ok(entity(
+			new GenericEntity<Collection<BankTransfer>>(
+				TRANSFERS.all()) {
+			}, compact));
+	    }
+	    return ok(CACHE.get("all?compact=" + compact, version,
+		    () -> new ResponseCache.Entry(version,
+			    write(TRANSFERS.all(), compact), null)));
+	}
+	int size = size(limit);
+	String key = "all?cursor=" + cursor + "&limit=" + size + "&compact="
+		+ compact;
+	try {
+	    return ok(CACHE.get(key, version, () -> {
+		TransferPage page = TRANSFERS.page(cursor == null ? null
+			: TransferCursor.parse(cursor), size);
+		// Relative, as cached for any host and any other parameter:
+		URI next = page.getNext() == null ? null
+			: UriBuilder.fromPath("all")
+				.queryParam("cursor", page.getNext())
+				.queryParam("limit", size)
+				.queryParam("compact", compact).build();
+		return new ResponseCache.Entry(version,
+			write(page.getTransfers(), compact), next);
+	    }));
+	} catch (IllegalArgumentException ex) {
+	    throw new BadRequestException(ex.getMessage(), ex);
+	}
+    }
+
+    /*
+     * Returns the number of bank transfers of a page of given requested
+     * limit, capped to the maximum.
+     */
+    private static int size(Integer limit) {
+	return limit == null ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Returns the bank transfers requested, or to execute, between given
+     * dates, most recent first.
+     * <p>
+     * At most {@code limit} bank transfers are returned, the most recent
+     * ones; a narrower range returns the others.
+     * <p>
+     * Dates are given in ISO format, either as a date and time or as a date
+     * standing for its start of day; {@code from=2018-01-02&to=2018-01-03}
+     * is thus the whole day of January 2nd. The bank transfers are looked up
+     * in the index of the field, so the cost does not depend on the number
+     * of bank transfers outside the range.
+     *
+     * @param from
+     *            the lower bound, inclusive
+     * @param to
+     *            the upper bound, exclusive
+     * @param field
+     *            the date to compare, {@code requestDate} (the default) or
+     *            {@code executionDate}
+     * @param limit
+     *            the maximum number of bank transfers to return, capped to
+     *            {@value #MAX_LIMIT}; {@code null} for the default
+     * @param compact
+     *            {@code true} to write the IBANs in electronic format
+     * @param request
+     *            the request, for its preconditions
+     * @param response
+     *            the response, resumed with a list of bank transfers, or
+     *            with a {@code BadRequestException} if a bound is missing
+     *            or malformed, if {@code field} is unknown or if
+     *            {@code limit} is not positive
+     * @see TransferStore#between(LocalDateTime, LocalDateTime)
+     * @see TransferStore#executingBetween(LocalDateTime, LocalDateTime)
+     */
+    @GET
+    @Path("/range")
+    public void range(@QueryParam("from") String from,
+	    @QueryParam("to") String to,
+	    @QueryParam("field") @DefaultValue("requestDate") String field,
+	    @QueryParam("limit") Integer limit,
+	    @QueryParam("compact") boolean compact, @Context Request request,
+	    @Suspended AsyncResponse response) {
+	Async.resume(response, () -> {
+	    LocalDateTime lower = date("from", from);
+	    LocalDateTime upper = date("to", to);
+	    if (!field.equals("requestDate")
+		    && !field.equals("executionDate")) {
+		throw new BadRequestException("unknown field: " + field);
+	    }
+	    if (limit != null && limit <= 0) {
+		throw new BadRequestException("limit must be positive");
+	    }
+	    int size = size(limit);
+	    return conditional(request, "", version -> {
+		List<BankTransfer> transfers = field.equals("requestDate")
+			? TRANSFERS.between(lower, upper)
+			: TRANSFERS.executingBetween(lower, upper);
+		transfers = transfers.subList(0,
+			Math.min(size, transfers.size()));
+		return Response.ok(entity(
+			new GenericEntity<List<BankTransfer>>(transfers) {
+			}, compact));
+	    });
+	});
+    }
+
+    private static LocalDateTime date(String name, String date) {
+	if (date == null) {
+	    throw new BadRequestException(name + " is missing");
+	}
+	try {
+	    return date.indexOf('T') < 0
+		    ? LocalDate.parse(date).atStartOfDay()
+		    : LocalDateTime.parse(date);
+	} catch (DateTimeParseException ex) {
+	    throw new BadRequestException(ex.getMessage(), ex);
+	}
+    }
+
+    /**
+     * Streams all the bank transfers, most recent first, as newline
+     * delimited JSON.
+     * <p>
+     * Bank transfers are written one by one to the response, so the memory
+     * used does not depend on the number of bank transfers.
+     *
+     * @param compact
+     *            {@code true} to write the IBANs in electronic format
+     * @param request
+     *            the request, for its preconditions
+     * @param response
+     *            the response, resumed with a stream of all the bank
+     *            transfers
+     */
+    @GET
+    @Path("/all")
+    @Produces(NDJSON + "; qs=0.5")
+    public void stream(@QueryParam("compact") boolean compact,
+	    @Context Request request, @Suspended AsyncResponse response) {
+	Async.resume(response, () -> conditional(request, "-n",
+		version -> Response.ok(stream(compact))));
+    }
+
+    private static StreamingOutput stream(boolean compact) {
+	ObjectWriter writer = compact ? COMPACT : MAPPER.writer();
+	return output -> {
+	    JsonGenerator generator = MAPPER.getFactory()
+		    .createGenerator(output);
+	    generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+	    boolean empty = true;
+	    for (BankTransfer transfer : TRANSFERS.all()) {
+		writer.writeValue(generator, transfer);
+		empty = false;
+	    }
+	    if (!empty) {
+		generator.writeRaw('\n');
+	    }
+	    generator.close();
+	};
+    }
+
+    /**
+     * Streams all the bank transfers, most recent first, in the compact
+     * binary format of {@link TransferEncoder}.
+     * <p>
+     * The bank transfers are written one by one, each IBAN once, so the
+     * memory used does not depend on the number of bank transfers but on the
+     * number of accounts.
+     *
+     * @param request
+     *            the request, for its preconditions
+     * @param response
+     *            the response, resumed with a stream of all the bank
+     *            transfers
+     * @see TransferDecoder
+     */
+    @GET
+    @Path("/all")
+    @Produces(TransferEncoder.MEDIA_TYPE + "; qs=0.4")
+    public void export(@Context Request request,
+	    @Suspended AsyncResponse response) {
+	Async.resume(response, () -> conditional(request, "-b",
+		version -> Response.ok((StreamingOutput) output -> {
+		    TransferEncoder encoder = new TransferEncoder(output);
+		    for (BankTransfer transfer : TRANSFERS.all()) {
+			encoder.write(transfer);
+		    }
+		    encoder.finish();
+		})));
+    }
+
+    /**
+     * Registers a batch of bank transfers, given as a JSON array or as
+     * newline delimited JSON.
+     * <p>
+     * The whole batch is validated in one pass; the valid bank transfers are
+     * registered even if some others are rejected.
+     *
+     * @param input
+     *            the batch of bank transfers
+     * @param response
+     *            the response, resumed with the results of the bank
+     *            transfers in submission order, or with a
+     *            {@code BadRequestException} if the batch is malformed or
+     *            too large
+     * @see TransferBatch
+     */
+    @POST
+    @Path("/batch")
+    @Consumes({ MediaType.APPLICATION_JSON, NDJSON })
+    public void batch(InputStream input, @Suspended AsyncResponse response) {
+	Async.resume(response, () -> {
+	    TransferBatch batch;
+	    try {
+		batch = TransferBatch.read(input);
+	    } catch (IllegalArgumentException ex) {
+		throw new BadRequestException(ex.getMessage(), ex);
+	    }
+	    return new GenericEntity<List<BatchResult>>(
+		    batch.register(REGISTRY)) {
+	    };
+	});
+    }
+
+    /**
+     * Imports a transfer file, uploaded as the {@code file} part of a
+     * multipart form.
+     * <p>
+     * The file is streamed through the import pipeline, so its size is not
+     * limited by the memory. Its format is given by the media type of the
+     * part or, if unknown, by the extension of its name.
+     *
+     * @param input
+     *            the content of the file
+     * @param part
+     *            the part of the file
+     * @param response
+     *            the response, resumed with the report of the import, or
+     *            with a {@code BadRequestException} if the file is missing,
+     *            malformed or of an unknown format
+     * @see ImportFormat
+     */
+    @POST
+    @Path("/import")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    public void importFile(@FormDataParam("file") InputStream input,
+	    @FormDataParam("file") FormDataBodyPart part,
+	    @Suspended AsyncResponse response) {
+	if (input == null || part == null) {
+	    throw new BadRequestException("file part is missing");
+	}
+	Async.resume(response, () -> {
+	    try {
+		ImportFormat format = ImportFormat.of(
+			part.getMediaType().toString(),
+			part.getContentDisposition().getFileName());
+		return new TransferImport(REGISTRY).run(input, format);
+	    } catch (IllegalArgumentException ex) {
+		throw new BadRequestException(ex.getMessage(), ex);
+	    }
+	});
+    }
+
+    /**
+     * Returns the number and the total amount of all the bank transfers.
+     *
+     * @param response
+     *            the response, resumed with the totals of all the bank
+     *            transfers
+     */
+    @GET
+    @Path("/stats")
+    public void stats(@Suspended AsyncResponse response) {
+	Async.resume(response, () -> REGISTRY.getStatistics().overall());
+    }
+
+    /**
+     * Returns the totals of the bank transfers from and to given account.
+     *
+     * @param iban
+     *            an account, in electronic format
+     * @param response
+     *            the response, resumed with the totals of the account, with
+     *            a {@code BadRequestException} if {@code iban} is malformed
+     *            or with a {@code NotFoundException} if no bank transfer
+     *            involves {@code iban}
+     */
+    @GET
+    @Path("/stats/{iban}")
+    public void stats(@PathParam("iban") String iban,
+	    @Suspended AsyncResponse response) {
+	Async.resume(response, () -> {
+	    AccountStatistics statistics = REGISTRY.getStatistics()
+		    .account(iban(iban));
+	    if (statistics == null) {
+		throw new NotFoundException("unknown account: " + iban);
+	    }
+	    return statistics;
+	});
+    }
+
+    /**
+     * Returns the daily totals of the bank transfers from and to given
+     * account, by execution date.
+     *
+     * @param iban
+     *            an account, in electronic format
+     * @param from
+     *            the first day, inclusive, in ISO format; {@code null} for
+     *            no lower bound
+     * @param to
+     *            the last day, inclusive, in ISO format; {@code null} for no
+     *            upper bound
+     * @param response
+     *            the response, resumed with a list of daily totals by date,
+     *            or with a {@code BadRequestException} if any of the
+     *            argument is malformed
+     */
+    @GET
+    @Path("/stats/{iban}/daily")
+    public void dailyStats(@PathParam("iban") String iban,
+	    @QueryParam("from") String from, @QueryParam("to") String to,
+	    @Suspended AsyncResponse response) {
+	Async.resume(response, () -> {
+	    try {
+		return new GenericEntity<List<DailyStatistics>>(
+			REGISTRY.getStatistics().daily(iban(iban),
+				from == null ? null : LocalDate.parse(from),
+				to == null ? null : LocalDate.parse(to))) {
+		};
+	    } catch (DateTimeParseException ex) {
+		throw new BadRequestException(ex.getMessage(), ex);
+	    }
+	});
+    }
+
+    /**
+     * Returns the totals of the bank transfers from an account to another,
+     * for the pairs of accounts of largest total amount.
+     * <p>
+     * The report scans all the bank transfers, in parallel; it is cached
+     * until the next registration.
+     *
+     * @param limit
+     *            the maximum number of pairs of accounts, capped to
+     *            {@value #MAX_LIMIT}; {@code null} for the default
+     * @param request
+     *            the request, for its preconditions
+     * @param response
+     *            the response, resumed with a list of totals by pair of
+     *            accounts, by decreasing total amount, or with a
+     *            {@code BadRequestException} if {@code limit} is not
+     *            positive
+     * @see TransferAnalytics#topCounterparties(int)
+     */
+    @GET
+    @Path("/analytics/counterparties")
+    public void counterparties(@QueryParam("limit") Integer limit,
+	    @Context Request request, @Suspended AsyncResponse response) {
+	Async.resume(response, () -> {
+	    int size = limit == null ? DEFAULT_LIMIT
+		    : Math.min(limit, MAX_LIMIT);
+	    if (size <= 0) {
+		throw new BadRequestException("limit must be positive");
+	    }
+	    return conditional(request, "",
+		    version -> ok(CACHE.get(
+			    "analytics/counterparties?limit=" + size, version,
+			    () -> new ResponseCache.Entry(version,
+				    MAPPER.writeValueAsBytes(
+					    ANALYTICS.topCounterparties(size)),
+				    null))));
+	});
+    }
+
+    /**
+     * Returns the totals of the bank transfers from and to the accounts of
+     * each country.
+     * <p>
+     * The report scans all the bank transfers, in parallel; it is cached
+     * until the next registration.
+     *
+     * @param request
+     *            the request, for its preconditions
+     * @param response
+     *            the response, resumed with a list of totals by country
+     * @see TransferAnalytics#countries()
+     */
+    @GET
+    @Path("/analytics/countries")
+    public void countries(@Context Request request,
+	    @Suspended AsyncResponse response) {
+	Async.resume(response, () -> conditional(request, "",
+		version -> ok(CACHE.get("analytics/countries", version,
+			() -> new ResponseCache.Entry(version,
+				MAPPER.writeValueAsBytes(
+					ANALYTICS.countries()),
+				null)))));
+    }
+
+    /**
+     * Returns the distribution of the amounts of the bank transfers
+     * requested on each day between given dates.
+     * <p>
+     * The report scans the bank transfers of the range, or all of them
+     * without both bounds, in parallel; it is cached until the next
+     * registration.
+     *
+     * @param from
+     *            the first day, inclusive, in ISO format; {@code null} for
+     *            no lower bound
+     * @param to
+     *            the last day, inclusive, in ISO format; {@code null} for no
+     *            upper bound
+     * @param request
+     *            the request, for its preconditions
+     * @param response
+     *            the response, resumed with a list of distributions by date,
+     *            or with a {@code BadRequestException} if any of the
+     *            argument is malformed
+     * @see TransferAnalytics#daily(LocalDate, LocalDate)
+     */
+    @GET
+    @Path("/analytics/daily")
+    public void dailyAnalytics(@QueryParam("from") String from,
+	    @QueryParam("to") String to, @Context Request request,
+	    @Suspended AsyncResponse response) {
+	Async.resume(response, () -> {
+	    LocalDate lower;
+	    LocalDate upper;
+	    try {
+		lower = from == null ? null : LocalDate.parse(from);
+		upper = to == null ? null : LocalDate.parse(to);
+	    } catch (DateTimeParseException ex) {
+		throw new BadRequestException(ex.getMessage(), ex);
+	    }
+	    return conditional(request, "",
+		    version -> ok(CACHE.get("analytics/daily?from=" + lower
+			    + "&to=" + upper, version,
+			    () -> new ResponseCache.Entry(version,
+				    MAPPER.writeValueAsBytes(
+					    ANALYTICS.daily(lower, upper)),
+				    null))));
+	});
+    }
+
+    /**
+     * Streams the events of the bank transfers, registered or executed, as
+     * server-sent events.
+     * <p>
+     * The events are named {@code transfer-created} and
+     * {@code transfer-executed}, and their data is the bank transfer. A
+     * client reconnecting with a {@code Last-Event-ID} header is sent the
+     * events it missed first, or a {@code reset} event if they are no longer
+     * kept, after which it should reload the bank transfers. A client too
+     * slow to receive the events is disconnected, and catches up the same
+     * way when reconnecting.
+     *
+     * @param lastEventId
+     *            the identifier of the last event received; {@code null} to
+     *            receive the next events only
+     * @param compact
+     *            {@code true} to write the IBANs in electronic format
+     * @param sink
+     *            the sink of the events
+     * @param sse
+     *            the factory of the events
+     * @see TransferFeed
+     */
+    @GET
+    @Path("/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void events(
+	    @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId,
+	    @QueryParam("compact") boolean compact,
+	    @Context SseEventSink sink, @Context Sse sse) {
+	ObjectWriter writer = compact ? COMPACT : MAPPER.writer();
+	FEED.subscribe(after(lastEventId), new TransferFeed.Sink() {
+
+	    @Override
+	    public void send(TransferFeed.Event event) throws IOException {
+		BankTransfer transfer = event.getTransfer();
+		OutboundSseEvent outbound = sse.newEventBuilder()
+			.id(EPOCH + '-' + Long.toString(event.getId(), 36))
+			.name(event.getType().getName())
+			.data(String.class, transfer == null ? "{}"
+				: writer.writeValueAsString(transfer))
+			.build();
+		try {
+		    sink.send(outbound).toCompletableFuture().join();
+		} catch (CompletionException ex) {
+		    throw new IOException(ex.getCause());
+		}
+	    }
+
+	    @Override
+	    public void close() {
+		sink.close();
+	    }
+	});
+    }
+
+    /*
+     * Returns the identifier of the last event received by a client, from
+     * its Last-Event-ID header; an unknown identifier if the event is of a
+     * previous run of the application, or malformed.
+     */
+    private static long after(String lastEventId) {
+	if (lastEventId == null) {
+	    return TransferFeed.LIVE;
+	}
+	String prefix = EPOCH + '-';
+	try {
+	    long id = !lastEventId.startsWith(prefix) ? -1L
+		    : Long.parseLong(lastEventId.substring(prefix.length()),
+			    36);
+	    return id >= 0L ? id : Long.MAX_VALUE;
+	} catch (NumberFormatException ex) {
+	    return Long.MAX_VALUE;
+	}
+    }
+
+    private static Iban iban(String iban) {
+	try {
+	    return IbanParser.split(iban);
+	} catch (IllegalArgumentException ex) {
+	    throw new BadRequestException(ex.getMessage(), ex);
+	}
+    }
+
+    /*
+     * Returns a 304 response if the client already has the current version
+     * of the resource, the response rendered for this version otherwise.
+     * The variant tells apart the representations of a same resource.
+     */
+    private static Response conditional(Request request, String variant,
+	    Renderer renderer) throws IOException {
+	long version = REGISTRY.getVersion();
+	EntityTag tag = new EntityTag(
+		EPOCH + '-' + Long.toString(version, 36) + variant);
+	Date modified = new Date(REGISTRY.getLastModified());
+	Response.ResponseBuilder builder = request.evaluatePreconditions(
+		modified, tag);
+	if (builder == null) {
+	    builder = renderer.render(version);
+	}
+	CacheControl revalidate = new CacheControl();
+	revalidate.setNoCache(true);
+	return builder.tag(tag).lastModified(modified).cacheControl(revalidate)
+		.build();
+    }
+
+    private static Response.ResponseBuilder ok(ResponseCache.Entry entry) {
+	Response.ResponseBuilder builder = Response.ok(entry.getBody(),
+		MediaType.APPLICATION_JSON_TYPE);
+	if (entry.getNext() != null) {
+	    builder.link(entry.getNext(), "next");
+	}
+	return builder;
+    }
+
+    private static byte[] write(Collection<BankTransfer> transfers,
+	    boolean compact) throws IOException {
+	return (compact ? COMPACT : MAPPER.writer())
+		.writeValueAsBytes(transfers);
+    }
+
+    /*
+     * In compact mode the entity is written here, the JSON provider of
+     * Jersey not being configurable per request.
+     */
+    private static Object entity(GenericEntity<?> entity, boolean compact) {
+	if (!compact) {
+	    return entity;
+	}
+	Object value = entity.getEntity();
+	return (StreamingOutput) output -> COMPACT.writeValue(output, value);
     }
 
     private static void buildBankTransfers() {
-	BigDecimal firstAmount = BigDecimal.valueOf(1000.50);
-	BigDecimal secondAmount = BigDecimal.valueOf(2500.80);
+	Money firstAmount = Money.parse("1000.50", BankTransfer.CURRENCY);
+	Money secondAmount = Money.parse("2500.80", BankTransfer.CURRENCY);
 	LocalDateTime firstRequestDate = LocalDateTime.now();
 	LocalDateTime secondRequestDate = firstRequestDate.minusDays(2L);
 	LocalDateTime firstExecutionDate = firstRequestDate.plusDays(2L);
 	LocalDateTime secondExecutionDate = secondRequestDate.plusDays(2L);
 	Bban firstBban = new Bban("30002", "00550", "21345678936", "25");
 	Bban secondBban = new Bban("30001", "00551", "11345678936", "45");
-	Iban origin = new Iban("FR", "33", firstBban);
-	Iban destination = new Iban("GB", "44", secondBban);
+	Iban origin = IbanPool.shared().intern(new Iban("FR", "33", firstBban));
+	Iban destination = IbanPool.shared()
+		.intern(new Iban("GB", "44", secondBban));
 	BankTransfer firstTransfer = new BankTransfer(firstAmount,
 		firstRequestDate, firstExecutionDate, origin, destination);
-	TRANSFERS.add(firstTransfer);
+	REGISTRY.register(firstTransfer);
 	BankTransfer secondTransfer = new BankTransfer(secondAmount,
 		secondRequestDate, secondExecutionDate, origin, destination);
-	TRANSFERS.add(secondTransfer);
+	REGISTRY.register(secondTransfer);
+    }
+
+    /**
+     * Renders the response to a request, for a version of the registry.
+     */
+    @FunctionalInterface
+    private interface Renderer {
+
+	Response.ResponseBuilder render(long version) throws IOException;
     }
 }
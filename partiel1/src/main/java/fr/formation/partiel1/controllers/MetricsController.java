@@ -0,0 +1,75 @@
+package fr.formation.partiel1.controllers;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import javax.ws.rs.*;
+import javax.ws.rs.container.*;
+import javax.ws.rs.core.StreamingOutput;
+
+import fr.formation.partiel1.entities.*;
+import fr.formation.partiel1.metrics.Metrics;
+import fr.formation.partiel1.services.BankTransferRegistry;
+
+/**
+ * A Rest controller exposing the {@linkplain Metrics#shared() shared
+ * metrics} in the Prometheus text exposition format, to be scraped.
+ * <p>
+ * Besides the metrics of the requests recorded by {@link MetricsFilter},
+ * the number of bank transfers, the counters of the IBAN cache and the
+ * violations of the rules of the bank transfers are exposed. All of them
+ * are read when scraped, so they cost nothing in between.
+ *
+ * @author Frank MARSHALL
+ */
+@Path("metrics")
+@Produces(Metrics.MEDIA_TYPE)
+public class MetricsController {
+
+    static {
+	Metrics metrics = Metrics.shared();
+	BankTransferRegistry registry = BankTransferRegistry.getInstance();
+	metrics.gauge("partiel1_transfers", "Registered bank transfers.",
+		() -> registry.getStore().size());
+	metrics.counter("partiel1_transfers_version_total",
+		"Version of the registry, incremented by each registration.",
+		registry::getVersion);
+	IbanCache cache = IbanCache.shared();
+	metrics.gauge("partiel1_iban_cache_size", "Cached IBANs.",
+		cache::getSize);
+	metrics.counter("partiel1_iban_cache_hits_total",
+		"Lookups of a cached IBAN.", cache::getHits);
+	metrics.counter("partiel1_iban_cache_misses_total",
+		"Lookups of an IBAN not cached.", cache::getMisses);
+	metrics.counter("partiel1_iban_cache_evictions_total",
+		"IBANs evicted from the cache.", cache::getEvictions);
+	metrics.counter("partiel1_iban_cache_rejections_total",
+		"IBANs not admitted in the cache.", cache::getRejections);
+	metrics.gauge("partiel1_iban_pool_size", "Canonical IBANs.",
+		() -> IbanPool.shared().size());
+	for (Violation violation : Violation.values()) {
+	    metrics.counter("partiel1_transfer_violations_total",
+		    "Bank transfers rejected, by violated rule.",
+		    violation::getCount, "rule",
+		    violation.name().toLowerCase(Locale.ROOT));
+	}
+    }
+
+    /**
+     * Returns all the metrics.
+     *
+     * @param response
+     *            the response, resumed with the metrics in the Prometheus
+     *            text exposition format
+     */
+    @GET
+    public void metrics(@Suspended AsyncResponse response) {
+	Async.resume(response, () -> (StreamingOutput) output -> {
+	    Writer writer = new BufferedWriter(
+		    new OutputStreamWriter(output, StandardCharsets.UTF_8));
+	    Metrics.shared().write(writer);
+	    writer.flush();
+	});
+    }
+}
@@ -0,0 +1,173 @@
+package fr.formation.partiel1.controllers;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.ws.rs.container.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.*;
+
+import fr.formation.partiel1.metrics.*;
+
+/**
+ * Records the latency, the payload sizes and the status of the responses of
+ * each resource method in the {@linkplain Metrics#shared() shared metrics}.
+ * <p>
+ * The latency runs from the matching of the request to the end of the
+ * writing of the response entity, if any, so it includes the time spent
+ * waiting for an asynchronous response and serializing it. Payload sizes
+ * are the bytes of the response entities, and the lengths of the request
+ * entities when given.
+ * <p>
+ * The metrics of a resource method are looked up once; recording them is
+ * then a few lock-free increments.
+ *
+ * @author Frank MARSHALL
+ * @see MetricsController
+ */
+@Provider
+public class MetricsFilter
+	implements ContainerRequestFilter, ContainerResponseFilter,
+	WriterInterceptor {
+
+    private static final String TIMER = MetricsFilter.class.getName();
+
+    private static final ConcurrentMap<Method, Endpoint> ENDPOINTS =
+	    new ConcurrentHashMap<>();
+
+    @Context
+    private ResourceInfo resource;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+	Method method = resource.getResourceMethod();
+	if (method == null) {
+	    return;
+	}
+	Endpoint endpoint = ENDPOINTS.computeIfAbsent(method,
+		key -> new Endpoint(resource.getResourceClass().getSimpleName()
+			+ '.' + key.getName()));
+	if (request.getLength() >= 0) {
+	    endpoint.requestBytes.record(request.getLength());
+	}
+	request.setProperty(TIMER, new Timer(endpoint));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request,
+	    ContainerResponseContext response) {
+	Timer timer = (Timer) request.getProperty(TIMER);
+	if (timer == null) {
+	    return;
+	}
+	timer.endpoint.responses(response.getStatus()).increment();
+	if (!response.hasEntity()) {
+	    timer.stop();
+	}
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context)
+	    throws IOException {
+	Timer timer = (Timer) context.getProperty(TIMER);
+	if (timer == null) {
+	    context.proceed();
+	    return;
+	}
+	CountingOutputStream output = new CountingOutputStream(
+		context.getOutputStream());
+	context.setOutputStream(output);
+	try {
+	    context.proceed();
+	} finally {
+	    timer.endpoint.responseBytes.record(output.count);
+	    timer.stop();
+	}
+    }
+
+    /**
+     * The metrics of a resource method.
+     */
+    private static final class Endpoint {
+
+	private final Histogram latency;
+
+	private final Histogram requestBytes;
+
+	private final Histogram responseBytes;
+
+	// The responses by status class, 1xx to 5xx:
+	private final LongAdder[] responses = new LongAdder[5];
+
+	private Endpoint(String name) {
+	    Metrics metrics = Metrics.shared();
+	    latency = metrics.histogram("partiel1_http_request_seconds",
+		    "Latency of the requests, by resource method.",
+		    1_000_000_000L,
+		    "resource", name);
+	    requestBytes = metrics.histogram(
+		    "partiel1_http_request_size_bytes",
+		    "Size of the request entities, by resource method.", 1L,
+		    "resource", name);
+	    responseBytes = metrics.histogram(
+		    "partiel1_http_response_size_bytes",
+		    "Size of the response entities, by resource method.", 1L,
+		    "resource", name);
+	    for (int i = 0; i < responses.length; i++) {
+		responses[i] = metrics.counter("partiel1_http_responses_total",
+			"Responses, by resource method and status class.",
+			"resource", name, "code", (i + 1) + "xx");
+	    }
+	}
+
+	private LongAdder responses(int status) {
+	    int index = status / 100 - 1;
+	    return responses[Math.max(0, Math.min(index, 4))];
+	}
+    }
+
+    /**
+     * The timing of a request.
+     */
+    private static final class Timer {
+
+	private final Endpoint endpoint;
+
+	private final long start = System.nanoTime();
+
+	private Timer(Endpoint endpoint) {
+	    this.endpoint = endpoint;
+	}
+
+	private void stop() {
+	    endpoint.latency.record(Math.max(0L, System.nanoTime() - start));
+	}
+    }
+
+    /**
+     * Counts the bytes written through it.
+     */
+    private static final class CountingOutputStream
+	    extends FilterOutputStream {
+
+	private long count;
+
+	private CountingOutputStream(OutputStream output) {
+	    super(output);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+	    out.write(b);
+	    count++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+	    out.write(b, off, len);
+	    count += len;
+	}
+    }
+}
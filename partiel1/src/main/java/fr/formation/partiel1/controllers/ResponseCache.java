@@ -0,0 +1,143 @@
+package fr.formation.partiel1.controllers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.*;
+
+/**
+ * A cache of serialized responses, invalidated as a whole when the version
+ * of the data they were rendered from changes.
+ * <p>
+ * Responses are cached for the most recent version only: caching a response
+ * of a newer version drops all the cached ones, and responses of an older
+ * version are never cached. Once the cache is full, new responses are not
+ * cached until the next version.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ */
+final class ResponseCache {
+
+    private final ConcurrentMap<String, Entry> entries =
+	    new ConcurrentHashMap<>();
+
+    private final int capacity;
+
+    // The version of the cached entries:
+    private long version = Long.MIN_VALUE;
+
+    /**
+     * Creates a new {@code ResponseCache} with given capacity.
+     *
+     * @param capacity
+     *            the maximum number of cached responses
+     * @throws IllegalArgumentException
+     *             if {@code capacity} is not positive
+     */
+    ResponseCache(int capacity) {
+	if (capacity <= 0) {
+	    throw new IllegalArgumentException("capacity must be positive");
+	}
+	this.capacity = capacity;
+    }
+
+    /**
+     * Returns the response cached with given key for given version, rendering
+     * and caching it if needed.
+     *
+     * @param key
+     *            the key of the response
+     * @param version
+     *            the current version of the data
+     * @param renderer
+     *            the rendering of the response, from data at least as recent
+     *            as {@code version}
+     * @return the response; never {@code null}
+     * @throws IOException
+     *             if the response cannot be rendered
+     */
+    Entry get(String key, long version, Renderer renderer)
+	    throws IOException {
+	Entry entry = entries.get(key);
+	if (entry != null && entry.version == version) {
+	    return entry;
+	}
+	return put(key, renderer.render());
+    }
+
+    private synchronized Entry put(String key, Entry entry) {
+	if (entry.version < version) {
+	    return entry;
+	}
+	if (entry.version > version) {
+	    entries.clear();
+	    version = entry.version;
+	}
+	if (entries.size() < capacity) {
+	    entries.put(key, entry);
+	}
+	return entry;
+    }
+
+    /**
+     * Returns the number of cached responses.
+     *
+     * @return the number of cached responses
+     */
+    int size() {
+	return entries.size();
+    }
+
+    /**
+     * Renders a response.
+     */
+    @FunctionalInterface
+    interface Renderer {
+
+	/**
+	 * Renders the response.
+	 *
+	 * @return the response; never {@code null}
+	 * @throws IOException
+	 *             if the response cannot be rendered
+	 */
+	Entry render() throws IOException;
+    }
+
+    /**
+     * A serialized response, with the link to its next page, if any.
+     */
+    static final class Entry {
+
+	private final long version;
+
+	private final byte[] body;
+
+	private final URI next;
+
+	/**
+	 * Creates a new {@code Entry}.
+	 *
+	 * @param version
+	 *            the version of the data the response was rendered from
+	 * @param body
+	 *            the serialized body
+	 * @param next
+	 *            the URI of the next page; {@code null} if none
+	 */
+	Entry(long version, byte[] body, URI next) {
+	    this.version = version;
+	    this.body = body;
+	    this.next = next;
+	}
+
+	byte[] getBody() {
+	    return body;
+	}
+
+	URI getNext() {
+	    return next;
+	}
+    }
+}
@@ -1,11 +1,11 @@
 package fr.formation.partiel1.entities;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Objects;
+import java.util.*;
 
-import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.databind.annotation.*;
+
+import fr.formation.partiel1.json.*;
 
 /**
  * Represents a bank transfer. A bank transfer is the transfer of an amount of
@@ -16,20 +16,26 @@ import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
  * <li>All the properties are guaranteed not {@code null} but the execution date
  * <li>If the execution date is not {@code null}, it's guaranteed to be at least
  * 24 hours after the request date
- * <li>The amount is guaranteed to be positive
+ * <li>The amount is guaranteed to be positive, in {@linkplain #CURRENCY euros}
  * <li>The accounts (IBANs) are guaranteed not equal
  * </ul>
  *
  * @author Frank MARSHALL
  */
+@JsonSerialize(using = BankTransferSerializer.class)
+@JsonDeserialize(using = BankTransferDeserializer.class)
 public class BankTransfer {
 
-    private BigDecimal amount;
+    /**
+     * The currency of the bank transfers, between accounts of the French RIB
+     * layout.
+     */
+    public static final Currency CURRENCY = Currency.getInstance("EUR");
+
+    private Money amount;
 
-    @JsonSerialize(using = ToStringSerializer.class)
     private LocalDateTime requestDate;
 
-    @JsonSerialize(using = ToStringSerializer.class)
     private LocalDateTime executionDate;
 
     private Iban origin;
@@ -57,29 +63,87 @@ public class BankTransfer {
      *             if {@code executionDate} is not {@code null} and not at least
      *             24h after {@code requestDate}
      * @throws IllegalArgumentException
-     *             if {@code amount} is not positive
+     *             if {@code amount} is not positive or not in
+     *             {@linkplain #CURRENCY euros}
      * @throws IllegalArgumentException
      *             if {@code origin} and {@code destination} are equal
      * @see Iban#equals(Object)
+     * @see Violation
      */
-    public BankTransfer(BigDecimal amount, LocalDateTime requestDate,
+    public BankTransfer(Money amount, LocalDateTime requestDate,
 	    LocalDateTime executionDate, Iban origin, Iban destination) {
-	checkDates(requestDate, executionDate);
-	checkAccounts(origin, destination);
-	setAmount(amount);
+	try {
+	    checkDates(requestDate, executionDate);
+	    checkAccounts(origin, destination);
+	    setAmount(amount);
+	} catch (NullPointerException ex) {
+	    Violation.MISSING_PROPERTY.record();
+	    throw ex;
+	}
 	setRequestDate(requestDate);
 	setExecutionDate(executionDate);
 	setOrigin(origin);
 	setDestination(destination);
     }
 
+    /**
+     * Indicates whether or not given amount is valid for a bank transfer.
+     * <p>
+     * Unlike the constructor, this method does not throw any exception and
+     * is meant to validate many bank transfers at once.
+     *
+     * @param amount
+     *            an amount
+     * @return {@code true} if {@code amount} is not {@code null}, positive
+     *         and in {@linkplain #CURRENCY euros}; {@code false} otherwise
+     */
+    public static boolean isValidAmount(Money amount) {
+	return amount != null && amount.signum() > 0
+		&& CURRENCY.equals(amount.getCurrency());
+    }
+
+    /**
+     * Indicates whether or not given dates are valid for a bank transfer.
+     *
+     * @param requestDate
+     *            a request date
+     * @param executionDate
+     *            an execution date; may be {@code null}
+     * @return {@code true} if {@code requestDate} is not {@code null} and
+     *         {@code executionDate} is {@code null} or at least 24h after
+     *         {@code requestDate}; {@code false} otherwise
+     * @see #isValidAmount(Money)
+     */
+    public static boolean areValidDates(LocalDateTime requestDate,
+	    LocalDateTime executionDate) {
+	return requestDate != null && (executionDate == null
+		|| !executionDate.isBefore(requestDate.plusHours(24L)));
+    }
+
+    /**
+     * Indicates whether or not given accounts are valid for a bank transfer.
+     *
+     * @param origin
+     *            an origin account
+     * @param destination
+     *            a destination account
+     * @return {@code true} if the accounts are not {@code null} and not
+     *         equal; {@code false} otherwise
+     * @see #isValidAmount(Money)
+     * @see Iban#equals(Object)
+     */
+    public static boolean areValidAccounts(Iban origin, Iban destination) {
+	return origin != null && destination != null
+		&& !origin.equals(destination);
+    }
+
     private static void checkDates(LocalDateTime request,
 	    LocalDateTime execution) {
 	if (execution != null) {
 	    // Null pointer exception if request is null:
 	    LocalDateTime floor = request.plusHours(24L);
 	    if (execution.isBefore(floor)) {
-		throw new IllegalArgumentException(
+		throw violated(Violation.DATES,
 			"execution date must be at least 24h after request date");
 	    }
 	} else { // Check only request
@@ -92,23 +156,33 @@ public class BankTransfer {
 		"destination account must not be null");
 	// Null pointer exception if origin is null:
 	if (origin.equals(destination)) {
-	    throw new IllegalArgumentException("accounts must not be equal");
+	    throw violated(Violation.ACCOUNTS, "accounts must not be equal");
 	}
     }
 
+    private static IllegalArgumentException violated(Violation violation,
+	    String message) {
+	violation.record();
+	return new IllegalArgumentException(message);
+    }
+
     /**
      * Returns the amount for this {@code transfer}.
      *
      * @return the amount for this {@code transfer}; nerver {@code null}
      */
-    public BigDecimal getAmount() {
+    public Money getAmount() {
 	return amount;
     }
 
-    private void setAmount(BigDecimal amount) {
+    private void setAmount(Money amount) {
 	// Null pointer exception if amount is null:
-	if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-	    throw new IllegalArgumentException("amount must be positive");
+	if (amount.signum() <= 0) {
+	    throw violated(Violation.AMOUNT, "amount must be positive");
+	}
+	if (!CURRENCY.equals(amount.getCurrency())) {
+	    throw violated(Violation.AMOUNT,
+		    "amount must be in " + CURRENCY + ": " + amount);
 	}
 	this.amount = amount;
     }
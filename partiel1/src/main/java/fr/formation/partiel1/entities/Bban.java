@@ -2,6 +2,10 @@ package fr.formation.partiel1.entities;
 
 import java.util.Objects;
 
+import com.fasterxml.jackson.databind.annotation.*;
+
+import fr.formation.partiel1.json.*;
+
 /**
  * This class represents a Basic Bank Account Number.
  * <p>
@@ -13,6 +17,8 @@ import java.util.Objects;
  *
  * @author Frank MARSHALL
  */
+@JsonSerialize(using = BbanSerializer.class)
+@JsonDeserialize(using = BbanDeserializer.class)
 public class Bban {
 
     private String bank;
@@ -134,13 +140,14 @@ public class Bban {
     /**
      * Returns a hash code fot his {@code bban}.
      * <p>
-     * The implementation is consistent with {@code equals}.
+     * The implementation is consistent with {@code equals} and does not
+     * allocate.
      *
      * @return a hash code value
      */
     @Override
     public int hashCode() {
-	return Objects.hash(bank, account);
+	return 31 * bank.hashCode() + account.hashCode();
     }
 
     /**
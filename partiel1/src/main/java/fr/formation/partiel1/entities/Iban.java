@@ -2,6 +2,10 @@ package fr.formation.partiel1.entities;
 
 import java.util.Objects;
 
+import com.fasterxml.jackson.databind.annotation.*;
+
+import fr.formation.partiel1.json.*;
+
 /**
  * Represents an International Bank Account Number.
  * <p>
@@ -12,6 +16,8 @@ import java.util.Objects;
  *
  * @author Frank MARSHALL
  */
+@JsonSerialize(using = IbanSerializer.class)
+@JsonDeserialize(using = IbanDeserializer.class)
 public class Iban {
 
     private String country;
@@ -107,14 +113,15 @@ public class Iban {
     /**
      * Returns a hash code fot his {@code iban}.
      * <p>
-     * The implementation is consistent with {@code equals}.
+     * The implementation is consistent with {@code equals} and does not
+     * allocate.
      *
      * @return a hash code value
      * @see Bban#hashCode()
      */
     @Override
     public int hashCode() {
-	return Objects.hash(bban);
+	return bban.hashCode();
     }
 
     /**
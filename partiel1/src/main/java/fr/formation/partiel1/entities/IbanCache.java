@@ -0,0 +1,332 @@
+package fr.formation.partiel1.entities;
+
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A bounded cache of parsed IBANs, keyed by their text.
+ * <p>
+ * Parsing an IBAN splits it into its fields and builds new {@code Iban} and
+ * {@code Bban} instances; the same few thousand accounts being seen over
+ * and over, the canonical instances are cached instead. IBANs are split as
+ * by the lookups of the application, without checking their keys, so that
+ * any IBAN the application stores and serves can be read back.
+ * <p>
+ * Hits never lock: an entry is only flagged as recently used. Once the
+ * cache is full, a missed IBAN is cached in place of a victim chosen by a
+ * CLOCK sweep over the entries, an approximation of LRU, but only if it is
+ * admitted: TinyLFU admission compares the estimated frequencies of the
+ * IBAN and of the victim, so that IBANs seen once never evict frequent ones.
+ * Frequencies are estimated by a count-min sketch of 4-bit counters, halved
+ * periodically so that they age.
+ * <p>
+ * Malformed IBANs, too short or too long, are never cached; IBANs with
+ * wrong keys are. This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ * @see IbanParser#split(CharSequence)
+ * @see IbanPool
+ */
+public class IbanCache {
+
+    /**
+     * The name of the system property giving the capacity of the shared
+     * cache.
+     */
+    public static final String CAPACITY_PROPERTY =
+	    "partiel1.ibanCache.capacity";
+
+    private static final int DEFAULT_CAPACITY = 16_384;
+
+    private static final IbanCache SHARED = new IbanCache(
+	    Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+
+    private final ConcurrentMap<String, Node> nodes =
+	    new ConcurrentHashMap<>();
+
+    // The entries, in CLOCK order, guarded by this cache:
+    private final Node[] clock;
+
+    private int size;
+
+    private int hand;
+
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * Creates a new {@code IbanCache} with given capacity.
+     *
+     * @param capacity
+     *            the maximum number of cached IBANs
+     * @throws IllegalArgumentException
+     *             if {@code capacity} is not positive
+     */
+    public IbanCache(int capacity) {
+	if (capacity <= 0) {
+	    throw new IllegalArgumentException("capacity must be positive");
+	}
+	clock = new Node[capacity];
+	sketch = new FrequencySketch(capacity);
+    }
+
+    /**
+     * Returns the cache shared by the application, whose capacity is given
+     * by the {@value #CAPACITY_PROPERTY} system property.
+     *
+     * @return the shared cache; never {@code null}
+     */
+    public static IbanCache shared() {
+	return SHARED;
+    }
+
+    /**
+     * Returns the IBAN of given text, parsed and canonicalized through the
+     * {@linkplain IbanPool#shared() shared pool} on a miss.
+     *
+     * @param iban
+     *            an IBAN, in electronic or paper format
+     * @return the canonical {@code Iban}; never {@code null}
+     * @throws NullPointerException
+     *             if {@code iban} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code iban} is too short or too long
+     * @see IbanParser#split(CharSequence)
+     */
+    public Iban get(String iban) {
+	Objects.requireNonNull(iban, "iban must not be null");
+	int hash = iban.hashCode();
+	sketch.increment(hash);
+	Node node = nodes.get(iban);
+	if (node != null) {
+	    node.referenced = true;
+	    hits.increment();
+	    return node.iban;
+	}
+	misses.increment();
+	Iban parsed = IbanPool.shared().intern(IbanParser.split(iban));
+	admit(new Node(iban, parsed, hash));
+	return parsed;
+    }
+
+    private synchronized void admit(Node node) {
+	if (nodes.containsKey(node.key)) { // Cached by another thread
+	    return;
+	}
+	if (size < clock.length) {
+	    clock[size++] = node;
+	    nodes.put(node.key, node);
+	    return;
+	}
+	// Sweeps the recently used entries, giving them a second chance:
+	Node victim;
+	while ((victim = clock[hand]).referenced) {
+	    victim.referenced = false;
+	    hand = (hand + 1) % clock.length;
+	}
+	if (sketch.frequency(node.hash) <= sketch.frequency(victim.hash)) {
+	    rejections.increment();
+	    return;
+	}
+	nodes.remove(victim.key);
+	clock[hand] = node;
+	nodes.put(node.key, node);
+	hand = (hand + 1) % clock.length;
+	evictions.increment();
+    }
+
+    /**
+     * Returns the maximum number of cached IBANs.
+     *
+     * @return the capacity of this {@code cache}
+     */
+    public int getCapacity() {
+	return clock.length;
+    }
+
+    /**
+     * Returns the number of cached IBANs.
+     *
+     * @return the number of cached IBANs
+     */
+    public int getSize() {
+	return nodes.size();
+    }
+
+    /**
+     * Returns the number of lookups of a cached IBAN.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+	return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups of an IBAN not cached, malformed or
+     * not. The keys of the IBANs are never checked.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+	return misses.sum();
+    }
+
+    /**
+     * Returns the number of IBANs evicted to cache more frequent ones.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+	return evictions.sum();
+    }
+
+    /**
+     * Returns the number of parsed IBANs not cached, being less frequent
+     * than the IBAN they would have evicted. Only malformed IBANs are not
+     * parsed; their keys are not checked.
+     *
+     * @return the number of rejections
+     */
+    public long getRejections() {
+	return rejections.sum();
+    }
+
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append("{capacity=");
+	builder.append(getCapacity());
+	builder.append(", size=");
+	builder.append(getSize());
+	builder.append(", hits=");
+	builder.append(getHits());
+	builder.append(", misses=");
+	builder.append(getMisses());
+	builder.append(", evictions=");
+	builder.append(getEvictions());
+	builder.append(", rejections=");
+	builder.append(getRejections());
+	builder.append("}");
+	return builder.toString();
+    }
+
+    /**
+     * A cached IBAN.
+     */
+    private static final class Node {
+
+	private final String key;
+
+	private final Iban iban;
+
+	private final int hash;
+
+	// Set on each hit, cleared by the CLOCK sweep:
+	private volatile boolean referenced;
+
+	private Node(String key, Iban iban, int hash) {
+	    this.key = key;
+	    this.iban = iban;
+	    this.hash = hash;
+	}
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters, 16 per {@code long}, estimating
+     * the frequencies of the hashes over a sliding sample.
+     * <p>
+     * Each hash is counted in 4 counters, one per row; its frequency is the
+     * minimum of them. Once the sample reaches 10 times the capacity of the
+     * cache, all the counters are halved.
+     */
+    static final class FrequencySketch {
+
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L,
+		0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+	private static final long HALF_MASK = 0x7777777777777777L;
+
+	private final AtomicLongArray table;
+
+	private final int mask;
+
+	private final int sampleSize;
+
+	private final AtomicInteger samples = new AtomicInteger();
+
+	FrequencySketch(int capacity) {
+	    int length = Integer.highestOneBit(Math.max(capacity, 16) - 1)
+		    << 1;
+	    table = new AtomicLongArray(length);
+	    mask = length - 1;
+	    sampleSize = capacity > Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE
+		    : capacity * 10;
+	}
+
+	void increment(int hash) {
+	    boolean added = false;
+	    for (int row = 0; row < SEEDS.length; row++) {
+		added |= increment(index(hash, row), offset(hash, row));
+	    }
+	    if (added && samples.incrementAndGet() == sampleSize) {
+		reset();
+	    }
+	}
+
+	private boolean increment(int index, int offset) {
+	    long mask = 0xFL << offset;
+	    long value;
+	    do {
+		value = table.get(index);
+		if ((value & mask) == mask) { // Saturated
+		    return false;
+		}
+	    } while (!table.compareAndSet(index, value,
+		    value + (1L << offset)));
+	    return true;
+	}
+
+	int frequency(int hash) {
+	    int frequency = Integer.MAX_VALUE;
+	    for (int row = 0; row < SEEDS.length; row++) {
+		int count = (int) (table.get(index(hash, row)) >>> offset(
+			hash, row)) & 0xF;
+		frequency = Math.min(frequency, count);
+	    }
+	    return frequency;
+	}
+
+	private void reset() {
+	    for (int i = 0; i < table.length(); i++) {
+		long value;
+		do {
+		    value = table.get(i);
+		} while (!table.compareAndSet(i, value,
+			(value >>> 1) & HALF_MASK));
+	    }
+	    samples.set(sampleSize / 2);
+	}
+
+	private int index(int hash, int row) {
+	    long spread = (hash + SEEDS[row]) * SEEDS[row];
+	    return (int) (spread >>> 32) & mask;
+	}
+
+	/*
+	 * The counter of each row is chosen among the 16 of the long by 4
+	 * bits of the hash.
+	 */
+	private static int offset(int hash, int row) {
+	    return ((hash >>> (row << 2)) & 0xF) << 2;
+	}
+    }
+}
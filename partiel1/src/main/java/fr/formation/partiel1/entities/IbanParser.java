@@ -0,0 +1,465 @@
+package fr.formation.partiel1.entities;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntConsumer;
+
+/**
+ * Parses and validates International Bank Account Numbers, in electronic
+ * ({@code FR7630006000011234567890189}) or paper
+ * ({@code FR76 3000 6000 0112 3456 7890 189}) format.
+ * <p>
+ * Validation checks the structure and the ISO 13616 check digits, computing
+ * the mod-97 remainder digit by digit over the characters in place: it does
+ * not allocate, neither substrings nor {@code BigInteger}. For the countries
+ * using the French RIB layout, the RIB key of the BBAN is verified the same
+ * way.
+ * <p>
+ * Only uppercase letters are accepted.
+ * <p>
+ * The application itself does not check the IBANs it registers or looks
+ * up, some accounts of its data having wrong keys: it reads them with
+ * {@link #split(CharSequence)}. The other methods serve the callers which
+ * do need a checked IBAN.
+ *
+ * @author Frank MARSHALL
+ */
+public final class IbanParser {
+
+    private static final int MIN_LENGTH = 15;
+
+    private static final int MAX_LENGTH = 34;
+
+    private static final int RIB_LENGTH = 27;
+
+    private static final int BANK_LENGTH = 5;
+
+    private static final int COUNTER_LENGTH = 5;
+
+    private static final int ACCOUNT_LENGTH = 11;
+
+    private static final int BBAN_KEY_LENGTH = 2;
+
+    /*
+     * Remainders are reduced once above this bound, so that appending two
+     * more digits to a remainder below it never overflows a long.
+     */
+    private static final long REDUCE_BOUND = 10_000_000_000_000_000L;
+
+    /*
+     * Countries using the French RIB layout: bank code (5 digits), counter
+     * code (5 digits), account number (11 characters) and RIB key (2 digits).
+     */
+    private static final String[] RIB_COUNTRIES = { "FR", "GF", "GP", "MC",
+	    "MQ", "NC", "PF", "PM", "RE", "TF", "WF", "YT" };
+
+    private IbanParser() {
+	// Static methods only
+    }
+
+    /**
+     * Indicates whether or not given IBAN, in electronic or paper format, is
+     * valid.
+     * <p>
+     * An IBAN is valid if it has between 15 and 34 characters, starts with a
+     * two letters country code and two check digits, followed by letters and
+     * digits only; and if its check digits are verified. For the countries
+     * using the French RIB layout, the IBAN must have 27 characters and the
+     * RIB key must be verified.
+     *
+     * @param iban
+     *            an IBAN, spaces are ignored
+     * @return {@code true} if {@code iban} is valid; {@code false} otherwise
+     * @throws NullPointerException
+     *             if {@code iban} is {@code null}
+     */
+    public static boolean isValid(CharSequence iban) {
+	return isValid(iban, 0, iban.length());
+    }
+
+    /**
+     * Indicates whether or not given ASCII encoded IBAN, in electronic or
+     * paper format, is valid.
+     *
+     * @param ascii
+     *            an array containing the ASCII encoded IBAN
+     * @param offset
+     *            the offset of the IBAN in {@code ascii}
+     * @param length
+     *            the length of the IBAN
+     * @return {@code true} if the IBAN is valid; {@code false} otherwise
+     * @throws NullPointerException
+     *             if {@code ascii} is {@code null}
+     * @throws IndexOutOfBoundsException
+     *             if {@code offset} or {@code length} are out of the bounds
+     *             of {@code ascii}
+     * @see #isValid(CharSequence)
+     */
+    public static boolean isValid(byte[] ascii, int offset, int length) {
+	checkBounds(ascii, offset, length);
+	return isValid(new Ascii(ascii), offset, offset + length);
+    }
+
+    /**
+     * Validates the ASCII encoded IBANs of given buffer, one per line.
+     * <p>
+     * Lines are separated by {@code '\n'}, an optional trailing {@code '\r'}
+     * is ignored as well as blank lines. This method does not allocate per
+     * line and is meant to validate large files of IBANs.
+     *
+     * @param ascii
+     *            an array containing the ASCII encoded IBANs
+     * @param offset
+     *            the offset of the first line in {@code ascii}
+     * @param length
+     *            the length of the lines
+     * @param invalidLines
+     *            an optional consumer of the indexes, zero based, of the
+     *            invalid lines; may be {@code null}
+     * @return the number of valid IBANs
+     * @throws NullPointerException
+     *             if {@code ascii} is {@code null}
+     * @throws IndexOutOfBoundsException
+     *             if {@code offset} or {@code length} are out of the bounds
+     *             of {@code ascii}
+     * @see #isValid(CharSequence)
+     */
+    public static int validateLines(byte[] ascii, int offset, int length,
+	    IntConsumer invalidLines) {
+	checkBounds(ascii, offset, length);
+	Ascii chars = new Ascii(ascii);
+	int end = offset + length;
+	int valid = 0;
+	int line = 0;
+	int start = offset;
+	while (start < end) {
+	    int stop = start;
+	    while (stop < end && ascii[stop] != '\n') {
+		stop++;
+	    }
+	    int last = stop;
+	    if (last > start && ascii[last - 1] == '\r') {
+		last--;
+	    }
+	    if (significantLength(chars, start, last) > 0) {
+		if (isValid(chars, start, last)) {
+		    valid++;
+		} else if (invalidLines != null) {
+		    invalidLines.accept(line);
+		}
+	    }
+	    line++;
+	    start = stop + 1;
+	}
+	return valid;
+    }
+
+    /**
+     * Parses given IBAN, in electronic or paper format.
+     * <p>
+     * Only the countries using the French RIB layout are supported, as
+     * {@link Bban} splits the BBAN into a bank code, a counter code, an
+     * account number and a key.
+     *
+     * @param iban
+     *            an IBAN, spaces are ignored
+     * @return a new {@code Iban}; never {@code null}
+     * @throws NullPointerException
+     *             if {@code iban} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code iban} is not valid or its country does not use
+     *             the French RIB layout
+     * @see #isValid(CharSequence)
+     */
+    public static Iban parse(CharSequence iban) {
+	if (!isValid(iban)) {
+	    throw new IllegalArgumentException("invalid IBAN: " + iban);
+	}
+	char[] chars = new char[RIB_LENGTH];
+	if (significantLength(iban, 0, iban.length()) != RIB_LENGTH) {
+	    throw new IllegalArgumentException(
+		    "unsupported BBAN layout: " + iban);
+	}
+	for (int i = 0, j = 0; i < iban.length(); i++) {
+	    char c = iban.charAt(i);
+	    if (c != ' ') {
+		chars[j++] = c;
+	    }
+	}
+	if (!isRibCountry(chars[0], chars[1])) {
+	    throw new IllegalArgumentException(
+		    "unsupported BBAN layout: " + iban);
+	}
+	int index = 4;
+	String bank = new String(chars, index, BANK_LENGTH);
+	index += BANK_LENGTH;
+	String counter = new String(chars, index, COUNTER_LENGTH);
+	index += COUNTER_LENGTH;
+	String account = new String(chars, index, ACCOUNT_LENGTH);
+	index += ACCOUNT_LENGTH;
+	String key = new String(chars, index, BBAN_KEY_LENGTH);
+	return new Iban(new String(chars, 0, 2), new String(chars, 2, 2),
+		new Bban(bank, counter, account, key));
+    }
+
+    /**
+     * Splits given IBAN, in electronic or paper format, into the fields of
+     * an {@code Iban} without checking it.
+     * <p>
+     * The IBAN is read as the concatenation of the fields: a country code,
+     * an IBAN key, a bank code and a counter code of 5 characters, an
+     * account number of at most 11 characters and a BBAN key of 2
+     * characters. Unlike {@link #parse(CharSequence)}, any country is
+     * accepted and neither key is checked, so that any stored IBAN can be
+     * looked up.
+     *
+     * @param iban
+     *            an IBAN, spaces are ignored
+     * @return a new {@code Iban}; never {@code null}
+     * @throws NullPointerException
+     *             if {@code iban} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code iban} is too short or too long
+     */
+    public static Iban split(CharSequence iban) {
+	int length = significantLength(iban, 0, iban.length());
+	if (length <= RIB_LENGTH - ACCOUNT_LENGTH || length > RIB_LENGTH) {
+	    throw new IllegalArgumentException("invalid IBAN length: " + iban);
+	}
+	char[] chars = new char[length];
+	for (int i = 0, j = 0; i < iban.length(); i++) {
+	    char c = iban.charAt(i);
+	    if (c != ' ') {
+		chars[j++] = c;
+	    }
+	}
+	int index = 4;
+	String bank = new String(chars, index, BANK_LENGTH);
+	index += BANK_LENGTH;
+	String counter = new String(chars, index, COUNTER_LENGTH);
+	index += COUNTER_LENGTH;
+	int accountLength = length - index - BBAN_KEY_LENGTH;
+	String account = new String(chars, index, accountLength);
+	index += accountLength;
+	String key = new String(chars, index, BBAN_KEY_LENGTH);
+	return new Iban(new String(chars, 0, 2), new String(chars, 2, 2),
+		new Bban(bank, counter, account, key));
+    }
+
+    /**
+     * Indicates whether or not given French BBAN (RIB) has a valid key.
+     * <p>
+     * A RIB is made of a bank code (5 digits), a counter code (5 digits), an
+     * account number (11 letters or digits) and a key (2 digits). Letters of
+     * the account number are converted to digits as specified by the French
+     * banking standard.
+     *
+     * @param bban
+     *            a French BBAN, spaces are ignored
+     * @return {@code true} if {@code bban} is a RIB with a valid key;
+     *         {@code false} otherwise
+     * @throws NullPointerException
+     *             if {@code bban} is {@code null}
+     */
+    public static boolean isValidRib(CharSequence bban) {
+	int length = bban.length();
+	return significantLength(bban, 0, length) == RIB_LENGTH - 4
+		&& isValidRib(bban, 0, length);
+    }
+
+    private static boolean isValid(CharSequence iban, int start, int end) {
+	int length = significantLength(iban, start, end);
+	if (length < MIN_LENGTH || length > MAX_LENGTH) {
+	    return false;
+	}
+	// Country code, check digits and BBAN, ignoring spaces:
+	int index = skipSpaces(iban, start, end);
+	char first = iban.charAt(index);
+	index = skipSpaces(iban, index + 1, end);
+	char second = iban.charAt(index);
+	if (!isLetter(first) || !isLetter(second)) {
+	    return false;
+	}
+	index = skipSpaces(iban, index + 1, end);
+	char firstDigit = iban.charAt(index);
+	index = skipSpaces(iban, index + 1, end);
+	char secondDigit = iban.charAt(index);
+	if (!isDigit(firstDigit) || !isDigit(secondDigit)) {
+	    return false;
+	}
+	int checkDigits = (firstDigit - '0') * 10 + (secondDigit - '0');
+	if (checkDigits < 2 || checkDigits > 98) {
+	    return false;
+	}
+	int bban = index + 1;
+	// The country code and check digits are moved after the BBAN:
+	long remainder = 0L;
+	for (int i = bban; i < end; i++) {
+	    char c = iban.charAt(i);
+	    if (c == ' ') {
+		continue;
+	    }
+	    if (isDigit(c)) {
+		remainder = remainder * 10L + (c - '0');
+	    } else if (isLetter(c)) {
+		remainder = remainder * 100L + (c - 'A' + 10);
+	    } else {
+		return false;
+	    }
+	    if (remainder >= REDUCE_BOUND) {
+		remainder %= 97L;
+	    }
+	}
+	// Reduced, so that the 6 digits appended do not overflow:
+	remainder %= 97L;
+	remainder = remainder * 100L + (first - 'A' + 10);
+	remainder = remainder * 100L + (second - 'A' + 10);
+	remainder = remainder * 100L + checkDigits;
+	if (remainder % 97L != 1L) {
+	    return false;
+	}
+	if (isRibCountry(first, second)) {
+	    return length == RIB_LENGTH && isValidRib(iban, bban, end);
+	}
+	return true;
+    }
+
+    /*
+     * A RIB is valid if the number made of its bank code, counter code,
+     * account number and key is a multiple of 97.
+     */
+    private static boolean isValidRib(CharSequence rib, int start,
+	    int end) {
+	long remainder = 0L;
+	int position = 0;
+	for (int i = start; i < end; i++) {
+	    char c = rib.charAt(i);
+	    if (c == ' ') {
+		continue;
+	    }
+	    boolean account = position >= BANK_LENGTH + COUNTER_LENGTH
+		    && position < BANK_LENGTH + COUNTER_LENGTH
+			    + ACCOUNT_LENGTH;
+	    int digit;
+	    if (isDigit(c)) {
+		digit = c - '0';
+	    } else if (account && isLetter(c)) {
+		digit = ribDigit(c);
+	    } else {
+		return false;
+	    }
+	    remainder = remainder * 10L + digit;
+	    if (remainder >= REDUCE_BOUND) {
+		remainder %= 97L;
+	    }
+	    position++;
+	}
+	return remainder % 97L == 0L;
+    }
+
+    /*
+     * A..I, J..R and S..Z are respectively converted to 1..9, 1..9 and 2..9.
+     */
+    private static int ribDigit(char letter) {
+	int index = letter - 'A';
+	if (index >= 18) {
+	    index++;
+	}
+	return index % 9 + 1;
+    }
+
+    private static boolean isRibCountry(char first, char second) {
+	for (String country : RIB_COUNTRIES) {
+	    if (country.charAt(0) == first && country.charAt(1) == second) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    private static int significantLength(CharSequence chars, int start,
+	    int end) {
+	int length = 0;
+	for (int i = start; i < end; i++) {
+	    if (chars.charAt(i) != ' ') {
+		length++;
+	    }
+	}
+	return length;
+    }
+
+    private static int skipSpaces(CharSequence chars, int index, int end) {
+	while (index < end && chars.charAt(index) == ' ') {
+	    index++;
+	}
+	return index;
+    }
+
+    private static boolean isDigit(char c) {
+	return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+	return c >= 'A' && c <= 'Z';
+    }
+
+    private static void checkBounds(byte[] ascii, int offset, int length) {
+	if (offset < 0 || length < 0 || offset > ascii.length - length) {
+	    throw new IndexOutOfBoundsException(
+		    "offset " + offset + ", length " + length
+			    + ", array length " + ascii.length);
+	}
+    }
+
+    /**
+     * A view of a range of an ASCII encoded byte array as a char sequence,
+     * the whole array being indexed as the array itself.
+     */
+    private static final class Ascii implements CharSequence {
+
+	private final byte[] bytes;
+
+	private final int offset;
+
+	private final int length;
+
+	private Ascii(byte[] bytes) {
+	    this(bytes, 0, bytes.length);
+	}
+
+	private Ascii(byte[] bytes, int offset, int length) {
+	    this.bytes = bytes;
+	    this.offset = offset;
+	    this.length = length;
+	}
+
+	@Override
+	public int length() {
+	    return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+	    if (index < 0 || index >= length) {
+		throw new IndexOutOfBoundsException(
+			"index " + index + ", length " + length);
+	    }
+	    return (char) (bytes[offset + index] & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+	    if (start < 0 || start > end || end > length) {
+		throw new IndexOutOfBoundsException("start " + start
+			+ ", end " + end + ", length " + length);
+	    }
+	    // A view of the same bytes, not a copy:
+	    return new Ascii(bytes, offset + start, end - start);
+	}
+
+	@Override
+	public String toString() {
+	    return new String(bytes, offset, length,
+		    StandardCharsets.ISO_8859_1);
+	}
+    }
+}
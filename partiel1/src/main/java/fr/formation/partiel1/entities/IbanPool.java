@@ -0,0 +1,84 @@
+package fr.formation.partiel1.entities;
+
+import java.util.concurrent.*;
+
+/**
+ * A canonicalizing pool of IBANs, so that identical accounts share one
+ * {@code Iban} instance.
+ * <p>
+ * IBANs are pooled by their {@link PackedIban packed} form: two IBANs share
+ * the same instance only if all their codes are equal. IBANs that cannot be
+ * packed, and new IBANs once the pool is full, are returned as is.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ */
+public class IbanPool {
+
+    private static final IbanPool SHARED = new IbanPool(1_000_000);
+
+    private final ConcurrentMap<PackedIban, Iban> ibans =
+	    new ConcurrentHashMap<>();
+
+    private final int capacity;
+
+    /**
+     * Creates a new {@code IbanPool} with given capacity.
+     *
+     * @param capacity
+     *            the maximum number of IBANs in the pool
+     * @throws IllegalArgumentException
+     *             if {@code capacity} is not positive
+     */
+    public IbanPool(int capacity) {
+	if (capacity <= 0) {
+	    throw new IllegalArgumentException("capacity must be positive");
+	}
+	this.capacity = capacity;
+    }
+
+    /**
+     * Returns the pool shared by the application.
+     *
+     * @return the shared pool; never {@code null}
+     */
+    public static IbanPool shared() {
+	return SHARED;
+    }
+
+    /**
+     * Returns the canonical instance of given IBAN.
+     *
+     * @param iban
+     *            an IBAN
+     * @return the pooled IBAN with the same codes if any; {@code iban}
+     *         otherwise
+     * @throws NullPointerException
+     *             if {@code iban} is {@code null}
+     */
+    public Iban intern(Iban iban) {
+	if (!PackedIban.isPackable(iban)) {
+	    return iban;
+	}
+	PackedIban key = PackedIban.of(iban);
+	Iban pooled = ibans.get(key);
+	if (pooled != null) {
+	    return pooled;
+	}
+	if (ibans.size() >= capacity) {
+	    return iban;
+	}
+	pooled = ibans.putIfAbsent(key, iban);
+	return pooled != null ? pooled : iban;
+    }
+
+    /**
+     * Returns the number of IBANs in this {@code pool}.
+     *
+     * @return the number of IBANs
+     */
+    public int size() {
+	return ibans.size();
+    }
+}
@@ -0,0 +1,348 @@
+package fr.formation.partiel1.entities;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import fr.formation.partiel1.json.MoneySerializer;
+
+/**
+ * An amount of money in a currency, as a fixed-point number of minor units
+ * (cents for the euro).
+ * <p>
+ * The number of minor units is a {@code long}, so comparisons and
+ * arithmetic do not allocate but the result. Arithmetic is exact: an
+ * overflow throws an {@code ArithmeticException} rather than wrapping, and
+ * amounts with more decimals than their currency are rejected rather than
+ * rounded.
+ * <p>
+ * Class invariants:
+ * <ul>
+ * <li>The currency is guaranteed not {@code null} and to have minor units
+ * </ul>
+ * Two amounts are equal if they have the same currency and number of minor
+ * units, whatever their scale when parsed: {@code 1.5} and {@code 1.50}
+ * euros are equal. This class is immutable.
+ *
+ * @author Frank MARSHALL
+ */
+@JsonSerialize(using = MoneySerializer.class)
+public final class Money implements Comparable<Money> {
+
+    private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1_000L,
+	    10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L };
+
+    private final long minorUnits;
+
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+	this.minorUnits = minorUnits;
+	this.currency = currency;
+    }
+
+    /**
+     * Returns the amount of given number of minor units in given currency.
+     *
+     * @param minorUnits
+     *            a number of minor units
+     * @param currency
+     *            a currency
+     * @return a new {@code Money}; never {@code null}
+     * @throws NullPointerException
+     *             if {@code currency} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code currency} has no minor units, as pseudo-currencies
+     */
+    public static Money ofMinor(long minorUnits, Currency currency) {
+	checkScale(currency);
+	return new Money(minorUnits, currency);
+    }
+
+    /**
+     * Returns the amount of given decimal in given currency.
+     *
+     * @param amount
+     *            a decimal amount
+     * @param currency
+     *            a currency
+     * @return a new {@code Money}; never {@code null}
+     * @throws NullPointerException
+     *             if any of the argument is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code amount} has more decimals than {@code currency}
+     *             or is out of range, or if {@code currency} has no minor
+     *             units
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+	int scale = checkScale(currency);
+	try {
+	    return new Money(amount.movePointRight(scale).longValueExact(),
+		    currency);
+	} catch (ArithmeticException ex) { // Fraction of minor unit, overflow
+	    throw new IllegalArgumentException("amount must have at most "
+		    + scale + " decimals and fit in range: " + amount, ex);
+	}
+    }
+
+    /**
+     * Returns the amount of given decimal text in given currency.
+     * <p>
+     * Plain decimals, such as {@code "1000.50"}, are parsed without
+     * allocating; other forms accepted by {@link BigDecimal#BigDecimal(String)}
+     * are parsed through it.
+     *
+     * @param text
+     *            a decimal amount
+     * @param currency
+     *            a currency
+     * @return a new {@code Money}; never {@code null}
+     * @throws NullPointerException
+     *             if any of the argument is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code text} is not a decimal, has more decimals than
+     *             {@code currency} or is out of range, or if {@code currency}
+     *             has no minor units
+     */
+    public static Money parse(CharSequence text, Currency currency) {
+	int scale = checkScale(currency);
+	int length = text.length();
+	int index = 0;
+	boolean negative = false;
+	if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+	    negative = text.charAt(0) == '-';
+	    index++;
+	}
+	// Accumulated negated, so that Long.MIN_VALUE fits:
+	long value = 0L;
+	int decimals = -1; // No decimal point yet
+	boolean digits = false;
+	boolean inexact = false;
+	try {
+	    for (; index < length; index++) {
+		char c = text.charAt(index);
+		if (c >= '0' && c <= '9') {
+		    digits = true;
+		    if (decimals >= scale) {
+			// Beyond the minor units, only zeros are dropped:
+			inexact |= c != '0';
+			continue;
+		    }
+		    value = Math.subtractExact(Math.multiplyExact(value, 10L),
+			    c - '0');
+		    if (decimals >= 0) {
+			decimals++;
+		    }
+		} else if (c == '.' && decimals < 0) {
+		    decimals = 0;
+		} else { // Exponent, or malformed
+		    return of(new BigDecimal(text.toString()), currency);
+		}
+	    }
+	    if (!digits) {
+		throw new IllegalArgumentException("malformed amount: " + text);
+	    }
+	    if (inexact) {
+		throw new IllegalArgumentException("amount must have at most "
+			+ scale + " decimals: " + text);
+	    }
+	    value = Math.multiplyExact(value,
+		    POWERS_OF_TEN[scale - Math.max(decimals, 0)]);
+	    if (!negative) {
+		value = Math.negateExact(value);
+	    }
+	} catch (ArithmeticException ex) {
+	    throw new IllegalArgumentException("amount out of range: " + text,
+		    ex);
+	}
+	return new Money(value, currency);
+    }
+
+    /*
+     * Returns the number of decimals of given currency.
+     */
+    private static int checkScale(Currency currency) {
+	int scale = currency.getDefaultFractionDigits();
+	if (scale < 0 || scale >= POWERS_OF_TEN.length) {
+	    throw new IllegalArgumentException(
+		    "currency must have minor units: " + currency);
+	}
+	return scale;
+    }
+
+    /**
+     * Returns the number of minor units of this {@code money}.
+     *
+     * @return the number of minor units
+     */
+    public long getMinorUnits() {
+	return minorUnits;
+    }
+
+    /**
+     * Returns the currency of this {@code money}.
+     *
+     * @return the currency; never {@code null}
+     */
+    public Currency getCurrency() {
+	return currency;
+    }
+
+    /**
+     * Returns the number of decimals of this {@code money}, the one of its
+     * currency.
+     *
+     * @return the number of decimals
+     * @see Currency#getDefaultFractionDigits()
+     */
+    public int getScale() {
+	return currency.getDefaultFractionDigits();
+    }
+
+    /**
+     * Returns the signum of this {@code money}.
+     *
+     * @return -1, 0 or 1 as this {@code money} is negative, zero or positive
+     */
+    public int signum() {
+	return Long.signum(minorUnits);
+    }
+
+    /**
+     * Returns the sum of this {@code money} and given amount.
+     *
+     * @param other
+     *            an amount in the same currency
+     * @return the sum; never {@code null}
+     * @throws NullPointerException
+     *             if {@code other} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code other} is in another currency
+     * @throws ArithmeticException
+     *             if the sum overflows
+     */
+    public Money plus(Money other) {
+	checkCurrency(other);
+	return new Money(Math.addExact(minorUnits, other.minorUnits),
+		currency);
+    }
+
+    /**
+     * Returns the difference of this {@code money} and given amount.
+     *
+     * @param other
+     *            an amount in the same currency
+     * @return the difference; never {@code null}
+     * @throws NullPointerException
+     *             if {@code other} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code other} is in another currency
+     * @throws ArithmeticException
+     *             if the difference overflows
+     */
+    public Money minus(Money other) {
+	checkCurrency(other);
+	return new Money(Math.subtractExact(minorUnits, other.minorUnits),
+		currency);
+    }
+
+    /**
+     * Returns the product of this {@code money} and given factor.
+     *
+     * @param factor
+     *            a factor
+     * @return the product; never {@code null}
+     * @throws ArithmeticException
+     *             if the product overflows
+     */
+    public Money times(long factor) {
+	return new Money(Math.multiplyExact(minorUnits, factor), currency);
+    }
+
+    private void checkCurrency(Money other) {
+	// Null pointer exception if other is null:
+	if (!currency.equals(other.currency)) {
+	    throw new IllegalArgumentException("currencies must be equal: "
+		    + currency + ", " + other.currency);
+	}
+    }
+
+    /**
+     * Compares this {@code money} with given amount.
+     *
+     * @param other
+     *            an amount in the same currency
+     * @return a negative integer, zero, or a positive integer as this
+     *         {@code money} is less than, equal to, or greater than
+     *         {@code other}
+     * @throws NullPointerException
+     *             if {@code other} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code other} is in another currency
+     */
+    @Override
+    public int compareTo(Money other) {
+	checkCurrency(other);
+	return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    /**
+     * Returns this {@code money} as a decimal, whose scale is the number of
+     * decimals of its currency.
+     *
+     * @return a new {@code BigDecimal}; never {@code null}
+     */
+    public BigDecimal toBigDecimal() {
+	return BigDecimal.valueOf(minorUnits, getScale());
+    }
+
+    /**
+     * Indicates whether or not given object is equal to this {@code money}:
+     * same currency and number of minor units.
+     *
+     * @param obj
+     *            an object to compare against
+     * @return {@code true} if {@code obj} is equal to this {@code money};
+     *         {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+	if (obj == this) {
+	    return true;
+	}
+	if (!(obj instanceof Money)) {
+	    return false;
+	}
+	Money other = (Money) obj;
+	return minorUnits == other.minorUnits
+		&& currency.equals(other.currency);
+    }
+
+    /**
+     * Returns a hash code for this {@code money}.
+     *
+     * @return a hash code value
+     */
+    @Override
+    public int hashCode() {
+	return 31 * currency.hashCode() + Long.hashCode(minorUnits);
+    }
+
+    /**
+     * Returns a string representation of this {@code money}.
+     *
+     * @return a string representation of this {@code money}
+     * @see BigDecimal#toPlainString()
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append("{amount=");
+	builder.append(toBigDecimal().toPlainString());
+	builder.append(", currency=");
+	builder.append(currency);
+	builder.append("}");
+	return builder.toString();
+    }
+}
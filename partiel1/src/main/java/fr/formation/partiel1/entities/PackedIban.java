@@ -0,0 +1,266 @@
+package fr.formation.partiel1.entities;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A compact, primitive representation of an {@link Iban}.
+ * <p>
+ * Each code of the IBAN (country code, keys, bank and counter codes, account
+ * number) is encoded as a number in bijective base 37, one digit per
+ * character: {@code 1..10} for the digits and {@code 11..36} for the
+ * uppercase letters. The encoding keeps the length of the codes, so it is
+ * lossless, and fits in a {@code short}, an {@code int} and two
+ * {@code long}s. Equality and hash code are primitive comparisons that do
+ * not allocate.
+ * <p>
+ * An {@code Iban} can be packed if its codes are made of digits and
+ * uppercase letters only, and if they do not exceed the lengths of the
+ * French RIB layout: 2 characters for the country code and the keys, 5 for
+ * the bank and counter codes and 11 for the account number.
+ * <p>
+ * Unlike {@code Iban}, two {@code PackedIban} instances are equal if all
+ * their codes are equal.
+ *
+ * @author Frank MARSHALL
+ */
+public final class PackedIban {
+
+    /**
+     * The number of bytes of a {@code PackedIban} written to a buffer.
+     */
+    public static final int BYTES = Short.BYTES + Integer.BYTES
+	    + 2 * Long.BYTES;
+
+    private static final int RADIX = 37;
+
+    private static final int COUNTRY_LENGTH = 2;
+
+    private static final int KEY_LENGTH = 2;
+
+    private static final int CODE_LENGTH = 5;
+
+    private static final int ACCOUNT_LENGTH = 11;
+
+    private static final int KEY_BOUND = RADIX * RADIX;
+
+    private static final long CODE_BOUND = (long) RADIX * RADIX * RADIX
+	    * RADIX * RADIX;
+
+    private final short country;
+
+    private final int keys;
+
+    private final long codes;
+
+    private final long account;
+
+    private PackedIban(short country, int keys, long codes, long account) {
+	this.country = country;
+	this.keys = keys;
+	this.codes = codes;
+	this.account = account;
+    }
+
+    /**
+     * Packs given IBAN.
+     *
+     * @param iban
+     *            an IBAN
+     * @return a new {@code PackedIban}; never {@code null}
+     * @throws NullPointerException
+     *             if {@code iban} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code iban} cannot be packed
+     * @see #isPackable(Iban)
+     */
+    public static PackedIban of(Iban iban) {
+	Bban bban = iban.getBban();
+	short country = (short) encode(iban.getCountry(), COUNTRY_LENGTH);
+	int keys = (int) (encode(iban.getKey(), KEY_LENGTH) * KEY_BOUND
+		+ encode(bban.getKey(), KEY_LENGTH));
+	long codes = encode(bban.getBank(), CODE_LENGTH) * CODE_BOUND
+		+ encode(bban.getCounter(), CODE_LENGTH);
+	long account = encode(bban.getAccount(), ACCOUNT_LENGTH);
+	return new PackedIban(country, keys, codes, account);
+    }
+
+    /**
+     * Indicates whether or not given IBAN can be packed.
+     *
+     * @param iban
+     *            an IBAN
+     * @return {@code true} if {@code iban} can be packed; {@code false}
+     *         otherwise
+     * @throws NullPointerException
+     *             if {@code iban} is {@code null}
+     */
+    public static boolean isPackable(Iban iban) {
+	Bban bban = iban.getBban();
+	return isPackable(iban.getCountry(), COUNTRY_LENGTH)
+		&& isPackable(iban.getKey(), KEY_LENGTH)
+		&& isPackable(bban.getBank(), CODE_LENGTH)
+		&& isPackable(bban.getCounter(), CODE_LENGTH)
+		&& isPackable(bban.getAccount(), ACCOUNT_LENGTH)
+		&& isPackable(bban.getKey(), KEY_LENGTH);
+    }
+
+    /**
+     * Reads the {@code PackedIban} written at given index of given buffer.
+     *
+     * @param buffer
+     *            a buffer
+     * @param index
+     *            the index of the first of the {@value #BYTES} bytes
+     * @return a new {@code PackedIban}; never {@code null}
+     * @throws NullPointerException
+     *             if {@code buffer} is {@code null}
+     * @throws IndexOutOfBoundsException
+     *             if {@code index} is negative or the bytes are beyond the
+     *             limit of {@code buffer}
+     * @see #put(ByteBuffer, int)
+     */
+    public static PackedIban get(ByteBuffer buffer, int index) {
+	return new PackedIban(buffer.getShort(index),
+		buffer.getInt(index + Short.BYTES),
+		buffer.getLong(index + Short.BYTES + Integer.BYTES),
+		buffer.getLong(index + Short.BYTES + Integer.BYTES
+			+ Long.BYTES));
+    }
+
+    /**
+     * Writes this {@code packed} IBAN at given index of given buffer.
+     *
+     * @param buffer
+     *            a buffer
+     * @param index
+     *            the index of the first of the {@value #BYTES} bytes
+     * @throws NullPointerException
+     *             if {@code buffer} is {@code null}
+     * @throws IndexOutOfBoundsException
+     *             if {@code index} is negative or the bytes are beyond the
+     *             limit of {@code buffer}
+     */
+    public void put(ByteBuffer buffer, int index) {
+	buffer.putShort(index, country);
+	buffer.putInt(index + Short.BYTES, keys);
+	buffer.putLong(index + Short.BYTES + Integer.BYTES, codes);
+	buffer.putLong(index + Short.BYTES + Integer.BYTES + Long.BYTES,
+		account);
+    }
+
+    /**
+     * Unpacks this {@code packed} IBAN.
+     *
+     * @return a new {@code Iban}; never {@code null}
+     */
+    public Iban toIban() {
+	Bban bban = new Bban(decode(codes / CODE_BOUND),
+		decode(codes % CODE_BOUND), decode(account),
+		decode(keys % KEY_BOUND));
+	return new Iban(decode(country), decode(keys / KEY_BOUND), bban);
+    }
+
+    private static long encode(String code, int maxLength) {
+	if (code.length() > maxLength) {
+	    throw new IllegalArgumentException(
+		    "code must not exceed " + maxLength + " chars: " + code);
+	}
+	long value = 0L;
+	for (int i = 0; i < code.length(); i++) {
+	    value = value * RADIX + digit(code.charAt(i));
+	}
+	return value;
+    }
+
+    private static int digit(char c) {
+	if (c >= '0' && c <= '9') {
+	    return c - '0' + 1;
+	}
+	if (c >= 'A' && c <= 'Z') {
+	    return c - 'A' + 11;
+	}
+	throw new IllegalArgumentException("unexpected char: " + c);
+    }
+
+    private static String decode(long value) {
+	char[] chars = new char[ACCOUNT_LENGTH];
+	int index = chars.length;
+	while (value != 0L) {
+	    int digit = (int) (value % RADIX);
+	    chars[--index] = (char) (digit <= 10 ? '0' + digit - 1
+		    : 'A' + digit - 11);
+	    value /= RADIX;
+	}
+	return new String(chars, index, chars.length - index);
+    }
+
+    private static boolean isPackable(String code, int maxLength) {
+	if (code.length() > maxLength) {
+	    return false;
+	}
+	for (int i = 0; i < code.length(); i++) {
+	    char c = code.charAt(i);
+	    if (!(c >= '0' && c <= '9') && !(c >= 'A' && c <= 'Z')) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Indicates whether or not given {@code obj} is equal to this
+     * {@code packed} IBAN.
+     * <p>
+     * Two {@code PackedIban} instances are considered as equal if all their
+     * codes are equal.
+     *
+     * @param obj
+     *            an object to compare against
+     * @return {@code true} if {@code obj} is equal to this {@code packed}
+     *         IBAN; {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+	if (obj == this) {
+	    return true;
+	}
+	if (!(obj instanceof PackedIban)) {
+	    return false;
+	}
+	PackedIban other = (PackedIban) obj;
+	return account == other.account && codes == other.codes
+		&& keys == other.keys && country == other.country;
+    }
+
+    /**
+     * Returns a hash code for this {@code packed} IBAN.
+     * <p>
+     * The implementation is consistent with {@code equals}.
+     *
+     * @return a hash code value
+     */
+    @Override
+    public int hashCode() {
+	int result = country;
+	result = 31 * result + keys;
+	result = 31 * result + Long.hashCode(codes);
+	return 31 * result + Long.hashCode(account);
+    }
+
+    /**
+     * Returns the electronic format of this {@code packed} IBAN.
+     *
+     * @return the electronic format of this {@code packed} IBAN
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append(decode(country));
+	builder.append(decode(keys / KEY_BOUND));
+	builder.append(decode(codes / CODE_BOUND));
+	builder.append(decode(codes % CODE_BOUND));
+	builder.append(decode(account));
+	builder.append(decode(keys % KEY_BOUND));
+	return builder.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package fr.formation.partiel1.entities;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The rules of a bank transfer, with the number of times each one was
+ * violated: by a {@code BankTransfer} being created, by a bank transfer of a
+ * batch being validated, or by a bank transfer being registered.
+ * <p>
+ * Counting a violation is a striped increment, so it never contends; valid
+ * bank transfers are not counted. This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ * @see BankTransfer#BankTransfer(Money, java.time.LocalDateTime,
+ *      java.time.LocalDateTime, Iban, Iban)
+ */
+public enum Violation {
+
+    /**
+     * A property but the execution date is {@code null}.
+     */
+    MISSING_PROPERTY,
+
+    /**
+     * The amount is not positive or not in euros.
+     */
+    AMOUNT,
+
+    /**
+     * The execution date is less than 24 hours after the request date.
+     */
+    DATES,
+
+    /**
+     * The accounts are equal.
+     */
+    ACCOUNTS,
+
+    /**
+     * The bank transfer duplicates one registered within the deduplication
+     * window.
+     */
+    DUPLICATE;
+
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Counts a violation of this {@code rule}.
+     */
+    public void record() {
+	count.increment();
+    }
+
+    /**
+     * Returns the number of violations of this {@code rule}.
+     *
+     * @return the number of violations
+     */
+    public long getCount() {
+	return count.sum();
+    }
+}
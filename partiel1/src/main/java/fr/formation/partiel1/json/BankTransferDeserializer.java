@@ -0,0 +1,114 @@
+package fr.formation.partiel1.json;
+
+import java.io.IOException;
+import java.time.*;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Reads a {@code BankTransfer} from an object with its amount, request and
+ * execution dates, and origin and destination accounts.
+ * <p>
+ * Dates are parsed straight from the characters of the parser, and the
+ * bank transfer is validated by its constructor.
+ *
+ * @author Frank MARSHALL
+ * @see BankTransferSerializer
+ */
+public class BankTransferDeserializer extends StdDeserializer<BankTransfer> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new {@code BankTransferDeserializer}.
+     */
+    public BankTransferDeserializer() {
+	super(BankTransfer.class);
+    }
+
+    @Override
+    public BankTransfer deserialize(JsonParser parser,
+	    DeserializationContext context) throws IOException {
+	String amount = null;
+	LocalDateTime requestDate = null;
+	LocalDateTime executionDate = null;
+	Iban origin = null;
+	Iban destination = null;
+	JsonToken token = firstField(parser);
+	for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+	    String name = parser.getCurrentName();
+	    JsonToken value = parser.nextToken();
+	    switch (name) {
+	    case "amount":
+		amount = value == JsonToken.VALUE_NULL ? null
+			: parser.getText();
+		parser.skipChildren(); // Malformed if not a scalar
+		break;
+	    case "requestDate":
+		requestDate = readDate(parser);
+		break;
+	    case "executionDate":
+		executionDate = readDate(parser);
+		break;
+	    case "origin":
+		origin = IbanDeserializer.read(parser);
+		break;
+	    case "destination":
+		destination = IbanDeserializer.read(parser);
+		break;
+	    default:
+		parser.skipChildren();
+	    }
+	}
+	try {
+	    return new BankTransfer(
+		    amount == null ? null
+			    : Money.parse(amount, BankTransfer.CURRENCY),
+		    requestDate, executionDate, origin, destination);
+	} catch (NullPointerException | IllegalArgumentException ex) {
+	    throw JsonMappingException.from(parser,
+		    ex.getMessage() == null ? "invalid bank transfer"
+			    : ex.getMessage(),
+		    ex);
+	}
+    }
+
+    private static LocalDateTime readDate(JsonParser parser)
+	    throws IOException {
+	if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+	    return null;
+	}
+	try {
+	    return JsonDates.parse(parser.getTextCharacters(),
+		    parser.getTextOffset(), parser.getTextLength());
+	} catch (DateTimeException ex) {
+	    throw JsonMappingException.from(parser, ex.getMessage(), ex);
+	}
+    }
+
+    /**
+     * Moves given parser to the first field of the current object.
+     *
+     * @param parser
+     *            a parser on the start of an object or on its first field
+     * @return the current token, {@code FIELD_NAME} unless the object is
+     *         empty
+     * @throws IOException
+     *             if the parser cannot be read
+     */
+    static JsonToken firstField(JsonParser parser) throws IOException {
+	JsonToken token = parser.getCurrentToken();
+	if (token == JsonToken.START_OBJECT) {
+	    return parser.nextToken();
+	}
+	if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+	    throw JsonMappingException.from(parser,
+		    "expected an object, found " + token);
+	}
+	return token;
+    }
+}
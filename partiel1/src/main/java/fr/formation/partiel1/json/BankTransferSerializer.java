@@ -0,0 +1,76 @@
+package fr.formation.partiel1.json;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import fr.formation.partiel1.entities.BankTransfer;
+
+/**
+ * Writes a {@code BankTransfer} as an object with its amount, request and
+ * execution dates, and origin and destination accounts.
+ * <p>
+ * Dates are written in the format of {@link LocalDateTime#toString()},
+ * straight from a buffer of characters.
+ *
+ * @author Frank MARSHALL
+ * @see IbanSerializer
+ */
+public class BankTransferSerializer extends StdSerializer<BankTransfer> {
+
+    private static final long serialVersionUID = 1L;
+
+    static final SerializableString AMOUNT = new SerializedString("amount");
+
+    static final SerializableString REQUEST_DATE = new SerializedString(
+	    "requestDate");
+
+    static final SerializableString EXECUTION_DATE = new SerializedString(
+	    "executionDate");
+
+    static final SerializableString ORIGIN = new SerializedString("origin");
+
+    static final SerializableString DESTINATION = new SerializedString(
+	    "destination");
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal
+	    .withInitial(() -> new char[JsonDates.MAX_LENGTH]);
+
+    /**
+     * Creates a new {@code BankTransferSerializer}.
+     */
+    public BankTransferSerializer() {
+	super(BankTransfer.class);
+    }
+
+    @Override
+    public void serialize(BankTransfer transfer, JsonGenerator generator,
+	    SerializerProvider provider) throws IOException {
+	generator.writeStartObject();
+	generator.writeFieldName(AMOUNT);
+	MoneySerializer.write(transfer.getAmount(), generator);
+	generator.writeFieldName(REQUEST_DATE);
+	writeDate(transfer.getRequestDate(), generator);
+	generator.writeFieldName(EXECUTION_DATE);
+	writeDate(transfer.getExecutionDate(), generator);
+	generator.writeFieldName(ORIGIN);
+	IbanSerializer.write(transfer.getOrigin(), generator, provider);
+	generator.writeFieldName(DESTINATION);
+	IbanSerializer.write(transfer.getDestination(), generator, provider);
+	generator.writeEndObject();
+    }
+
+    private static void writeDate(LocalDateTime date,
+	    JsonGenerator generator) throws IOException {
+	if (date == null) {
+	    generator.writeNull();
+	} else {
+	    char[] buffer = BUFFER.get();
+	    generator.writeString(buffer, 0, JsonDates.format(date, buffer));
+	}
+    }
+}
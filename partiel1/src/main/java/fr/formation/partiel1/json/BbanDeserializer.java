@@ -0,0 +1,67 @@
+package fr.formation.partiel1.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import fr.formation.partiel1.entities.Bban;
+
+/**
+ * Reads a {@code Bban} from an object with its bank code, counter code,
+ * account number and key.
+ *
+ * @author Frank MARSHALL
+ * @see BbanSerializer
+ */
+public class BbanDeserializer extends StdDeserializer<Bban> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new {@code BbanDeserializer}.
+     */
+    public BbanDeserializer() {
+	super(Bban.class);
+    }
+
+    @Override
+    public Bban deserialize(JsonParser parser, DeserializationContext context)
+	    throws IOException {
+	return read(parser);
+    }
+
+    static Bban read(JsonParser parser) throws IOException {
+	String bank = null;
+	String counter = null;
+	String account = null;
+	String key = null;
+	JsonToken token = BankTransferDeserializer.firstField(parser);
+	for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+	    String name = parser.getCurrentName();
+	    parser.nextToken();
+	    switch (name) {
+	    case "bank":
+		bank = parser.getValueAsString();
+		break;
+	    case "counter":
+		counter = parser.getValueAsString();
+		break;
+	    case "account":
+		account = parser.getValueAsString();
+		break;
+	    case "key":
+		key = parser.getValueAsString();
+		break;
+	    default:
+		parser.skipChildren();
+	    }
+	}
+	try {
+	    return new Bban(bank, counter, account, key);
+	} catch (NullPointerException | IllegalArgumentException ex) {
+	    throw JsonMappingException.from(parser, "invalid BBAN", ex);
+	}
+    }
+}
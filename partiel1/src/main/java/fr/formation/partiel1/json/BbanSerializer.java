@@ -0,0 +1,55 @@
+package fr.formation.partiel1.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import fr.formation.partiel1.entities.Bban;
+
+/**
+ * Writes a {@code Bban} as an object with its bank code, counter code,
+ * account number and key.
+ *
+ * @author Frank MARSHALL
+ */
+public class BbanSerializer extends StdSerializer<Bban> {
+
+    private static final long serialVersionUID = 1L;
+
+    static final SerializableString BANK = new SerializedString("bank");
+
+    static final SerializableString COUNTER = new SerializedString("counter");
+
+    static final SerializableString ACCOUNT = new SerializedString("account");
+
+    static final SerializableString KEY = new SerializedString("key");
+
+    /**
+     * Creates a new {@code BbanSerializer}.
+     */
+    public BbanSerializer() {
+	super(Bban.class);
+    }
+
+    @Override
+    public void serialize(Bban bban, JsonGenerator generator,
+	    SerializerProvider provider) throws IOException {
+	write(bban, generator);
+    }
+
+    static void write(Bban bban, JsonGenerator generator) throws IOException {
+	generator.writeStartObject();
+	generator.writeFieldName(BANK);
+	generator.writeString(bban.getBank());
+	generator.writeFieldName(COUNTER);
+	generator.writeString(bban.getCounter());
+	generator.writeFieldName(ACCOUNT);
+	generator.writeString(bban.getAccount());
+	generator.writeFieldName(KEY);
+	generator.writeString(bban.getKey());
+	generator.writeEndObject();
+    }
+}
@@ -0,0 +1,80 @@
+package fr.formation.partiel1.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Reads an {@code Iban} from an object with its country code, key and BBAN
+ * or, as written in compact mode, from a string in electronic format.
+ * <p>
+ * IBANs are canonicalized through the {@linkplain IbanPool#shared() shared
+ * pool}; strings are split through the {@linkplain IbanCache#shared()
+ * shared cache}. Neither form checks the keys, so that any IBAN written
+ * can be read back.
+ *
+ * @author Frank MARSHALL
+ * @see IbanSerializer
+ * @see IbanCache#get(String)
+ */
+public class IbanDeserializer extends StdDeserializer<Iban> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new {@code IbanDeserializer}.
+     */
+    public IbanDeserializer() {
+	super(Iban.class);
+    }
+
+    @Override
+    public Iban deserialize(JsonParser parser, DeserializationContext context)
+	    throws IOException {
+	return read(parser);
+    }
+
+    static Iban read(JsonParser parser) throws IOException {
+	if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+	    return null;
+	}
+	if (parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+	    try {
+		return IbanCache.shared().get(parser.getText());
+	    } catch (IllegalArgumentException ex) {
+		throw JsonMappingException.from(parser, ex.getMessage(), ex);
+	    }
+	}
+	String country = null;
+	String key = null;
+	Bban bban = null;
+	JsonToken token = BankTransferDeserializer.firstField(parser);
+	for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+	    String name = parser.getCurrentName();
+	    parser.nextToken();
+	    switch (name) {
+	    case "country":
+		country = parser.getValueAsString();
+		break;
+	    case "key":
+		key = parser.getValueAsString();
+		break;
+	    case "bban":
+		bban = parser.getCurrentToken() == JsonToken.VALUE_NULL ? null
+			: BbanDeserializer.read(parser);
+		break;
+	    default:
+		parser.skipChildren();
+	    }
+	}
+	try {
+	    return IbanPool.shared().intern(new Iban(country, key, bban));
+	} catch (NullPointerException ex) {
+	    throw JsonMappingException.from(parser, "invalid IBAN", ex);
+	}
+    }
+}
@@ -0,0 +1,110 @@
+package fr.formation.partiel1.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Writes an {@code Iban} as an object with its country code, key and BBAN
+ * or, in compact mode, as a string in electronic format.
+ * <p>
+ * The compact mode is enabled by the {@value #COMPACT} attribute of the
+ * writer. An IBAN whose fields do not have the lengths of the French RIB
+ * layout, which cannot be split back from its electronic format, is still
+ * written as an object.
+ *
+ * @author Frank MARSHALL
+ * @see #compact(ObjectWriter)
+ */
+public class IbanSerializer extends StdSerializer<Iban> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The name of the writer attribute enabling the compact mode.
+     */
+    public static final String COMPACT = "partiel1.compactIban";
+
+    static final SerializableString COUNTRY = new SerializedString("country");
+
+    static final SerializableString KEY = new SerializedString("key");
+
+    static final SerializableString BBAN = new SerializedString("bban");
+
+    /**
+     * Creates a new {@code IbanSerializer}.
+     */
+    public IbanSerializer() {
+	super(Iban.class);
+    }
+
+    /**
+     * Returns given writer with the compact mode enabled.
+     *
+     * @param writer
+     *            a writer
+     * @return a writer writing IBANs in electronic format; never
+     *         {@code null}
+     */
+    public static ObjectWriter compact(ObjectWriter writer) {
+	return writer.withAttribute(COMPACT, Boolean.TRUE);
+    }
+
+    @Override
+    public void serialize(Iban iban, JsonGenerator generator,
+	    SerializerProvider provider) throws IOException {
+	write(iban, generator, provider);
+    }
+
+    static void write(Iban iban, JsonGenerator generator,
+	    SerializerProvider provider) throws IOException {
+	if (provider.getAttribute(COMPACT) == Boolean.TRUE
+		&& isSplittable(iban)) {
+	    writeElectronic(iban, generator);
+	    return;
+	}
+	generator.writeStartObject();
+	generator.writeFieldName(COUNTRY);
+	generator.writeString(iban.getCountry());
+	generator.writeFieldName(KEY);
+	generator.writeString(iban.getKey());
+	generator.writeFieldName(BBAN);
+	BbanSerializer.write(iban.getBban(), generator);
+	generator.writeEndObject();
+    }
+
+    /*
+     * Tells if given IBAN is read back as is by IbanParser.split.
+     */
+    private static boolean isSplittable(Iban iban) {
+	Bban bban = iban.getBban();
+	int account = bban.getAccount().length();
+	return iban.getCountry().length() == 2 && iban.getKey().length() == 2
+		&& bban.getBank().length() == 5
+		&& bban.getCounter().length() == 5 && account > 0
+		&& account <= 11 && bban.getKey().length() == 2;
+    }
+
+    private static void writeElectronic(Iban iban, JsonGenerator generator)
+	    throws IOException {
+	Bban bban = iban.getBban();
+	String[] parts = { iban.getCountry(), iban.getKey(), bban.getBank(),
+		bban.getCounter(), bban.getAccount(), bban.getKey() };
+	int length = 0;
+	for (String part : parts) {
+	    length += part.length();
+	}
+	char[] chars = new char[length];
+	int offset = 0;
+	for (String part : parts) {
+	    part.getChars(0, part.length(), chars, offset);
+	    offset += part.length();
+	}
+	generator.writeString(chars, 0, length);
+    }
+}
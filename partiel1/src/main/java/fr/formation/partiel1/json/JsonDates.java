@@ -0,0 +1,142 @@
+package fr.formation.partiel1.json;
+
+import java.time.LocalDateTime;
+
+/**
+ * Formats and parses dates and times to and from characters, without any
+ * intermediate string.
+ * <p>
+ * Dates and times are written exactly as {@link LocalDateTime#toString()}
+ * does: {@code uuuu-MM-dd'T'HH:mm}, followed by the seconds and the
+ * fraction of second if not zero, the fraction being written in 3, 6 or 9
+ * digits.
+ *
+ * @author Frank MARSHALL
+ */
+final class JsonDates {
+
+    /**
+     * The maximum length of a formatted date and time.
+     */
+    static final int MAX_LENGTH = 29;
+
+    private JsonDates() {
+    }
+
+    /**
+     * Formats given date and time into given buffer.
+     *
+     * @param date
+     *            a date and time
+     * @param buffer
+     *            a buffer of at least {@value #MAX_LENGTH} characters
+     * @return the number of characters written
+     */
+    static int format(LocalDateTime date, char[] buffer) {
+	int year = date.getYear();
+	if (year < 0 || year > 9999) { // Unusual, signed or wider years
+	    String text = date.toString();
+	    text.getChars(0, text.length(), buffer, 0);
+	    return text.length();
+	}
+	int length = digits(year, 4, buffer, 0);
+	buffer[length++] = '-';
+	length = digits(date.getMonthValue(), 2, buffer, length);
+	buffer[length++] = '-';
+	length = digits(date.getDayOfMonth(), 2, buffer, length);
+	buffer[length++] = 'T';
+	length = digits(date.getHour(), 2, buffer, length);
+	buffer[length++] = ':';
+	length = digits(date.getMinute(), 2, buffer, length);
+	int second = date.getSecond();
+	int nano = date.getNano();
+	if (second == 0 && nano == 0) {
+	    return length;
+	}
+	buffer[length++] = ':';
+	length = digits(second, 2, buffer, length);
+	if (nano == 0) {
+	    return length;
+	}
+	buffer[length++] = '.';
+	if (nano % 1_000_000 == 0) {
+	    return digits(nano / 1_000_000, 3, buffer, length);
+	}
+	if (nano % 1_000 == 0) {
+	    return digits(nano / 1_000, 6, buffer, length);
+	}
+	return digits(nano, 9, buffer, length);
+    }
+
+    private static int digits(int value, int count, char[] buffer,
+	    int offset) {
+	int end = offset + count;
+	for (int i = end - 1; i >= offset; i--) {
+	    buffer[i] = (char) ('0' + value % 10);
+	    value /= 10;
+	}
+	return end;
+    }
+
+    /**
+     * Parses a date and time from given characters, in the format written
+     * by {@link #format(LocalDateTime, char[])} or any ISO-8601 local date
+     * and time.
+     *
+     * @param chars
+     *            a buffer of characters
+     * @param offset
+     *            the offset of the date and time in {@code chars}
+     * @param length
+     *            the length of the date and time
+     * @return a date and time; never {@code null}
+     * @throws java.time.DateTimeException
+     *             if the characters are not a valid date and time
+     */
+    static LocalDateTime parse(char[] chars, int offset, int length) {
+	if (length < 16 || !matches(chars, offset, length)) {
+	    return LocalDateTime.parse(new String(chars, offset, length));
+	}
+	int second = length > 16 ? number(chars, offset + 17, 2) : 0;
+	int nano = 0;
+	if (length > 20) {
+	    int digits = length - 20;
+	    nano = number(chars, offset + 20, digits);
+	    for (int i = digits; i < 9; i++) {
+		nano *= 10;
+	    }
+	}
+	return LocalDateTime.of(number(chars, offset, 4),
+		number(chars, offset + 5, 2), number(chars, offset + 8, 2),
+		number(chars, offset + 11, 2), number(chars, offset + 14, 2),
+		second, nano);
+    }
+
+    /*
+     * Checks the layout uuuu-MM-ddTHH:mm[:ss[.f{1,9}]], the values are
+     * checked by LocalDateTime.of.
+     */
+    private static boolean matches(char[] chars, int offset, int length) {
+	String layout = "dddd-dd-ddTdd:dd:dd.ddddddddd";
+	if (length > layout.length() || length == 17 || length == 18
+		|| length == 20) {
+	    return false;
+	}
+	for (int i = 0; i < length; i++) {
+	    char c = chars[offset + i];
+	    char expected = layout.charAt(i);
+	    if (expected == 'd' ? c < '0' || c > '9' : c != expected) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    private static int number(char[] chars, int offset, int count) {
+	int value = 0;
+	for (int i = offset; i < offset + count; i++) {
+	    value = value * 10 + chars[i] - '0';
+	}
+	return value;
+    }
+}
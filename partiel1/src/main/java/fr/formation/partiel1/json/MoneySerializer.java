@@ -0,0 +1,68 @@
+package fr.formation.partiel1.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import fr.formation.partiel1.entities.Money;
+
+/**
+ * Writes a {@code Money} as a JSON number with the decimals of its currency,
+ * such as {@code 1000.50}, as its {@code BigDecimal} view would be written.
+ * <p>
+ * The number is written straight from a buffer of characters; the currency
+ * is not written.
+ *
+ * @author Frank MARSHALL
+ * @see Money#toBigDecimal()
+ */
+public class MoneySerializer extends StdSerializer<Money> {
+
+    private static final long serialVersionUID = 1L;
+
+    // A sign, 19 digits, a decimal point and a leading zero:
+    private static final int MAX_LENGTH = 22;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal
+	    .withInitial(() -> new char[MAX_LENGTH]);
+
+    /**
+     * Creates a new {@code MoneySerializer}.
+     */
+    public MoneySerializer() {
+	super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money money, JsonGenerator generator,
+	    SerializerProvider provider) throws IOException {
+	write(money, generator);
+    }
+
+    static void write(Money money, JsonGenerator generator)
+	    throws IOException {
+	long units = money.getMinorUnits();
+	if (units == Long.MIN_VALUE) { // Cannot be negated
+	    generator.writeNumber(money.toBigDecimal());
+	    return;
+	}
+	char[] buffer = BUFFER.get();
+	int scale = money.getScale();
+	long value = Math.abs(units);
+	int position = buffer.length;
+	// Writes the digits backwards, at least one before the point:
+	for (int digit = 0; digit <= scale || value != 0L; digit++) {
+	    if (digit == scale && scale > 0) {
+		buffer[--position] = '.';
+	    }
+	    buffer[--position] = (char) ('0' + value % 10L);
+	    value /= 10L;
+	}
+	if (units < 0L) {
+	    buffer[--position] = '-';
+	}
+	generator.writeRawValue(buffer, position, buffer.length - position);
+    }
+}
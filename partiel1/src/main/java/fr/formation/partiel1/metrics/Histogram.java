@@ -0,0 +1,172 @@
+package fr.formation.partiel1.metrics;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * A histogram of non-negative {@code long} values, such as latencies in
+ * nanoseconds or sizes in bytes, with a bounded relative error.
+ * <p>
+ * As in HDR histograms, the buckets are log-linear: each power of two is
+ * split into 32 buckets of equal width, so a value is counted in a bucket
+ * at most about 3% wider than itself, whatever its magnitude. Values below
+ * 64 are counted exactly; values above {@link #MAX_VALUE} are counted as
+ * {@code MAX_VALUE}.
+ * <p>
+ * Recording a value is lock-free and does not allocate: an increment of
+ * its bucket, of the count and of the sum. Reads may not reflect a single
+ * point in time while values are recorded.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ */
+public final class Histogram {
+
+    private static final int SUB_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private static final int MAX_BITS = 40;
+
+    /**
+     * The largest value counted as is, about 18 minutes in nanoseconds or a
+     * terabyte in bytes.
+     */
+    public static final long MAX_VALUE = (1L << MAX_BITS) - 1L;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(
+	    index(MAX_VALUE) + 1);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records given value.
+     *
+     * @param value
+     *            a value
+     * @throws IllegalArgumentException
+     *             if {@code value} is negative
+     */
+    public void record(long value) {
+	if (value < 0L) {
+	    throw new IllegalArgumentException("value must not be negative");
+	}
+	long bounded = Math.min(value, MAX_VALUE);
+	buckets.incrementAndGet(index(bounded));
+	count.increment();
+	sum.add(bounded);
+	long current = max.get();
+	while (bounded > current && !max.compareAndSet(current, bounded)) {
+	    current = max.get();
+	}
+    }
+
+    /*
+     * The values below 2 * SUB_BUCKETS have their own bucket; above, the
+     * SUB_BUCKETS buckets of each power of two are indexed by the leading
+     * bits of the value.
+     */
+    static int index(long value) {
+	int shift = Math.max(0,
+		Long.SIZE - Long.numberOfLeadingZeros(value) - (SUB_BITS + 1));
+	return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    /*
+     * Returns the largest value of given bucket.
+     */
+    static long highest(int index) {
+	if (index < 2 * SUB_BUCKETS) {
+	    return index;
+	}
+	int shift = (index >>> SUB_BITS) - 1;
+	long lowest = (long) ((index & (SUB_BUCKETS - 1)) + SUB_BUCKETS)
+		<< shift;
+	return lowest + (1L << shift) - 1L;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+	return count.sum();
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return the sum of the recorded values
+     */
+    public long getSum() {
+	return sum.sum();
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the largest recorded value; 0 if none
+     */
+    public long getMax() {
+	return max.get();
+    }
+
+    /**
+     * Returns the value at given quantile: the largest value of the bucket
+     * holding it, so at most about 3% above the exact one.
+     *
+     * @param quantile
+     *            a quantile, between 0 and 1
+     * @return the value at {@code quantile}, capped to the largest recorded
+     *         value; 0 if no value was recorded
+     * @throws IllegalArgumentException
+     *             if {@code quantile} is not between 0 and 1
+     */
+    public long getValueAt(double quantile) {
+	if (!(quantile >= 0.0 && quantile <= 1.0)) {
+	    throw new IllegalArgumentException(
+		    "quantile must be between 0 and 1");
+	}
+	long[] counts = new long[buckets.length()];
+	long total = 0L;
+	for (int i = 0; i < counts.length; i++) {
+	    counts[i] = buckets.get(i);
+	    total += counts[i];
+	}
+	if (total == 0L) {
+	    return 0L;
+	}
+	long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+	long seen = 0L;
+	for (int i = 0; i < counts.length; i++) {
+	    seen += counts[i];
+	    if (seen >= rank) {
+		return Math.min(highest(i), getMax());
+	    }
+	}
+	return getMax();
+    }
+
+    /**
+     * Returns a string representation of this {@code histogram}.
+     *
+     * @return a string representation of this {@code histogram}
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append("{count=");
+	builder.append(getCount());
+	builder.append(", sum=");
+	builder.append(getSum());
+	builder.append(", max=");
+	builder.append(getMax());
+	builder.append("}");
+	return builder.toString();
+    }
+}
@@ -0,0 +1,264 @@
+package fr.formation.partiel1.metrics;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A registry of metrics, written in the Prometheus text exposition format.
+ * <p>
+ * Metrics are grouped in families of a same name, type and help, each
+ * metric of a family being told apart by its labels, given as pairs of
+ * names and values. Three types are supported:
+ * <ul>
+ * <li>counters, either owned by the registry or read from a function
+ * <li>gauges, read from a function
+ * <li>summaries, backed by a {@link Histogram} and written as quantiles,
+ * sum and count; their values are divided by the scale of the family,
+ * such as {@code 1_000_000_000} for nanoseconds written as seconds
+ * </ul>
+ * Quantiles are computed over all the values recorded since the start of
+ * the application.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ */
+public class Metrics {
+
+    /**
+     * The media type of the Prometheus text exposition format.
+     */
+    public static final String MEDIA_TYPE = "text/plain; version=0.0.4";
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private static final Metrics SHARED = new Metrics();
+
+    private final ConcurrentMap<String, Family> families =
+	    new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the registry shared by the application.
+     *
+     * @return the shared registry; never {@code null}
+     */
+    public static Metrics shared() {
+	return SHARED;
+    }
+
+    /**
+     * Returns the histogram of given name and labels, registering it if
+     * needed.
+     *
+     * @param name
+     *            the name of the family
+     * @param help
+     *            the description of the family
+     * @param scale
+     *            the divisor applied to the values when written
+     * @param labels
+     *            the names and values of the labels
+     * @return the histogram; never {@code null}
+     * @throws IllegalArgumentException
+     *             if the family is already registered with another type, or
+     *             if {@code labels} is not made of pairs
+     */
+    public Histogram histogram(String name, String help, long scale,
+	    String... labels) {
+	return (Histogram) family(name, help, "summary", scale).metrics
+		.computeIfAbsent(labels(labels), key -> new Histogram());
+    }
+
+    /**
+     * Returns the counter of given name and labels, registering it if
+     * needed.
+     *
+     * @param name
+     *            the name of the family
+     * @param help
+     *            the description of the family
+     * @param labels
+     *            the names and values of the labels
+     * @return the counter; never {@code null}
+     * @throws IllegalArgumentException
+     *             if the family is already registered with another type, or
+     *             if {@code labels} is not made of pairs
+     */
+    public LongAdder counter(String name, String help, String... labels) {
+	return (LongAdder) family(name, help, "counter", 1L).metrics
+		.computeIfAbsent(labels(labels), key -> new LongAdder());
+    }
+
+    /**
+     * Registers a counter of given name and labels, read from given
+     * function; replaces the counter already registered, if any.
+     *
+     * @param name
+     *            the name of the family
+     * @param help
+     *            the description of the family
+     * @param value
+     *            the function giving the value of the counter
+     * @param labels
+     *            the names and values of the labels
+     * @throws IllegalArgumentException
+     *             if the family is already registered with another type, or
+     *             if {@code labels} is not made of pairs
+     */
+    public void counter(String name, String help, LongSupplier value,
+	    String... labels) {
+	family(name, help, "counter", 1L).metrics.put(labels(labels),
+		Objects.requireNonNull(value, "value must not be null"));
+    }
+
+    /**
+     * Registers a gauge of given name and labels, read from given function;
+     * replaces the gauge already registered, if any.
+     *
+     * @param name
+     *            the name of the family
+     * @param help
+     *            the description of the family
+     * @param value
+     *            the function giving the value of the gauge
+     * @param labels
+     *            the names and values of the labels
+     * @throws IllegalArgumentException
+     *             if the family is already registered with another type, or
+     *             if {@code labels} is not made of pairs
+     */
+    public void gauge(String name, String help, LongSupplier value,
+	    String... labels) {
+	family(name, help, "gauge", 1L).metrics.put(labels(labels),
+		Objects.requireNonNull(value, "value must not be null"));
+    }
+
+    private Family family(String name, String help, String type,
+	    long scale) {
+	Family family = families.computeIfAbsent(name,
+		key -> new Family(name, help, type, scale));
+	if (!family.type.equals(type)) {
+	    throw new IllegalArgumentException(
+		    name + " is already registered as a " + family.type);
+	}
+	return family;
+    }
+
+    /*
+     * Returns the labels written as in the exposition format, without
+     * braces.
+     */
+    private static String labels(String[] labels) {
+	if (labels.length % 2 != 0) {
+	    throw new IllegalArgumentException(
+		    "labels must be pairs of names and values");
+	}
+	StringBuilder builder = new StringBuilder();
+	for (int i = 0; i < labels.length; i += 2) {
+	    if (i > 0) {
+		builder.append(',');
+	    }
+	    builder.append(labels[i]).append("=\"");
+	    String value = labels[i + 1];
+	    for (int j = 0; j < value.length(); j++) {
+		char c = value.charAt(j);
+		if (c == '\\' || c == '"') {
+		    builder.append('\\').append(c);
+		} else if (c == '\n') {
+		    builder.append("\\n");
+		} else {
+		    builder.append(c);
+		}
+	    }
+	    builder.append('"');
+	}
+	return builder.toString();
+    }
+
+    /**
+     * Writes all the metrics in the Prometheus text exposition format,
+     * families sorted by name.
+     *
+     * @param output
+     *            the output
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public void write(Appendable output) throws IOException {
+	for (Family family : families.values()) {
+	    family.write(output);
+	}
+    }
+
+    /**
+     * The metrics of a same name.
+     */
+    private static final class Family {
+
+	private final String name;
+
+	private final String help;
+
+	private final String type;
+
+	private final long scale;
+
+	// The metrics by labels:
+	private final ConcurrentMap<String, Object> metrics =
+		new ConcurrentSkipListMap<>();
+
+	private Family(String name, String help, String type, long scale) {
+	    this.name = Objects.requireNonNull(name, "name must not be null");
+	    this.help = Objects.requireNonNull(help, "help must not be null");
+	    this.type = type;
+	    this.scale = scale;
+	}
+
+	private void write(Appendable output) throws IOException {
+	    output.append("# HELP ").append(name).append(' ')
+		    .append(help.replace("\\", "\\\\").replace("\n", "\\n"))
+		    .append('\n');
+	    output.append("# TYPE ").append(name).append(' ').append(type)
+		    .append('\n');
+	    for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+		String labels = entry.getKey();
+		Object metric = entry.getValue();
+		if (metric instanceof Histogram) {
+		    Histogram histogram = (Histogram) metric;
+		    String prefix = labels.isEmpty() ? "" : labels + ",";
+		    for (double quantile : QUANTILES) {
+			sample(output, "",
+				prefix + "quantile=\"" + quantile + "\"",
+				histogram.getValueAt(quantile));
+		    }
+		    sample(output, "_sum", labels, histogram.getSum());
+		    sample(output, "_count", labels,
+			    Long.toString(histogram.getCount()));
+		} else if (metric instanceof LongAdder) {
+		    sample(output, "", labels, ((LongAdder) metric).sum());
+		} else {
+		    sample(output, "", labels,
+			    ((LongSupplier) metric).getAsLong());
+		}
+	    }
+	}
+
+	private void sample(Appendable output, String suffix, String labels,
+		long value) throws IOException {
+	    sample(output, suffix, labels, scale == 1L ? Long.toString(value)
+		    : Double.toString((double) value / scale));
+	}
+
+	private void sample(Appendable output, String suffix, String labels,
+		String value) throws IOException {
+	    output.append(name).append(suffix);
+	    if (!labels.isEmpty()) {
+		output.append('{').append(labels).append('}');
+	    }
+	    output.append(' ').append(value).append('\n');
+	}
+    }
+}
@@ -0,0 +1,58 @@
+package fr.formation.partiel1.services;
+
+/**
+ * The totals of the bank transfers from and to an account.
+ * <p>
+ * Class invariants:
+ * <ul>
+ * <li>All the properties are guaranteed not {@code null}
+ * </ul>
+ *
+ * @author Frank MARSHALL
+ * @see TransferStatistics#account(fr.formation.partiel1.entities.Iban)
+ */
+public final class AccountStatistics {
+
+    private final Totals outgoing;
+
+    private final Totals incoming;
+
+    AccountStatistics(Totals outgoing, Totals incoming) {
+	this.outgoing = outgoing;
+	this.incoming = incoming;
+    }
+
+    /**
+     * Returns the totals of the bank transfers from the account.
+     *
+     * @return the outgoing totals; never {@code null}
+     */
+    public Totals getOutgoing() {
+	return outgoing;
+    }
+
+    /**
+     * Returns the totals of the bank transfers to the account.
+     *
+     * @return the incoming totals; never {@code null}
+     */
+    public Totals getIncoming() {
+	return incoming;
+    }
+
+    /**
+     * Returns a string representation of this {@code statistics}.
+     *
+     * @return a string representation of this {@code statistics}
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append("{outgoing=");
+	builder.append(outgoing);
+	builder.append(", incoming=");
+	builder.append(incoming);
+	builder.append("}");
+	return builder.toString();
+    }
+}
@@ -0,0 +1,726 @@
+package fr.formation.partiel1.services;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.Stream;
+
+import fr.formation.partiel1.entities.*;
+import fr.formation.partiel1.stores.*;
+
+/**
+ * The registry of the bank transfers of the application.
+ * <p>
+ * The registry keeps the bank transfers in a {@link TransferStore}, maintains
+ * their {@link TransferStatistics} and, if configured, makes them durable in
+ * a {@link TransferJournal} replayed at startup and executes the deferred
+ * ones with an {@link ExecutionScheduler}. The executions are recorded in
+ * the journal, so that the deferred bank transfers whose execution was
+ * missed while the application was stopped are executed at startup.
+ * <p>
+ * With a journal and a {@link ColumnarTransferStore}, the registry can be
+ * saved in a {@link TransferSnapshot}, along with the mark of the journal
+ * and the deferred bank transfers not executed yet. A registry restored
+ * from a snapshot only replays the journal after the mark, and its
+ * statistics are computed in the background, so its startup does not
+ * depend on the number of bank transfers of the snapshot.
+ * <p>
+ * Bank transfers registered concurrently are written by a single writer at
+ * a time through a {@link TransferIngest}, without any lock: the store, the
+ * journal and the scheduler are only ever written by one thread, and the
+ * journal is forced once for all the batches registered meanwhile. A bank
+ * transfer is appended to the journal before it is stored, so a failure of
+ * the journal leaves the registry unchanged. It is configured with the
+ * following system properties:
+ * <ul>
+ * <li>{@value TransferStore#TYPE_PROPERTY}: the store implementation
+ * <li>{@value TransferStore#SHARDS_PROPERTY}: the number of shards of the
+ * store
+ * <li>{@value #JOURNAL_PROPERTY}: the path of the journal file; no journal
+ * if not set
+ * <li>{@value #SYNC_EVERY_PROPERTY}: the maximum number of transfers between
+ * two forces of the journal to the storage device, defaults to
+ * {@value #DEFAULT_SYNC_EVERY}
+ * <li>{@value #SYNC_MILLIS_PROPERTY}: the maximum delay, in milliseconds,
+ * between a transfer and the next force of the journal to the storage
+ * device, defaults to {@value #DEFAULT_SYNC_MILLIS}
+ * <li>{@value #DEDUP_WINDOW_PROPERTY}: the window, in milliseconds, within
+ * which a bank transfer registered twice is rejected as a duplicate,
+ * defaults to a day
+ * <li>{@value #DEDUP_CAPACITY_PROPERTY}: the maximum number of bank
+ * transfers remembered by the {@link DuplicateFilter}, defaults to
+ * {@value #DEFAULT_DEDUP_CAPACITY}; no deduplication if {@code 0}
+ * <li>{@value #SCHEDULER_WORKERS_PROPERTY}: the number of workers executing
+ * the deferred bank transfers, defaults to the number of processors; no
+ * execution if {@code 0}
+ * <li>{@value #SNAPSHOT_PROPERTY}: the path of the snapshot file, restored
+ * at startup if it exists; no snapshot if not set. It requires a journal,
+ * and implies a {@link ColumnarTransferStore}
+ * <li>{@value #SNAPSHOT_EVERY_PROPERTY}: the delay, in milliseconds,
+ * between two snapshots, defaults to {@value #DEFAULT_SNAPSHOT_EVERY}
+ * </ul>
+ *
+ * @author Frank MARSHALL
+ */
+public class BankTransferRegistry {
+
+    /**
+     * The name of the system property giving the path of the journal file.
+     */
+    public static final String JOURNAL_PROPERTY = "partiel1.journal";
+
+    /**
+     * The name of the system property giving the maximum number of transfers
+     * between two forces of the journal.
+     */
+    public static final String SYNC_EVERY_PROPERTY =
+	    "partiel1.journal.syncEvery";
+
+    /**
+     * The name of the system property giving the maximum delay between a
+     * transfer and the next force of the journal.
+     */
+    public static final String SYNC_MILLIS_PROPERTY =
+	    "partiel1.journal.syncMillis";
+
+    /**
+     * The name of the system property giving the number of workers executing
+     * the deferred bank transfers.
+     */
+    public static final String SCHEDULER_WORKERS_PROPERTY =
+	    "partiel1.scheduler.workers";
+
+    /**
+     * The name of the system property giving the window of the
+     * deduplication of the bank transfers.
+     */
+    public static final String DEDUP_WINDOW_PROPERTY =
+	    "partiel1.dedup.windowMillis";
+
+    /**
+     * The name of the system property giving the maximum number of bank
+     * transfers remembered for their deduplication.
+     */
+    public static final String DEDUP_CAPACITY_PROPERTY =
+	    "partiel1.dedup.capacity";
+
+    /**
+     * The name of the system property giving the path of the snapshot file.
+     */
+    public static final String SNAPSHOT_PROPERTY = "partiel1.snapshot";
+
+    /**
+     * The name of the system property giving the delay between two
+     * snapshots.
+     */
+    public static final String SNAPSHOT_EVERY_PROPERTY =
+	    "partiel1.snapshot.everyMillis";
+
+    private static final int DEFAULT_SYNC_EVERY = 256;
+
+    private static final long DEFAULT_SYNC_MILLIS = 10L;
+
+    private static final long DEFAULT_DEDUP_WINDOW = 24L * 60L * 60L * 1000L;
+
+    private static final int DEFAULT_DEDUP_CAPACITY = 1 << 18;
+
+    private static final long DEFAULT_SNAPSHOT_EVERY = 10L * 60L * 1000L;
+
+    private final TransferStore store;
+
+    private final TransferJournal journal;
+
+    private final TransferStatistics statistics = new TransferStatistics();
+
+    private final ExecutionScheduler scheduler;
+
+    private final DuplicateFilter duplicates;
+
+    // The sequence numbers of the deferred bank transfers not executed yet,
+    // kept with a journal for the snapshots:
+    private final NavigableSet<Long> pending = new ConcurrentSkipListSet<>();
+
+    // The statistics of the bank transfers of the snapshot, if any:
+    private final CompletableFuture<Void> warmUp;
+
+    private final List<Consumer<BankTransfer>> registrationListeners =
+	    new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<BankTransfer>> listeners =
+	    new CopyOnWriteArrayList<>();
+
+    private final TransferIngest ingest = new TransferIngest(this::write,
+	    this::sync);
+
+    // The sequence number of the next bank transfer, only used by the writer:
+    private long sequence;
+
+    // The number of bank transfers registered, published by the writer:
+    private volatile long version;
+
+    private volatile long lastModified = System.currentTimeMillis();
+
+    /**
+     * Creates a new {@code BankTransferRegistry} with given store and
+     * optional journal, replaying the journal into the store. Deferred bank
+     * transfers are not executed.
+     *
+     * @param store
+     *            a store
+     * @param journal
+     *            a journal; {@code null} if transfers are not made durable
+     * @throws NullPointerException
+     *             if {@code store} is {@code null}
+     * @throws UncheckedIOException
+     *             if the journal cannot be replayed
+     */
+    public BankTransferRegistry(TransferStore store, TransferJournal journal) {
+	this(store, journal, null);
+    }
+
+    /**
+     * Creates a new {@code BankTransferRegistry} with given store, optional
+     * journal and optional scheduler, replaying the journal into the store
+     * and scheduling the deferred bank transfers not executed yet.
+     *
+     * @param store
+     *            a store
+     * @param journal
+     *            a journal; {@code null} if transfers are not made durable
+     * @param scheduler
+     *            the factory of the scheduler, given the execution of a bank
+     *            transfer; {@code null} if deferred bank transfers are not
+     *            executed
+     * @throws NullPointerException
+     *             if {@code store} is {@code null}
+     * @throws UncheckedIOException
+     *             if the journal cannot be replayed
+     */
+    public BankTransferRegistry(TransferStore store, TransferJournal journal,
+	    Function<ObjLongConsumer<BankTransfer>,
+		    ExecutionScheduler> scheduler) {
+	this(store, journal, scheduler, null);
+    }
+
+    /**
+     * Creates a new {@code BankTransferRegistry} with given store, optional
+     * journal, optional scheduler and optional filter of the duplicates,
+     * replaying the journal into the store and scheduling the deferred bank
+     * transfers not executed yet.
+     * <p>
+     * The bank transfers replayed from the journal are added to the filter
+     * as if registered at startup.
+     *
+     * @param store
+     *            a store
+     * @param journal
+     *            a journal; {@code null} if transfers are not made durable
+     * @param scheduler
+     *            the factory of the scheduler, given the execution of a bank
+     *            transfer; {@code null} if deferred bank transfers are not
+     *            executed
+     * @param duplicates
+     *            the filter of the duplicates; {@code null} if duplicates
+     *            are registered
+     * @throws NullPointerException
+     *             if {@code store} is {@code null}
+     * @throws UncheckedIOException
+     *             if the journal cannot be replayed
+     */
+    public BankTransferRegistry(TransferStore store, TransferJournal journal,
+	    Function<ObjLongConsumer<BankTransfer>,
+		    ExecutionScheduler> scheduler,
+	    DuplicateFilter duplicates) {
+	this(Objects.requireNonNull(store, "store must not be null"), null,
+		journal, scheduler, duplicates);
+    }
+
+    /**
+     * Creates a new {@code BankTransferRegistry} restored from given
+     * snapshot and journal, with optional scheduler and optional filter of
+     * the duplicates, replaying the journal after the mark of the snapshot
+     * into the store of the snapshot and scheduling the deferred bank
+     * transfers not executed yet.
+     * <p>
+     * The statistics of the bank transfers of the snapshot are computed in
+     * the background; {@link #getStatistics()} waits for them. The last bank
+     * transfers of the snapshot, up to the capacity of the filter, and
+     * those replayed from the journal are added to the filter as if
+     * registered at startup.
+     *
+     * @param snapshot
+     *            a snapshot of a registry with the same journal
+     * @param journal
+     *            the journal
+     * @param scheduler
+     *            the factory of the scheduler, given the execution of a bank
+     *            transfer; {@code null} if deferred bank transfers are not
+     *            executed
+     * @param duplicates
+     *            the filter of the duplicates; {@code null} if duplicates
+     *            are registered
+     * @throws NullPointerException
+     *             if {@code snapshot} or {@code journal} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code snapshot} does not match {@code journal}
+     * @throws UncheckedIOException
+     *             if the journal cannot be replayed
+     */
+    public BankTransferRegistry(TransferSnapshot snapshot,
+	    TransferJournal journal,
+	    Function<ObjLongConsumer<BankTransfer>,
+		    ExecutionScheduler> scheduler,
+	    DuplicateFilter duplicates) {
+	this(Objects.requireNonNull(snapshot, "snapshot must not be null")
+		.getStore(), snapshot,
+		Objects.requireNonNull(journal, "journal must not be null"),
+		scheduler, duplicates);
+    }
+
+    private BankTransferRegistry(TransferStore store,
+	    TransferSnapshot snapshot, TransferJournal journal,
+	    Function<ObjLongConsumer<BankTransfer>,
+		    ExecutionScheduler> scheduler,
+	    DuplicateFilter duplicates) {
+	this.store = store;
+	this.journal = journal;
+	this.duplicates = duplicates;
+	this.scheduler = scheduler == null ? null
+		: scheduler.apply(this::execute);
+	Replay replay = new Replay();
+	TransferJournal.Mark from = new TransferJournal.Mark(0L, 0L);
+	if (snapshot == null) {
+	    warmUp = CompletableFuture.completedFuture(null);
+	} else {
+	    from = restore(snapshot, replay);
+	    replay.count = from.getTransfers();
+	    Stream<BankTransfer> rows = store.parallelStream();
+	    warmUp = CompletableFuture.runAsync(
+		    () -> rows.forEach(statistics::add), runnable -> {
+			Thread thread = new Thread(runnable,
+				"transfer-statistics-warm-up");
+			thread.setDaemon(true);
+			thread.start();
+		    });
+	}
+	if (journal != null) {
+	    try {
+		sequence = journal.replay(from, replay, replay);
+	    } catch (IOException ex) {
+		throw new UncheckedIOException(ex);
+	    }
+	    replay.schedule();
+	    version = sequence;
+	}
+	if (this.scheduler != null) {
+	    this.scheduler.start();
+	}
+    }
+
+    /*
+     * Reads the metadata of given snapshot, defers its bank transfers not
+     * executed yet and fills the filter of the duplicates with its last
+     * bank transfers. Returns the mark of the journal.
+     */
+    private TransferJournal.Mark restore(TransferSnapshot snapshot,
+	    Replay replay) {
+	ColumnarTransferStore rows = snapshot.getStore();
+	ByteBuffer metadata = snapshot.getMetadata();
+	TransferJournal.Mark mark = new TransferJournal.Mark(
+		metadata.getLong(), metadata.getLong());
+	if (mark.getTransfers() != rows.size()) {
+	    throw new IllegalArgumentException(
+		    "snapshot does not match the journal: " + mark);
+	}
+	for (int i = metadata.getInt(); i > 0; i--) {
+	    long sequence = metadata.getLong();
+	    replay.defer(sequence, rows.get(Math.toIntExact(sequence)));
+	}
+	if (duplicates != null) {
+	    for (int row = Math.max(0, rows.size() - duplicates.getCapacity());
+		    row < rows.size(); row++) {
+		duplicates.add(rows.get(row));
+	    }
+	}
+	return mark;
+    }
+
+    /**
+     * Returns the registry of the application, configured with the system
+     * properties.
+     *
+     * @return the registry of the application; never {@code null}
+     */
+    public static BankTransferRegistry getInstance() {
+	return Holder.INSTANCE;
+    }
+
+    /**
+     * Registers given bank transfer: adds it to the store and appends it to
+     * the journal, if any.
+     * <p>
+     * This method may be called concurrently, without any lock.
+     *
+     * @param transfer
+     *            a bank transfer
+     * @throws NullPointerException
+     *             if {@code transfer} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code transfer} cannot be stored, or is a duplicate
+     * @throws UncheckedIOException
+     *             if the journal cannot be written
+     */
+    public void register(BankTransfer transfer) {
+	Objects.requireNonNull(transfer, "transfer must not be null");
+	Map<Integer, String> rejected = ingest.submit(
+		Collections.singletonList(transfer), false);
+	if (!rejected.isEmpty()) {
+	    throw new IllegalArgumentException(rejected.get(0));
+	}
+    }
+
+    /**
+     * Registers given bank transfers at once: adds them to the store, appends
+     * them to the journal, if any, and forces the journal to the storage
+     * device.
+     * <p>
+     * The bank transfers rejected by the store, or as duplicates of bank
+     * transfers registered before, in this call or not, are skipped; the
+     * other ones are still registered. This method may be called
+     * concurrently, without any lock; the bank transfers of a call are
+     * registered consecutively.
+     *
+     * @param transfers
+     *            a list of bank transfers
+     * @return the reasons of the rejections, by index in {@code transfers};
+     *         never {@code null}, empty if all the bank transfers have been
+     *         registered
+     * @throws NullPointerException
+     *             if {@code transfers} is or contains {@code null}
+     * @throws UncheckedIOException
+     *             if the journal cannot be written
+     */
+    public Map<Integer, String> registerAll(List<BankTransfer> transfers) {
+	for (BankTransfer transfer : transfers) {
+	    Objects.requireNonNull(transfer, "transfer must not be null");
+	}
+	return ingest.submit(transfers, true);
+    }
+
+    private void write(BankTransfer transfer) {
+	if (duplicates != null && duplicates.isDuplicate(transfer)) {
+	    Violation.DUPLICATE.record();
+	    throw new IllegalArgumentException("duplicate of a bank transfer"
+		    + " registered in the last " + duplicates.getWindowMillis()
+		    + " ms");
+	}
+	if (journal == null) {
+	    add(transfer);
+	} else {
+	    // Checked before appended, the journal only holding bank transfers
+	    // of the store, and appended before stored, lest a failure of the
+	    // journal leave a bank transfer in memory only:
+	    store.check(transfer);
+	    // Atomically with the mark of the snapshots, which must not see a
+	    // bank transfer appended but not stored:
+	    synchronized (journal) {
+		journal.append(transfer);
+		add(transfer);
+		if (transfer.getExecutionDate() != null) {
+		    pending.add(sequence);
+		}
+	    }
+	}
+	schedule(sequence++, transfer);
+	lastModified = System.currentTimeMillis();
+	version = sequence;
+	for (Consumer<BankTransfer> listener : registrationListeners) {
+	    listener.accept(transfer);
+	}
+    }
+
+    private void sync() {
+	if (journal != null) {
+	    journal.sync();
+	}
+    }
+
+    private void add(BankTransfer transfer) {
+	store.add(transfer);
+	statistics.add(transfer);
+	// Only once stored, a rejected bank transfer being no duplicate:
+	if (duplicates != null) {
+	    duplicates.add(transfer);
+	}
+    }
+
+    private void schedule(long sequence, BankTransfer transfer) {
+	if (scheduler != null && transfer.getExecutionDate() != null) {
+	    scheduler.schedule(sequence, transfer);
+	}
+    }
+
+    private void execute(BankTransfer transfer, long sequence) {
+	if (journal != null) {
+	    // Atomically with the mark of the snapshots:
+	    synchronized (journal) {
+		journal.appendExecution(sequence);
+		pending.remove(sequence);
+	    }
+	}
+	for (Consumer<BankTransfer> listener : listeners) {
+	    listener.accept(transfer);
+	}
+    }
+
+    /**
+     * Saves this {@code registry} in a snapshot stored in given file,
+     * replacing it if it exists.
+     * <p>
+     * The snapshot holds the bank transfers appended to the journal so far,
+     * and the mark of the journal after them. Bank transfers may be
+     * registered and executed meanwhile.
+     *
+     * @param path
+     *            the path of the snapshot file
+     * @throws IOException
+     *             if the snapshot cannot be written
+     * @throws NullPointerException
+     *             if {@code path} is {@code null}
+     * @throws IllegalStateException
+     *             if this {@code registry} has no journal or no
+     *             {@link ColumnarTransferStore}
+     */
+    public void snapshot(Path path) throws IOException {
+	Objects.requireNonNull(path, "path must not be null");
+	if (journal == null || !(store instanceof ColumnarTransferStore)) {
+	    throw new IllegalStateException(
+		    "snapshots require a journal and a columnar store");
+	}
+	TransferJournal.Mark mark;
+	long[] deferred;
+	synchronized (journal) {
+	    mark = journal.mark();
+	    deferred = pending.headSet(mark.getTransfers()).stream()
+		    .mapToLong(Long::longValue).toArray();
+	}
+	// The journal must hold the mark before the snapshot refers to it:
+	journal.sync();
+	ByteBuffer metadata = ByteBuffer.allocate(2 * Long.BYTES
+		+ Integer.BYTES + deferred.length * Long.BYTES);
+	metadata.putLong(mark.getPosition()).putLong(mark.getTransfers());
+	metadata.putInt(deferred.length);
+	metadata.asLongBuffer().put(deferred);
+	metadata.clear();
+	TransferSnapshot.write(path, (ColumnarTransferStore) store,
+		Math.toIntExact(mark.getTransfers()), metadata);
+    }
+
+    /**
+     * Adds a listener of the registrations of the bank transfers.
+     * <p>
+     * Listeners are called by the single writer, once the bank transfer is
+     * visible in the store and before the journal is forced, so they must
+     * not block. The bank transfers replayed from the journal are not
+     * notified.
+     *
+     * @param listener
+     *            a listener, given the registered bank transfer
+     * @throws NullPointerException
+     *             if {@code listener} is {@code null}
+     */
+    public void addRegistrationListener(Consumer<BankTransfer> listener) {
+	registrationListeners.add(Objects.requireNonNull(listener,
+		"listener must not be null"));
+    }
+
+    /**
+     * Adds a listener of the executions of the deferred bank transfers.
+     * <p>
+     * Listeners are called by the workers of the scheduler, once the
+     * execution has been recorded in the journal.
+     *
+     * @param listener
+     *            a listener, given the executed bank transfer
+     * @throws NullPointerException
+     *             if {@code listener} is {@code null}
+     */
+    public void addExecutionListener(Consumer<BankTransfer> listener) {
+	listeners.add(Objects.requireNonNull(listener,
+		"listener must not be null"));
+    }
+
+    /**
+     * Returns the version of the registered bank transfers, incremented each
+     * time a bank transfer is registered.
+     * <p>
+     * A bank transfer is visible in the store before the version accounting
+     * for it is published, so anything read from the store after getting a
+     * version is at least as recent as this version.
+     *
+     * @return the version of the registered bank transfers
+     */
+    public long getVersion() {
+	return version;
+    }
+
+    /**
+     * Returns the time of the last registration of a bank transfer or, if
+     * none, of the creation of this {@code registry}.
+     *
+     * @return the time of the last modification, in milliseconds since the
+     *         epoch
+     */
+    public long getLastModified() {
+	return lastModified;
+    }
+
+    /**
+     * Returns the store of the registered bank transfers.
+     *
+     * @return the store; never {@code null}
+     */
+    public TransferStore getStore() {
+	return store;
+    }
+
+    /**
+     * Returns the statistics of the registered bank transfers, waiting for
+     * those of the snapshot, if any.
+     *
+     * @return the statistics; never {@code null}
+     */
+    public TransferStatistics getStatistics() {
+	warmUp.join();
+	return statistics;
+    }
+
+    private static BankTransferRegistry create() {
+	int workers = Integer.getInteger(SCHEDULER_WORKERS_PROPERTY,
+		Runtime.getRuntime().availableProcessors());
+	Function<ObjLongConsumer<BankTransfer>, ExecutionScheduler> scheduler =
+		workers == 0 ? null
+			: action -> new ExecutionScheduler(action, workers);
+	int capacity = Integer.getInteger(DEDUP_CAPACITY_PROPERTY,
+		DEFAULT_DEDUP_CAPACITY);
+	DuplicateFilter duplicates = capacity == 0 ? null
+		: new DuplicateFilter(Long.getLong(DEDUP_WINDOW_PROPERTY,
+			DEFAULT_DEDUP_WINDOW), capacity);
+	String path = System.getProperty(JOURNAL_PROPERTY);
+	String snapshot = System.getProperty(SNAPSHOT_PROPERTY);
+	if (path == null) {
+	    if (snapshot != null) {
+		throw new IllegalStateException(
+			SNAPSHOT_PROPERTY + " requires " + JOURNAL_PROPERTY);
+	    }
+	    return new BankTransferRegistry(TransferStore.create(), null,
+		    scheduler, duplicates);
+	}
+	int syncEvery = Integer.getInteger(SYNC_EVERY_PROPERTY,
+		DEFAULT_SYNC_EVERY);
+	long syncMillis = Long.getLong(SYNC_MILLIS_PROPERTY,
+		DEFAULT_SYNC_MILLIS);
+	try {
+	    TransferJournal journal = new TransferJournal(Paths.get(path),
+		    syncEvery, syncMillis);
+	    if (snapshot == null) {
+		return new BankTransferRegistry(TransferStore.create(),
+			journal, scheduler, duplicates);
+	    }
+	    Path file = Paths.get(snapshot);
+	    BankTransferRegistry registry = Files.exists(file)
+		    ? new BankTransferRegistry(TransferSnapshot.read(file),
+			    journal, scheduler, duplicates)
+		    : new BankTransferRegistry(new ColumnarTransferStore(),
+			    journal, scheduler, duplicates);
+	    registry.scheduleSnapshots(file, Long.getLong(
+		    SNAPSHOT_EVERY_PROPERTY, DEFAULT_SNAPSHOT_EVERY));
+	    return registry;
+	} catch (IOException ex) {
+	    throw new UncheckedIOException(ex);
+	}
+    }
+
+    /*
+     * Saves this registry in given file periodically, in a daemon thread. A
+     * failure is reported to the handler of the uncaught exceptions of the
+     * thread, and the next snapshot is attempted all the same.
+     */
+    private void scheduleSnapshots(Path path, long everyMillis) {
+	ScheduledExecutorService snapshots = Executors
+		.newSingleThreadScheduledExecutor(runnable -> {
+		    Thread thread = new Thread(runnable, "transfer-snapshot");
+		    thread.setDaemon(true);
+		    return thread;
+		});
+	snapshots.scheduleWithFixedDelay(() -> {
+	    try {
+		snapshot(path);
+	    } catch (IOException | RuntimeException ex) {
+		Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread,
+			ex);
+	    }
+	}, everyMillis, everyMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replays the journal: adds the bank transfers read, then schedules the
+     * deferred ones not executed yet, including those of the snapshot.
+     */
+    private final class Replay implements Consumer<BankTransfer>,
+	    LongConsumer {
+
+	private final BitSet executed = new BitSet();
+
+	private final List<BankTransfer> deferred = new ArrayList<>();
+
+	private long[] sequences = new long[16];
+
+	private long count;
+
+	@Override
+	public void accept(BankTransfer transfer) {
+	    add(transfer);
+	    if (transfer.getExecutionDate() != null) {
+		defer(count, transfer);
+	    }
+	    count++;
+	}
+
+	private void defer(long sequence, BankTransfer transfer) {
+	    if (deferred.size() == sequences.length) {
+		sequences = Arrays.copyOf(sequences, 2 * sequences.length);
+	    }
+	    sequences[deferred.size()] = sequence;
+	    deferred.add(transfer);
+	}
+
+	@Override
+	public void accept(long sequence) {
+	    executed.set(Math.toIntExact(sequence));
+	}
+
+	private void schedule() {
+	    for (int i = 0; i < deferred.size(); i++) {
+		if (!executed.get(Math.toIntExact(sequences[i]))) {
+		    pending.add(sequences[i]);
+		    if (scheduler != null) {
+			scheduler.schedule(sequences[i], deferred.get(i));
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Lazily creates the registry of the application.
+     */
+    private static final class Holder {
+
+	private static final BankTransferRegistry INSTANCE = create();
+    }
+}
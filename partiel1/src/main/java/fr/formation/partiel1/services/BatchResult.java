@@ -0,0 +1,118 @@
+package fr.formation.partiel1.services;
+
+import java.util.Objects;
+
+/**
+ * The result of one bank transfer of a batch.
+ * <p>
+ * Class invariants:
+ * <ul>
+ * <li>The status is guaranteed not {@code null}
+ * <li>The message is guaranteed not {@code null} if the bank transfer has
+ * been rejected, {@code null} otherwise
+ * </ul>
+ *
+ * @author Frank MARSHALL
+ */
+public final class BatchResult {
+
+    /**
+     * The status of a bank transfer of a batch.
+     */
+    public enum Status {
+	/**
+	 * The bank transfer has been registered.
+	 */
+	CREATED,
+	/**
+	 * The bank transfer has been rejected.
+	 */
+	REJECTED
+    }
+
+    private final int index;
+
+    private final Status status;
+
+    private final String message;
+
+    private BatchResult(int index, Status status, String message) {
+	this.index = index;
+	this.status = status;
+	this.message = message;
+    }
+
+    /**
+     * Returns the result of a registered bank transfer.
+     *
+     * @param index
+     *            the index of the bank transfer in its batch
+     * @return a new result; never {@code null}
+     */
+    public static BatchResult created(int index) {
+	return new BatchResult(index, Status.CREATED, null);
+    }
+
+    /**
+     * Returns the result of a rejected bank transfer.
+     *
+     * @param index
+     *            the index of the bank transfer in its batch
+     * @param message
+     *            the reason of the rejection
+     * @return a new result; never {@code null}
+     * @throws NullPointerException
+     *             if {@code message} is {@code null}
+     */
+    public static BatchResult rejected(int index, String message) {
+	return new BatchResult(index, Status.REJECTED,
+		Objects.requireNonNull(message,
+			"message must not be null"));
+    }
+
+    /**
+     * Returns the index of the bank transfer in its batch, zero based.
+     *
+     * @return the index of the bank transfer
+     */
+    public int getIndex() {
+	return index;
+    }
+
+    /**
+     * Returns the status of the bank transfer.
+     *
+     * @return the status; never {@code null}
+     */
+    public Status getStatus() {
+	return status;
+    }
+
+    /**
+     * Returns the reason of the rejection of the bank transfer.
+     *
+     * @return the reason of the rejection; {@code null} if the bank transfer
+     *         has not been rejected
+     */
+    public String getMessage() {
+	return message;
+    }
+
+    /**
+     * Returns a string representation of this {@code result}.
+     *
+     * @return a string representation of this {@code result}
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append("{index=");
+	builder.append(index);
+	builder.append(", status=");
+	builder.append(status);
+	builder.append(", message=");
+	builder.append(message);
+	builder.append("}");
+	return builder.toString();
+    }
+}
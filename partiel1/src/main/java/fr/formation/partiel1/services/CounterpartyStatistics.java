@@ -0,0 +1,74 @@
+package fr.formation.partiel1.services;
+
+import fr.formation.partiel1.entities.Iban;
+
+/**
+ * The totals of the bank transfers from an account to another.
+ * <p>
+ * Class invariants:
+ * <ul>
+ * <li>All the properties are guaranteed not {@code null}
+ * </ul>
+ *
+ * @author Frank MARSHALL
+ * @see TransferAnalytics#topCounterparties(int)
+ */
+public final class CounterpartyStatistics {
+
+    private final Iban origin;
+
+    private final Iban destination;
+
+    private final Totals totals;
+
+    CounterpartyStatistics(Iban origin, Iban destination, Totals totals) {
+	this.origin = origin;
+	this.destination = destination;
+	this.totals = totals;
+    }
+
+    /**
+     * Returns the origin account of the bank transfers.
+     *
+     * @return the origin account; never {@code null}
+     */
+    public Iban getOrigin() {
+	return origin;
+    }
+
+    /**
+     * Returns the destination account of the bank transfers.
+     *
+     * @return the destination account; never {@code null}
+     */
+    public Iban getDestination() {
+	return destination;
+    }
+
+    /**
+     * Returns the totals of the bank transfers.
+     *
+     * @return the totals; never {@code null}
+     */
+    public Totals getTotals() {
+	return totals;
+    }
+
+    /**
+     * Returns a string representation of this {@code statistics}.
+     *
+     * @return a string representation of this {@code statistics}
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append("{origin=");
+	builder.append(origin);
+	builder.append(", destination=");
+	builder.append(destination);
+	builder.append(", totals=");
+	builder.append(totals);
+	builder.append("}");
+	return builder.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package fr.formation.partiel1.services;
+
+/**
+ * The totals of the bank transfers from and to the accounts of a country.
+ * <p>
+ * Class invariants:
+ * <ul>
+ * <li>All the properties are guaranteed not {@code null}
+ * </ul>
+ *
+ * @author Frank MARSHALL
+ * @see TransferAnalytics#countries()
+ */
+public final class CountryStatistics {
+
+    private final String country;
+
+    private final Totals outgoing;
+
+    private final Totals incoming;
+
+    CountryStatistics(String country, Totals outgoing, Totals incoming) {
+	this.country = country;
+	this.outgoing = outgoing;
+	this.incoming = incoming;
+    }
+
+    /**
+     * Returns the country code of the accounts.
+     *
+     * @return the country code; never {@code null}
+     */
+    public String getCountry() {
+	return country;
+    }
+
+    /**
+     * Returns the totals of the bank transfers from the accounts.
+     *
+     * @return the outgoing totals; never {@code null}
+     */
+    public Totals getOutgoing() {
+	return outgoing;
+    }
+
+    /**
+     * Returns the totals of the bank transfers to the accounts.
+     *
+     * @return the incoming totals; never {@code null}
+     */
+    public Totals getIncoming() {
+	return incoming;
+    }
+
+    /**
+     * Returns a string representation of this {@code statistics}.
+     *
+     * @return a string representation of this {@code statistics}
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append("{country=");
+	builder.append(country);
+	builder.append(", outgoing=");
+	builder.append(outgoing);
+	builder.append(", incoming=");
+	builder.append(incoming);
+	builder.append("}");
+	return builder.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package fr.formation.partiel1.services;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import fr.formation.partiel1.entities.Money;
+
+/**
+ * The distribution of the amounts of the bank transfers requested on a
+ * given day.
+ * <p>
+ * Besides the totals and the extreme amounts, the bank transfers are
+ * counted by order of magnitude of their amount, in euros: below 1, below
+ * 10, and so on up to 100000 and above.
+ * <p>
+ * Class invariants:
+ * <ul>
+ * <li>All the properties are guaranteed not {@code null}
+ * </ul>
+ *
+ * @author Frank MARSHALL
+ * @see TransferAnalytics#daily(LocalDate, LocalDate)
+ */
+public final class DailyDistribution {
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final LocalDate date;
+
+    private final Totals totals;
+
+    private final Money min;
+
+    private final Money max;
+
+    private final Map<String, Long> magnitudes;
+
+    DailyDistribution(LocalDate date, Totals totals, Money min, Money max,
+	    Map<String, Long> magnitudes) {
+	this.date = date;
+	this.totals = totals;
+	this.min = min;
+	this.max = max;
+	this.magnitudes = magnitudes;
+    }
+
+    /**
+     * Returns the request date of the bank transfers.
+     *
+     * @return the request date; never {@code null}
+     */
+    public LocalDate getDate() {
+	return date;
+    }
+
+    /**
+     * Returns the totals of the bank transfers.
+     *
+     * @return the totals; never {@code null}
+     */
+    public Totals getTotals() {
+	return totals;
+    }
+
+    /**
+     * Returns the smallest amount of the bank transfers.
+     *
+     * @return the smallest amount; never {@code null}
+     */
+    public Money getMin() {
+	return min;
+    }
+
+    /**
+     * Returns the largest amount of the bank transfers.
+     *
+     * @return the largest amount; never {@code null}
+     */
+    public Money getMax() {
+	return max;
+    }
+
+    /**
+     * Returns the number of bank transfers by order of magnitude of their
+     * amount, such as {@code <10} for the amounts of at least 1 and below 10
+     * euros, or {@code >=100000}.
+     *
+     * @return an unmodifiable map of the numbers of bank transfers, by
+     *         increasing order of magnitude; never {@code null}
+     */
+    public Map<String, Long> getMagnitudes() {
+	return magnitudes;
+    }
+
+    /**
+     * Returns a string representation of this {@code distribution}.
+     *
+     * @return a string representation of this {@code distribution}
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append("{date=");
+	builder.append(date);
+	builder.append(", totals=");
+	builder.append(totals);
+	builder.append(", min=");
+	builder.append(min);
+	builder.append(", max=");
+	builder.append(max);
+	builder.append(", magnitudes=");
+	builder.append(magnitudes);
+	builder.append("}");
+	return builder.toString();
+    }
+}
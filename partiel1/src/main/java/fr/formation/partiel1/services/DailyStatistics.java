@@ -0,0 +1,80 @@
+package fr.formation.partiel1.services;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+/**
+ * The totals of the bank transfers from and to an account executed on a
+ * given day.
+ * <p>
+ * Class invariants:
+ * <ul>
+ * <li>All the properties are guaranteed not {@code null}
+ * </ul>
+ *
+ * @author Frank MARSHALL
+ * @see TransferStatistics#daily(fr.formation.partiel1.entities.Iban,
+ *      LocalDate, LocalDate)
+ */
+public final class DailyStatistics {
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final LocalDate date;
+
+    private final Totals outgoing;
+
+    private final Totals incoming;
+
+    DailyStatistics(LocalDate date, Totals outgoing, Totals incoming) {
+	this.date = date;
+	this.outgoing = outgoing;
+	this.incoming = incoming;
+    }
+
+    /**
+     * Returns the execution date of the bank transfers.
+     *
+     * @return the execution date; never {@code null}
+     */
+    public LocalDate getDate() {
+	return date;
+    }
+
+    /**
+     * Returns the totals of the bank transfers from the account.
+     *
+     * @return the outgoing totals; never {@code null}
+     */
+    public Totals getOutgoing() {
+	return outgoing;
+    }
+
+    /**
+     * Returns the totals of the bank transfers to the account.
+     *
+     * @return the incoming totals; never {@code null}
+     */
+    public Totals getIncoming() {
+	return incoming;
+    }
+
+    /**
+     * Returns a string representation of this {@code statistics}.
+     *
+     * @return a string representation of this {@code statistics}
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append("{date=");
+	builder.append(date);
+	builder.append(", outgoing=");
+	builder.append(outgoing);
+	builder.append(", incoming=");
+	builder.append(incoming);
+	builder.append("}");
+	return builder.toString();
+    }
+}
@@ -0,0 +1,320 @@
+package fr.formation.partiel1.services;
+
+import java.time.*;
+import java.util.*;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Detects the bank transfers registered twice within a time window, by
+ * their fingerprint: their origin and destination accounts, their amount
+ * and their request date.
+ * <p>
+ * Fingerprints are kept in {@value #GENERATIONS} generations, each one
+ * gathering the fingerprints added during a third of the window; the
+ * oldest generation is dropped when a new one starts. A fingerprint is thus
+ * remembered for at least the window, and at most a third more.
+ * <p>
+ * Each generation has a Bloom filter in front of an exact set of its
+ * fingerprints. The filter of a generation is a single {@code long} word per
+ * fingerprint, in which 4 bits are set, so a fingerprint never seen, the
+ * common case, is told apart by reading one word per generation; only the
+ * fingerprints a filter may have seen, about 1% of the others, are looked
+ * up in its set.
+ * <p>
+ * The memory is bounded by the capacity, the maximum number of fingerprints
+ * kept, about 80 bytes each: a generation also ends once it holds a quarter
+ * of the capacity, so when more bank transfers are registered within the
+ * window the oldest fingerprints are forgotten earlier.
+ * <p>
+ * This class is not thread-safe; the registry only calls it from its single
+ * writer.
+ *
+ * @author Frank MARSHALL
+ * @see BankTransferRegistry
+ */
+public final class DuplicateFilter {
+
+    /**
+     * The number of generations of fingerprints.
+     */
+    static final int GENERATIONS = 4;
+
+    private static final int BITS_PER_FINGERPRINT = 12;
+
+    private final Clock clock;
+
+    private final long windowMillis;
+
+    private final int capacity;
+
+    private final long spanMillis;
+
+    private final int generationCapacity;
+
+    private final Generation[] generations = new Generation[GENERATIONS];
+
+    private int current;
+
+    private long currentStart;
+
+    // The last bank transfer checked, with its fingerprint and time:
+    private BankTransfer checked;
+
+    private Fingerprint checkedFingerprint;
+
+    private long checkedMillis;
+
+    /**
+     * Creates a new {@code DuplicateFilter} with given window and capacity.
+     *
+     * @param windowMillis
+     *            the window, in milliseconds
+     * @param capacity
+     *            the maximum number of fingerprints kept
+     * @throws IllegalArgumentException
+     *             if {@code windowMillis} is not positive or if
+     *             {@code capacity} is less than {@value #GENERATIONS}
+     */
+    public DuplicateFilter(long windowMillis, int capacity) {
+	this(Clock.systemUTC(), windowMillis, capacity);
+    }
+
+    /**
+     * Creates a new {@code DuplicateFilter} with given clock, window and
+     * capacity.
+     *
+     * @param clock
+     *            the clock of the registrations
+     * @param windowMillis
+     *            the window, in milliseconds
+     * @param capacity
+     *            the maximum number of fingerprints kept
+     * @throws NullPointerException
+     *             if {@code clock} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code windowMillis} is not positive or if
+     *             {@code capacity} is less than {@value #GENERATIONS}
+     */
+    DuplicateFilter(Clock clock, long windowMillis, int capacity) {
+	this.clock = Objects.requireNonNull(clock, "clock must not be null");
+	if (windowMillis <= 0L) {
+	    throw new IllegalArgumentException("window must be positive");
+	}
+	if (capacity < GENERATIONS) {
+	    throw new IllegalArgumentException(
+		    "capacity must be at least " + GENERATIONS);
+	}
+	this.windowMillis = windowMillis;
+	this.capacity = capacity;
+	// Rounded up, so that GENERATIONS - 1 spans cover the window:
+	spanMillis = (windowMillis + GENERATIONS - 2) / (GENERATIONS - 1);
+	generationCapacity = capacity / GENERATIONS;
+	long bits = (long) generationCapacity * BITS_PER_FINGERPRINT;
+	int words = Integer.highestOneBit((int) Math.min(1L << 30,
+		Math.max(1L, (bits + Long.SIZE - 1) / Long.SIZE)) * 2 - 1);
+	for (int i = 0; i < GENERATIONS; i++) {
+	    generations[i] = new Generation(words);
+	}
+	currentStart = clock.millis();
+    }
+
+    /**
+     * Returns the window of this {@code filter}.
+     *
+     * @return the window, in milliseconds
+     */
+    public long getWindowMillis() {
+	return windowMillis;
+    }
+
+    /**
+     * Returns the capacity of this {@code filter}.
+     *
+     * @return the maximum number of fingerprints kept
+     */
+    public int getCapacity() {
+	return capacity;
+    }
+
+    /**
+     * Tells if a bank transfer of the same fingerprint as given one has been
+     * added within the window.
+     *
+     * @param transfer
+     *            a bank transfer
+     * @return {@code true} if {@code transfer} is a duplicate
+     * @throws NullPointerException
+     *             if {@code transfer} is {@code null}
+     */
+    public boolean isDuplicate(BankTransfer transfer) {
+	long now = clock.millis();
+	expire(now);
+	Fingerprint fingerprint = new Fingerprint(transfer);
+	checked = transfer;
+	checkedFingerprint = fingerprint;
+	checkedMillis = now;
+	for (Generation generation : generations) {
+	    if (generation.contains(fingerprint)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Adds the fingerprint of given bank transfer, registered now.
+     * <p>
+     * If {@code transfer} is the last bank transfer checked, its fingerprint
+     * and the time of the check are reused.
+     *
+     * @param transfer
+     *            a bank transfer
+     * @throws NullPointerException
+     *             if {@code transfer} is {@code null}
+     */
+    public void add(BankTransfer transfer) {
+	Fingerprint fingerprint;
+	long now;
+	if (transfer == checked) {
+	    fingerprint = checkedFingerprint;
+	    now = checkedMillis;
+	} else {
+	    fingerprint = new Fingerprint(transfer);
+	    now = clock.millis();
+	    expire(now);
+	}
+	checked = null;
+	checkedFingerprint = null;
+	Generation generation = generations[current];
+	generation.add(fingerprint);
+	if (generation.set.size() >= generationCapacity) {
+	    advance();
+	    currentStart = now;
+	}
+    }
+
+    /*
+     * Starts a new generation for each span elapsed since the start of the
+     * current one.
+     */
+    private void expire(long now) {
+	long spans = (now - currentStart) / spanMillis;
+	if (spans <= 0L) {
+	    return;
+	}
+	for (long i = 0L; i < Math.min(spans, GENERATIONS); i++) {
+	    advance();
+	}
+	currentStart += spans * spanMillis;
+    }
+
+    private void advance() {
+	current = (current + 1) % GENERATIONS;
+	generations[current].clear();
+    }
+
+    /**
+     * The fingerprints added during a span of the window.
+     */
+    private static final class Generation {
+
+	private final long[] filter;
+
+	private final Set<Fingerprint> set = new HashSet<>();
+
+	private Generation(int words) {
+	    filter = new long[words];
+	}
+
+	private boolean contains(Fingerprint fingerprint) {
+	    if (set.isEmpty()) {
+		return false;
+	    }
+	    long bits = fingerprint.bits();
+	    return (filter[fingerprint.word(filter.length)] & bits) == bits
+		    && set.contains(fingerprint);
+	}
+
+	private void add(Fingerprint fingerprint) {
+	    filter[fingerprint.word(filter.length)] |= fingerprint.bits();
+	    set.add(fingerprint);
+	}
+
+	private void clear() {
+	    if (!set.isEmpty()) {
+		Arrays.fill(filter, 0L);
+		set.clear();
+	    }
+	}
+    }
+
+    /**
+     * The properties telling apart the bank transfers, with their 64 bits
+     * hash.
+     */
+    private static final class Fingerprint {
+
+	private final Iban origin;
+
+	private final Iban destination;
+
+	private final Money amount;
+
+	private final LocalDateTime requestDate;
+
+	private final long hash;
+
+	private Fingerprint(BankTransfer transfer) {
+	    origin = transfer.getOrigin();
+	    destination = transfer.getDestination();
+	    amount = transfer.getAmount();
+	    requestDate = transfer.getRequestDate();
+	    long h = origin.hashCode();
+	    h = h * 0x9E3779B97F4A7C15L + destination.hashCode();
+	    h = h * 0x9E3779B97F4A7C15L + amount.hashCode();
+	    h = h * 0x9E3779B97F4A7C15L
+		    + requestDate.toEpochSecond(ZoneOffset.UTC);
+	    h = h * 0x9E3779B97F4A7C15L + requestDate.getNano();
+	    // The finalizer of MurmurHash3, spreading every bit:
+	    h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+	    h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+	    hash = h ^ (h >>> 33);
+	}
+
+	/*
+	 * Returns the word of the filter, from the low bits of the hash.
+	 */
+	private int word(int words) {
+	    return (int) hash & (words - 1);
+	}
+
+	/*
+	 * Returns the 4 bits set in the word, from the high bits of the hash.
+	 */
+	private long bits() {
+	    return 1L << (hash >>> 40) | 1L << (hash >>> 46)
+		    | 1L << (hash >>> 52) | 1L << (hash >>> 58);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+	    if (obj == this) {
+		return true;
+	    }
+	    if (!(obj instanceof Fingerprint)) {
+		return false;
+	    }
+	    Fingerprint other = (Fingerprint) obj;
+	    return hash == other.hash && origin.equals(other.origin)
+		    && destination.equals(other.destination)
+		    && amount.equals(other.amount)
+		    && requestDate.equals(other.requestDate);
+	}
+
+	@Override
+	public int hashCode() {
+	    return Long.hashCode(hash);
+	}
+    }
+}
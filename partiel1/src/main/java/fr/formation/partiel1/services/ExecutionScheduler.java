@@ -0,0 +1,301 @@
+package fr.formation.partiel1.services;
+
+import java.io.Closeable;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+
+import fr.formation.partiel1.entities.BankTransfer;
+
+/**
+ * Executes deferred bank transfers when their execution date arrives.
+ * <p>
+ * Pending bank transfers are kept in a two-level timing wheel of ticks:
+ * the wheel holds the bank transfers due in the current and the next span
+ * of {@value #SPAN} ticks, one linked list per tick, and the later ones are
+ * kept in one list per span until their span comes next. Scheduling a bank
+ * transfer is thus a constant time insertion, and each bank transfer is
+ * moved at most once.
+ * <p>
+ * On each tick, the bank transfers due are released in batches of at most
+ * {@value #BATCH_SIZE} to a pool of workers, which execute them. Bank
+ * transfers scheduled when already due, such as the executions missed
+ * while the application was stopped, are released on the next tick.
+ * <p>
+ * A bank transfer whose execution fails stays pending: it is released
+ * again after a delay doubling with each attempt, from one tick up to a
+ * span, and the failure is reported to the handler of the uncaught
+ * exceptions of the worker, which goes on with the rest of the batch.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ */
+public class ExecutionScheduler implements Closeable {
+
+    /**
+     * The number of ticks of a span.
+     */
+    public static final int SPAN = 4096;
+
+    /**
+     * The maximum number of bank transfers released to a worker at once.
+     */
+    public static final int BATCH_SIZE = 1024;
+
+    private final Clock clock;
+
+    private final long tickMillis;
+
+    private final ObjLongConsumer<BankTransfer> action;
+
+    private final Executor workers;
+
+    private final ScheduledExecutorService ticker;
+
+    // The current and the next spans, indexed by tick modulo 2 spans:
+    private final Entry[] wheel = new Entry[2 * SPAN];
+
+    // The later spans, by span:
+    private final Map<Long, Entry> later = new HashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+
+    private long tick;
+
+    private long pending;
+
+    /**
+     * Creates a new {@code ExecutionScheduler} ticking every second, with
+     * given action and number of workers.
+     *
+     * @param action
+     *            the execution of a bank transfer, given its sequence number
+     * @param workers
+     *            the number of workers
+     * @throws NullPointerException
+     *             if {@code action} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code workers} is not positive
+     */
+    public ExecutionScheduler(ObjLongConsumer<BankTransfer> action,
+	    int workers) {
+	this(Clock.systemDefaultZone(), 1000L, action,
+		Executors.newFixedThreadPool(workers,
+			daemon("transfer-execution")));
+    }
+
+    /**
+     * Creates a new {@code ExecutionScheduler} with given clock, tick,
+     * action and workers.
+     *
+     * @param clock
+     *            the clock, whose zone applies to the execution dates
+     * @param tickMillis
+     *            the duration of a tick, in milliseconds
+     * @param action
+     *            the execution of a bank transfer, given its sequence number
+     * @param workers
+     *            the executor of the batches of bank transfers
+     * @throws NullPointerException
+     *             if any of the argument is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code tickMillis} is not positive
+     */
+    ExecutionScheduler(Clock clock, long tickMillis,
+	    ObjLongConsumer<BankTransfer> action, Executor workers) {
+	if (tickMillis <= 0L) {
+	    throw new IllegalArgumentException("tick must be positive");
+	}
+	this.clock = Objects.requireNonNull(clock, "clock must not be null");
+	this.tickMillis = tickMillis;
+	this.action = Objects.requireNonNull(action,
+		"action must not be null");
+	this.workers = Objects.requireNonNull(workers,
+		"workers must not be null");
+	ticker = Executors.newSingleThreadScheduledExecutor(
+		daemon("transfer-scheduler"));
+	tick = clock.millis() / tickMillis;
+    }
+
+    private static ThreadFactory daemon(String name) {
+	return runnable -> {
+	    Thread thread = new Thread(runnable, name);
+	    thread.setDaemon(true);
+	    return thread;
+	};
+    }
+
+    /**
+     * Starts releasing the bank transfers due, on each tick.
+     */
+    public void start() {
+	ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis,
+		TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules the execution of given bank transfer at its execution date.
+     *
+     * @param sequence
+     *            the sequence number of the bank transfer, given back to the
+     *            action
+     * @param transfer
+     *            a bank transfer
+     * @throws NullPointerException
+     *             if {@code transfer} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code transfer} has no execution date
+     */
+    public void schedule(long sequence, BankTransfer transfer) {
+	LocalDateTime date = transfer.getExecutionDate();
+	if (date == null) {
+	    throw new IllegalArgumentException("no execution date");
+	}
+	long millis = date.atZone(clock.getZone()).toInstant().toEpochMilli();
+	// The first tick at or after the execution date:
+	long due = Math.floorDiv(millis + tickMillis - 1L, tickMillis);
+	synchronized (this) {
+	    insert(new Entry(sequence, transfer, Math.max(due, tick + 1L), 0));
+	}
+    }
+
+    /*
+     * Inserts given entry in the wheel, or in the list of its span if not
+     * due in the current or the next span. Guarded by this scheduler.
+     */
+    private void insert(Entry entry) {
+	long span = Math.floorDiv(entry.tick, SPAN);
+	if (span <= Math.floorDiv(tick, SPAN) + 1L) {
+	    int slot = slot(entry.tick);
+	    entry.next = wheel[slot];
+	    wheel[slot] = entry;
+	} else {
+	    entry.next = later.get(span);
+	    later.put(span, entry);
+	}
+	pending++;
+    }
+
+    /**
+     * Returns the number of bank transfers scheduled and not released yet.
+     *
+     * @return the number of pending bank transfers
+     */
+    public synchronized long pending() {
+	return pending;
+    }
+
+    /**
+     * Returns the number of bank transfers executed.
+     *
+     * @return the number of executed bank transfers
+     */
+    public long executed() {
+	return executed.sum();
+    }
+
+    /**
+     * Releases the bank transfers due at the current time of the clock.
+     */
+    void advance() {
+	List<Entry> due = new ArrayList<>();
+	synchronized (this) {
+	    long now = clock.millis() / tickMillis;
+	    while (tick < now) {
+		tick++;
+		if (Math.floorMod(tick, SPAN) == 0L) {
+		    // Entering a new span, the next one comes into the wheel:
+		    Entry entry = later.remove(Math.floorDiv(tick, SPAN) + 1L);
+		    while (entry != null) {
+			Entry next = entry.next;
+			int slot = slot(entry.tick);
+			entry.next = wheel[slot];
+			wheel[slot] = entry;
+			entry = next;
+		    }
+		}
+		int slot = slot(tick);
+		for (Entry entry = wheel[slot]; entry != null;) {
+		    due.add(entry);
+		    entry = entry.next;
+		}
+		wheel[slot] = null;
+	    }
+	    pending -= due.size();
+	}
+	for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+	    List<Entry> batch = due.subList(from,
+		    Math.min(from + BATCH_SIZE, due.size()));
+	    workers.execute(() -> execute(batch));
+	}
+    }
+
+    private void execute(List<Entry> batch) {
+	for (Entry entry : batch) {
+	    try {
+		action.accept(entry.transfer, entry.sequence);
+		executed.increment();
+	    } catch (RuntimeException ex) { // Execute the rest of the batch
+		retry(entry);
+		Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread,
+			ex);
+	    }
+	}
+    }
+
+    /*
+     * Schedules given failed entry again, after 2^attempts ticks, at most a
+     * span.
+     */
+    private synchronized void retry(Entry entry) {
+	int attempts = entry.attempts + 1;
+	long delay = Math.min(1L << Math.min(entry.attempts, 30), SPAN);
+	insert(new Entry(entry.sequence, entry.transfer, tick + delay,
+		attempts));
+    }
+
+    private static int slot(long tick) {
+	return (int) Math.floorMod(tick, 2L * SPAN);
+    }
+
+    /**
+     * Stops this {@code scheduler}; the pending bank transfers are not
+     * executed.
+     */
+    @Override
+    public void close() {
+	ticker.shutdownNow();
+	if (workers instanceof ExecutorService) {
+	    ((ExecutorService) workers).shutdown();
+	}
+    }
+
+    /**
+     * A pending bank transfer, linked to the next one of its tick or span.
+     */
+    private static final class Entry {
+
+	private final long sequence;
+
+	private final BankTransfer transfer;
+
+	private final long tick;
+
+	// The number of failed executions:
+	private final int attempts;
+
+	private Entry next;
+
+	private Entry(long sequence, BankTransfer transfer, long tick,
+		int attempts) {
+	    this.sequence = sequence;
+	    this.transfer = transfer;
+	    this.tick = tick;
+	    this.attempts = attempts;
+	}
+    }
+}
@@ -0,0 +1,191 @@
+package fr.formation.partiel1.services;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.*;
+
+/**
+ * The formats of the transfer files that can be imported.
+ * <p>
+ * A file is read as a stream of raw records, one per bank transfer, made of
+ * five fields: the amount, the request date, the execution date (may be
+ * empty), the origin IBAN and the destination IBAN. Records are converted
+ * and validated later on, so reading a file never fails on an invalid bank
+ * transfer.
+ *
+ * @author Frank MARSHALL
+ * @see TransferImport
+ */
+public enum ImportFormat {
+
+    /**
+     * Comma or semicolon separated values, one bank transfer per line, with
+     * an optional header line starting with {@code amount}.
+     * <p>
+     * The delimiter is declared by the first line, header or not: a
+     * semicolon if it has one, a comma otherwise. Amounts of semicolon
+     * separated files may be written with a decimal comma.
+     */
+    CSV {
+
+	@Override
+	void read(InputStream input, Consumer<String[]> records)
+		throws IOException {
+	    BufferedReader reader = new BufferedReader(
+		    new InputStreamReader(input, StandardCharsets.UTF_8));
+	    String line = reader.readLine();
+	    if (line == null) {
+		return;
+	    }
+	    boolean semicolon = line.indexOf(';') >= 0;
+	    Pattern delimiter = semicolon ? SEMICOLON : COMMA;
+	    if (line.regionMatches(true, 0, "amount", 0, 6)) {
+		line = reader.readLine(); // Skip header
+	    }
+	    for (; line != null; line = reader.readLine()) {
+		if (!line.trim().isEmpty()) {
+		    String[] record = delimiter.split(line, -1);
+		    if (semicolon) {
+			record[0] = record[0].replace(',', '.');
+		    }
+		    records.accept(record);
+		}
+	    }
+	}
+    },
+
+    /**
+     * SEPA credit transfer initiation messages ({@code pain.001}): one bank
+     * transfer per {@code CdtTrfTxInf} element. The request date is the
+     * creation date of the message, the execution date and the origin IBAN
+     * are the ones of the enclosing {@code PmtInf} element.
+     */
+    PAIN_001 {
+
+	@Override
+	void read(InputStream input, Consumer<String[]> records)
+		throws IOException {
+	    try {
+		XMLStreamReader reader = XML.createXMLStreamReader(input);
+		try {
+		    readPayments(reader, records);
+		} finally {
+		    reader.close();
+		}
+	    } catch (XMLStreamException ex) {
+		throw new IllegalArgumentException(
+			"malformed XML: " + ex.getMessage(), ex);
+	    }
+	}
+    };
+
+    private static final Pattern COMMA = Pattern.compile(",");
+
+    private static final Pattern SEMICOLON = Pattern.compile(";");
+
+    private static final XMLInputFactory XML = XMLInputFactory.newInstance();
+    static {
+	XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+	XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+		false);
+    }
+
+    /**
+     * Reads given file as a stream of raw records.
+     *
+     * @param input
+     *            a transfer file
+     * @param records
+     *            the consumer of the records read, in file order
+     * @throws IOException
+     *             if {@code input} cannot be read
+     * @throws IllegalArgumentException
+     *             if {@code input} is not well-formed
+     */
+    abstract void read(InputStream input, Consumer<String[]> records)
+	    throws IOException;
+
+    /**
+     * Returns the format of a file given its media type or, if unknown, its
+     * name.
+     *
+     * @param mediaType
+     *            the media type of the file; may be {@code null}
+     * @param fileName
+     *            the name of the file; may be {@code null}
+     * @return the format of the file; never {@code null}
+     * @throws IllegalArgumentException
+     *             if the format cannot be determined
+     */
+    public static ImportFormat of(String mediaType, String fileName) {
+	String type = mediaType == null ? ""
+		: mediaType.toLowerCase(Locale.ROOT);
+	String name = fileName == null ? ""
+		: fileName.toLowerCase(Locale.ROOT);
+	if (type.startsWith("text/csv") || name.endsWith(".csv")) {
+	    return CSV;
+	}
+	if (type.startsWith("application/xml") || type.startsWith("text/xml")
+		|| name.endsWith(".xml")) {
+	    return PAIN_001;
+	}
+	throw new IllegalArgumentException("unknown file format: " + fileName);
+    }
+
+    private static void readPayments(XMLStreamReader reader,
+	    Consumer<String[]> records) throws XMLStreamException {
+	Deque<String> path = new ArrayDeque<>();
+	StringBuilder text = new StringBuilder();
+	String requestDate = "";
+	String executionDate = "";
+	String origin = "";
+	String amount = "";
+	String destination = "";
+	while (reader.hasNext()) {
+	    switch (reader.next()) {
+	    case XMLStreamConstants.START_ELEMENT:
+		path.push(reader.getLocalName());
+		text.setLength(0);
+		break;
+	    case XMLStreamConstants.CHARACTERS:
+	    case XMLStreamConstants.CDATA:
+		text.append(reader.getTextCharacters(), reader.getTextStart(),
+			reader.getTextLength());
+		break;
+	    case XMLStreamConstants.END_ELEMENT:
+		String name = path.pop();
+		String value = text.toString().trim();
+		text.setLength(0);
+		if (name.equals("CreDtTm") && path.contains("GrpHdr")) {
+		    requestDate = value;
+		} else if (name.equals("ReqdExctnDt") || name.equals("Dt")
+			&& "ReqdExctnDt".equals(path.peek())) {
+		    if (!value.isEmpty()) {
+			executionDate = value;
+		    }
+		} else if (name.equals("IBAN") && path.contains("DbtrAcct")) {
+		    origin = value;
+		} else if (name.equals("IBAN") && path.contains("CdtrAcct")) {
+		    destination = value;
+		} else if (name.equals("InstdAmt")) {
+		    amount = value;
+		} else if (name.equals("CdtTrfTxInf")) {
+		    records.accept(new String[] { amount, requestDate,
+			    executionDate, origin, destination });
+		    amount = "";
+		    destination = "";
+		} else if (name.equals("PmtInf")) {
+		    executionDate = "";
+		    origin = "";
+		}
+		break;
+	    default:
+		break;
+	    }
+	}
+    }
+}
@@ -0,0 +1,88 @@
+package fr.formation.partiel1.services;
+
+import java.util.*;
+
+/**
+ * The report of the import of a transfer file.
+ * <p>
+ * Only the first {@value #MAX_ERRORS} rejections are detailed, so that the
+ * report of a large file stays small.
+ *
+ * @author Frank MARSHALL
+ * @see TransferImport
+ */
+public final class ImportReport {
+
+    /**
+     * The maximum number of detailed rejections.
+     */
+    public static final int MAX_ERRORS = 100;
+
+    private final long records;
+
+    private final long created;
+
+    private final List<BatchResult> errors;
+
+    ImportReport(long records, long created, List<BatchResult> errors) {
+	this.records = records;
+	this.created = created;
+	this.errors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Returns the number of bank transfers read from the file.
+     *
+     * @return the number of bank transfers read
+     */
+    public long getRecords() {
+	return records;
+    }
+
+    /**
+     * Returns the number of bank transfers registered.
+     *
+     * @return the number of bank transfers registered
+     */
+    public long getCreated() {
+	return created;
+    }
+
+    /**
+     * Returns the number of bank transfers rejected.
+     *
+     * @return the number of bank transfers rejected
+     */
+    public long getRejected() {
+	return records - created;
+    }
+
+    /**
+     * Returns the first rejections, ordered by record. The index of a
+     * rejection is the zero based number of the record in the file.
+     *
+     * @return an unmodifiable list of at most {@value #MAX_ERRORS}
+     *         rejections; never {@code null}, may be empty
+     */
+    public List<BatchResult> getErrors() {
+	return errors;
+    }
+
+    /**
+     * Returns a string representation of this {@code report}.
+     *
+     * @return a string representation of this {@code report}
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append("{records=");
+	builder.append(records);
+	builder.append(", created=");
+	builder.append(created);
+	builder.append(", errors=");
+	builder.append(errors);
+	builder.append("}");
+	return builder.toString();
+    }
+}
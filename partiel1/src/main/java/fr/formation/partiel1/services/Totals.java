@@ -0,0 +1,60 @@
+package fr.formation.partiel1.services;
+
+import fr.formation.partiel1.entities.Money;
+
+/**
+ * The number and the total amount of a set of bank transfers.
+ * <p>
+ * Class invariants:
+ * <ul>
+ * <li>The total amount is guaranteed not {@code null}
+ * </ul>
+ *
+ * @author Frank MARSHALL
+ * @see TransferStatistics
+ */
+public final class Totals {
+
+    private final long count;
+
+    private final Money total;
+
+    Totals(long count, Money total) {
+	this.count = count;
+	this.total = total;
+    }
+
+    /**
+     * Returns the number of bank transfers.
+     *
+     * @return the number of bank transfers
+     */
+    public long getCount() {
+	return count;
+    }
+
+    /**
+     * Returns the total amount of the bank transfers.
+     *
+     * @return the total amount; never {@code null}
+     */
+    public Money getTotal() {
+	return total;
+    }
+
+    /**
+     * Returns a string representation of this {@code totals}.
+     *
+     * @return a string representation of this {@code totals}
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder();
+	builder.append("{count=");
+	builder.append(count);
+	builder.append(", total=");
+	builder.append(total);
+	builder.append("}");
+	return builder.toString();
+    }
+}
@@ -0,0 +1,262 @@
+package fr.formation.partiel1.services;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import fr.formation.partiel1.entities.*;
+import fr.formation.partiel1.stores.TransferStore;
+
+/**
+ * Reports over the history of the bank transfers of a store: the largest
+ * flows between two accounts, the volumes by country and the distribution
+ * of the amounts by day.
+ * <p>
+ * Each report is a reduction of a {@linkplain TransferStore#parallelStream()
+ * parallel stream} of the store, run in the common fork-join pool: each
+ * task accumulates its part of the bank transfers in its own maps of
+ * {@code long} arrays, counts and amounts in minor units, then the maps of
+ * the tasks are merged pairwise. Nothing is shared between the tasks, and
+ * no amount is boxed until the results are built.
+ * <p>
+ * A report is computed from a snapshot of the store, at the cost of a scan
+ * of all its bank transfers, or of a range of request dates for the daily
+ * distribution.
+ * <p>
+ * This class is thread-safe if its store is.
+ *
+ * @author Frank MARSHALL
+ */
+public class TransferAnalytics {
+
+    /**
+     * The upper bounds of the orders of magnitude of the amounts, in minor
+     * units, but the last one.
+     */
+    private static final long[] MAGNITUDES = { 100L, 1_000L, 10_000L,
+	    100_000L, 1_000_000L, 10_000_000L };
+
+    // The indexes in the accumulator of a day:
+    private static final int COUNT = 0;
+
+    private static final int CENTS = 1;
+
+    private static final int MIN = 2;
+
+    private static final int MAX = 3;
+
+    private static final int BUCKETS = 4;
+
+    private final TransferStore store;
+
+    /**
+     * Creates a new {@code TransferAnalytics} of given store.
+     *
+     * @param store
+     *            the store of the bank transfers
+     * @throws NullPointerException
+     *             if {@code store} is {@code null}
+     */
+    public TransferAnalytics(TransferStore store) {
+	this.store = Objects.requireNonNull(store, "store must not be null");
+    }
+
+    /**
+     * Returns the totals of the bank transfers from an account to another,
+     * for the pairs of accounts of largest total amount.
+     *
+     * @param limit
+     *            the maximum number of pairs of accounts
+     * @return a list of the totals by pair of accounts, by decreasing total
+     *         amount then number of bank transfers; never {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code limit} is not positive
+     */
+    public List<CounterpartyStatistics> topCounterparties(int limit) {
+	if (limit <= 0) {
+	    throw new IllegalArgumentException("limit must be positive");
+	}
+	Map<Iban, Map<Iban, long[]>> flows = store.parallelStream().collect(
+		HashMap::new, TransferAnalytics::accumulateFlow,
+		(left, right) -> right.forEach((origin, destinations) -> merge(
+			left.computeIfAbsent(origin, key -> new HashMap<>()),
+			destinations, TransferAnalytics::add)));
+	// The smallest of the largest flows first, replaced by larger ones:
+	Comparator<CounterpartyStatistics> order = Comparator
+		.comparingLong((CounterpartyStatistics statistics) -> statistics
+			.getTotals().getTotal().getMinorUnits())
+		.thenComparingLong(statistics -> statistics.getTotals()
+			.getCount())
+		.thenComparing(statistics -> statistics.getOrigin().toString(),
+			Comparator.reverseOrder())
+		.thenComparing(
+			statistics -> statistics.getDestination().toString(),
+			Comparator.reverseOrder());
+	PriorityQueue<CounterpartyStatistics> top = new PriorityQueue<>(
+		order);
+	flows.forEach((origin, destinations) -> destinations
+		.forEach((destination, flow) -> {
+		    top.add(new CounterpartyStatistics(origin, destination,
+			    totals(flow[COUNT], flow[CENTS])));
+		    if (top.size() > limit) {
+			top.poll();
+		    }
+		}));
+	List<CounterpartyStatistics> result = new ArrayList<>(top);
+	result.sort(order.reversed());
+	return result;
+    }
+
+    private static void accumulateFlow(Map<Iban, Map<Iban, long[]>> flows,
+	    BankTransfer transfer) {
+	long[] flow = flows
+		.computeIfAbsent(transfer.getOrigin(), key -> new HashMap<>())
+		.computeIfAbsent(transfer.getDestination(),
+			key -> new long[2]);
+	flow[COUNT]++;
+	flow[CENTS] += transfer.getAmount().getMinorUnits();
+    }
+
+    /**
+     * Returns the totals of the bank transfers from and to the accounts of
+     * each country.
+     *
+     * @return a list of the totals by country, by country code; never
+     *         {@code null}
+     */
+    public List<CountryStatistics> countries() {
+	Map<String, long[]> countries = store.parallelStream().collect(
+		HashMap::new, TransferAnalytics::accumulateCountry,
+		(left, right) -> merge(left, right, TransferAnalytics::add));
+	List<CountryStatistics> result = new ArrayList<>(countries.size());
+	for (Map.Entry<String, long[]> entry : new TreeMap<>(countries)
+		.entrySet()) {
+	    long[] country = entry.getValue();
+	    result.add(new CountryStatistics(entry.getKey(),
+		    totals(country[0], country[1]),
+		    totals(country[2], country[3])));
+	}
+	return result;
+    }
+
+    private static void accumulateCountry(Map<String, long[]> countries,
+	    BankTransfer transfer) {
+	long cents = transfer.getAmount().getMinorUnits();
+	long[] outgoing = countries.computeIfAbsent(
+		transfer.getOrigin().getCountry(), key -> new long[4]);
+	outgoing[0]++;
+	outgoing[1] += cents;
+	long[] incoming = countries.computeIfAbsent(
+		transfer.getDestination().getCountry(), key -> new long[4]);
+	incoming[2]++;
+	incoming[3] += cents;
+    }
+
+    /**
+     * Returns the distribution of the amounts of the bank transfers
+     * requested on each day between given dates.
+     *
+     * @param from
+     *            the first day, inclusive; {@code null} for no lower bound
+     * @param to
+     *            the last day, inclusive; {@code null} for no upper bound
+     * @return a list of distributions, by date, of the days with bank
+     *         transfers; never {@code null}
+     */
+    public List<DailyDistribution> daily(LocalDate from, LocalDate to) {
+	Stream<BankTransfer> transfers;
+	if (from != null && to != null) {
+	    transfers = store.between(from.atStartOfDay(),
+		    to.plusDays(1L).atStartOfDay()).parallelStream();
+	} else {
+	    transfers = store.parallelStream().filter(transfer -> {
+		LocalDate day = transfer.getRequestDate().toLocalDate();
+		return (from == null || !day.isBefore(from))
+			&& (to == null || !day.isAfter(to));
+	    });
+	}
+	Map<LocalDate, long[]> days = transfers.collect(HashMap::new,
+		TransferAnalytics::accumulateDay,
+		(left, right) -> merge(left, right,
+			TransferAnalytics::combineDay));
+	List<DailyDistribution> result = new ArrayList<>(days.size());
+	for (Map.Entry<LocalDate, long[]> entry : new TreeMap<>(days)
+		.entrySet()) {
+	    long[] day = entry.getValue();
+	    Map<String, Long> magnitudes = new LinkedHashMap<>();
+	    for (int i = 0; i <= MAGNITUDES.length; i++) {
+		magnitudes.put(magnitude(i), day[BUCKETS + i]);
+	    }
+	    result.add(new DailyDistribution(entry.getKey(),
+		    totals(day[COUNT], day[CENTS]),
+		    Money.ofMinor(day[MIN], BankTransfer.CURRENCY),
+		    Money.ofMinor(day[MAX], BankTransfer.CURRENCY),
+		    Collections.unmodifiableMap(magnitudes)));
+	}
+	return result;
+    }
+
+    private static void accumulateDay(Map<LocalDate, long[]> days,
+	    BankTransfer transfer) {
+	long cents = transfer.getAmount().getMinorUnits();
+	// The date of a LocalDateTime is one of its fields, not a new object:
+	long[] day = days.computeIfAbsent(
+		transfer.getRequestDate().toLocalDate(), key -> {
+		    long[] empty = new long[BUCKETS + MAGNITUDES.length + 1];
+		    empty[MIN] = Long.MAX_VALUE;
+		    empty[MAX] = Long.MIN_VALUE;
+		    return empty;
+		});
+	day[COUNT]++;
+	day[CENTS] += cents;
+	day[MIN] = Math.min(day[MIN], cents);
+	day[MAX] = Math.max(day[MAX], cents);
+	int bucket = 0;
+	while (bucket < MAGNITUDES.length && cents >= MAGNITUDES[bucket]) {
+	    bucket++;
+	}
+	day[BUCKETS + bucket]++;
+    }
+
+    private static void combineDay(long[] left, long[] right) {
+	long min = Math.min(left[MIN], right[MIN]);
+	long max = Math.max(left[MAX], right[MAX]);
+	add(left, right);
+	left[MIN] = min;
+	left[MAX] = max;
+    }
+
+    /*
+     * Returns the label of given order of magnitude, in major units.
+     */
+    private static String magnitude(int index) {
+	return index < MAGNITUDES.length
+		? "<" + MAGNITUDES[index] / 100L
+		: ">=" + MAGNITUDES[index - 1] / 100L;
+    }
+
+    /*
+     * Merges the accumulators of given maps into the left one, with given
+     * function for the keys of both maps.
+     */
+    private static <K> void merge(Map<K, long[]> left, Map<K, long[]> right,
+	    BiConsumer<long[], long[]> combiner) {
+	right.forEach((key, value) -> {
+	    long[] existing = left.putIfAbsent(key, value);
+	    if (existing != null) {
+		combiner.accept(existing, value);
+	    }
+	});
+    }
+
+    private static void add(long[] left, long[] right) {
+	for (int i = 0; i < left.length; i++) {
+	    left[i] += right[i];
+	}
+    }
+
+    private static Totals totals(long count, long cents) {
+	return new Totals(count, Money.ofMinor(cents, BankTransfer.CURRENCY));
+    }
+}
@@ -0,0 +1,288 @@
+package fr.formation.partiel1.services;
+
+import java.io.*;
+import java.time.*;
+import java.time.format.*;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.*;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * A batch of bank transfers submitted at once, validated in one pass.
+ * <p>
+ * The bank transfers are read as a JSON array or as newline delimited JSON,
+ * into one array per property. Each validation rule is then applied to the
+ * whole batch in a tight loop over its arrays, before any
+ * {@code BankTransfer} is created.
+ * <p>
+ * The accounts are read either in the same form as they are written (an
+ * object with the country code, the key and the BBAN) or as IBANs in
+ * electronic or paper format.
+ *
+ * @author Frank MARSHALL
+ * @see BankTransfer#isValidAmount(Money)
+ * @see BankTransfer#areValidDates(LocalDateTime, LocalDateTime)
+ * @see BankTransfer#areValidAccounts(Iban, Iban)
+ */
+public class TransferBatch {
+
+    /**
+     * The maximum number of bank transfers of a batch.
+     */
+    public static final int MAX_SIZE = 100_000;
+
+    private static final ObjectReader READER = new ObjectMapper()
+	    .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+	    .readerFor(JsonNode.class);
+
+    private Money[] amounts = new Money[64];
+
+    private LocalDateTime[] requestDates = new LocalDateTime[64];
+
+    private LocalDateTime[] executionDates = new LocalDateTime[64];
+
+    private Iban[] origins = new Iban[64];
+
+    private Iban[] destinations = new Iban[64];
+
+    private String[] errors = new String[64];
+
+    private int size;
+
+    private List<BankTransfer> valid;
+
+    private int[] indexes;
+
+    /**
+     * Reads a batch of bank transfers from given JSON array or newline
+     * delimited JSON.
+     * <p>
+     * A bank transfer with missing or malformed properties is read as
+     * rejected; the other bank transfers are still read.
+     *
+     * @param input
+     *            a JSON array or newline delimited JSON
+     * @return a new batch of bank transfers; never {@code null}
+     * @throws IOException
+     *             if {@code input} cannot be read
+     * @throws IllegalArgumentException
+     *             if {@code input} is not well-formed JSON or holds more than
+     *             {@value #MAX_SIZE} bank transfers
+     */
+    public static TransferBatch read(InputStream input) throws IOException {
+	TransferBatch batch = new TransferBatch();
+	try (MappingIterator<JsonNode> nodes = READER.readValues(input)) {
+	    while (nodes.hasNextValue()) {
+		if (batch.size == MAX_SIZE) {
+		    throw new IllegalArgumentException(
+			    "batch must not exceed " + MAX_SIZE + " items");
+		}
+		batch.add(nodes.nextValue());
+	    }
+	} catch (JsonProcessingException ex) {
+	    throw new IllegalArgumentException(
+		    "malformed JSON: " + ex.getOriginalMessage(), ex);
+	}
+	return batch;
+    }
+
+    /**
+     * Creates a batch of bank transfers from given raw records, as read by an
+     * {@link ImportFormat}.
+     *
+     * @param records
+     *            a list of records of five fields
+     * @return a new batch of bank transfers; never {@code null}
+     */
+    static TransferBatch of(List<String[]> records) {
+	TransferBatch batch = new TransferBatch();
+	for (String[] record : records) {
+	    batch.add(record);
+	}
+	return batch;
+    }
+
+    private int next() {
+	if (size == amounts.length) {
+	    int capacity = size * 2;
+	    amounts = Arrays.copyOf(amounts, capacity);
+	    requestDates = Arrays.copyOf(requestDates, capacity);
+	    executionDates = Arrays.copyOf(executionDates, capacity);
+	    origins = Arrays.copyOf(origins, capacity);
+	    destinations = Arrays.copyOf(destinations, capacity);
+	    errors = Arrays.copyOf(errors, capacity);
+	}
+	return size++;
+    }
+
+    private void add(JsonNode node) {
+	int index = next();
+	try {
+	    JsonNode amount = node.path("amount");
+	    amounts[index] = amount.isNumber()
+		    ? Money.of(amount.decimalValue(), BankTransfer.CURRENCY)
+		    : Money.parse(amount.asText(), BankTransfer.CURRENCY);
+	    requestDates[index] = date(text(node.path("requestDate")));
+	    executionDates[index] = date(text(node.path("executionDate")));
+	    origins[index] = iban(node.path("origin"));
+	    destinations[index] = iban(node.path("destination"));
+	} catch (IllegalArgumentException | DateTimeParseException ex) {
+	    errors[index] = ex.getMessage();
+	}
+    }
+
+    private void add(String[] record) {
+	int index = next();
+	if (record.length != 5) {
+	    errors[index] = "expected 5 fields, found " + record.length;
+	    return;
+	}
+	try {
+	    amounts[index] = Money.parse(record[0].trim(),
+		    BankTransfer.CURRENCY);
+	    requestDates[index] = date(record[1]);
+	    executionDates[index] = date(record[2]);
+	    origins[index] = iban(record[3]);
+	    destinations[index] = iban(record[4]);
+	} catch (IllegalArgumentException | DateTimeParseException ex) {
+	    errors[index] = ex.getMessage();
+	}
+    }
+
+    private static String text(JsonNode node) {
+	return node.isMissingNode() || node.isNull() ? null : node.asText();
+    }
+
+    /*
+     * Dates are local dates and times, or dates and times with an offset
+     * (offset ignored), or dates only (start of day).
+     */
+    private static LocalDateTime date(String text) {
+	String date = text == null ? "" : text.trim();
+	if (date.isEmpty()) {
+	    return null;
+	}
+	if (date.length() == 10) {
+	    return LocalDate.parse(date).atStartOfDay();
+	}
+	TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME
+		.parse(date);
+	return LocalDateTime.from(parsed);
+    }
+
+    private static Iban iban(String text) {
+	String iban = text == null ? "" : text.trim();
+	return iban.isEmpty() ? null : IbanCache.shared().get(iban);
+    }
+
+    private static Iban iban(JsonNode node) {
+	if (node.isMissingNode() || node.isNull()) {
+	    return null;
+	}
+	if (node.isTextual()) {
+	    return iban(node.asText());
+	}
+	JsonNode bban = node.path("bban");
+	return IbanPool.shared()
+		.intern(new Iban(text(node, "country"), text(node, "key"),
+			new Bban(text(bban, "bank"), text(bban, "counter"),
+				text(bban, "account"), text(bban, "key"))));
+    }
+
+    private static String text(JsonNode node, String field) {
+	JsonNode value = node.get(field);
+	if (value == null || value.isNull()) {
+	    throw new IllegalArgumentException(field + " must not be null");
+	}
+	return value.asText();
+    }
+
+    /**
+     * Validates the bank transfers of this {@code batch} and registers the
+     * valid ones.
+     *
+     * @param registry
+     *            the registry of the valid bank transfers
+     * @return the results of the bank transfers, in submission order; never
+     *         {@code null}
+     * @throws NullPointerException
+     *             if {@code registry} is {@code null}
+     */
+    public List<BatchResult> register(BankTransferRegistry registry) {
+	validate();
+	registry.registerAll(valid).forEach(
+		(index, message) -> errors[indexes[index]] = message);
+	List<BatchResult> results = new ArrayList<>(size);
+	for (int i = 0; i < size; i++) {
+	    results.add(errors[i] == null ? BatchResult.created(i)
+		    : BatchResult.rejected(i, errors[i]));
+	}
+	return results;
+    }
+
+    /**
+     * Validates the bank transfers of this {@code batch}, applying each rule
+     * to the whole batch and skipping the bank transfers already rejected,
+     * then creates the valid ones. Does nothing if this {@code batch} has
+     * already been validated.
+     */
+    void validate() {
+	if (valid != null) {
+	    return;
+	}
+	for (int i = 0; i < size; i++) {
+	    if (errors[i] == null
+		    && !BankTransfer.isValidAmount(amounts[i])) {
+		errors[i] = "amount must be positive";
+		Violation.AMOUNT.record();
+	    }
+	}
+	for (int i = 0; i < size; i++) {
+	    if (errors[i] == null && requestDates[i] == null) {
+		errors[i] = "request date must not be null";
+		Violation.MISSING_PROPERTY.record();
+	    }
+	}
+	for (int i = 0; i < size; i++) {
+	    if (errors[i] == null && !BankTransfer
+		    .areValidDates(requestDates[i], executionDates[i])) {
+		errors[i] = "execution date must be at least 24h after "
+			+ "request date";
+		Violation.DATES.record();
+	    }
+	}
+	for (int i = 0; i < size; i++) {
+	    if (errors[i] == null && !BankTransfer
+		    .areValidAccounts(origins[i], destinations[i])) {
+		boolean missing = origins[i] == null
+			|| destinations[i] == null;
+		errors[i] = missing ? "accounts must not be null"
+			: "accounts must not be equal";
+		(missing ? Violation.MISSING_PROPERTY : Violation.ACCOUNTS)
+			.record();
+	    }
+	}
+	valid = new ArrayList<>(size);
+	indexes = new int[size];
+	for (int i = 0; i < size; i++) {
+	    if (errors[i] == null) {
+		indexes[valid.size()] = i;
+		valid.add(new BankTransfer(amounts[i], requestDates[i],
+			executionDates[i], origins[i], destinations[i]));
+	    }
+	}
+    }
+
+    /**
+     * Returns the number of bank transfers of this {@code batch}.
+     *
+     * @return the number of bank transfers
+     */
+    public int size() {
+	return size;
+    }
+}
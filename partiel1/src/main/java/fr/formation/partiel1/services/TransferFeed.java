@@ -0,0 +1,459 @@
+package fr.formation.partiel1.services;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import fr.formation.partiel1.entities.BankTransfer;
+
+/**
+ * A feed of the events of the bank transfers, registered or executed,
+ * pushed to its subscribers as they happen.
+ * <p>
+ * Events are numbered from 1 and the last ones are kept in a ring of fixed
+ * capacity, so a subscriber reconnecting after the event it last received
+ * is sent the events it missed first. When these events have been dropped
+ * from the ring, or the event is unknown, the subscriber is sent a
+ * {@linkplain Type#RESET reset} event instead, telling it to reload the
+ * bank transfers.
+ * <p>
+ * Publishing an event never blocks: each subscriber has a bounded buffer of
+ * the events not sent yet, drained by a pool of senders, one sender at a
+ * time per subscriber. A subscriber whose buffer is full is sent the events
+ * buffered, then closed, and is expected to reconnect, catching up from the
+ * ring.
+ * <p>
+ * It is configured with the following system properties:
+ * <ul>
+ * <li>{@value #CAPACITY_PROPERTY}: the number of events kept for the
+ * subscribers reconnecting, defaults to {@value #DEFAULT_CAPACITY}
+ * <li>{@value #BUFFER_PROPERTY}: the maximum number of events buffered for
+ * a subscriber, defaults to {@value #DEFAULT_BUFFER}
+ * </ul>
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ */
+public class TransferFeed implements Closeable {
+
+    /**
+     * The name of the system property giving the number of events kept for
+     * the subscribers reconnecting.
+     */
+    public static final String CAPACITY_PROPERTY = "partiel1.feed.capacity";
+
+    /**
+     * The name of the system property giving the maximum number of events
+     * buffered for a subscriber.
+     */
+    public static final String BUFFER_PROPERTY = "partiel1.feed.buffer";
+
+    /**
+     * The identifier to subscribe from to receive the next events only.
+     */
+    public static final long LIVE = -1L;
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int DEFAULT_BUFFER = 256;
+
+    private final Event[] ring;
+
+    private final int bufferSize;
+
+    private final Executor senders;
+
+    private final Set<Subscription> subscriptions = new HashSet<>();
+
+    // The identifier of the last event, guarded by this feed:
+    private long last;
+
+    /**
+     * Creates a new {@code TransferFeed} with given capacity and buffer
+     * size.
+     *
+     * @param capacity
+     *            the number of events kept for the subscribers reconnecting
+     * @param bufferSize
+     *            the maximum number of events buffered for a subscriber
+     * @throws IllegalArgumentException
+     *             if {@code capacity} or {@code bufferSize} is not positive
+     */
+    public TransferFeed(int capacity, int bufferSize) {
+	this(capacity, bufferSize, Executors.newCachedThreadPool(runnable -> {
+	    Thread thread = new Thread(runnable, "transfer-feed");
+	    thread.setDaemon(true);
+	    return thread;
+	}));
+    }
+
+    /**
+     * Creates a new {@code TransferFeed} with given capacity, buffer size
+     * and senders.
+     *
+     * @param capacity
+     *            the number of events kept for the subscribers reconnecting
+     * @param bufferSize
+     *            the maximum number of events buffered for a subscriber
+     * @param senders
+     *            the executor of the senders of the events
+     * @throws NullPointerException
+     *             if {@code senders} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code capacity} or {@code bufferSize} is not positive
+     */
+    TransferFeed(int capacity, int bufferSize, Executor senders) {
+	if (capacity <= 0) {
+	    throw new IllegalArgumentException("capacity must be positive");
+	}
+	if (bufferSize <= 0) {
+	    throw new IllegalArgumentException("buffer size must be positive");
+	}
+	ring = new Event[capacity];
+	this.bufferSize = bufferSize;
+	this.senders = Objects.requireNonNull(senders,
+		"senders must not be null");
+    }
+
+    /**
+     * Creates a new {@code TransferFeed} configured with the system
+     * properties.
+     *
+     * @return a new feed; never {@code null}
+     * @throws IllegalArgumentException
+     *             if a property is not positive
+     */
+    public static TransferFeed create() {
+	return new TransferFeed(
+		Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY),
+		Integer.getInteger(BUFFER_PROPERTY, DEFAULT_BUFFER));
+    }
+
+    /**
+     * Publishes the registration of given bank transfer.
+     *
+     * @param transfer
+     *            the registered bank transfer
+     * @throws NullPointerException
+     *             if {@code transfer} is {@code null}
+     */
+    public void created(BankTransfer transfer) {
+	publish(Type.CREATED, transfer);
+    }
+
+    /**
+     * Publishes the execution of given bank transfer.
+     *
+     * @param transfer
+     *            the executed bank transfer
+     * @throws NullPointerException
+     *             if {@code transfer} is {@code null}
+     */
+    public void executed(BankTransfer transfer) {
+	publish(Type.EXECUTED, transfer);
+    }
+
+    private void publish(Type type, BankTransfer transfer) {
+	Objects.requireNonNull(transfer, "transfer must not be null");
+	synchronized (this) {
+	    Event event = new Event(++last, type, transfer);
+	    ring[(int) (last % ring.length)] = event;
+	    // Copied, as an overflowing subscription removes itself:
+	    for (Subscription subscription : new ArrayList<>(subscriptions)) {
+		subscription.offer(event);
+	    }
+	}
+    }
+
+    /**
+     * Subscribes given sink to the events following given one.
+     * <p>
+     * The events still kept after {@code after} are sent first; if some of
+     * them have been dropped, or {@code after} is unknown, a
+     * {@linkplain Type#RESET reset} event is sent instead.
+     *
+     * @param after
+     *            the identifier of the last event received, or
+     *            {@link #LIVE} to receive the next events only
+     * @param sink
+     *            the sink of the events
+     * @return the subscription; never {@code null}
+     * @throws NullPointerException
+     *             if {@code sink} is {@code null}
+     */
+    public Subscription subscribe(long after, Sink sink) {
+	Objects.requireNonNull(sink, "sink must not be null");
+	List<Event> replay = new ArrayList<>();
+	Subscription subscription;
+	synchronized (this) {
+	    long first = Math.max(1L, last - ring.length + 1L);
+	    if (after >= first - 1L && after <= last) {
+		for (long id = after + 1L; id <= last; id++) {
+		    replay.add(ring[(int) (id % ring.length)]);
+		}
+	    } else if (after != LIVE) {
+		replay.add(new Event(last, Type.RESET, null));
+	    }
+	    subscription = new Subscription(sink, replay);
+	    subscriptions.add(subscription);
+	}
+	if (!replay.isEmpty()) {
+	    subscription.schedule();
+	}
+	return subscription;
+    }
+
+    private synchronized void remove(Subscription subscription) {
+	subscriptions.remove(subscription);
+    }
+
+    /**
+     * Returns the number of subscriptions of this {@code feed}.
+     *
+     * @return the number of subscriptions
+     */
+    public synchronized int size() {
+	return subscriptions.size();
+    }
+
+    /**
+     * Closes all the subscriptions and stops the senders.
+     */
+    @Override
+    public void close() {
+	List<Subscription> closed;
+	synchronized (this) {
+	    closed = new ArrayList<>(subscriptions);
+	}
+	for (Subscription subscription : closed) {
+	    subscription.close();
+	}
+	if (senders instanceof ExecutorService) {
+	    ((ExecutorService) senders).shutdown();
+	}
+    }
+
+    /**
+     * The types of the events.
+     */
+    public enum Type {
+
+	/**
+	 * A bank transfer has been registered.
+	 */
+	CREATED("transfer-created"),
+
+	/**
+	 * A deferred bank transfer has been executed.
+	 */
+	EXECUTED("transfer-executed"),
+
+	/**
+	 * Some events have been missed; the bank transfers must be reloaded.
+	 */
+	RESET("reset");
+
+	private final String name;
+
+	private Type(String name) {
+	    this.name = name;
+	}
+
+	/**
+	 * Returns the name of the events of this type.
+	 *
+	 * @return the name of the events; never {@code null}
+	 */
+	public String getName() {
+	    return name;
+	}
+    }
+
+    /**
+     * An event of a bank transfer.
+     * <p>
+     * Class invariants:
+     * <ul>
+     * <li>The type is guaranteed not {@code null}
+     * <li>The bank transfer is guaranteed not {@code null} unless the type
+     * is {@link Type#RESET}
+     * </ul>
+     */
+    public static final class Event {
+
+	private final long id;
+
+	private final Type type;
+
+	private final BankTransfer transfer;
+
+	private Event(long id, Type type, BankTransfer transfer) {
+	    this.id = id;
+	    this.type = type;
+	    this.transfer = transfer;
+	}
+
+	/**
+	 * Returns the identifier of this {@code event}, increasing with the
+	 * events; a reset event has the identifier of the last event.
+	 *
+	 * @return the identifier
+	 */
+	public long getId() {
+	    return id;
+	}
+
+	/**
+	 * Returns the type of this {@code event}.
+	 *
+	 * @return the type; never {@code null}
+	 */
+	public Type getType() {
+	    return type;
+	}
+
+	/**
+	 * Returns the bank transfer of this {@code event}.
+	 *
+	 * @return the bank transfer; {@code null} for a reset event
+	 */
+	public BankTransfer getTransfer() {
+	    return transfer;
+	}
+
+	/**
+	 * Returns a string representation of this {@code event}.
+	 *
+	 * @return a string representation of this {@code event}
+	 */
+	@Override
+	public String toString() {
+	    StringBuilder builder = new StringBuilder();
+	    builder.append("{id=");
+	    builder.append(id);
+	    builder.append(", type=");
+	    builder.append(type.getName());
+	    builder.append(", transfer=");
+	    builder.append(transfer);
+	    builder.append("}");
+	    return builder.toString();
+	}
+    }
+
+    /**
+     * The destination of the events of a subscription.
+     */
+    public interface Sink {
+
+	/**
+	 * Sends given event, blocking until it is written.
+	 *
+	 * @param event
+	 *            an event
+	 * @throws IOException
+	 *             if the event cannot be sent; the subscription is then
+	 *             closed
+	 */
+	void send(Event event) throws IOException;
+
+	/**
+	 * Closes this {@code sink}, once the subscription is closed.
+	 */
+	void close();
+    }
+
+    /**
+     * A subscription to the events of the feed.
+     */
+    public final class Subscription implements Closeable {
+
+	private final Sink sink;
+
+	// The events to send first, only read by the sender:
+	private final List<Event> replay;
+
+	private final BlockingQueue<Event> buffer;
+
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	private volatile boolean overflowed;
+
+	private Subscription(Sink sink, List<Event> replay) {
+	    this.sink = sink;
+	    this.replay = replay;
+	    buffer = new ArrayBlockingQueue<>(bufferSize);
+	}
+
+	private void offer(Event event) {
+	    if (!buffer.offer(event)) {
+		overflowed = true;
+		remove(this);
+	    }
+	    schedule();
+	}
+
+	private void schedule() {
+	    if (scheduled.compareAndSet(false, true)) {
+		try {
+		    senders.execute(this::drain);
+		} catch (RejectedExecutionException ex) {
+		    scheduled.set(false);
+		    close();
+		}
+	    }
+	}
+
+	/*
+	 * Sends the events buffered, then closes this subscription if it has
+	 * overflowed. Goes on if events are buffered meanwhile.
+	 */
+	private void drain() {
+	    do {
+		try {
+		    for (Event event : replay) {
+			sink.send(event);
+		    }
+		    replay.clear();
+		    Event event;
+		    while (!closed.get() && (event = buffer.poll()) != null) {
+			sink.send(event);
+		    }
+		    if (overflowed) {
+			close();
+		    }
+		} catch (IOException | RuntimeException ex) {
+		    close();
+		} finally {
+		    scheduled.set(false);
+		}
+	    } while (!closed.get() && !buffer.isEmpty()
+		    && scheduled.compareAndSet(false, true));
+	}
+
+	/**
+	 * Tells if this {@code subscription} is closed.
+	 *
+	 * @return {@code true} if this {@code subscription} is closed
+	 */
+	public boolean isClosed() {
+	    return closed.get();
+	}
+
+	/**
+	 * Closes this {@code subscription} and its sink; the events buffered
+	 * are dropped.
+	 */
+	@Override
+	public void close() {
+	    if (closed.compareAndSet(false, true)) {
+		remove(this);
+		buffer.clear();
+		sink.close();
+	    }
+	}
+    }
+}
@@ -0,0 +1,287 @@
+package fr.formation.partiel1.services;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * The import of transfer files through a parse, validate and store
+ * pipeline.
+ * <p>
+ * The calling thread parses the file into chunks of {@value #CHUNK_SIZE}
+ * records. A pool of workers validates the chunks in parallel, and a single
+ * writer registers the valid bank transfers chunk by chunk. The stages are
+ * connected by bounded queues: when a stage falls behind, the previous one
+ * blocks, down to the reading of the file. The memory used does not depend
+ * on the size of the file.
+ * <p>
+ * Chunks are registered in completion order, not in file order; the stores
+ * order the bank transfers by request date anyway.
+ *
+ * @author Frank MARSHALL
+ * @see ImportFormat
+ */
+public class TransferImport {
+
+    /**
+     * The number of records of a chunk.
+     */
+    public static final int CHUNK_SIZE = 1024;
+
+    // Marks the end of the chunks, one per worker:
+    private static final Chunk END = new Chunk(-1L, Collections.emptyList());
+
+    private final BankTransferRegistry registry;
+
+    private final int workers;
+
+    /**
+     * Creates a new {@code TransferImport} registering into given registry,
+     * with one validation worker per available processor.
+     *
+     * @param registry
+     *            the registry of the imported bank transfers
+     * @throws NullPointerException
+     *             if {@code registry} is {@code null}
+     */
+    public TransferImport(BankTransferRegistry registry) {
+	this(registry, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new {@code TransferImport} registering into given registry,
+     * with given number of validation workers.
+     *
+     * @param registry
+     *            the registry of the imported bank transfers
+     * @param workers
+     *            the number of validation workers
+     * @throws NullPointerException
+     *             if {@code registry} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code workers} is not positive
+     */
+    public TransferImport(BankTransferRegistry registry, int workers) {
+	this.registry = Objects.requireNonNull(registry,
+		"registry must not be null");
+	if (workers <= 0) {
+	    throw new IllegalArgumentException("workers must be positive");
+	}
+	this.workers = workers;
+    }
+
+    /**
+     * Imports given transfer file.
+     * <p>
+     * Invalid bank transfers are rejected and reported, the other ones are
+     * registered. If the file turns out to be malformed or cannot be read,
+     * the bank transfers read before are still registered. A file may hold
+     * up to {@link Integer#MAX_VALUE} records.
+     *
+     * @param input
+     *            a transfer file
+     * @param format
+     *            the format of {@code input}
+     * @return the report of the import; never {@code null}
+     * @throws IOException
+     *             if {@code input} cannot be read
+     * @throws IllegalArgumentException
+     *             if {@code input} is malformed or holds too many records
+     * @throws UncheckedIOException
+     *             if the journal cannot be written
+     */
+    public ImportReport run(InputStream input, ImportFormat format)
+	    throws IOException {
+	BlockingQueue<Chunk> parsed = new ArrayBlockingQueue<>(2 * workers);
+	BlockingQueue<Chunk> validated = new ArrayBlockingQueue<>(2 * workers);
+	ExecutorService executor = Executors.newFixedThreadPool(workers + 1,
+		runnable -> {
+		    Thread thread = new Thread(runnable, "transfer-import");
+		    thread.setDaemon(true);
+		    return thread;
+		});
+	try {
+	    for (int i = 0; i < workers; i++) {
+		executor.execute(() -> validate(parsed, validated));
+	    }
+	    Future<ImportReport> writer = executor
+		    .submit(() -> register(validated));
+	    Chunker chunker = new Chunker(parsed);
+	    Exception failure = null;
+	    try {
+		format.read(input, chunker);
+	    } catch (IOException | RuntimeException ex) {
+		failure = ex;
+	    }
+	    // The records read before a failure are registered all the same:
+	    chunker.flush();
+	    for (int i = 0; i < workers; i++) {
+		put(parsed, END);
+	    }
+	    ImportReport report;
+	    try {
+		report = writer.get();
+	    } catch (ExecutionException ex) {
+		if (failure == null) {
+		    throw ex;
+		}
+		failure.addSuppressed(ex.getCause());
+		report = null;
+	    }
+	    if (failure instanceof IOException) {
+		throw (IOException) failure;
+	    } else if (failure != null) {
+		throw (RuntimeException) failure;
+	    }
+	    return new ImportReport(chunker.count, report.getCreated(),
+		    report.getErrors());
+	} catch (InterruptedException ex) {
+	    Thread.currentThread().interrupt();
+	    throw new InterruptedIOException("import interrupted");
+	} catch (ExecutionException ex) {
+	    Throwable cause = ex.getCause();
+	    if (cause instanceof RuntimeException) {
+		throw (RuntimeException) cause;
+	    }
+	    throw new IllegalStateException(cause);
+	} finally {
+	    executor.shutdownNow();
+	}
+    }
+
+    private static void put(BlockingQueue<Chunk> queue, Chunk chunk) {
+	try {
+	    queue.put(chunk);
+	} catch (InterruptedException ex) {
+	    Thread.currentThread().interrupt();
+	    throw new CancellationException("import interrupted");
+	}
+    }
+
+    private static void validate(BlockingQueue<Chunk> parsed,
+	    BlockingQueue<Chunk> validated) {
+	try {
+	    for (Chunk chunk = parsed.take(); chunk != END; chunk = parsed
+		    .take()) {
+		try {
+		    chunk.validate();
+		} catch (RuntimeException ex) {
+		    chunk.failure = ex;
+		}
+		validated.put(chunk);
+	    }
+	    validated.put(END);
+	} catch (InterruptedException ex) {
+	    Thread.currentThread().interrupt();
+	}
+    }
+
+    private ImportReport register(BlockingQueue<Chunk> validated)
+	    throws InterruptedException {
+	long created = 0L;
+	// The first rejections, the last one on top:
+	PriorityQueue<BatchResult> errors = new PriorityQueue<>(
+		Comparator.comparingInt(BatchResult::getIndex).reversed());
+	RuntimeException failure = null;
+	for (int ends = 0; ends < workers;) {
+	    Chunk chunk = validated.take();
+	    if (chunk == END) {
+		ends++;
+		continue;
+	    }
+	    if (failure == null) {
+		failure = chunk.failure;
+	    }
+	    if (failure != null) {
+		continue; // Keep draining, not to block the pipeline
+	    }
+	    try {
+		for (BatchResult result : chunk.batch.register(registry)) {
+		    if (result.getStatus() == BatchResult.Status.CREATED) {
+			created++;
+		    } else {
+			errors.add(BatchResult.rejected(
+				Math.toIntExact(
+					chunk.first + result.getIndex()),
+				result.getMessage()));
+			if (errors.size() > ImportReport.MAX_ERRORS) {
+			    errors.poll();
+			}
+		    }
+		}
+	    } catch (RuntimeException ex) {
+		failure = ex;
+	    }
+	}
+	if (failure != null) {
+	    throw failure;
+	}
+	List<BatchResult> first = new ArrayList<>(errors);
+	first.sort(Comparator.comparingInt(BatchResult::getIndex));
+	return new ImportReport(0L, created, first);
+    }
+
+    /**
+     * Splits the records read into chunks.
+     */
+    private static final class Chunker implements Consumer<String[]> {
+
+	private final BlockingQueue<Chunk> parsed;
+
+	private List<String[]> records = new ArrayList<>(CHUNK_SIZE);
+
+	private long count;
+
+	private Chunker(BlockingQueue<Chunk> parsed) {
+	    this.parsed = parsed;
+	}
+
+	@Override
+	public void accept(String[] record) {
+	    // Records are reported by an int index:
+	    if (count + records.size() == Integer.MAX_VALUE) {
+		throw new IllegalArgumentException(
+			"more than " + Integer.MAX_VALUE + " records");
+	    }
+	    records.add(record);
+	    if (records.size() == CHUNK_SIZE) {
+		flush();
+	    }
+	}
+
+	private void flush() {
+	    if (!records.isEmpty()) {
+		put(parsed, new Chunk(count, records));
+		count += records.size();
+		records = new ArrayList<>(CHUNK_SIZE);
+	    }
+	}
+    }
+
+    /**
+     * A chunk of consecutive records of a file, converted and validated by
+     * a worker.
+     */
+    private static final class Chunk {
+
+	private final long first;
+
+	private List<String[]> records;
+
+	private TransferBatch batch;
+
+	private RuntimeException failure;
+
+	private Chunk(long first, List<String[]> records) {
+	    this.first = first;
+	    this.records = records;
+	}
+
+	private void validate() {
+	    batch = TransferBatch.of(records);
+	    records = null;
+	    batch.validate();
+	}
+    }
+}
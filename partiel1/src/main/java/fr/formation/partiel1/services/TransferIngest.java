@@ -0,0 +1,171 @@
+package fr.formation.partiel1.services;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import fr.formation.partiel1.entities.BankTransfer;
+
+/**
+ * Writes the bank transfers submitted concurrently by many threads with a
+ * single writer at a time, without any lock.
+ * <p>
+ * Submitting threads enqueue their request in a lock-free queue, then the
+ * first of them to find no writer at work becomes the writer: it drains up
+ * to {@value #MAX_GROUP} requests, writes their bank transfers, flushes once
+ * for the whole group if any request asks for it, and completes the
+ * requests. The other threads park until their request is completed, or
+ * until they are woken to take over as the writer.
+ * <p>
+ * Writes are thus never concurrent, a flush is shared by all the requests
+ * submitted meanwhile, and no thread ever waits for a lock held by another
+ * one.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ */
+final class TransferIngest {
+
+    /**
+     * The maximum number of requests written by a writer before completing
+     * them.
+     */
+    static final int MAX_GROUP = 256;
+
+    private final Consumer<BankTransfer> writer;
+
+    private final Runnable flush;
+
+    private final Queue<Request> requests = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean writing = new AtomicBoolean();
+
+    /**
+     * Creates a new {@code TransferIngest} with given writer and flush.
+     *
+     * @param writer
+     *            the write of a bank transfer, throwing an
+     *            {@code IllegalArgumentException} if the bank transfer is
+     *            rejected
+     * @param flush
+     *            the flush of the bank transfers written
+     * @throws NullPointerException
+     *             if any of the argument is {@code null}
+     */
+    TransferIngest(Consumer<BankTransfer> writer, Runnable flush) {
+	this.writer = Objects.requireNonNull(writer,
+		"writer must not be null");
+	this.flush = Objects.requireNonNull(flush, "flush must not be null");
+    }
+
+    /**
+     * Writes given bank transfers, in order, and waits for them to be
+     * written.
+     *
+     * @param transfers
+     *            a list of bank transfers
+     * @param flushing
+     *            {@code true} if the bank transfers must be flushed before
+     *            returning
+     * @return the reasons of the rejections, by index in {@code transfers};
+     *         never {@code null}
+     * @throws RuntimeException
+     *             if the writer or the flush failed on these bank transfers;
+     *             the following bank transfers of the list are not written
+     */
+    Map<Integer, String> submit(List<BankTransfer> transfers,
+	    boolean flushing) {
+	Request request = new Request(transfers, flushing);
+	requests.add(request);
+	while (!request.done) {
+	    if (writing.compareAndSet(false, true)) {
+		try {
+		    write();
+		} finally {
+		    writing.set(false);
+		}
+		// Hands over to a request enqueued while writing, if any:
+		Request next = requests.peek();
+		if (next != null) {
+		    LockSupport.unpark(next.thread);
+		}
+	    } else {
+		LockSupport.park(this);
+	    }
+	}
+	if (request.failure != null) {
+	    throw request.failure;
+	}
+	return request.rejected;
+    }
+
+    private void write() {
+	List<Request> group = new ArrayList<>();
+	boolean flushing = false;
+	Request request;
+	while (group.size() < MAX_GROUP
+		&& (request = requests.poll()) != null) {
+	    request.write(writer);
+	    group.add(request);
+	    flushing |= request.flushing;
+	}
+	if (flushing) {
+	    try {
+		flush.run();
+	    } catch (RuntimeException ex) {
+		for (Request flushed : group) {
+		    if (flushed.flushing && flushed.failure == null) {
+			flushed.failure = ex;
+		    }
+		}
+	    }
+	}
+	for (Request written : group) {
+	    Thread thread = written.thread;
+	    written.done = true;
+	    LockSupport.unpark(thread);
+	}
+    }
+
+    /**
+     * A list of bank transfers submitted by a thread.
+     */
+    private static final class Request {
+
+	private final List<BankTransfer> transfers;
+
+	private final boolean flushing;
+
+	private final Thread thread = Thread.currentThread();
+
+	private final Map<Integer, String> rejected = new HashMap<>();
+
+	private RuntimeException failure;
+
+	// Publishes the outcome of the request to the submitting thread:
+	private volatile boolean done;
+
+	private Request(List<BankTransfer> transfers, boolean flushing) {
+	    this.transfers = transfers;
+	    this.flushing = flushing;
+	}
+
+	private void write(Consumer<BankTransfer> writer) {
+	    int index = 0;
+	    for (BankTransfer transfer : transfers) {
+		try {
+		    writer.accept(transfer);
+		} catch (IllegalArgumentException ex) {
+		    rejected.put(index, ex.getMessage());
+		} catch (RuntimeException ex) {
+		    failure = ex;
+		    return;
+		}
+		index++;
+	    }
+	}
+    }
+}
@@ -0,0 +1,185 @@
+package fr.formation.partiel1.services;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Aggregates of the bank transfers, maintained as each bank transfer is
+ * added: overall totals, totals per origin and destination account, and
+ * daily totals per account by execution date.
+ * <p>
+ * Amounts are accumulated in minor units (cents) by striped
+ * {@link LongAdder}s, so concurrent additions do not contend and reading a
+ * total does not depend on the number of bank transfers.
+ * <p>
+ * Bank transfers without an execution date are not counted in the daily
+ * totals. Totals read while bank transfers are added may not reflect a
+ * single point in time.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ */
+public class TransferStatistics {
+
+    private final Aggregate overall = new Aggregate();
+
+    private final ConcurrentMap<Iban, Account> accounts =
+	    new ConcurrentHashMap<>();
+
+    /**
+     * Adds given bank transfer to the aggregates.
+     *
+     * @param transfer
+     *            a bank transfer
+     * @throws NullPointerException
+     *             if {@code transfer} is {@code null}
+     */
+    public void add(BankTransfer transfer) {
+	long amount = transfer.getAmount().getMinorUnits();
+	overall.add(amount);
+	LocalDateTime execution = transfer.getExecutionDate();
+	LocalDate day = execution == null ? null : execution.toLocalDate();
+	account(transfer.getOrigin(), true).outgoing(amount, day);
+	account(transfer.getDestination(), true).incoming(amount, day);
+    }
+
+    /**
+     * Returns the totals of all the bank transfers.
+     *
+     * @return the totals; never {@code null}
+     */
+    public Totals overall() {
+	return overall.totals();
+    }
+
+    /**
+     * Returns the totals of the bank transfers from and to given account.
+     *
+     * @param iban
+     *            an account
+     * @return the totals of the account; {@code null} if no bank transfer
+     *         involves {@code iban}
+     * @throws NullPointerException
+     *             if {@code iban} is {@code null}
+     */
+    public AccountStatistics account(Iban iban) {
+	Account account = account(iban, false);
+	return account == null ? null
+		: new AccountStatistics(account.outgoing.totals(),
+			account.incoming.totals());
+    }
+
+    /**
+     * Returns the daily totals of the bank transfers from and to given
+     * account, executed between given dates.
+     *
+     * @param iban
+     *            an account
+     * @param from
+     *            the first day, inclusive; {@code null} for no lower bound
+     * @param to
+     *            the last day, inclusive; {@code null} for no upper bound
+     * @return a list of daily totals, by date; never {@code null}, empty if
+     *         no bank transfer involves {@code iban}
+     * @throws NullPointerException
+     *             if {@code iban} is {@code null}
+     */
+    public List<DailyStatistics> daily(Iban iban, LocalDate from,
+	    LocalDate to) {
+	Account account = account(iban, false);
+	if (account == null) {
+	    return Collections.emptyList();
+	}
+	NavigableMap<LocalDate, Day> days = account.days;
+	if (from != null) {
+	    days = days.tailMap(from, true);
+	}
+	if (to != null) {
+	    days = days.headMap(to, true);
+	}
+	List<DailyStatistics> daily = new ArrayList<>(days.size());
+	for (Map.Entry<LocalDate, Day> entry : days.entrySet()) {
+	    Day day = entry.getValue();
+	    daily.add(new DailyStatistics(entry.getKey(),
+		    day.outgoing.totals(), day.incoming.totals()));
+	}
+	return daily;
+    }
+
+    private Account account(Iban iban, boolean create) {
+	Objects.requireNonNull(iban, "iban must not be null");
+	Account account = accounts.get(iban);
+	if (account == null && create) {
+	    account = accounts.computeIfAbsent(iban, key -> new Account());
+	}
+	return account;
+    }
+
+    /**
+     * The aggregates of an account.
+     */
+    private static final class Account {
+
+	private final Aggregate outgoing = new Aggregate();
+
+	private final Aggregate incoming = new Aggregate();
+
+	private final ConcurrentNavigableMap<LocalDate, Day> days =
+		new ConcurrentSkipListMap<>();
+
+	private void outgoing(long amount, LocalDate date) {
+	    outgoing.add(amount);
+	    if (date != null) {
+		day(date).outgoing.add(amount);
+	    }
+	}
+
+	private void incoming(long amount, LocalDate date) {
+	    incoming.add(amount);
+	    if (date != null) {
+		day(date).incoming.add(amount);
+	    }
+	}
+
+	private Day day(LocalDate date) {
+	    Day day = days.get(date);
+	    return day != null ? day
+		    : days.computeIfAbsent(date, key -> new Day());
+	}
+    }
+
+    /**
+     * The aggregates of an account for a day.
+     */
+    private static final class Day {
+
+	private final Aggregate outgoing = new Aggregate();
+
+	private final Aggregate incoming = new Aggregate();
+    }
+
+    /**
+     * A running count and total amount.
+     */
+    private static final class Aggregate {
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder cents = new LongAdder();
+
+	private void add(long amount) {
+	    cents.add(amount);
+	    count.increment();
+	}
+
+	private Totals totals() {
+	    return new Totals(count.sum(),
+		    Money.ofMinor(cents.sum(), BankTransfer.CURRENCY));
+	}
+    }
+}
@@ -0,0 +1,583 @@
+package fr.formation.partiel1.stores;
+
+import java.nio.ByteBuffer;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.locks.*;
+import java.util.function.IntFunction;
+import java.util.stream.*;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * A columnar, off-heap store of bank transfers, ordered by request date.
+ * <p>
+ * Transfers are not kept as objects: each property is stored in its own
+ * column, in direct {@code ByteBuffer} segments of {@value #SEGMENT_ROWS}
+ * rows. Amounts are stored as {@code long}s of cents, dates as epoch seconds
+ * and nanoseconds, and accounts as {@code int} identifiers of a dictionary
+ * of IBANs. A {@code BankTransfer} is only created when returned.
+ * <p>
+ * The order by request date is kept in an {@code int} array of row numbers.
+ * Transfers added in request date order are appended in constant time;
+ * lookups of the last transfers or of a date range are {@code O(log n)} to
+ * locate. Execution dates are indexed by a {@link TimeIndex} of rows.
+ * Lookups by account scan the account columns.
+ * <p>
+ * A store can be saved to and loaded from a {@link TransferSnapshot}. The
+ * segments of a loaded store are mapped from the snapshot file, and read
+ * from it on demand; the index of the execution dates is rebuilt on the
+ * first lookup by execution date.
+ * <p>
+ * IBANs must be packable.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ * @see PackedIban
+ */
+public class ColumnarTransferStore implements TransferStore {
+
+    private static final int SEGMENT_SHIFT = 16;
+
+    /**
+     * The number of rows of a segment.
+     */
+    static final int SEGMENT_ROWS = 1 << SEGMENT_SHIFT;
+
+    private static final int SEGMENT_MASK = SEGMENT_ROWS - 1;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    // Column offsets in a segment, each column holds SEGMENT_ROWS values:
+    private static final int AMOUNT = 0;
+
+    private static final int REQUEST_SECONDS = AMOUNT
+	    + SEGMENT_ROWS * Long.BYTES;
+
+    private static final int REQUEST_NANOS = REQUEST_SECONDS
+	    + SEGMENT_ROWS * Long.BYTES;
+
+    private static final int EXECUTION_SECONDS = REQUEST_NANOS
+	    + SEGMENT_ROWS * Integer.BYTES;
+
+    private static final int EXECUTION_NANOS = EXECUTION_SECONDS
+	    + SEGMENT_ROWS * Long.BYTES;
+
+    private static final int ORIGIN = EXECUTION_NANOS
+	    + SEGMENT_ROWS * Integer.BYTES;
+
+    private static final int DESTINATION = ORIGIN
+	    + SEGMENT_ROWS * Integer.BYTES;
+
+    /**
+     * The number of bytes of a segment.
+     */
+    static final int SEGMENT_BYTES = DESTINATION
+	    + SEGMENT_ROWS * Integer.BYTES;
+
+    private static final int PAGE_SIZE = 256;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<ByteBuffer> segments;
+
+    private final IbanDictionary ibans;
+
+    private int[] order;
+
+    private final TimeIndex<Integer> executions = new TimeIndex<>();
+
+    // Whether rows are missing from the index of the execution dates:
+    private volatile boolean lagging;
+
+    private int size;
+
+    /**
+     * Creates a new empty {@code ColumnarTransferStore}.
+     */
+    public ColumnarTransferStore() {
+	this(new ArrayList<>(), new IbanDictionary(), new int[SEGMENT_ROWS],
+		0);
+    }
+
+    /**
+     * Creates a new {@code ColumnarTransferStore} of given rows, whose
+     * execution dates are indexed on the first lookup.
+     *
+     * @param segments
+     *            the segments of the rows, the last one writable
+     * @param ibans
+     *            the dictionary of the accounts of the rows
+     * @param order
+     *            the rows by request date, then row
+     * @param size
+     *            the number of rows
+     */
+    ColumnarTransferStore(List<ByteBuffer> segments, IbanDictionary ibans,
+	    int[] order, int size) {
+	this.segments = segments;
+	this.ibans = ibans;
+	this.order = order;
+	this.size = size;
+	lagging = size > 0;
+    }
+
+    @Override
+    public void add(BankTransfer transfer) {
+	long amount = transfer.getAmount().getMinorUnits();
+	LocalDateTime request = transfer.getRequestDate();
+	LocalDateTime execution = transfer.getExecutionDate();
+	PackedIban origin = PackedIban.of(transfer.getOrigin());
+	PackedIban destination = PackedIban.of(transfer.getDestination());
+	Lock writeLock = lock.writeLock();
+	writeLock.lock();
+	try {
+	    int row = size;
+	    if ((row & SEGMENT_MASK) == 0) {
+		segments.add(ByteBuffer.allocateDirect(SEGMENT_BYTES));
+	    }
+	    ByteBuffer segment = segments.get(row >>> SEGMENT_SHIFT);
+	    int index = row & SEGMENT_MASK;
+	    segment.putLong(AMOUNT + index * Long.BYTES, amount);
+	    segment.putLong(REQUEST_SECONDS + index * Long.BYTES,
+		    request.toEpochSecond(ZoneOffset.UTC));
+	    segment.putInt(REQUEST_NANOS + index * Integer.BYTES,
+		    request.getNano());
+	    segment.putLong(EXECUTION_SECONDS + index * Long.BYTES,
+		    execution == null ? NO_DATE
+			    : execution.toEpochSecond(ZoneOffset.UTC));
+	    segment.putInt(EXECUTION_NANOS + index * Integer.BYTES,
+		    execution == null ? 0 : execution.getNano());
+	    segment.putInt(ORIGIN + index * Integer.BYTES,
+		    id(origin, transfer.getOrigin()));
+	    segment.putInt(DESTINATION + index * Integer.BYTES,
+		    id(destination, transfer.getDestination()));
+	    insert(row);
+	    if (execution != null && !lagging) {
+		executions.add(execution, row, row);
+	    }
+	    size++;
+	} finally {
+	    writeLock.unlock();
+	}
+    }
+
+    @Override
+    public void check(BankTransfer transfer) {
+	TransferStore.super.check(transfer);
+	for (Iban iban : Arrays.asList(transfer.getOrigin(),
+		transfer.getDestination())) {
+	    if (!PackedIban.isPackable(iban)) {
+		throw new IllegalArgumentException(
+			"IBAN cannot be packed: " + iban);
+	    }
+	}
+    }
+
+    private int id(PackedIban packed, Iban iban) {
+	return ibans.id(packed, iban);
+    }
+
+    /*
+     * Inserts given row in the order, after the rows with the same request
+     * date.
+     */
+    private void insert(int row) {
+	if (size == order.length) {
+	    order = Arrays.copyOf(order, size * 2);
+	}
+	long seconds = requestSeconds(row);
+	int nanos = requestNanos(row);
+	int position = search(seconds, nanos, row);
+	System.arraycopy(order, position, order, position + 1,
+		size - position);
+	order[position] = row;
+    }
+
+    /*
+     * Returns the position of the first row ordered after or equal to given
+     * request date and row.
+     */
+    private int search(long seconds, int nanos, long row) {
+	int low = 0;
+	int high = size;
+	while (low < high) {
+	    int middle = (low + high) >>> 1;
+	    if (compare(order[middle], seconds, nanos, row) < 0) {
+		low = middle + 1;
+	    } else {
+		high = middle;
+	    }
+	}
+	return low;
+    }
+
+    private int search(LocalDateTime date, long row) {
+	return search(date.toEpochSecond(ZoneOffset.UTC), date.getNano(),
+		row);
+    }
+
+    private int compare(int row, long seconds, int nanos, long other) {
+	int result = Long.compare(requestSeconds(row), seconds);
+	if (result == 0) {
+	    result = Integer.compare(requestNanos(row), nanos);
+	}
+	return result != 0 ? result : Long.compare(row, other);
+    }
+
+    private ByteBuffer segment(int row) {
+	return segments.get(row >>> SEGMENT_SHIFT);
+    }
+
+    private long getLong(int column, int row) {
+	return segment(row).getLong(
+		column + (row & SEGMENT_MASK) * Long.BYTES);
+    }
+
+    private int getInt(int column, int row) {
+	return segment(row).getInt(
+		column + (row & SEGMENT_MASK) * Integer.BYTES);
+    }
+
+    private long requestSeconds(int row) {
+	return getLong(REQUEST_SECONDS, row);
+    }
+
+    private int requestNanos(int row) {
+	return getInt(REQUEST_NANOS, row);
+    }
+
+    private BankTransfer materialize(int row) {
+	return materialize(segment(row), row & SEGMENT_MASK, ibans::get);
+    }
+
+    /*
+     * Materializes the row of given index in given segment, its accounts
+     * being identifiers in given dictionary.
+     */
+    private static BankTransfer materialize(ByteBuffer segment, int index,
+	    IntFunction<Iban> ibans) {
+	Money amount = Money.ofMinor(
+		segment.getLong(AMOUNT + index * Long.BYTES),
+		BankTransfer.CURRENCY);
+	LocalDateTime request = LocalDateTime.ofEpochSecond(
+		segment.getLong(REQUEST_SECONDS + index * Long.BYTES),
+		segment.getInt(REQUEST_NANOS + index * Integer.BYTES),
+		ZoneOffset.UTC);
+	long executionSeconds = segment
+		.getLong(EXECUTION_SECONDS + index * Long.BYTES);
+	LocalDateTime execution = executionSeconds == NO_DATE ? null
+		: LocalDateTime.ofEpochSecond(executionSeconds,
+			segment.getInt(EXECUTION_NANOS + index * Integer.BYTES),
+			ZoneOffset.UTC);
+	return new BankTransfer(amount, request, execution,
+		ibans.apply(segment.getInt(ORIGIN + index * Integer.BYTES)),
+		ibans.apply(
+			segment.getInt(DESTINATION + index * Integer.BYTES)));
+    }
+
+    private TransferCursor cursor(int row) {
+	return new TransferCursor(LocalDateTime.ofEpochSecond(
+		requestSeconds(row), requestNanos(row), ZoneOffset.UTC), row);
+    }
+
+    @Override
+    public int size() {
+	Lock readLock = lock.readLock();
+	readLock.lock();
+	try {
+	    return size;
+	} finally {
+	    readLock.unlock();
+	}
+    }
+
+    /**
+     * Returns the bank transfer of given row, the rows being numbered from 0
+     * in insertion order.
+     *
+     * @param row
+     *            a row
+     * @return the bank transfer; never {@code null}
+     * @throws IndexOutOfBoundsException
+     *             if {@code row} is negative or not less than the size
+     */
+    public BankTransfer get(int row) {
+	Lock readLock = lock.readLock();
+	readLock.lock();
+	try {
+	    Objects.checkIndex(row, size);
+	    return materialize(row);
+	} finally {
+	    readLock.unlock();
+	}
+    }
+
+    @Override
+    public List<BankTransfer> last(int count) {
+	if (count <= 0) {
+	    return Collections.emptyList();
+	}
+	Lock readLock = lock.readLock();
+	readLock.lock();
+	try {
+	    return descending(Math.max(0, size - count), size);
+	} finally {
+	    readLock.unlock();
+	}
+    }
+
+    @Override
+    public TransferPage page(TransferCursor after, int limit) {
+	if (limit <= 0) {
+	    throw new IllegalArgumentException("limit must be positive");
+	}
+	Lock readLock = lock.readLock();
+	readLock.lock();
+	try {
+	    int end = after == null ? size
+		    : search(after.getRequestDate(), after.getSequence());
+	    int start = Math.max(0, end - limit);
+	    List<BankTransfer> transfers = descending(start, end);
+	    TransferCursor next = start > 0 ? cursor(order[start]) : null;
+	    return new TransferPage(transfers, next);
+	} finally {
+	    readLock.unlock();
+	}
+    }
+
+    @Override
+    public List<BankTransfer> between(LocalDateTime from, LocalDateTime to) {
+	Lock readLock = lock.readLock();
+	readLock.lock();
+	try {
+	    int start = search(from, Long.MIN_VALUE);
+	    int end = search(to, Long.MIN_VALUE);
+	    return descending(start, Math.max(start, end));
+	} finally {
+	    readLock.unlock();
+	}
+    }
+
+    @Override
+    public List<BankTransfer> executingBetween(LocalDateTime from,
+	    LocalDateTime to) {
+	if (lagging) {
+	    indexExecutions();
+	}
+	Lock readLock = lock.readLock();
+	readLock.lock();
+	try {
+	    List<Integer> rows = executions.between(from, to, Long.MAX_VALUE);
+	    List<BankTransfer> result = new ArrayList<>(rows.size());
+	    for (int row : rows) {
+		result.add(materialize(row));
+	    }
+	    return result;
+	} finally {
+	    readLock.unlock();
+	}
+    }
+
+    /*
+     * Indexes the execution dates of the rows loaded from a snapshot, and of
+     * the rows added since.
+     */
+    private void indexExecutions() {
+	Lock writeLock = lock.writeLock();
+	writeLock.lock();
+	try {
+	    for (int row = 0; lagging && row < size; row++) {
+		long seconds = getLong(EXECUTION_SECONDS, row);
+		if (seconds != NO_DATE) {
+		    executions.add(LocalDateTime.ofEpochSecond(seconds,
+			    getInt(EXECUTION_NANOS, row), ZoneOffset.UTC),
+			    row, row);
+		}
+	    }
+	    lagging = false;
+	} finally {
+	    writeLock.unlock();
+	}
+    }
+
+    @Override
+    public List<BankTransfer> lastFrom(Iban origin, int count) {
+	return last(ORIGIN, origin, count);
+    }
+
+    @Override
+    public List<BankTransfer> lastTo(Iban destination, int count) {
+	return last(DESTINATION, destination, count);
+    }
+
+    private List<BankTransfer> last(int column, Iban iban, int count) {
+	Lock readLock = lock.readLock();
+	readLock.lock();
+	try {
+	    // Several IBANs of the dictionary may be equal to iban:
+	    BitSet matching = new BitSet(ibans.size());
+	    for (int id = 0; id < ibans.size(); id++) {
+		if (ibans.get(id).equals(iban)) {
+		    matching.set(id);
+		}
+	    }
+	    List<BankTransfer> result = new ArrayList<>();
+	    if (matching.isEmpty()) {
+		return result;
+	    }
+	    for (int i = size - 1; i >= 0 && result.size() < count; i--) {
+		int row = order[i];
+		if (matching.get(getInt(column, row))) {
+		    result.add(materialize(row));
+		}
+	    }
+	    return result;
+	} finally {
+	    readLock.unlock();
+	}
+    }
+
+    /*
+     * Materializes the rows from end (exclusive) down to start (inclusive)
+     * in the order; the read lock must be held.
+     */
+    private List<BankTransfer> descending(int start, int end) {
+	List<BankTransfer> result = new ArrayList<>(end - start);
+	for (int i = end - 1; i >= start; i--) {
+	    result.add(materialize(order[i]));
+	}
+	return result;
+    }
+
+    @Override
+    public Collection<BankTransfer> all() {
+	return new AbstractCollection<BankTransfer>() {
+
+	    @Override
+	    public Iterator<BankTransfer> iterator() {
+		return new PageIterator();
+	    }
+
+	    @Override
+	    public int size() {
+		return ColumnarTransferStore.this.size();
+	    }
+	};
+    }
+
+    /*
+     * Rows are never modified once added, so the rows of a snapshot are read
+     * without the lock, in row order.
+     */
+    @Override
+    public Stream<BankTransfer> parallelStream() {
+	List<ByteBuffer> rows;
+	IntFunction<Iban> dictionary;
+	int count;
+	Lock readLock = lock.readLock();
+	readLock.lock();
+	try {
+	    rows = new ArrayList<>(segments);
+	    dictionary = ibans.view();
+	    count = size;
+	} finally {
+	    readLock.unlock();
+	}
+	return IntStream.range(0, count).parallel()
+		.mapToObj(row -> materialize(rows.get(row >>> SEGMENT_SHIFT),
+			row & SEGMENT_MASK, dictionary));
+    }
+
+    /**
+     * Returns an image of the first rows of this {@code store}, to save in
+     * a snapshot.
+     *
+     * @param rows
+     *            the number of rows
+     * @return the image of the rows; never {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code rows} is negative or greater than the size
+     */
+    Image image(int rows) {
+	Lock readLock = lock.readLock();
+	readLock.lock();
+	try {
+	    if (rows < 0 || rows > size) {
+		throw new IllegalArgumentException(
+			"rows must be between 0 and " + size);
+	    }
+	    int[] ordered = new int[rows];
+	    int count = 0;
+	    for (int i = 0; count < rows; i++) {
+		if (order[i] < rows) {
+		    ordered[count++] = order[i];
+		}
+	    }
+	    int dictionary = 0;
+	    int segmentCount = (rows + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+	    for (int row = 0; row < rows; row++) {
+		dictionary = Math.max(dictionary, 1 + Math.max(
+			getInt(ORIGIN, row), getInt(DESTINATION, row)));
+	    }
+	    return new Image(new ArrayList<>(segments.subList(0, segmentCount)),
+		    ibans.pack(ibans.view(), dictionary), ordered);
+	} finally {
+	    readLock.unlock();
+	}
+    }
+
+    /**
+     * The rows of a store, as of a point in time: their segments, which are
+     * never modified below the number of rows, the packed IBANs of their
+     * dictionary and their order by request date.
+     */
+    static final class Image {
+
+	final List<ByteBuffer> segments;
+
+	final ByteBuffer ibans;
+
+	final int[] order;
+
+	private Image(List<ByteBuffer> segments, ByteBuffer ibans,
+		int[] order) {
+	    this.segments = segments;
+	    this.ibans = ibans;
+	    this.order = order;
+	}
+    }
+
+    /**
+     * Iterates over all the transfers, most recent first, one page at a
+     * time so that concurrent additions never shift the iteration.
+     */
+    private final class PageIterator implements Iterator<BankTransfer> {
+
+	private TransferPage page = page(null, PAGE_SIZE);
+
+	private int index;
+
+	@Override
+	public boolean hasNext() {
+	    if (index < page.getTransfers().size()) {
+		return true;
+	    }
+	    if (page.getNext() == null) {
+		return false;
+	    }
+	    page = page(page.getNext(), PAGE_SIZE);
+	    index = 0;
+	    return !page.getTransfers().isEmpty();
+	}
+
+	@Override
+	public BankTransfer next() {
+	    if (!hasNext()) {
+		throw new NoSuchElementException();
+	    }
+	    return page.getTransfers().get(index++);
+	}
+    }
+}
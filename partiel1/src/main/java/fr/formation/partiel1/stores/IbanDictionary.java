@@ -0,0 +1,165 @@
+package fr.formation.partiel1.stores;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * A dictionary of IBANs, giving each distinct packed IBAN an {@code int}
+ * identifier, from 0 in insertion order.
+ * <p>
+ * A dictionary may start with the packed IBANs of a snapshot, read in
+ * place from the mapped file: each of them is unpacked when first looked
+ * up, and the map of the identifiers is only built on the first addition,
+ * so loading the dictionary costs nothing.
+ * <p>
+ * This class is not thread-safe: lookups and additions must be guarded by
+ * the lock of the store. Its {@linkplain #view() views} are thread-safe.
+ *
+ * @author Frank MARSHALL
+ * @see ColumnarTransferStore
+ */
+final class IbanDictionary {
+
+    private final ByteBuffer packed;
+
+    // The IBANs of the snapshot, unpacked on demand:
+    private final AtomicReferenceArray<Iban> unpacked;
+
+    // The IBANs added since, grown by copy so that views can keep them:
+    private Iban[] added = new Iban[16];
+
+    private int size;
+
+    private Map<PackedIban, Integer> ids;
+
+    /**
+     * Creates a new empty {@code IbanDictionary}.
+     */
+    IbanDictionary() {
+	this(ByteBuffer.allocate(0), 0);
+    }
+
+    /**
+     * Creates a new {@code IbanDictionary} starting with given packed
+     * IBANs.
+     *
+     * @param packed
+     *            the packed IBANs, {@value PackedIban#BYTES} bytes each from
+     *            index 0, never modified
+     * @param count
+     *            the number of packed IBANs
+     */
+    IbanDictionary(ByteBuffer packed, int count) {
+	this.packed = packed;
+	unpacked = new AtomicReferenceArray<>(count);
+	size = count;
+    }
+
+    /**
+     * Returns the number of IBANs of this {@code dictionary}.
+     *
+     * @return the number of IBANs
+     */
+    int size() {
+	return size;
+    }
+
+    /**
+     * Returns the IBAN of given identifier.
+     *
+     * @param id
+     *            an identifier, less than the size
+     * @return the IBAN; never {@code null}
+     */
+    Iban get(int id) {
+	return get(id, added);
+    }
+
+    private Iban get(int id, Iban[] added) {
+	int loaded = unpacked.length();
+	if (id >= loaded) {
+	    return added[id - loaded];
+	}
+	Iban iban = unpacked.get(id);
+	if (iban == null) {
+	    // Racing readers unpack equal IBANs, interned to the same one:
+	    iban = IbanPool.shared()
+		    .intern(PackedIban.get(packed, id * PackedIban.BYTES)
+			    .toIban());
+	    unpacked.lazySet(id, iban);
+	}
+	return iban;
+    }
+
+    /**
+     * Returns the identifier of given IBAN, adding it if not known yet.
+     *
+     * @param packed
+     *            the packed IBAN
+     * @param iban
+     *            the IBAN
+     * @return the identifier
+     */
+    int id(PackedIban packed, Iban iban) {
+	if (ids == null) {
+	    ids = new HashMap<>();
+	    for (int id = 0; id < unpacked.length(); id++) {
+		ids.put(PackedIban.get(this.packed, id * PackedIban.BYTES),
+			id);
+	    }
+	}
+	Integer id = ids.get(packed);
+	if (id == null) {
+	    int index = size - unpacked.length();
+	    if (index == added.length) {
+		added = Arrays.copyOf(added, index * 2);
+	    }
+	    added[index] = iban;
+	    id = size++;
+	    ids.put(packed, id);
+	}
+	return id;
+    }
+
+    /**
+     * Returns a view of the IBANs of this {@code dictionary}, as of now.
+     *
+     * @return a thread-safe function giving the IBAN of an identifier less
+     *         than the current size
+     */
+    IntFunction<Iban> view() {
+	Iban[] snapshot = added;
+	return id -> get(id, snapshot);
+    }
+
+    /**
+     * Returns the packed IBANs of the first identifiers of given view of
+     * this {@code dictionary}.
+     * <p>
+     * This method is thread-safe.
+     *
+     * @param view
+     *            a view of this {@code dictionary}
+     * @param count
+     *            the number of identifiers, at most the size of the view
+     * @return a new buffer of {@value PackedIban#BYTES} bytes per IBAN,
+     *         ready to be read
+     */
+    ByteBuffer pack(IntFunction<Iban> view, int count) {
+	ByteBuffer result = ByteBuffer
+		.allocate(Math.multiplyExact(count, PackedIban.BYTES));
+	int loaded = Math.min(count, unpacked.length());
+	ByteBuffer copied = packed.duplicate();
+	copied.position(0).limit(loaded * PackedIban.BYTES);
+	result.put(copied);
+	for (int id = loaded; id < count; id++) {
+	    PackedIban.of(view.apply(id)).put(result, id * PackedIban.BYTES);
+	}
+	result.clear();
+	return result;
+    }
+}
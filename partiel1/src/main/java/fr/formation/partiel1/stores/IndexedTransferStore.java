@@ -0,0 +1,278 @@
+package fr.formation.partiel1.stores;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * An in-memory store of bank transfers, ordered by request date.
+ * <p>
+ * Transfers are kept in a concurrent skip list keyed by request date, plus
+ * secondary indexes by origin and destination account. Execution dates are
+ * indexed by a {@link TimeIndex}. Lookups of the last transfers, of a date
+ * range or of the transfers of one account are {@code O(log n)} to locate,
+ * then linear in the size of the result.
+ * <p>
+ * Transfers are published in insertion order: a transfer becomes visible,
+ * in all the indexes at once, when it and all the transfers added before it
+ * are indexed. Readers never block the writers and each lookup sees such a
+ * consistent snapshot of the store. Concurrent writers may briefly spin
+ * while the previous transfers are published; a single writer never does.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ */
+public class IndexedTransferStore implements TransferStore {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // The sequence of the last transfer visible to the readers:
+    private final AtomicLong published = new AtomicLong();
+
+    private final ConcurrentNavigableMap<Key, BankTransfer> byRequestDate =
+	    new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<Iban, ConcurrentNavigableMap<Key, BankTransfer>> byOrigin =
+	    new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Iban, ConcurrentNavigableMap<Key, BankTransfer>> byDestination =
+	    new ConcurrentHashMap<>();
+
+    private final TimeIndex<BankTransfer> byExecutionDate = new TimeIndex<>();
+
+    @Override
+    public void add(BankTransfer transfer) {
+	// Checked before a sequence is taken, which must be published:
+	LocalDateTime requestDate = Objects.requireNonNull(
+		transfer.getRequestDate(), "request date must not be null");
+	Iban origin = Objects.requireNonNull(transfer.getOrigin(),
+		"origin must not be null");
+	Iban destination = Objects.requireNonNull(transfer.getDestination(),
+		"destination must not be null");
+	Key key = new Key(requestDate, sequence.incrementAndGet());
+	try {
+	    byRequestDate.put(key, transfer);
+	    index(byOrigin, origin, key, transfer);
+	    index(byDestination, destination, key, transfer);
+	    if (transfer.getExecutionDate() != null) {
+		byExecutionDate.add(transfer.getExecutionDate(),
+			key.sequence, transfer);
+	    }
+	} finally {
+	    // Even if not fully indexed, lest the next writers spin forever.
+	    // Waits for another writer to publish the previous transfers:
+	    long previous = key.sequence - 1L;
+	    while (!published.compareAndSet(previous, key.sequence)) {
+		Thread.yield();
+	    }
+	}
+    }
+
+    private static void index(
+	    ConcurrentMap<Iban, ConcurrentNavigableMap<Key, BankTransfer>> index,
+	    Iban iban, Key key, BankTransfer transfer) {
+	index.computeIfAbsent(iban, k -> new ConcurrentSkipListMap<>())
+		.put(key, transfer);
+    }
+
+    @Override
+    public int size() {
+	return (int) published.get();
+    }
+
+    @Override
+    public List<BankTransfer> last(int count) {
+	return first(byRequestDate.descendingMap(), count, published.get());
+    }
+
+    @Override
+    public TransferPage page(TransferCursor after, int limit) {
+	if (limit <= 0) {
+	    throw new IllegalArgumentException("limit must be positive");
+	}
+	NavigableMap<Key, BankTransfer> transfers = after == null
+		? byRequestDate.descendingMap()
+		: byRequestDate.headMap(new Key(after.getRequestDate(),
+			after.getSequence()), false).descendingMap();
+	long visible = published.get();
+	List<BankTransfer> result = new ArrayList<>(Math.min(limit, 16));
+	Key last = null;
+	for (Map.Entry<Key, BankTransfer> entry : transfers.entrySet()) {
+	    if (entry.getKey().sequence > visible) {
+		continue;
+	    }
+	    if (result.size() == limit) {
+		return new TransferPage(result,
+			new TransferCursor(last.date, last.sequence));
+	    }
+	    result.add(entry.getValue());
+	    last = entry.getKey();
+	}
+	return new TransferPage(result, null);
+    }
+
+    @Override
+    public List<BankTransfer> between(LocalDateTime from, LocalDateTime to) {
+	Key lower = new Key(from, Long.MIN_VALUE);
+	Key upper = new Key(to, Long.MIN_VALUE);
+	if (lower.compareTo(upper) >= 0) {
+	    return Collections.emptyList();
+	}
+	return first(byRequestDate.subMap(lower, upper).descendingMap(),
+		Integer.MAX_VALUE, published.get());
+    }
+
+    @Override
+    public List<BankTransfer> executingBetween(LocalDateTime from,
+	    LocalDateTime to) {
+	return byExecutionDate.between(from, to, published.get());
+    }
+
+    @Override
+    public List<BankTransfer> lastFrom(Iban origin, int count) {
+	return last(byOrigin.get(origin), count, published.get());
+    }
+
+    @Override
+    public List<BankTransfer> lastTo(Iban destination, int count) {
+	return last(byDestination.get(destination), count,
+		published.get());
+    }
+
+    @Override
+    public Collection<BankTransfer> all() {
+	long visible = published.get();
+	Collection<Map.Entry<Key, BankTransfer>> entries = byRequestDate
+		.descendingMap().entrySet();
+	return new AbstractCollection<BankTransfer>() {
+
+	    @Override
+	    public Iterator<BankTransfer> iterator() {
+		return new Visible(entries.iterator(), visible);
+	    }
+
+	    @Override
+	    public int size() {
+		return (int) visible;
+	    }
+	};
+    }
+
+    @Override
+    public Stream<BankTransfer> parallelStream() {
+	long visible = published.get();
+	// The skip list splits by levels, evenly, unlike its views here:
+	return byRequestDate.entrySet().parallelStream()
+		.filter(entry -> entry.getKey().sequence <= visible)
+		.map(Map.Entry::getValue);
+    }
+
+    private static List<BankTransfer> last(
+	    NavigableMap<Key, BankTransfer> transfers, int count,
+	    long visible) {
+	if (transfers == null) {
+	    return Collections.emptyList();
+	}
+	return first(transfers.descendingMap(), count, visible);
+    }
+
+    private static List<BankTransfer> first(
+	    NavigableMap<Key, BankTransfer> transfers, int count,
+	    long visible) {
+	if (count <= 0) {
+	    return Collections.emptyList();
+	}
+	List<BankTransfer> result = new ArrayList<>(Math.min(count, 16));
+	Iterator<BankTransfer> iterator = new Visible(
+		transfers.entrySet().iterator(), visible);
+	while (iterator.hasNext() && result.size() < count) {
+	    result.add(iterator.next());
+	}
+	return result;
+    }
+
+    /**
+     * Iterates over the transfers visible in a snapshot, skipping the ones
+     * added after it.
+     */
+    private static final class Visible implements Iterator<BankTransfer> {
+
+	private final Iterator<Map.Entry<Key, BankTransfer>> entries;
+
+	private final long visible;
+
+	private BankTransfer next;
+
+	private Visible(Iterator<Map.Entry<Key, BankTransfer>> entries,
+		long visible) {
+	    this.entries = entries;
+	    this.visible = visible;
+	}
+
+	@Override
+	public boolean hasNext() {
+	    while (next == null && entries.hasNext()) {
+		Map.Entry<Key, BankTransfer> entry = entries.next();
+		if (entry.getKey().sequence <= visible) {
+		    next = entry.getValue();
+		}
+	    }
+	    return next != null;
+	}
+
+	@Override
+	public BankTransfer next() {
+	    if (!hasNext()) {
+		throw new NoSuchElementException();
+	    }
+	    BankTransfer result = next;
+	    next = null;
+	    return result;
+	}
+    }
+
+    /**
+     * The ordering key of a transfer: its request date, then its insertion
+     * sequence to tell apart transfers requested at the same time.
+     */
+    private static final class Key implements Comparable<Key> {
+
+	private final LocalDateTime date;
+
+	private final long sequence;
+
+	private Key(LocalDateTime date, long sequence) {
+	    this.date = Objects.requireNonNull(date, "date must not be null");
+	    this.sequence = sequence;
+	}
+
+	@Override
+	public int compareTo(Key other) {
+	    int result = date.compareTo(other.date);
+	    return result != 0 ? result
+		    : Long.compare(sequence, other.sequence);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+	    if (obj == this) {
+		return true;
+	    }
+	    if (!(obj instanceof Key)) {
+		return false;
+	    }
+	    Key other = (Key) obj;
+	    return sequence == other.sequence && date.equals(other.date);
+	}
+
+	@Override
+	public int hashCode() {
+	    return 31 * date.hashCode() + Long.hashCode(sequence);
+	}
+    }
+}
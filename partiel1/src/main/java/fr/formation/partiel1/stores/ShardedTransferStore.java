@@ -0,0 +1,345 @@
+package fr.formation.partiel1.stores;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.Stream;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * A store of bank transfers partitioned into independent shards, each one
+ * a store of its own.
+ * <p>
+ * A transfer is added to the shard of its origin account, chosen by a hash
+ * of the account, so each shard has its own indexes and locks and the
+ * transfers of an account are all in the same shard. Lookups by origin
+ * account query that shard only; the other lookups query all the shards in
+ * parallel, in the common fork-join pool, then merge their results by date,
+ * most recent first.
+ * <p>
+ * Transfers with equal request dates are ordered by shard, then by
+ * insertion in their shard. A cursor thus locates a transfer by its request
+ * date, its shard and its sequence in the shard, encoded together as the
+ * sequence of the cursor.
+ * <p>
+ * This class is thread-safe if its shards are.
+ *
+ * @author Frank MARSHALL
+ */
+public class ShardedTransferStore implements TransferStore {
+
+    // The bits of the sequence of a cursor holding the sequence in a shard:
+    private static final int SEQUENCE_BITS = 48;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1L;
+
+    private final TransferStore[] shards;
+
+    /**
+     * Creates a new {@code ShardedTransferStore} of given number of shards.
+     *
+     * @param count
+     *            the number of shards
+     * @param factory
+     *            the factory of the shards, each one a new empty store
+     * @throws NullPointerException
+     *             if {@code factory} is or returns {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code count} is not positive
+     */
+    public ShardedTransferStore(int count, Supplier<TransferStore> factory) {
+	if (count <= 0) {
+	    throw new IllegalArgumentException("count must be positive");
+	}
+	Objects.requireNonNull(factory, "factory must not be null");
+	shards = new TransferStore[count];
+	for (int i = 0; i < count; i++) {
+	    shards[i] = Objects.requireNonNull(factory.get(),
+		    "shard must not be null");
+	}
+    }
+
+    /*
+     * Returns the index of the shard of given origin account, spreading the
+     * bits of its hash code.
+     */
+    private int shard(Iban origin) {
+	int hash = origin.hashCode() * 0x9E3779B9;
+	return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    @Override
+    public void add(BankTransfer transfer) {
+	shards[shard(transfer.getOrigin())].add(transfer);
+    }
+
+    @Override
+    public void check(BankTransfer transfer) {
+	TransferStore.super.check(transfer);
+	shards[shard(transfer.getOrigin())].check(transfer);
+    }
+
+    @Override
+    public int size() {
+	int size = 0;
+	for (TransferStore shard : shards) {
+	    size += shard.size();
+	}
+	return size;
+    }
+
+    @Override
+    public List<BankTransfer> last(int count) {
+	return merge(fanOut(i -> shards[i].last(count)),
+		BankTransfer::getRequestDate, count);
+    }
+
+    @Override
+    public TransferPage page(TransferCursor after, int limit) {
+	if (limit <= 0) {
+	    throw new IllegalArgumentException("limit must be positive");
+	}
+	TransferCursor[] cursors = new TransferCursor[shards.length];
+	if (after != null) {
+	    int index = (int) (after.getSequence() >>> SEQUENCE_BITS);
+	    if (index >= shards.length) {
+		throw new IllegalArgumentException(
+			"malformed cursor: " + after);
+	    }
+	    // The shards before hold the transfers of the same date, not after:
+	    for (int i = 0; i < shards.length; i++) {
+		long sequence = i < index ? Long.MAX_VALUE
+			: i > index ? Long.MIN_VALUE
+				: after.getSequence() & SEQUENCE_MASK;
+		cursors[i] = new TransferCursor(after.getRequestDate(),
+			sequence);
+	    }
+	}
+	int[] taken = new int[shards.length];
+	List<TransferPage> pages = fanOut(
+		i -> shards[i].page(cursors[i], limit));
+	List<List<BankTransfer>> lists = new ArrayList<>(shards.length);
+	for (TransferPage page : pages) {
+	    lists.add(page.getTransfers());
+	}
+	int last = -1;
+	List<BankTransfer> result = new ArrayList<>(Math.min(limit, 16));
+	while (result.size() < limit) {
+	    int shard = next(lists, taken, BankTransfer::getRequestDate);
+	    if (shard < 0) {
+		break;
+	    }
+	    result.add(lists.get(shard).get(taken[shard]++));
+	    last = shard;
+	}
+	if (last < 0 || !more(pages, taken)) {
+	    return new TransferPage(result, null);
+	}
+	// The cursor of the last transfer in its shard, if not its last one:
+	TransferCursor local = taken[last] == lists.get(last).size()
+		? pages.get(last).getNext()
+		: shards[last].page(cursors[last], taken[last]).getNext();
+	long sequence = local == null ? 0L : local.getSequence();
+	BankTransfer transfer = result.get(result.size() - 1);
+	return new TransferPage(result,
+		new TransferCursor(transfer.getRequestDate(),
+			(long) last << SEQUENCE_BITS | sequence));
+    }
+
+    private static boolean more(List<TransferPage> pages, int[] taken) {
+	for (int i = 0; i < taken.length; i++) {
+	    TransferPage page = pages.get(i);
+	    if (taken[i] < page.getTransfers().size()
+		    || page.getNext() != null) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    @Override
+    public List<BankTransfer> between(LocalDateTime from, LocalDateTime to) {
+	return merge(fanOut(i -> shards[i].between(from, to)),
+		BankTransfer::getRequestDate, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<BankTransfer> executingBetween(LocalDateTime from,
+	    LocalDateTime to) {
+	return merge(fanOut(
+		i -> shards[i].executingBetween(from, to)),
+		BankTransfer::getExecutionDate, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<BankTransfer> lastFrom(Iban origin, int count) {
+	return shards[shard(origin)].lastFrom(origin, count);
+    }
+
+    @Override
+    public List<BankTransfer> lastTo(Iban destination, int count) {
+	return merge(fanOut(
+		i -> shards[i].lastTo(destination, count)),
+		BankTransfer::getRequestDate, count);
+    }
+
+    @Override
+    public Collection<BankTransfer> all() {
+	List<Collection<BankTransfer>> views = new ArrayList<>(shards.length);
+	int size = 0;
+	for (TransferStore shard : shards) {
+	    Collection<BankTransfer> view = shard.all();
+	    views.add(view);
+	    size += view.size();
+	}
+	int total = size;
+	return new AbstractCollection<BankTransfer>() {
+
+	    @Override
+	    public Iterator<BankTransfer> iterator() {
+		return new Merging(views);
+	    }
+
+	    @Override
+	    public int size() {
+		return total;
+	    }
+	};
+    }
+
+    @Override
+    public Stream<BankTransfer> parallelStream() {
+	Stream<BankTransfer> stream = shards[0].parallelStream();
+	for (int i = 1; i < shards.length; i++) {
+	    stream = Stream.concat(stream, shards[i].parallelStream());
+	}
+	return stream;
+    }
+
+    /*
+     * Runs given query on all the shards, in parallel, the first one in the
+     * calling thread, and returns their results in shard order. Without
+     * parallelism to gain, the shards are queried in turn.
+     */
+    private <T> List<T> fanOut(IntFunction<T> query) {
+	if (ForkJoinPool.getCommonPoolParallelism() < 2) {
+	    List<T> results = new ArrayList<>(shards.length);
+	    for (int i = 0; i < shards.length; i++) {
+		results.add(query.apply(i));
+	    }
+	    return results;
+	}
+	List<CompletableFuture<T>> futures = new ArrayList<>(shards.length);
+	for (int i = 1; i < shards.length; i++) {
+	    int shard = i;
+	    futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard),
+		    ForkJoinPool.commonPool()));
+	}
+	List<T> results = new ArrayList<>(shards.length);
+	results.add(query.apply(0));
+	try {
+	    for (CompletableFuture<T> future : futures) {
+		results.add(future.join());
+	    }
+	} catch (CompletionException ex) {
+	    if (ex.getCause() instanceof RuntimeException) {
+		throw (RuntimeException) ex.getCause();
+	    }
+	    throw ex;
+	}
+	return results;
+    }
+
+    /*
+     * Merges given lists, most recent first, up to given count.
+     */
+    private static List<BankTransfer> merge(List<List<BankTransfer>> lists,
+	    Function<BankTransfer, LocalDateTime> date, int count) {
+	int[] taken = new int[lists.size()];
+	int size = 0;
+	for (List<BankTransfer> list : lists) {
+	    size += list.size();
+	}
+	List<BankTransfer> result = new ArrayList<>(Math.min(size, count));
+	while (result.size() < count) {
+	    int shard = next(lists, taken, date);
+	    if (shard < 0) {
+		break;
+	    }
+	    result.add(lists.get(shard).get(taken[shard]++));
+	}
+	return result;
+    }
+
+    /*
+     * Returns the shard whose next transfer is the most recent, the last
+     * shard on equal dates; -1 if all the lists have been taken.
+     */
+    private static int next(List<List<BankTransfer>> lists, int[] taken,
+	    Function<BankTransfer, LocalDateTime> date) {
+	int result = -1;
+	LocalDateTime max = null;
+	for (int i = lists.size() - 1; i >= 0; i--) {
+	    List<BankTransfer> list = lists.get(i);
+	    if (taken[i] < list.size()) {
+		LocalDateTime candidate = date.apply(list.get(taken[i]));
+		if (max == null || candidate.isAfter(max)) {
+		    max = candidate;
+		    result = i;
+		}
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Merges the views of all the transfers of the shards, most recent
+     * first, the last shard on equal request dates.
+     */
+    private static final class Merging implements Iterator<BankTransfer> {
+
+	private final List<Iterator<BankTransfer>> iterators;
+
+	private final BankTransfer[] heads;
+
+	private Merging(List<Collection<BankTransfer>> views) {
+	    iterators = new ArrayList<>(views.size());
+	    heads = new BankTransfer[views.size()];
+	    for (int i = 0; i < heads.length; i++) {
+		Iterator<BankTransfer> iterator = views.get(i).iterator();
+		iterators.add(iterator);
+		heads[i] = iterator.hasNext() ? iterator.next() : null;
+	    }
+	}
+
+	@Override
+	public boolean hasNext() {
+	    for (BankTransfer head : heads) {
+		if (head != null) {
+		    return true;
+		}
+	    }
+	    return false;
+	}
+
+	@Override
+	public BankTransfer next() {
+	    int shard = -1;
+	    for (int i = heads.length - 1; i >= 0; i--) {
+		if (heads[i] != null && (shard < 0 || heads[i].getRequestDate()
+			.isAfter(heads[shard].getRequestDate()))) {
+		    shard = i;
+		}
+	    }
+	    if (shard < 0) {
+		throw new NoSuchElementException();
+	    }
+	    BankTransfer result = heads[shard];
+	    Iterator<BankTransfer> iterator = iterators.get(shard);
+	    heads[shard] = iterator.hasNext() ? iterator.next() : null;
+	    return result;
+	}
+    }
+}
@@ -0,0 +1,158 @@
+package fr.formation.partiel1.stores;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * An index of values by date, split in buckets of one day.
+ * <p>
+ * Each bucket keeps the epoch seconds, the nanoseconds and the sequences of
+ * its values in sorted parallel arrays. A range of dates is located by a
+ * lookup of its first and last days, then a binary search in each of them,
+ * so its cost does not depend on the number of values outside the range.
+ * Adding a value shifts the values of its day dated after it, if any.
+ * <p>
+ * Each value is tagged with a sequence, which tells apart values of a same
+ * date, ordered by sequence, and hides from the readers the values added
+ * after a snapshot.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <T>
+ *            the type of the values
+ * @author Frank MARSHALL
+ */
+final class TimeIndex<T> {
+
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    private final ConcurrentNavigableMap<Long, Bucket<T>> days =
+	    new ConcurrentSkipListMap<>();
+
+    /**
+     * Adds given value to this {@code index}.
+     *
+     * @param date
+     *            the date of the value
+     * @param sequence
+     *            the sequence of the value, unique in this {@code index}
+     * @param value
+     *            a value
+     */
+    void add(LocalDateTime date, long sequence, T value) {
+	long seconds = date.toEpochSecond(ZoneOffset.UTC);
+	days.computeIfAbsent(day(seconds), key -> new Bucket<>())
+		.add(seconds, date.getNano(), sequence, value);
+    }
+
+    /**
+     * Returns the values dated between given dates, most recent first.
+     *
+     * @param from
+     *            the lower bound, inclusive
+     * @param to
+     *            the upper bound, exclusive
+     * @param visible
+     *            the sequence of the last value to return; the values of
+     *            greater sequence are skipped
+     * @return a list of values; never {@code null}, may be empty
+     */
+    List<T> between(LocalDateTime from, LocalDateTime to, long visible) {
+	List<T> result = new ArrayList<>();
+	if (from.compareTo(to) >= 0) {
+	    return result;
+	}
+	long fromSeconds = from.toEpochSecond(ZoneOffset.UTC);
+	long toSeconds = to.toEpochSecond(ZoneOffset.UTC);
+	for (Bucket<T> bucket : days.subMap(day(fromSeconds), true,
+		day(toSeconds), true).descendingMap().values()) {
+	    bucket.collect(fromSeconds, from.getNano(), toSeconds,
+		    to.getNano(), visible, result);
+	}
+	return result;
+    }
+
+    private static long day(long seconds) {
+	return Math.floorDiv(seconds, SECONDS_PER_DAY);
+    }
+
+    /**
+     * The values of a day, sorted by date then sequence.
+     */
+    private static final class Bucket<T> {
+
+	private long[] seconds = new long[16];
+
+	private int[] nanos = new int[16];
+
+	private long[] sequences = new long[16];
+
+	private Object[] values = new Object[16];
+
+	private int size;
+
+	private synchronized void add(long second, int nano, long sequence,
+		T value) {
+	    if (size == seconds.length) {
+		seconds = Arrays.copyOf(seconds, size * 2);
+		nanos = Arrays.copyOf(nanos, size * 2);
+		sequences = Arrays.copyOf(sequences, size * 2);
+		values = Arrays.copyOf(values, size * 2);
+	    }
+	    int position = search(second, nano, sequence);
+	    int moved = size - position;
+	    System.arraycopy(seconds, position, seconds, position + 1, moved);
+	    System.arraycopy(nanos, position, nanos, position + 1, moved);
+	    System.arraycopy(sequences, position, sequences, position + 1,
+		    moved);
+	    System.arraycopy(values, position, values, position + 1, moved);
+	    seconds[position] = second;
+	    nanos[position] = nano;
+	    sequences[position] = sequence;
+	    values[position] = value;
+	    size++;
+	}
+
+	/*
+	 * Adds to given list the values dated between given dates, most
+	 * recent first.
+	 */
+	@SuppressWarnings("unchecked")
+	private synchronized void collect(long fromSecond, int fromNano,
+		long toSecond, int toNano, long visible, List<T> result) {
+	    int start = search(fromSecond, fromNano, Long.MIN_VALUE);
+	    int end = search(toSecond, toNano, Long.MIN_VALUE);
+	    for (int i = end - 1; i >= start; i--) {
+		if (sequences[i] <= visible) {
+		    result.add((T) values[i]);
+		}
+	    }
+	}
+
+	/*
+	 * Returns the position of the first value ordered after or equal to
+	 * given date and sequence.
+	 */
+	private int search(long second, int nano, long sequence) {
+	    int low = 0;
+	    int high = size;
+	    while (low < high) {
+		int middle = (low + high) >>> 1;
+		int result = Long.compare(seconds[middle], second);
+		if (result == 0) {
+		    result = Integer.compare(nanos[middle], nano);
+		}
+		if (result == 0) {
+		    result = Long.compare(sequences[middle], sequence);
+		}
+		if (result < 0) {
+		    low = middle + 1;
+		} else {
+		    high = middle;
+		}
+	    }
+	    return low;
+	}
+    }
+}
@@ -0,0 +1,136 @@
+package fr.formation.partiel1.stores;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * A position in the transfers ordered by request date, used to paginate
+ * through them.
+ * <p>
+ * A cursor is made of the request date and the insertion sequence of the
+ * last transfer of a page; its string representation is opaque to clients
+ * and can be parsed back with {@link #parse(String)}.
+ * <p>
+ * Class invariants:
+ * <ul>
+ * <li>The request date is guaranteed not {@code null}
+ * </ul>
+ *
+ * @author Frank MARSHALL
+ */
+public final class TransferCursor {
+
+    private static final char SEPARATOR = '_';
+
+    private final LocalDateTime requestDate;
+
+    private final long sequence;
+
+    /**
+     * Creates a new {@code TransferCursor} with given request date and
+     * insertion sequence.
+     *
+     * @param requestDate
+     *            a request date
+     * @param sequence
+     *            an insertion sequence
+     * @throws NullPointerException
+     *             if {@code requestDate} is {@code null}
+     */
+    public TransferCursor(LocalDateTime requestDate, long sequence) {
+	this.requestDate = Objects.requireNonNull(requestDate,
+		"requestDate must not be null");
+	this.sequence = sequence;
+    }
+
+    /**
+     * Parses given string representation of a cursor.
+     *
+     * @param value
+     *            a string representation of a cursor
+     * @return a cursor; never {@code null}
+     * @throws NullPointerException
+     *             if {@code value} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code value} is not a valid cursor
+     * @see #toString()
+     */
+    public static TransferCursor parse(String value) {
+	int index = value.lastIndexOf(SEPARATOR);
+	if (index < 0) {
+	    throw new IllegalArgumentException("malformed cursor: " + value);
+	}
+	try {
+	    return new TransferCursor(
+		    LocalDateTime.parse(value.substring(0, index)),
+		    Long.parseLong(value.substring(index + 1)));
+	} catch (DateTimeParseException | NumberFormatException ex) {
+	    throw new IllegalArgumentException("malformed cursor: " + value,
+		    ex);
+	}
+    }
+
+    /**
+     * Returns the request date of this {@code cursor}.
+     *
+     * @return the request date; never {@code null}
+     */
+    public LocalDateTime getRequestDate() {
+	return requestDate;
+    }
+
+    /**
+     * Returns the insertion sequence of this {@code cursor}.
+     *
+     * @return the insertion sequence
+     */
+    public long getSequence() {
+	return sequence;
+    }
+
+    /**
+     * Indicates whether or not given {@code obj} is equal to this
+     * {@code cursor}.
+     *
+     * @param obj
+     *            an object to compare against
+     * @return {@code true} if {@code obj} is equal to this {@code cursor};
+     *         {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+	if (obj == this) {
+	    return true;
+	}
+	if (!(obj instanceof TransferCursor)) {
+	    return false;
+	}
+	TransferCursor other = (TransferCursor) obj;
+	return sequence == other.sequence
+		&& requestDate.equals(other.requestDate);
+    }
+
+    /**
+     * Returns a hash code for this {@code cursor}.
+     * <p>
+     * The implementation is consistent with {@code equals}.
+     *
+     * @return a hash code value
+     */
+    @Override
+    public int hashCode() {
+	return 31 * requestDate.hashCode() + Long.hashCode(sequence);
+    }
+
+    /**
+     * Returns the string representation of this {@code cursor}, as expected
+     * by {@link #parse(String)}.
+     *
+     * @return the string representation of this {@code cursor}
+     */
+    @Override
+    public String toString() {
+	return requestDate.toString() + SEPARATOR + sequence;
+    }
+}
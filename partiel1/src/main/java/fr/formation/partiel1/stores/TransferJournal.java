@@ -0,0 +1,482 @@
+package fr.formation.partiel1.stores;
+
+import java.io.*;
+import java.math.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.zip.CRC32;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * A durable, append-only journal of bank transfers, written through a
+ * memory-mapped file.
+ * <p>
+ * The file is mapped in regions of {@value #REGION_SIZE} bytes. Each record
+ * is made of its length, the CRC-32 of its payload and the payload itself;
+ * records never span two regions. Appending a record is a copy to the mapped
+ * memory: the operating system writes it to the file.
+ * <p>
+ * The mapped memory is forced to the storage device (group commit) every
+ * {@code syncEvery} records, and at most {@code syncMillis} milliseconds
+ * after an append; in between a crash of the machine, not of the process,
+ * may lose the last records.
+ * <p>
+ * Besides the transfers, the journal records their executions, each one
+ * referring to a transfer by its sequence number: the number of transfers
+ * appended before it.
+ * <p>
+ * The journal must be {@link #replay(Consumer) replayed} before appending:
+ * records are read straight from the mapped memory, and the replay stops at
+ * the first torn or corrupted record, which is overwritten by the next
+ * append. The replay may start at a {@linkplain #mark() mark}, when the
+ * records before it are already known, e.g. from a snapshot.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Frank MARSHALL
+ */
+public class TransferJournal implements Closeable {
+
+    private static final int REGION_SIZE = 64 * 1024 * 1024;
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    // A length marking the end of the records of a region:
+    private static final int END_OF_REGION = -1;
+
+    private static final byte TRANSFER = 1;
+
+    private static final byte EXECUTION = 2;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final FileChannel channel;
+
+    private final int syncEvery;
+
+    private final ScheduledExecutorService syncer;
+
+    private final CRC32 crc = new CRC32();
+
+    private ByteBuffer encoder = ByteBuffer.allocate(1024);
+
+    private MappedByteBuffer region;
+
+    private long regionStart;
+
+    private boolean replayed;
+
+    private int unsynced;
+
+    private long transfers;
+
+    /**
+     * Opens the journal stored in given file, creating it if it does not
+     * exist.
+     *
+     * @param path
+     *            the path of the journal file
+     * @param syncEvery
+     *            the maximum number of records appended between two forces
+     *            to the storage device
+     * @param syncMillis
+     *            the maximum delay, in milliseconds, between an append and
+     *            the next force to the storage device
+     * @throws IOException
+     *             if the file cannot be opened
+     * @throws IllegalArgumentException
+     *             if {@code syncEvery} or {@code syncMillis} is not positive
+     */
+    public TransferJournal(Path path, int syncEvery, long syncMillis)
+	    throws IOException {
+	if (syncEvery <= 0 || syncMillis <= 0L) {
+	    throw new IllegalArgumentException(
+		    "sync parameters must be positive");
+	}
+	this.syncEvery = syncEvery;
+	channel = FileChannel.open(path, StandardOpenOption.CREATE,
+		StandardOpenOption.READ, StandardOpenOption.WRITE);
+	syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+	    Thread thread = new Thread(runnable, "transfer-journal-sync");
+	    thread.setDaemon(true);
+	    return thread;
+	});
+	syncer.scheduleWithFixedDelay(this::sync, syncMillis,
+		syncMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads all the transfers of this {@code journal}, in append order.
+     *
+     * @param consumer
+     *            the consumer of the transfers read
+     * @return the number of transfers read
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws IllegalStateException
+     *             if this {@code journal} has already been replayed
+     */
+    public long replay(Consumer<BankTransfer> consumer) throws IOException {
+	return replay(consumer, sequence -> {
+	});
+    }
+
+    /**
+     * Reads all the records of this {@code journal}, in append order.
+     *
+     * @param consumer
+     *            the consumer of the transfers read
+     * @param executions
+     *            the consumer of the sequence numbers of the executed
+     *            transfers
+     * @return the number of transfers read
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws IllegalStateException
+     *             if this {@code journal} has already been replayed
+     */
+    public long replay(Consumer<BankTransfer> consumer,
+	    LongConsumer executions) throws IOException {
+	return replay(new Mark(0L, 0L), consumer, executions);
+    }
+
+    /**
+     * Reads the records of this {@code journal} appended after given mark,
+     * in append order.
+     *
+     * @param from
+     *            a mark of this {@code journal}
+     * @param consumer
+     *            the consumer of the transfers read
+     * @param executions
+     *            the consumer of the sequence numbers of the executed
+     *            transfers
+     * @return the number of transfers, including those before the mark
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws NullPointerException
+     *             if {@code from} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code from} is beyond the end of the file
+     * @throws IllegalStateException
+     *             if this {@code journal} has already been replayed
+     */
+    public synchronized long replay(Mark from,
+	    Consumer<BankTransfer> consumer, LongConsumer executions)
+	    throws IOException {
+	Objects.requireNonNull(from, "from must not be null");
+	if (replayed) {
+	    throw new IllegalStateException("journal already replayed");
+	}
+	if (from.position > 0L && from.position >= channel.size()) {
+	    throw new IllegalArgumentException(
+		    "mark beyond the end of the journal: " + from);
+	}
+	replayed = true;
+	map(from.position - from.position % REGION_SIZE);
+	region.position((int) (from.position - regionStart));
+	transfers = from.transfers;
+	while (true) {
+	    int position = region.position();
+	    int length = remaining(region) >= HEADER_SIZE
+		    ? region.getInt(position) : END_OF_REGION;
+	    if (length == END_OF_REGION && regionStart + REGION_SIZE
+		    < channel.size()) {
+		map(regionStart + REGION_SIZE);
+		continue;
+	    }
+	    if (length <= 0 || length > remaining(region) - HEADER_SIZE) {
+		break; // End of the journal
+	    }
+	    ByteBuffer payload = slice(region, position + HEADER_SIZE,
+		    length);
+	    crc.reset();
+	    crc.update(payload.duplicate());
+	    if ((int) crc.getValue() != region.getInt(position
+		    + Integer.BYTES)) {
+		break; // Torn or corrupted record
+	    }
+	    byte type = payload.get();
+	    if (type == TRANSFER) {
+		consumer.accept(decode(payload));
+		transfers++;
+	    } else if (type == EXECUTION) {
+		executions.accept(payload.getLong());
+	    } else {
+		throw new IllegalStateException("unknown journal record");
+	    }
+	    region.position(position + HEADER_SIZE + length);
+	}
+	return transfers;
+    }
+
+    /**
+     * Appends given transfer to this {@code journal}.
+     *
+     * @param transfer
+     *            a transfer
+     * @return the sequence number of the transfer
+     * @throws UncheckedIOException
+     *             if the file cannot be written
+     * @throws IllegalStateException
+     *             if this {@code journal} has not been replayed
+     */
+    public synchronized long append(BankTransfer transfer) {
+	append(encode(transfer));
+	return transfers++;
+    }
+
+    /**
+     * Appends the execution of given transfer to this {@code journal}.
+     *
+     * @param sequence
+     *            the sequence number of the executed transfer
+     * @throws UncheckedIOException
+     *             if the file cannot be written
+     * @throws IllegalStateException
+     *             if this {@code journal} has not been replayed
+     * @see #append(BankTransfer)
+     */
+    public synchronized void appendExecution(long sequence) {
+	encoder.clear();
+	encoder.put(EXECUTION);
+	encoder.putLong(sequence);
+	encoder.flip();
+	append(encoder);
+    }
+
+    private void append(ByteBuffer payload) {
+	if (!replayed) {
+	    throw new IllegalStateException("journal not replayed");
+	}
+	int length = payload.remaining();
+	try {
+	    if (remaining(region) < HEADER_SIZE + length + HEADER_SIZE) {
+		region.putInt(region.position(), END_OF_REGION);
+		region.force();
+		map(regionStart + REGION_SIZE);
+	    }
+	    crc.reset();
+	    crc.update(payload.duplicate());
+	    int position = region.position();
+	    region.position(position + HEADER_SIZE);
+	    region.put(payload);
+	    // Length last, so that a torn record is never read:
+	    region.putInt(position + Integer.BYTES, (int) crc.getValue());
+	    region.putInt(position, length);
+	    // Mark the end of the journal, the mapped file is not zeroed:
+	    region.putInt(region.position(), 0);
+	} catch (IOException ex) {
+	    throw new UncheckedIOException(ex);
+	}
+	if (++unsynced >= syncEvery) {
+	    sync();
+	}
+    }
+
+    /**
+     * Returns the mark of the end of this {@code journal}: the records
+     * appended so far are before it.
+     *
+     * @return the current mark; never {@code null}
+     * @throws IllegalStateException
+     *             if this {@code journal} has not been replayed
+     */
+    public synchronized Mark mark() {
+	if (!replayed) {
+	    throw new IllegalStateException("journal not replayed");
+	}
+	return new Mark(regionStart + region.position(), transfers);
+    }
+
+    /**
+     * Forces the appended records to the storage device.
+     */
+    public synchronized void sync() {
+	if (region != null && unsynced > 0) {
+	    region.force();
+	    unsynced = 0;
+	}
+    }
+
+    /**
+     * Forces the appended records to the storage device and closes this
+     * {@code journal}.
+     *
+     * @throws IOException
+     *             if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+	syncer.shutdown();
+	sync();
+	channel.close();
+    }
+
+    private void map(long start) throws IOException {
+	region = channel.map(FileChannel.MapMode.READ_WRITE, start,
+		REGION_SIZE);
+	regionStart = start;
+    }
+
+    private static int remaining(ByteBuffer buffer) {
+	return buffer.limit() - buffer.position();
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position,
+	    int length) {
+	ByteBuffer slice = buffer.duplicate();
+	slice.position(position);
+	slice.limit(position + length);
+	return slice.slice();
+    }
+
+    private ByteBuffer encode(BankTransfer transfer) {
+	while (true) {
+	    encoder.clear();
+	    try {
+		encoder.put(TRANSFER);
+		// Written as a decimal, the format of the first journals:
+		Money amount = transfer.getAmount();
+		encoder.putInt(amount.getScale());
+		putBytes(BigInteger.valueOf(amount.getMinorUnits())
+			.toByteArray());
+		putDate(transfer.getRequestDate());
+		putDate(transfer.getExecutionDate());
+		putIban(transfer.getOrigin());
+		putIban(transfer.getDestination());
+		encoder.flip();
+		return encoder;
+	    } catch (BufferOverflowException ex) {
+		encoder = ByteBuffer.allocate(encoder.capacity() * 2);
+	    }
+	}
+    }
+
+    private void putDate(LocalDateTime date) {
+	encoder.putLong(date == null ? NO_DATE
+		: date.toEpochSecond(ZoneOffset.UTC));
+	encoder.putInt(date == null ? 0 : date.getNano());
+    }
+
+    private void putIban(Iban iban) {
+	Bban bban = iban.getBban();
+	putString(iban.getCountry());
+	putString(iban.getKey());
+	putString(bban.getBank());
+	putString(bban.getCounter());
+	putString(bban.getAccount());
+	putString(bban.getKey());
+    }
+
+    private void putString(String value) {
+	putBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void putBytes(byte[] bytes) {
+	encoder.putShort((short) bytes.length);
+	encoder.put(bytes);
+    }
+
+    private static BankTransfer decode(ByteBuffer payload) {
+	int scale = payload.getInt();
+	Money amount = Money.of(
+		new BigDecimal(new BigInteger(getBytes(payload)), scale),
+		BankTransfer.CURRENCY);
+	LocalDateTime requestDate = getDate(payload);
+	LocalDateTime executionDate = getDate(payload);
+	Iban origin = getIban(payload);
+	Iban destination = getIban(payload);
+	return new BankTransfer(amount, requestDate, executionDate, origin,
+		destination);
+    }
+
+    private static LocalDateTime getDate(ByteBuffer payload) {
+	long seconds = payload.getLong();
+	int nanos = payload.getInt();
+	return seconds == NO_DATE ? null
+		: LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static Iban getIban(ByteBuffer payload) {
+	String country = getString(payload);
+	String key = getString(payload);
+	Bban bban = new Bban(getString(payload), getString(payload),
+		getString(payload), getString(payload));
+	return IbanPool.shared().intern(new Iban(country, key, bban));
+    }
+
+    private static String getString(ByteBuffer payload) {
+	return new String(getBytes(payload), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] getBytes(ByteBuffer payload) {
+	byte[] bytes = new byte[payload.getShort()];
+	payload.get(bytes);
+	return bytes;
+    }
+
+    /**
+     * A position in a journal, between two records, with the number of
+     * transfers appended before it.
+     */
+    public static final class Mark {
+
+	private final long position;
+
+	private final long transfers;
+
+	/**
+	 * Creates a new {@code Mark}.
+	 *
+	 * @param position
+	 *            the position in the file, in bytes
+	 * @param transfers
+	 *            the number of transfers before the position
+	 * @throws IllegalArgumentException
+	 *             if {@code position} or {@code transfers} is negative
+	 */
+	public Mark(long position, long transfers) {
+	    if (position < 0L || transfers < 0L) {
+		throw new IllegalArgumentException(
+			"mark must not be negative");
+	    }
+	    this.position = position;
+	    this.transfers = transfers;
+	}
+
+	/**
+	 * Returns the position of this {@code mark} in the file.
+	 *
+	 * @return the position, in bytes
+	 */
+	public long getPosition() {
+	    return position;
+	}
+
+	/**
+	 * Returns the number of transfers appended before this {@code mark}.
+	 *
+	 * @return the number of transfers
+	 */
+	public long getTransfers() {
+	    return transfers;
+	}
+
+	@Override
+	public String toString() {
+	    StringBuilder builder = new StringBuilder();
+	    builder.append("{position=").append(position);
+	    builder.append(", transfers=").append(transfers);
+	    builder.append('}');
+	    return builder.toString();
+	}
+    }
+}
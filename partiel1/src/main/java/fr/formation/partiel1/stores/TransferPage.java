@@ -0,0 +1,55 @@
+package fr.formation.partiel1.stores;
+
+import java.util.*;
+
+import fr.formation.partiel1.entities.BankTransfer;
+
+/**
+ * A page of bank transfers, most recent first, with the cursor to the next
+ * page if any.
+ *
+ * @author Frank MARSHALL
+ */
+public final class TransferPage {
+
+    private final List<BankTransfer> transfers;
+
+    private final TransferCursor next;
+
+    /**
+     * Creates a new {@code TransferPage} with given transfers and cursor to
+     * the next page.
+     *
+     * @param transfers
+     *            the transfers of the page
+     * @param next
+     *            the cursor to the next page; {@code null} if this is the
+     *            last page
+     * @throws NullPointerException
+     *             if {@code transfers} is {@code null}
+     */
+    public TransferPage(List<BankTransfer> transfers, TransferCursor next) {
+	this.transfers = Collections.unmodifiableList(transfers);
+	this.next = next;
+    }
+
+    /**
+     * Returns the transfers of this {@code page}.
+     *
+     * @return an unmodifiable list of transfers; never {@code null}, may be
+     *         empty
+     */
+    public List<BankTransfer> getTransfers() {
+	return transfers;
+    }
+
+    /**
+     * Returns the cursor to the next page.
+     *
+     * @return the cursor to the next page; {@code null} if this is the last
+     *         page
+     */
+    public TransferCursor getNext() {
+	return next;
+    }
+}
@@ -0,0 +1,204 @@
+package fr.formation.partiel1.stores;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.*;
+import java.util.*;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * A snapshot of the first rows of a {@link ColumnarTransferStore}, saved in
+ * a compact binary file, in the layout of the store itself.
+ * <p>
+ * The file is made of a header, opaque metadata, the packed IBANs of the
+ * dictionary, the order of the rows by request date, then the segments of
+ * the rows, each one aligned on a page. Loading a snapshot maps the file:
+ * the segments are read from it on demand, the last one copied on write so
+ * that new rows can be added after it, and the IBANs are unpacked when
+ * first looked up. Only the order is read eagerly, as a single bulk copy.
+ * <p>
+ * A snapshot is written to a temporary file, forced to the storage device,
+ * then moved over the previous one, so a crash never leaves a partial
+ * snapshot in place.
+ *
+ * @author Frank MARSHALL
+ * @see ColumnarTransferStore
+ */
+public final class TransferSnapshot {
+
+    private static final int MAGIC = 0x5031534E; // "P1SN"
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int PAGE_SIZE = 4096;
+
+    private final ColumnarTransferStore store;
+
+    private final ByteBuffer metadata;
+
+    private TransferSnapshot(ColumnarTransferStore store,
+	    ByteBuffer metadata) {
+	this.store = store;
+	this.metadata = metadata;
+    }
+
+    /**
+     * Writes a snapshot of the first rows of given store to given file,
+     * replacing it if it exists.
+     * <p>
+     * Transfers may be added to {@code store} meanwhile.
+     *
+     * @param path
+     *            the path of the snapshot file
+     * @param store
+     *            a store
+     * @param rows
+     *            the number of rows to save, in insertion order
+     * @param metadata
+     *            the metadata to save along, from its position to its limit
+     * @throws IOException
+     *             if the file cannot be written
+     * @throws NullPointerException
+     *             if any argument is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code rows} is negative or greater than the size of
+     *             {@code store}
+     */
+    public static void write(Path path, ColumnarTransferStore store,
+	    int rows, ByteBuffer metadata) throws IOException {
+	Objects.requireNonNull(path, "path must not be null");
+	Objects.requireNonNull(store, "store must not be null");
+	Objects.requireNonNull(metadata, "metadata must not be null");
+	ColumnarTransferStore.Image image = store.image(rows);
+	ByteBuffer order = ByteBuffer.allocate(rows * Integer.BYTES);
+	order.asIntBuffer().put(image.order);
+	ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+	header.putInt(MAGIC).putInt(VERSION).putInt(rows);
+	header.putInt(image.ibans.remaining() / PackedIban.BYTES);
+	header.putInt(metadata.remaining());
+	header.clear();
+	Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+	try (FileChannel channel = FileChannel.open(temporary,
+		StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		StandardOpenOption.TRUNCATE_EXISTING)) {
+	    writeFully(channel, header);
+	    writeFully(channel, metadata.duplicate());
+	    writeFully(channel, image.ibans);
+	    writeFully(channel, order);
+	    long position = align(channel.position());
+	    for (ByteBuffer segment : image.segments) {
+		ByteBuffer source = segment.duplicate();
+		source.clear();
+		while (source.hasRemaining()) {
+		    position += channel.write(source, position);
+		}
+	    }
+	    channel.force(true);
+	}
+	Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE,
+		StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer)
+	    throws IOException {
+	while (buffer.hasRemaining()) {
+	    channel.write(buffer);
+	}
+    }
+
+    private static long align(long position) {
+	return (position + PAGE_SIZE - 1) & -PAGE_SIZE;
+    }
+
+    /**
+     * Loads the snapshot stored in given file.
+     * <p>
+     * The file may be replaced by a new snapshot afterwards, but must not be
+     * modified in place.
+     *
+     * @param path
+     *            the path of the snapshot file
+     * @return the snapshot; never {@code null}
+     * @throws IOException
+     *             if the file cannot be read or is not a valid snapshot
+     * @throws NullPointerException
+     *             if {@code path} is {@code null}
+     */
+    public static TransferSnapshot read(Path path) throws IOException {
+	Objects.requireNonNull(path, "path must not be null");
+	// Read and write, as required by the copy on write of the mapping:
+	try (FileChannel channel = FileChannel.open(path,
+		StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+	    long size = channel.size();
+	    if (size < HEADER_SIZE) {
+		throw new IOException("malformed snapshot: " + path);
+	    }
+	    ByteBuffer header = channel.map(MapMode.READ_ONLY, 0L,
+		    HEADER_SIZE);
+	    int magic = header.getInt();
+	    int version = header.getInt();
+	    int rows = header.getInt();
+	    int count = header.getInt();
+	    int length = header.getInt();
+	    if (magic != MAGIC || version != VERSION || rows < 0 || count < 0
+		    || length < 0) {
+		throw new IOException("malformed snapshot: " + path);
+	    }
+	    long ibans = HEADER_SIZE + (long) length;
+	    long order = ibans + (long) count * PackedIban.BYTES;
+	    int segmentCount = (rows + ColumnarTransferStore.SEGMENT_ROWS - 1)
+		    / ColumnarTransferStore.SEGMENT_ROWS;
+	    long start = align(order + (long) rows * Integer.BYTES);
+	    if (start + (long) segmentCount
+		    * ColumnarTransferStore.SEGMENT_BYTES > size) {
+		throw new IOException("truncated snapshot: " + path);
+	    }
+	    ByteBuffer metadata = channel
+		    .map(MapMode.READ_ONLY, HEADER_SIZE, length);
+	    int[] ordered = new int[Math.max(rows,
+		    ColumnarTransferStore.SEGMENT_ROWS)];
+	    channel.map(MapMode.READ_ONLY, order, rows * Integer.BYTES)
+		    .asIntBuffer().get(ordered, 0, rows);
+	    List<ByteBuffer> segments = new ArrayList<>(segmentCount);
+	    for (int i = 0; i < segmentCount; i++) {
+		// The last segment, if not full, gets the rows added later:
+		boolean full = (long) (i + 1)
+			* ColumnarTransferStore.SEGMENT_ROWS <= rows;
+		segments.add(channel.map(
+			full ? MapMode.READ_ONLY : MapMode.PRIVATE,
+			start + (long) i * ColumnarTransferStore.SEGMENT_BYTES,
+			ColumnarTransferStore.SEGMENT_BYTES));
+	    }
+	    IbanDictionary dictionary = new IbanDictionary(
+		    channel.map(MapMode.READ_ONLY, ibans,
+			    (long) count * PackedIban.BYTES),
+		    count);
+	    return new TransferSnapshot(new ColumnarTransferStore(segments,
+		    dictionary, ordered, rows), metadata);
+	}
+    }
+
+    /**
+     * Returns the store loaded from this {@code snapshot}, to which
+     * transfers may be added.
+     *
+     * @return the store; never {@code null}
+     */
+    public ColumnarTransferStore getStore() {
+	return store;
+    }
+
+    /**
+     * Returns the metadata saved along this {@code snapshot}.
+     *
+     * @return a new read-only buffer of the metadata; never {@code null}
+     */
+    public ByteBuffer getMetadata() {
+	return metadata.asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,230 @@
+package fr.formation.partiel1.stores;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * A store of bank transfers, ordered by request date.
+ * <p>
+ * Transfers with equal request dates are ordered by insertion. Unless
+ * specified otherwise, lists are returned most recent first.
+ *
+ * @author Frank MARSHALL
+ */
+public interface TransferStore {
+
+    /**
+     * The name of the system property selecting the store implementation:
+     * {@code indexed} (the default) or {@code columnar}.
+     */
+    String TYPE_PROPERTY = "partiel1.store";
+
+    /**
+     * The name of the system property giving the number of shards of the
+     * store, each one a store of the selected type; not sharded if not set
+     * or {@code 1}.
+     */
+    String SHARDS_PROPERTY = "partiel1.store.shards";
+
+    /**
+     * Creates a new store of the type selected by the
+     * {@value #TYPE_PROPERTY} system property, sharded as given by the
+     * {@value #SHARDS_PROPERTY} system property.
+     *
+     * @return a new empty store; never {@code null}
+     * @throws IllegalArgumentException
+     *             if the selected type is unknown, or if the number of
+     *             shards is not positive
+     * @see IndexedTransferStore
+     * @see ColumnarTransferStore
+     * @see ShardedTransferStore
+     */
+    static TransferStore create() {
+	String type = System.getProperty(TYPE_PROPERTY, "indexed");
+	int shards = Integer.getInteger(SHARDS_PROPERTY, 1);
+	if (shards == 1) {
+	    return create(type);
+	}
+	return new ShardedTransferStore(shards, () -> create(type));
+    }
+
+    /**
+     * Creates a new store of given type.
+     *
+     * @param type
+     *            the type of the store: {@code indexed} or {@code columnar}
+     * @return a new empty store; never {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code type} is unknown
+     */
+    static TransferStore create(String type) {
+	switch (type) {
+	case "indexed":
+	    return new IndexedTransferStore();
+	case "columnar":
+	    return new ColumnarTransferStore();
+	default:
+	    throw new IllegalArgumentException("unknown store: " + type);
+	}
+    }
+
+    /**
+     * Adds given transfer to this {@code store}.
+     *
+     * @param transfer
+     *            a transfer to add
+     * @throws NullPointerException
+     *             if {@code transfer} is {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code transfer} cannot be stored by this
+     *             {@code store}
+     */
+    void add(BankTransfer transfer);
+
+    /**
+     * Checks that given transfer can be added to this {@code store}, without
+     * adding it.
+     * <p>
+     * The default implementation checks that the amount, the request date
+     * and the accounts of the transfer are not {@code null}.
+     *
+     * @param transfer
+     *            a transfer
+     * @throws NullPointerException
+     *             if {@code transfer} is {@code null}, or lacks an amount,
+     *             a request date or an account
+     * @throws IllegalArgumentException
+     *             if {@code transfer} cannot be stored by this
+     *             {@code store}
+     * @see #add(BankTransfer)
+     */
+    default void check(BankTransfer transfer) {
+	Objects.requireNonNull(transfer.getAmount(),
+		"amount must not be null");
+	Objects.requireNonNull(transfer.getRequestDate(),
+		"request date must not be null");
+	Objects.requireNonNull(transfer.getOrigin(),
+		"origin must not be null");
+	Objects.requireNonNull(transfer.getDestination(),
+		"destination must not be null");
+    }
+
+    /**
+     * Returns the number of transfers in this {@code store}.
+     *
+     * @return the number of transfers
+     */
+    int size();
+
+    /**
+     * Returns the last {@code count} transfers based on their request date.
+     *
+     * @param count
+     *            the maximum number of transfers to return
+     * @return a list of at most {@code count} transfers; never {@code null},
+     *         may be empty
+     */
+    List<BankTransfer> last(int count);
+
+    /**
+     * Returns a page of at most {@code limit} transfers requested before
+     * given cursor.
+     * <p>
+     * Pages are keyed on the request date, so transfers added while paging
+     * never shift the following pages.
+     *
+     * @param after
+     *            the cursor returned with the previous page; {@code null} for
+     *            the first page
+     * @param limit
+     *            the maximum number of transfers of the page
+     * @return a page of transfers; never {@code null}
+     * @throws IllegalArgumentException
+     *             if {@code limit} is not positive
+     */
+    TransferPage page(TransferCursor after, int limit);
+
+    /**
+     * Returns the transfers requested between given dates.
+     *
+     * @param from
+     *            the lower bound, inclusive
+     * @param to
+     *            the upper bound, exclusive
+     * @return a list of transfers; never {@code null}, may be empty
+     * @throws NullPointerException
+     *             if any of the argument is {@code null}
+     */
+    List<BankTransfer> between(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Returns the transfers to execute between given dates, most recent
+     * execution date first.
+     * <p>
+     * Transfers with equal execution dates are ordered by insertion, most
+     * recent first; transfers without execution date are never returned.
+     *
+     * @param from
+     *            the lower bound, inclusive
+     * @param to
+     *            the upper bound, exclusive
+     * @return a list of transfers; never {@code null}, may be empty
+     * @throws NullPointerException
+     *             if any of the argument is {@code null}
+     * @see TimeIndex
+     */
+    List<BankTransfer> executingBetween(LocalDateTime from,
+	    LocalDateTime to);
+
+    /**
+     * Returns the last {@code count} transfers from given origin account.
+     *
+     * @param origin
+     *            an origin account
+     * @param count
+     *            the maximum number of transfers to return
+     * @return a list of at most {@code count} transfers; never {@code null},
+     *         may be empty
+     * @see Iban#equals(Object)
+     */
+    List<BankTransfer> lastFrom(Iban origin, int count);
+
+    /**
+     * Returns the last {@code count} transfers to given destination account.
+     *
+     * @param destination
+     *            a destination account
+     * @param count
+     *            the maximum number of transfers to return
+     * @return a list of at most {@code count} transfers; never {@code null},
+     *         may be empty
+     * @see Iban#equals(Object)
+     */
+    List<BankTransfer> lastTo(Iban destination, int count);
+
+    /**
+     * Returns all the transfers.
+     * <p>
+     * The returned view is lazy: iterating it does not copy the transfers.
+     *
+     * @return an unmodifiable view of all the transfers; never {@code null},
+     *         may be empty
+     */
+    Collection<BankTransfer> all();
+
+    /**
+     * Returns a parallel stream of all the transfers, in no particular
+     * order, to be reduced in parallel.
+     * <p>
+     * The stream is a snapshot of the transfers, split without copying
+     * them.
+     *
+     * @return a parallel stream of all the transfers; never {@code null}
+     */
+    default Stream<BankTransfer> parallelStream() {
+	return all().parallelStream();
+    }
+}
@@ -0,0 +1,224 @@
+package fr.formation.partiel1.wire;
+
+import static fr.formation.partiel1.wire.TransferEncoder.*;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.*;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Reads bank transfers written by a {@link TransferEncoder}, one at a time,
+ * as they are received.
+ * <p>
+ * The IBANs read are canonicalized through the {@linkplain IbanPool#shared()
+ * shared pool}.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Frank MARSHALL
+ * @see TransferEncoder
+ */
+public class TransferDecoder {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int SCALE = BankTransfer.CURRENCY
+	    .getDefaultFractionDigits();
+
+    // The maximum length of a string, larger than any valid IBAN code:
+    private static final int MAX_LENGTH = 1024;
+
+    private final InputStream input;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    private final List<Iban> dictionary = new ArrayList<>();
+
+    private long requestSeconds;
+
+    private boolean started;
+
+    private boolean ended;
+
+    /**
+     * Creates a new {@code TransferDecoder} reading from given stream.
+     *
+     * @param input
+     *            an input stream, never closed by this {@code decoder}
+     * @throws NullPointerException
+     *             if {@code input} is {@code null}
+     */
+    public TransferDecoder(InputStream input) {
+	this.input = Objects.requireNonNull(input, "input must not be null");
+    }
+
+    /**
+     * Reads the next bank transfer.
+     *
+     * @return the next bank transfer; {@code null} if the end of the stream
+     *         was read
+     * @throws EOFException
+     *             if the stream ends before its end was read
+     * @throws StreamCorruptedException
+     *             if the stream is not in the binary format, or if it holds
+     *             an invalid bank transfer
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public BankTransfer read() throws IOException {
+	if (!started) {
+	    readHeader();
+	    started = true;
+	}
+	while (!ended) {
+	    int kind = getByte();
+	    switch (kind) {
+	    case END:
+		ended = true;
+		break;
+	    case IBAN:
+		dictionary.add(readIban());
+		break;
+	    case TRANSFER:
+		return readTransfer();
+	    default:
+		throw new StreamCorruptedException("unknown record: " + kind);
+	    }
+	}
+	return null;
+    }
+
+    private void readHeader() throws IOException {
+	for (byte magic : MAGIC) {
+	    if (getByte() != magic) {
+		throw new StreamCorruptedException("not a transfer stream");
+	    }
+	}
+	int version = getByte();
+	if (version != VERSION) {
+	    throw new StreamCorruptedException(
+		    "unsupported version: " + version);
+	}
+    }
+
+    private Iban readIban() throws IOException {
+	String country = getString();
+	String key = getString();
+	String bank = getString();
+	String counter = getString();
+	String account = getString();
+	String bbanKey = getString();
+	try {
+	    return IbanPool.shared().intern(new Iban(country, key,
+		    new Bban(bank, counter, account, bbanKey)));
+	} catch (IllegalArgumentException ex) {
+	    throw new StreamCorruptedException(
+		    "invalid IBAN: " + ex.getMessage());
+	}
+    }
+
+    private BankTransfer readTransfer() throws IOException {
+	int flags = getByte();
+	int scale = (int) getSigned();
+	long unscaled = getSigned();
+	long request = requestSeconds + getSigned();
+	requestSeconds = request;
+	long execution = (flags & EXECUTION_DATE) != 0 ? request + getSigned()
+		: 0L;
+	int requestNanos = (flags & REQUEST_NANOS) != 0 ? (int) getUnsigned()
+		: 0;
+	int executionNanos = (flags & EXECUTION_NANOS) != 0
+		? (int) getUnsigned()
+		: 0;
+	Iban origin = iban(getUnsigned());
+	Iban destination = iban(getUnsigned());
+	try {
+	    Money amount = scale == SCALE
+		    ? Money.ofMinor(unscaled, BankTransfer.CURRENCY)
+		    : Money.of(BigDecimal.valueOf(unscaled, scale),
+			    BankTransfer.CURRENCY);
+	    return new BankTransfer(amount,
+		    LocalDateTime.ofEpochSecond(request, requestNanos,
+			    ZoneOffset.UTC),
+		    (flags & EXECUTION_DATE) != 0
+			    ? LocalDateTime.ofEpochSecond(execution,
+				    executionNanos, ZoneOffset.UTC)
+			    : null,
+		    origin, destination);
+	} catch (DateTimeException | IllegalArgumentException ex) {
+	    throw new StreamCorruptedException(
+		    "invalid bank transfer: " + ex.getMessage());
+	}
+    }
+
+    private Iban iban(long index) throws StreamCorruptedException {
+	if (index < 0L || index >= dictionary.size()) {
+	    throw new StreamCorruptedException("unknown IBAN: " + index);
+	}
+	return dictionary.get((int) index);
+    }
+
+    private int getByte() throws IOException {
+	if (position == limit) {
+	    fill();
+	}
+	return buffer[position++];
+    }
+
+    private void fill() throws IOException {
+	int count = input.read(buffer);
+	if (count < 0) {
+	    throw new EOFException("transfer stream truncated");
+	}
+	position = 0;
+	limit = count;
+    }
+
+    private byte[] getBytes() throws IOException {
+	long length = getUnsigned();
+	if (length < 0L || length > MAX_LENGTH) {
+	    throw new StreamCorruptedException("invalid length: " + length);
+	}
+	byte[] bytes = new byte[(int) length];
+	int offset = 0;
+	while (offset < bytes.length) {
+	    if (position == limit) {
+		fill();
+	    }
+	    int count = Math.min(limit - position, bytes.length - offset);
+	    System.arraycopy(buffer, position, bytes, offset, count);
+	    position += count;
+	    offset += count;
+	}
+	return bytes;
+    }
+
+    private String getString() throws IOException {
+	return new String(getBytes(), StandardCharsets.UTF_8);
+    }
+
+    private long getSigned() throws IOException {
+	long value = getUnsigned();
+	return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long getUnsigned() throws IOException {
+	long value = 0L;
+	for (int shift = 0; shift < Long.SIZE; shift += 7) {
+	    int b = getByte();
+	    value |= (long) (b & 0x7F) << shift;
+	    if (b >= 0) {
+		return value;
+	    }
+	}
+	throw new StreamCorruptedException("varint too long");
+    }
+}
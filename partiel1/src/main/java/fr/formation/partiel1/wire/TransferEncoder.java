@@ -0,0 +1,221 @@
+package fr.formation.partiel1.wire;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.*;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Writes bank transfers in a compact binary format, meant for bulk exports
+ * between systems.
+ * <p>
+ * The stream starts with the {@code "BTX"} magic and a version byte, and is
+ * followed by records. Integers are written as varints, 7 bits per byte
+ * least significant first, signed ones being zigzag encoded. Each record
+ * starts with its kind:
+ * <ul>
+ * <li>{@value #IBAN}: defines the next entry of the dictionary of IBANs,
+ * made of its country code, key, bank code, counter code, account number
+ * and BBAN key, each written as its length and its UTF-8 bytes
+ * <li>{@value #TRANSFER}: a bank transfer, made of flags, its amount as its
+ * scale and its number of minor units, its request date as the difference
+ * in epoch seconds to the request date of the previous bank transfer, its
+ * execution date, if any, as the difference in seconds to its request date,
+ * the nanoseconds of the dates, if any, and its origin and destination
+ * accounts as their index in the dictionary
+ * <li>{@value #END}: the end of the stream
+ * </ul>
+ * Each IBAN is thus written once, before the first bank transfer referring
+ * to it. Dates are taken in UTC.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Frank MARSHALL
+ * @see TransferDecoder
+ */
+public class TransferEncoder {
+
+    /**
+     * The media type of the binary format.
+     */
+    public static final String MEDIA_TYPE =
+	    "application/vnd.partiel1.transfers";
+
+    static final byte[] MAGIC = { 'B', 'T', 'X' };
+
+    static final int VERSION = 1;
+
+    static final int END = 0;
+
+    static final int IBAN = 1;
+
+    static final int TRANSFER = 2;
+
+    // Flags of a transfer record:
+    static final int EXECUTION_DATE = 1;
+
+    static final int REQUEST_NANOS = 2;
+
+    static final int EXECUTION_NANOS = 4;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // The largest record but the IBANs:
+    private static final int MAX_RECORD_SIZE = 64;
+
+    private final OutputStream output;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position;
+
+    // The indexes of the IBANs written, by packed IBAN or electronic format:
+    private final Map<Object, Integer> dictionary = new HashMap<>();
+
+    private long requestSeconds;
+
+    private boolean finished;
+
+    /**
+     * Creates a new {@code TransferEncoder} writing to given stream.
+     *
+     * @param output
+     *            an output stream, never closed by this {@code encoder}
+     * @throws NullPointerException
+     *             if {@code output} is {@code null}
+     */
+    public TransferEncoder(OutputStream output) {
+	this.output = Objects.requireNonNull(output,
+		"output must not be null");
+	System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+	buffer[MAGIC.length] = VERSION;
+	position = MAGIC.length + 1;
+    }
+
+    /**
+     * Writes given bank transfer, and its accounts first if not written yet.
+     *
+     * @param transfer
+     *            a bank transfer
+     * @throws NullPointerException
+     *             if {@code transfer} is {@code null}
+     * @throws IllegalStateException
+     *             if this {@code encoder} is finished
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public void write(BankTransfer transfer) throws IOException {
+	if (finished) {
+	    throw new IllegalStateException("encoder is finished");
+	}
+	int origin = index(transfer.getOrigin());
+	int destination = index(transfer.getDestination());
+	Money amount = transfer.getAmount();
+	LocalDateTime request = transfer.getRequestDate();
+	LocalDateTime execution = transfer.getExecutionDate();
+	int flags = (execution == null ? 0 : EXECUTION_DATE)
+		| (request.getNano() == 0 ? 0 : REQUEST_NANOS)
+		| (execution == null || execution.getNano() == 0 ? 0
+			: EXECUTION_NANOS);
+	ensure(MAX_RECORD_SIZE);
+	buffer[position++] = TRANSFER;
+	buffer[position++] = (byte) flags;
+	putSigned(amount.getScale());
+	putSigned(amount.getMinorUnits());
+	long seconds = request.toEpochSecond(ZoneOffset.UTC);
+	putSigned(seconds - requestSeconds);
+	requestSeconds = seconds;
+	if (execution != null) {
+	    putSigned(execution.toEpochSecond(ZoneOffset.UTC) - seconds);
+	}
+	if ((flags & REQUEST_NANOS) != 0) {
+	    putUnsigned(request.getNano());
+	}
+	if ((flags & EXECUTION_NANOS) != 0) {
+	    putUnsigned(execution.getNano());
+	}
+	putUnsigned(origin);
+	putUnsigned(destination);
+    }
+
+    /*
+     * Returns the index of given IBAN in the dictionary, writing it first if
+     * new. Iban.equals() only compares the BBANs, hence the key.
+     */
+    private int index(Iban iban) throws IOException {
+	Object key = PackedIban.isPackable(iban) ? PackedIban.of(iban)
+		: iban.toString();
+	Integer index = dictionary.get(key);
+	if (index != null) {
+	    return index;
+	}
+	index = dictionary.size();
+	dictionary.put(key, index);
+	Bban bban = iban.getBban();
+	String[] fields = { iban.getCountry(), iban.getKey(), bban.getBank(),
+		bban.getCounter(), bban.getAccount(), bban.getKey() };
+	ensure(1);
+	buffer[position++] = IBAN;
+	for (String field : fields) {
+	    byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+	    ensure(5 + bytes.length);
+	    putBytes(bytes);
+	}
+	return index;
+    }
+
+    /**
+     * Writes the end of the stream and flushes the output stream, which is
+     * not closed.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public void finish() throws IOException {
+	if (finished) {
+	    return;
+	}
+	ensure(1);
+	buffer[position++] = END;
+	flush();
+	output.flush();
+	finished = true;
+    }
+
+    private void ensure(int size) throws IOException {
+	if (position + size > buffer.length) {
+	    flush();
+	}
+    }
+
+    private void flush() throws IOException {
+	output.write(buffer, 0, position);
+	position = 0;
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+	ensure(5);
+	putUnsigned(bytes.length);
+	if (bytes.length > buffer.length - position) {
+	    flush();
+	    output.write(bytes);
+	} else {
+	    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+	    position += bytes.length;
+	}
+    }
+
+    private void putSigned(long value) {
+	putUnsigned((value << 1) ^ (value >> 63));
+    }
+
+    private void putUnsigned(long value) {
+	while ((value & ~0x7FL) != 0L) {
+	    buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+	    value >>>= 7;
+	}
+	buffer[position++] = (byte) value;
+    }
+}
@@ -18,23 +18,29 @@ function formatIban(iban, separator) {
 	return result;
 }
 
+function transferItem(element) {
+	let li = "<li>Request date: " + element.requestDate;
+	li += ", Amount: " + element.amount;
+	li += ", Execution date: " + element.executionDate;
+	li += ", Origin IBAN: " + ibanToElectronicFormat(element.origin);
+	li += ", Destination IBAN: " + ibanToElectronicFormat(element.destination);
+	return li + "</li>";
+}
+
 $(function() {
 
+	let endpoint = null; // The listing shown, if any
+
 	$("#GETLAST, #GETALL").click(function() {
 		
 		$("#TRANSFERS").empty(); // Clear content
 		
-		let endpoint = (this.id === "GETLAST" ? "/last" : "/all");
+		endpoint = (this.id === "GETLAST" ? "/last" : "/all");
 		
 		$.getJSON(API_URL + "/bankTransfer" + endpoint, function(json){
 	    	let items = [];
 	    	$.each(json, function(key, element) {
-	    		let li = "<li>Request date: " + element.requestDate;
-	    		li += ", Amount: " + element.amount;
-	    		li += ", Execution date: " + element.executionDate;
-	    		li += ", Origin IBAN: " + ibanToElectronicFormat(element.origin);
-	    		li += ", Destination IBAN: " + ibanToElectronicFormat(element.destination);
-	    		items.push(li + "</li>");
+	    		items.push(transferItem(element));
 	    	});
 	    	
 	    	$("<ul/>", {
@@ -42,4 +48,22 @@ $(function() {
 	    	}).appendTo("#TRANSFERS");
 	    });
 	});
+
+	// Pushed changes, instead of reloading the listing shown:
+	let events = new EventSource(API_URL + "/bankTransfer/events");
+
+	events.addEventListener("transfer-created", function(event) {
+		let list = $("#TRANSFERS ul");
+		if (endpoint === "/last") {
+			list.html(transferItem(JSON.parse(event.data)));
+		} else if (endpoint === "/all") {
+			list.prepend(transferItem(JSON.parse(event.data)));
+		}
+	});
+
+	events.addEventListener("reset", function() {
+		if (endpoint !== null) { // Events missed, reloaded
+			$(endpoint === "/last" ? "#GETLAST" : "#GETALL").click();
+		}
+	});
 });
@@ -0,0 +1,51 @@
+package fr.formation.partiel1.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class to deal with {@code ResponseCache} class.
+ */
+class ResponseCacheTest {
+
+    private static ResponseCache.Entry entry(long version) {
+	return new ResponseCache.Entry(version, new byte[] { 1 }, null);
+    }
+
+    @Test
+    void shouldRenderOncePerVersion() throws IOException {
+	ResponseCache cache = new ResponseCache(10);
+	ResponseCache.Entry first = cache.get("all", 1L, () -> entry(1L));
+	assertSame(first, cache.get("all", 1L, () -> {
+	    throw new AssertionError("should be cached");
+	}));
+	ResponseCache.Entry second = cache.get("all", 2L, () -> entry(2L));
+	assertNotSame(first, second);
+	assertSame(second, cache.get("all", 2L, () -> entry(2L)));
+    }
+
+    @Test
+    void shouldDropOlderVersions() throws IOException {
+	ResponseCache cache = new ResponseCache(10);
+	cache.get("all", 1L, () -> entry(1L));
+	cache.get("last", 1L, () -> entry(1L));
+	assertEquals(2, cache.size());
+	cache.get("last", 2L, () -> entry(2L));
+	assertEquals(1, cache.size());
+	// Rendered for an older version, not cached:
+	cache.get("all", 1L, () -> entry(1L));
+	assertEquals(1, cache.size());
+    }
+
+    @Test
+    void shouldNotCacheWhenFull() throws IOException {
+	ResponseCache cache = new ResponseCache(1);
+	cache.get("all", 1L, () -> entry(1L));
+	ResponseCache.Entry last = cache.get("last", 1L, () -> entry(1L));
+	assertNotSame(last, cache.get("last", 1L, () -> entry(1L)));
+	assertEquals(1, cache.size());
+    }
+}
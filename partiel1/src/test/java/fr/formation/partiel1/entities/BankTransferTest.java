@@ -2,8 +2,8 @@ package fr.formation.partiel1.entities;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Currency;
 
 import org.junit.jupiter.api.Test;
 
@@ -23,7 +23,8 @@ class BankTransferTest {
     private static final Bban SECOND_BBAN = new Bban("30001", "00551",
 	    "11345678936", "45");
 
-    private static final BigDecimal POS_AMOUNT = BigDecimal.valueOf(100.0);
+    private static final Money POS_AMOUNT = Money.ofMinor(100_00L,
+	    BankTransfer.CURRENCY);
 
     private static final Iban FIRST_IBAN = new Iban("FR", "33", FIRST_BBAN);
 
@@ -39,11 +40,21 @@ class BankTransferTest {
     @Test
     void shouldNotConstructWithAmountNotPositive() {
 	assertThrows(IllegalArgumentException.class, () -> {
-	    new BankTransfer(BigDecimal.ZERO, NOW, null, FIRST_IBAN,
-		    SECOND_IBAN);
+	    new BankTransfer(Money.ofMinor(0L, BankTransfer.CURRENCY), NOW,
+		    null, FIRST_IBAN, SECOND_IBAN);
 	});
     }
 
+    @Test
+    void shouldNotConstructWithAmountInOtherCurrency() {
+	Money dollars = Money.ofMinor(100_00L, Currency.getInstance("USD"));
+	assertThrows(IllegalArgumentException.class, () -> {
+	    new BankTransfer(dollars, NOW, null, FIRST_IBAN, SECOND_IBAN);
+	});
+	assertFalse(BankTransfer.isValidAmount(dollars));
+	assertTrue(BankTransfer.isValidAmount(POS_AMOUNT));
+    }
+
     @Test
     void shouldNotConstructWithSameDates() {
 	assertThrows(IllegalArgumentException.class, () -> {
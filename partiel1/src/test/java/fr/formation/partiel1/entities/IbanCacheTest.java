@@ -0,0 +1,112 @@
+package fr.formation.partiel1.entities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class to deal with {@code IbanCache} class.
+ */
+class IbanCacheTest {
+
+    private static final String IBAN = "FR7630006000011234567890189";
+
+    /*
+     * Returns a valid French IBAN, distinct for each number.
+     */
+    private static String iban(int number) {
+	String rib = "3000600001" + String.format("%011d", number);
+	int key = 97 - new BigInteger(rib).multiply(BigInteger.valueOf(100))
+		.mod(BigInteger.valueOf(97)).intValue();
+	String bban = rib + String.format("%02d", key);
+	int check = 98 - new BigInteger(bban + "152700")
+		.mod(BigInteger.valueOf(97)).intValue();
+	return "FR" + String.format("%02d", check) + bban;
+    }
+
+    @Test
+    void shouldReturnCanonicalIban() {
+	IbanCache cache = new IbanCache(10);
+	Iban iban = cache.get(IBAN);
+	assertEquals(IbanParser.parse(IBAN).toString(), iban.toString());
+	assertSame(iban, cache.get(IBAN));
+	assertSame(iban, cache.get("FR76 3000 6000 0112 3456 7890 189"));
+	assertEquals(1L, cache.getHits());
+	assertEquals(2L, cache.getMisses());
+	assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    void shouldNotCheckKeys() {
+	IbanCache cache = new IbanCache(10);
+	Iban iban = new Iban("GB", "44",
+		new Bban("30001", "00551", "11345678936", "45"));
+	assertFalse(IbanParser.isValid("GB4430001005511134567893645"));
+	assertEquals(iban.toString(),
+		cache.get("GB4430001005511134567893645").toString());
+    }
+
+    @Test
+    void shouldNotCacheMalformedIban() {
+	IbanCache cache = new IbanCache(10);
+	assertThrows(IllegalArgumentException.class, () -> {
+	    cache.get("FR7630006000");
+	});
+	assertThrows(NullPointerException.class, () -> {
+	    cache.get(null);
+	});
+	assertEquals(0, cache.getSize());
+	assertEquals(1L, cache.getMisses());
+    }
+
+    @Test
+    void shouldBeBounded() {
+	IbanCache cache = new IbanCache(100);
+	for (int i = 0; i < 1000; i++) {
+	    assertTrue(IbanParser.isValid(iban(i)));
+	    cache.get(iban(i));
+	    cache.get(iban(i));
+	}
+	assertEquals(100, cache.getSize());
+	assertEquals(2000L, cache.getHits() + cache.getMisses());
+	// Once full, each miss either evicts an IBAN or is rejected:
+	assertEquals(cache.getMisses() - 100L,
+		cache.getEvictions() + cache.getRejections());
+    }
+
+    @Test
+    void shouldKeepFrequentIbans() {
+	IbanCache cache = new IbanCache(100);
+	for (int round = 0; round < 5; round++) {
+	    for (int i = 0; i < 50; i++) {
+		cache.get(iban(i));
+	    }
+	}
+	// A scan of IBANs seen once must not evict the frequent ones:
+	for (int i = 1000; i < 2000; i++) {
+	    cache.get(iban(i));
+	}
+	long hits = cache.getHits();
+	for (int i = 0; i < 50; i++) {
+	    cache.get(iban(i));
+	}
+	assertEquals(hits + 50L, cache.getHits());
+	assertTrue(cache.getRejections() > 0L);
+    }
+
+    @Test
+    void shouldAgeFrequencies() {
+	IbanCache.FrequencySketch sketch = new IbanCache.FrequencySketch(16);
+	for (int i = 0; i < 10; i++) {
+	    sketch.increment(42);
+	}
+	assertEquals(10, sketch.frequency(42));
+	// Reaching the sample size of 160 halves the counters:
+	for (int i = 0; i < 150; i++) {
+	    sketch.increment(1000 + i);
+	}
+	assertEquals(5, sketch.frequency(42));
+    }
+}
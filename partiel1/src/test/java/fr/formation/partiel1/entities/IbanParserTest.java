@@ -0,0 +1,125 @@
+package fr.formation.partiel1.entities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test class to deal with {@code IbanParser} class.
+ */
+class IbanParserTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "FR7630006000011234567890189",
+	    "FR76 3000 6000 0112 3456 7890 189",
+	    "FR1420041010050500013M02606", "GB82WEST12345698765432",
+	    "DE89 3704 0044 0532 0130 00", "DE89370400440532013000",
+	    "FI2112345600000785", "CH9300762011623852957",
+	    "GB29NWBK60161331926819" })
+    void shouldBeValid(String iban) {
+	assertTrue(IbanParser.isValid(iban));
+	byte[] ascii = iban.getBytes(StandardCharsets.US_ASCII);
+	assertTrue(IbanParser.isValid(ascii, 0, ascii.length));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "FR76", "FR7630006000011234567890188",
+	    "FR7630006000011234567890198", "fr7630006000011234567890189",
+	    "FR76300060000112345678901", "7630006000011234567890189FR",
+	    "GB82WEST1234569876543-", "GB99WEST12345698765432" })
+    void shouldNotBeValid(String iban) {
+	assertFalse(IbanParser.isValid(iban));
+    }
+
+    @Test
+    void shouldValidateLongDigitBbans() {
+	for (int length : new int[] { 13, 14, 15, 16, 27, 28, 29, 30 }) {
+	    for (char digit = '1'; digit <= '9'; digit += 4) {
+		char[] digits = new char[length];
+		Arrays.fill(digits, digit);
+		String bban = new String(digits);
+		// The reference check digits, 98 minus the remainder of the
+		// BBAN followed by the country code and "00":
+		int check = 98 - new BigInteger(bban + "1314" + "00")
+			.mod(BigInteger.valueOf(97L)).intValue();
+		String iban = String.format("DE%02d%s", check, bban);
+		assertTrue(IbanParser.isValid(iban), iban);
+		String wrong = String.format("DE%02d%s", check % 97 + 1, bban);
+		assertFalse(IbanParser.isValid(wrong), wrong);
+	    }
+	}
+    }
+
+    @Test
+    void shouldValidateRib() {
+	assertTrue(IbanParser.isValidRib("30006 00001 12345678901 89"));
+	assertTrue(IbanParser.isValidRib("2004101005 0500013M026 06"));
+	assertFalse(IbanParser.isValidRib("30006 00001 12345678901 88"));
+	assertFalse(IbanParser.isValidRib("30006 00001 12345678901"));
+	for (String prefix : new String[] { "99999 99999 99999999999",
+		"99999 99999 ZZZZZZZZZZZ", "00000 00000 00000000001" }) {
+	    String digits = prefix.replace(" ", "").replace('Z', '9');
+	    int key = 97 - new BigInteger(digits + "00")
+		    .mod(BigInteger.valueOf(97L)).intValue();
+	    assertTrue(IbanParser.isValidRib(
+		    String.format("%s %02d", prefix, key)), prefix);
+	    assertFalse(IbanParser.isValidRib(
+		    String.format("%s %02d", prefix, (key + 1) % 97)), prefix);
+	}
+    }
+
+    @Test
+    void shouldValidateLines() {
+	byte[] lines = ("FR7630006000011234567890189\r\n"
+		+ "FR7630006000011234567890188\n\n"
+		+ "GB82 WEST 1234 5698 7654 32\n" + "FR76")
+			.getBytes(StandardCharsets.US_ASCII);
+	List<Integer> invalid = new ArrayList<>();
+	assertEquals(2, IbanParser.validateLines(lines, 0, lines.length,
+		invalid::add));
+	assertEquals(Arrays.asList(1, 4), invalid);
+    }
+
+    @Test
+    void shouldParse() {
+	Iban iban = IbanParser.parse("FR14 2004 1010 0505 0001 3M02 606");
+	assertEquals("FR", iban.getCountry());
+	assertEquals("14", iban.getKey());
+	assertEquals("20041", iban.getBban().getBank());
+	assertEquals("01005", iban.getBban().getCounter());
+	assertEquals("0500013M026", iban.getBban().getAccount());
+	assertEquals("06", iban.getBban().getKey());
+    }
+
+    @Test
+    void shouldNotParse() {
+	assertThrows(IllegalArgumentException.class, () -> {
+	    IbanParser.parse("FR7630006000011234567890188");
+	});
+	assertThrows(IllegalArgumentException.class, () -> {
+	    IbanParser.parse("GB82WEST12345698765432");
+	});
+    }
+
+    @Test
+    void shouldSplitWithoutChecking() {
+	Iban iban = IbanParser.split("GB44 3000 1005 5111 3456 7893 645");
+	assertEquals("GB", iban.getCountry());
+	assertEquals("44", iban.getKey());
+	assertEquals("30001", iban.getBban().getBank());
+	assertEquals("00551", iban.getBban().getCounter());
+	assertEquals("11345678936", iban.getBban().getAccount());
+	assertEquals("45", iban.getBban().getKey());
+	assertEquals("1", IbanParser.split("FR001234512345110").getBban()
+		.getAccount());
+	assertThrows(IllegalArgumentException.class, () -> {
+	    IbanParser.split("FR0012345123459");
+	});
+    }
+}
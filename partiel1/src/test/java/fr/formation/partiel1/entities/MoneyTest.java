@@ -0,0 +1,97 @@
+package fr.formation.partiel1.entities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class to deal with {@code Money} class.
+ */
+class MoneyTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+
+    private static final Currency JPY = Currency.getInstance("JPY");
+
+    @Test
+    void shouldParseDecimals() {
+	assertEquals(100050L, Money.parse("1000.50", EUR).getMinorUnits());
+	assertEquals(100050L, Money.parse("1000.5", EUR).getMinorUnits());
+	assertEquals(100000L, Money.parse("1000", EUR).getMinorUnits());
+	assertEquals(100000L, Money.parse("1000.", EUR).getMinorUnits());
+	assertEquals(50L, Money.parse(".5", EUR).getMinorUnits());
+	assertEquals(-5L, Money.parse("-0.05", EUR).getMinorUnits());
+	assertEquals(5L, Money.parse("+0.050000", EUR).getMinorUnits());
+	assertEquals(100050L, Money.parse("1.0005E3", EUR).getMinorUnits());
+	assertEquals(1000L, Money.parse("1000", JPY).getMinorUnits());
+	assertEquals(Long.MAX_VALUE,
+		Money.parse("92233720368547758.07", EUR).getMinorUnits());
+	// Zeros beyond the minor units never overflow:
+	assertEquals(100L, Money.parse("1.000000000000000000000", EUR)
+		.getMinorUnits());
+	assertEquals(Long.MIN_VALUE,
+		Money.parse("-92233720368547758.08", EUR).getMinorUnits());
+	Money min = Money.ofMinor(Long.MIN_VALUE, EUR);
+	assertEquals(min, Money.parse(min.toBigDecimal().toPlainString(), EUR));
+    }
+
+    @Test
+    void shouldNotParseMalformedDecimals() {
+	for (String text : new String[] { "", "-", ".", "1.2.3", "1,5", "a",
+		"10.005", "1000.5", "92233720368547758.08",
+		"-92233720368547758.09", "1.0000000000000000000001" }) {
+	    Currency currency = text.equals("1000.5") ? JPY : EUR;
+	    assertThrows(IllegalArgumentException.class, () -> {
+		Money.parse(text, currency);
+	    }, text);
+	}
+	assertThrows(IllegalArgumentException.class, () -> {
+	    Money.parse("1", Currency.getInstance("XXX"));
+	});
+    }
+
+    @Test
+    void shouldConvertFromAndToBigDecimal() {
+	Money money = Money.of(new BigDecimal("1000.500"), EUR);
+	assertEquals(Money.ofMinor(100050L, EUR), money);
+	assertEquals(new BigDecimal("1000.50"), money.toBigDecimal());
+	assertThrows(IllegalArgumentException.class, () -> {
+	    Money.of(new BigDecimal("0.001"), EUR);
+	});
+	assertThrows(IllegalArgumentException.class, () -> {
+	    Money.of(new BigDecimal("1E20"), EUR);
+	});
+    }
+
+    @Test
+    void shouldComputeExactly() {
+	Money cent = Money.ofMinor(1L, EUR);
+	Money max = Money.ofMinor(Long.MAX_VALUE, EUR);
+	assertEquals(Money.ofMinor(3L, EUR), cent.plus(cent).plus(cent));
+	assertEquals(Money.ofMinor(-1L, EUR), cent.minus(cent.times(2L)));
+	assertThrows(ArithmeticException.class, () -> {
+	    max.plus(cent);
+	});
+	assertThrows(ArithmeticException.class, () -> {
+	    max.times(2L);
+	});
+	assertThrows(IllegalArgumentException.class, () -> {
+	    cent.plus(Money.ofMinor(1L, JPY));
+	});
+    }
+
+    @Test
+    void shouldCompareAndBeEqual() {
+	Money first = Money.parse("1.5", EUR);
+	Money second = Money.parse("1.50", EUR);
+	assertEquals(first, second);
+	assertEquals(first.hashCode(), second.hashCode());
+	assertNotEquals(Money.ofMinor(150L, JPY), first);
+	assertTrue(first.compareTo(Money.parse("1.51", EUR)) < 0);
+	assertEquals(1, first.signum());
+	assertEquals("{amount=1.50, currency=EUR}", first.toString());
+    }
+}
@@ -0,0 +1,83 @@
+package fr.formation.partiel1.entities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class to deal with {@code PackedIban} and {@code IbanPool} classes.
+ */
+class PackedIbanTest {
+
+    private static final Iban FIRST_IBAN = new Iban("FR", "14",
+	    new Bban("20041", "01005", "0500013M026", "06"));
+
+    private static final Iban SHORT_IBAN = new Iban("FR", "4",
+	    new Bban("0", "00550", "21", ""));
+
+    @Test
+    void shouldUnpackToEqualValues() {
+	for (Iban iban : new Iban[] { FIRST_IBAN, SHORT_IBAN }) {
+	    Iban unpacked = PackedIban.of(iban).toIban();
+	    assertEquals(iban.toString(), unpacked.toString());
+	}
+    }
+
+    @Test
+    void shouldWriteToBuffer() {
+	ByteBuffer buffer = ByteBuffer.allocate(3 * PackedIban.BYTES);
+	PackedIban.of(FIRST_IBAN).put(buffer, PackedIban.BYTES);
+	PackedIban.of(SHORT_IBAN).put(buffer, 2 * PackedIban.BYTES);
+	assertEquals(0, buffer.position());
+	assertEquals(PackedIban.of(FIRST_IBAN),
+		PackedIban.get(buffer, PackedIban.BYTES));
+	assertEquals(SHORT_IBAN.toString(), PackedIban
+		.get(buffer, 2 * PackedIban.BYTES).toIban().toString());
+    }
+
+    @Test
+    void shouldBeEqual() {
+	Iban same = new Iban("FR", "14",
+		new Bban("20041", "01005", "0500013M026", "06"));
+	assertEquals(PackedIban.of(FIRST_IBAN), PackedIban.of(same));
+	assertEquals(PackedIban.of(FIRST_IBAN).hashCode(),
+		PackedIban.of(same).hashCode());
+	assertEquals("FR1420041010050500013M02606",
+		PackedIban.of(FIRST_IBAN).toString());
+    }
+
+    @Test
+    void shouldNotBeEqual() {
+	Iban noLeadingZero = new Iban("FR", "14",
+		new Bban("20041", "01005", "500013M026", "06"));
+	Iban otherCounter = new Iban("FR", "14",
+		new Bban("20041", "01006", "0500013M026", "06"));
+	assertNotEquals(PackedIban.of(FIRST_IBAN),
+		PackedIban.of(otherCounter));
+	assertNotEquals(PackedIban.of(FIRST_IBAN),
+		PackedIban.of(noLeadingZero));
+    }
+
+    @Test
+    void shouldNotPack() {
+	Iban lowerCase = new Iban("fr", "14",
+		new Bban("20041", "01005", "0500013M026", "06"));
+	assertFalse(PackedIban.isPackable(lowerCase));
+	assertThrows(IllegalArgumentException.class, () -> {
+	    PackedIban.of(lowerCase);
+	});
+    }
+
+    @Test
+    void shouldIntern() {
+	IbanPool pool = new IbanPool(1);
+	Iban same = new Iban("FR", "14",
+		new Bban("20041", "01005", "0500013M026", "06"));
+	assertSame(FIRST_IBAN, pool.intern(FIRST_IBAN));
+	assertSame(FIRST_IBAN, pool.intern(same));
+	assertSame(SHORT_IBAN, pool.intern(SHORT_IBAN));
+	assertEquals(1, pool.size());
+    }
+}
@@ -0,0 +1,118 @@
+package fr.formation.partiel1.json;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.*;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Test class to deal with {@code BankTransfer} serializers and
+ * deserializers.
+ */
+class BankTransferSerializerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Iban ORIGIN = new Iban("FR", "76",
+	    new Bban("30006", "00001", "12345678901", "89"));
+
+    private static final Iban DESTINATION = new Iban("FR", "14",
+	    new Bban("20041", "01005", "0500013M026", "06"));
+
+    private static final BankTransfer TRANSFER = new BankTransfer(
+	    Money.parse("1000.50", BankTransfer.CURRENCY),
+	    LocalDateTime.parse("2018-10-01T10:00:00.5"), null, ORIGIN,
+	    DESTINATION);
+
+    @Test
+    void shouldWriteTransfer() throws IOException {
+	assertEquals("{\"amount\":1000.50,"
+		+ "\"requestDate\":\"2018-10-01T10:00:00.500\","
+		+ "\"executionDate\":null,\"origin\":{\"country\":\"FR\","
+		+ "\"key\":\"76\",\"bban\":{\"bank\":\"30006\","
+		+ "\"counter\":\"00001\",\"account\":\"12345678901\","
+		+ "\"key\":\"89\"}},\"destination\":{\"country\":\"FR\","
+		+ "\"key\":\"14\",\"bban\":{\"bank\":\"20041\","
+		+ "\"counter\":\"01005\",\"account\":\"0500013M026\","
+		+ "\"key\":\"06\"}}}", MAPPER.writeValueAsString(TRANSFER));
+    }
+
+    @Test
+    void shouldWriteCompactTransfer() throws IOException {
+	ObjectWriter writer = IbanSerializer.compact(MAPPER.writer());
+	String json = writer.writeValueAsString(TRANSFER);
+	assertTrue(json.endsWith(
+		"\"origin\":\"FR7630006000011234567890189\","
+			+ "\"destination\":\"FR1420041010050500013M02606\"}"));
+	assertEquals(TRANSFER.toString(),
+		MAPPER.readValue(json, BankTransfer.class).toString());
+    }
+
+    @Test
+    void shouldReadCompactInitialTransfer() throws IOException {
+	// The accounts of the initial transfers, whose keys are not valid:
+	Iban origin = new Iban("FR", "33",
+		new Bban("30002", "00550", "21345678936", "25"));
+	Iban destination = new Iban("GB", "44",
+		new Bban("30001", "00551", "11345678936", "45"));
+	LocalDateTime now = LocalDateTime.parse("2018-10-01T10:00:00");
+	BankTransfer transfer = new BankTransfer(
+		Money.parse("1000.50", BankTransfer.CURRENCY), now,
+		now.plusDays(2L), origin, destination);
+	String json = IbanSerializer.compact(MAPPER.writer())
+		.writeValueAsString(transfer);
+	assertTrue(json.contains("\"FR3330002005502134567893625\""));
+	assertEquals(transfer.toString(),
+		MAPPER.readValue(json, BankTransfer.class).toString());
+    }
+
+    @Test
+    void shouldWriteShortIbanAsObject() throws IOException {
+	Iban origin = new Iban("FR", "4", new Bban("0", "00550", "21", ""));
+	BankTransfer transfer = new BankTransfer(TRANSFER.getAmount(),
+		TRANSFER.getRequestDate(), null, origin, DESTINATION);
+	String json = IbanSerializer.compact(MAPPER.writer())
+		.writeValueAsString(transfer);
+	assertTrue(json.contains("\"origin\":{\"country\":\"FR\""));
+	assertEquals(transfer.toString(),
+		MAPPER.readValue(json, BankTransfer.class).toString());
+    }
+
+    @Test
+    void shouldReadWrittenTransfer() throws IOException {
+	String json = MAPPER.writeValueAsString(TRANSFER);
+	BankTransfer transfer = MAPPER.readValue(json, BankTransfer.class);
+	assertEquals(TRANSFER.toString(), transfer.toString());
+	assertSame(IbanPool.shared().intern(ORIGIN), transfer.getOrigin());
+    }
+
+    @Test
+    void shouldIgnoreUnknownProperties() throws IOException {
+	BankTransfer transfer = MAPPER.readValue("{\"id\":{\"a\":[1]},"
+		+ "\"destination\":\"FR1420041010050500013M02606\","
+		+ "\"origin\":\"FR7630006000011234567890189\","
+		+ "\"requestDate\":\"2018-10-01T10:00\",\"amount\":\"5\"}",
+		BankTransfer.class);
+	assertEquals(Money.ofMinor(500L, BankTransfer.CURRENCY),
+		transfer.getAmount());
+    }
+
+    @Test
+    void shouldNotReadInvalidTransfer() {
+	assertThrows(JsonMappingException.class,
+		() -> MAPPER.readValue("{\"amount\":0,"
+			+ "\"requestDate\":\"2018-10-01T10:00\","
+			+ "\"origin\":\"FR7630006000011234567890189\","
+			+ "\"destination\":\"FR1420041010050500013M02606\"}",
+			BankTransfer.class));
+	assertThrows(JsonMappingException.class,
+		() -> MAPPER.readValue("{\"requestDate\":\"yesterday\"}",
+			BankTransfer.class));
+    }
+}
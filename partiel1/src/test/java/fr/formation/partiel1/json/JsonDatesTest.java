@@ -0,0 +1,44 @@
+package fr.formation.partiel1.json;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test class to deal with {@code JsonDates} class.
+ */
+class JsonDatesTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "2018-10-01T10:00", "2018-10-01T10:00:01",
+	    "2018-10-01T10:00:00.100", "2018-10-01T10:00:00.000100",
+	    "2018-10-01T10:00:00.123456789", "0001-01-01T00:00",
+	    "+10000-01-01T00:00" })
+    void shouldFormatAsToString(String text) {
+	LocalDateTime date = LocalDateTime.parse(text);
+	char[] buffer = new char[JsonDates.MAX_LENGTH];
+	int length = JsonDates.format(date, buffer);
+	assertEquals(date.toString(), new String(buffer, 0, length));
+	assertEquals(date, JsonDates.parse(buffer, 0, length));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "2018-10-01T10:00:00.1",
+	    "2018-10-01T10:00:00.1234" })
+    void shouldParseAnyFraction(String text) {
+	char[] chars = ("\"" + text + "\"").toCharArray();
+	assertEquals(LocalDateTime.parse(text),
+		JsonDates.parse(chars, 1, text.length()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "2018-13-01T10:00", "2018-10-01 10:00", "" })
+    void shouldNotParseInvalidDates(String text) {
+	char[] chars = text.toCharArray();
+	assertThrows(java.time.DateTimeException.class,
+		() -> JsonDates.parse(chars, 0, chars.length));
+    }
+}
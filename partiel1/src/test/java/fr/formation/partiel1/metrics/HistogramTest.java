@@ -0,0 +1,90 @@
+package fr.formation.partiel1.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class to deal with {@code Histogram} class.
+ */
+class HistogramTest {
+
+    @Test
+    void shouldIndexContiguousBuckets() {
+	assertEquals(0, Histogram.index(0L));
+	assertEquals(63, Histogram.index(63L));
+	for (int i = 0; i < Histogram.index(Histogram.MAX_VALUE); i++) {
+	    long highest = Histogram.highest(i);
+	    assertEquals(i, Histogram.index(highest));
+	    assertEquals(i + 1, Histogram.index(highest + 1L));
+	}
+    }
+
+    @Test
+    void shouldBoundRelativeError() {
+	Random random = new Random(42L);
+	for (int i = 0; i < 100_000; i++) {
+	    long value = random.nextLong() & Histogram.MAX_VALUE;
+	    long highest = Histogram.highest(Histogram.index(value));
+	    assertTrue(highest >= value);
+	    assertTrue(highest - value <= value / 32L, value + " " + highest);
+	}
+    }
+
+    @Test
+    void shouldComputeQuantiles() {
+	Histogram histogram = new Histogram();
+	assertEquals(0L, histogram.getValueAt(0.5));
+	for (long value = 1L; value <= 10_000L; value++) {
+	    histogram.record(value * 1000L);
+	}
+	assertEquals(10_000L, histogram.getCount());
+	assertEquals(50_005_000_000L, histogram.getSum());
+	assertEquals(10_000_000L, histogram.getMax());
+	long median = histogram.getValueAt(0.5);
+	assertTrue(median >= 5_000_000L && median <= 5_000_000L * 33 / 32,
+		Long.toString(median));
+	assertEquals(10_000_000L, histogram.getValueAt(1.0));
+	assertEquals(Histogram.highest(Histogram.index(1000L)),
+		histogram.getValueAt(0.0));
+	assertThrows(IllegalArgumentException.class, () -> {
+	    histogram.getValueAt(1.5);
+	});
+	assertThrows(IllegalArgumentException.class, () -> {
+	    histogram.record(-1L);
+	});
+    }
+
+    @Test
+    void shouldCapValues() {
+	Histogram histogram = new Histogram();
+	histogram.record(Long.MAX_VALUE);
+	assertEquals(Histogram.MAX_VALUE, histogram.getMax());
+	assertEquals(Histogram.MAX_VALUE, histogram.getValueAt(0.5));
+    }
+
+    @Test
+    void shouldRecordConcurrently() throws Exception {
+	Histogram histogram = new Histogram();
+	ExecutorService executor = Executors.newFixedThreadPool(4);
+	List<Future<?>> futures = new ArrayList<>();
+	for (int t = 0; t < 4; t++) {
+	    futures.add(executor.submit(() -> {
+		for (int i = 0; i < 100_000; i++) {
+		    histogram.record(i % 100);
+		}
+	    }));
+	}
+	for (Future<?> future : futures) {
+	    future.get();
+	}
+	executor.shutdown();
+	assertEquals(400_000L, histogram.getCount());
+	assertEquals(4L * 1000L * 4950L, histogram.getSum());
+	assertEquals(99L, histogram.getMax());
+	assertEquals(49L, histogram.getValueAt(0.5));
+    }
+}
@@ -0,0 +1,56 @@
+package fr.formation.partiel1.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class to deal with {@code Metrics} class.
+ */
+class MetricsTest {
+
+    private static String write(Metrics metrics) throws IOException {
+	StringBuilder builder = new StringBuilder();
+	metrics.write(builder);
+	return builder.toString();
+    }
+
+    @Test
+    void shouldWriteExpositionFormat() throws IOException {
+	Metrics metrics = new Metrics();
+	metrics.counter("requests_total", "Requests.", "path", "/a").add(3L);
+	metrics.counter("requests_total", "Requests.", "path", "/a")
+		.increment();
+	metrics.gauge("size", "Size.", () -> 42L);
+	Histogram latency = metrics.histogram("latency_seconds", "Latency.",
+		1000L, "path", "\"q\"\\");
+	latency.record(1500L);
+	String labels = "{path=\"\\\"q\\\"\\\\\"";
+	assertEquals("# HELP latency_seconds Latency.\n"
+		+ "# TYPE latency_seconds summary\n"
+		+ "latency_seconds" + labels + ",quantile=\"0.5\"} 1.5\n"
+		+ "latency_seconds" + labels + ",quantile=\"0.9\"} 1.5\n"
+		+ "latency_seconds" + labels + ",quantile=\"0.99\"} 1.5\n"
+		+ "latency_seconds" + labels + ",quantile=\"0.999\"} 1.5\n"
+		+ "latency_seconds_sum" + labels + "} 1.5\n"
+		+ "latency_seconds_count" + labels + "} 1\n"
+		+ "# HELP requests_total Requests.\n"
+		+ "# TYPE requests_total counter\n"
+		+ "requests_total{path=\"/a\"} 4\n" + "# HELP size Size.\n"
+		+ "# TYPE size gauge\n" + "size 42\n", write(metrics));
+    }
+
+    @Test
+    void shouldRejectInvalidRegistrations() {
+	Metrics metrics = new Metrics();
+	metrics.counter("requests_total", "Requests.");
+	assertThrows(IllegalArgumentException.class, () -> {
+	    metrics.gauge("requests_total", "Requests.", () -> 1L);
+	});
+	assertThrows(IllegalArgumentException.class, () -> {
+	    metrics.counter("other_total", "Other.", "path");
+	});
+    }
+}
@@ -0,0 +1,307 @@
+package fr.formation.partiel1.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.*;
+
+import org.junit.jupiter.api.*;
+
+import fr.formation.partiel1.entities.*;
+import fr.formation.partiel1.stores.*;
+
+/**
+ * Test class to deal with {@code BankTransferRegistry} class.
+ */
+class BankTransferRegistryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2018, 10, 1,
+	    10, 0);
+
+    private static final Iban DESTINATION = new Iban("FR", "76",
+	    new Bban("30006", "00001", "12345678901", "89"));
+
+    private static final int THREADS = 8;
+
+    private static final int TRANSFERS = 5_000;
+
+    private Path path;
+
+    @BeforeEach
+    void createFile() throws IOException {
+	path = Files.createTempFile("transfers", ".journal");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+	Files.deleteIfExists(path);
+    }
+
+    private static Iban origin(int thread) {
+	return new Iban("FR", "33", new Bban("30002", "00550",
+		String.format("%011d", thread), "25"));
+    }
+
+    private static BankTransfer transfer(int thread, int i) {
+	return new BankTransfer(Money.ofMinor(100L, BankTransfer.CURRENCY),
+		NOW.plusSeconds(i), null,
+		origin(thread), DESTINATION);
+    }
+
+    @Test
+    void shouldRegisterConcurrently() throws Exception {
+	try (TransferJournal journal = new TransferJournal(path, 64, 10L)) {
+	    BankTransferRegistry registry = new BankTransferRegistry(
+		    new IndexedTransferStore(), journal);
+	    TransferStore store = registry.getStore();
+	    AtomicBoolean writing = new AtomicBoolean(true);
+	    ExecutorService executor = Executors.newFixedThreadPool(
+		    THREADS + 1);
+	    // Checks that the snapshots seen while writing are consistent:
+	    Future<?> reader = executor.submit(() -> {
+		int size = 0;
+		while (writing.get()) {
+		    Collection<BankTransfer> all = store.all();
+		    int count = 0;
+		    for (Iterator<BankTransfer> it = all.iterator(); it
+			    .hasNext(); it.next()) {
+			count++;
+		    }
+		    assertEquals(all.size(), count);
+		    assertTrue(count >= size);
+		    size = count;
+		}
+	    });
+	    List<Future<?>> writers = new ArrayList<>();
+	    for (int t = 0; t < THREADS; t++) {
+		int thread = t;
+		writers.add(executor.submit(() -> {
+		    List<BankTransfer> batch = new ArrayList<>();
+		    for (int i = 0; i < TRANSFERS; i++) {
+			if (thread % 2 == 0) {
+			    registry.register(transfer(thread, i));
+			    continue;
+			}
+			batch.add(transfer(thread, i));
+			if (batch.size() == 100) {
+			    assertTrue(registry.registerAll(batch).isEmpty());
+			    batch.clear();
+			}
+		    }
+		}));
+	    }
+	    for (Future<?> writer : writers) {
+		writer.get(30L, TimeUnit.SECONDS);
+	    }
+	    writing.set(false);
+	    reader.get(30L, TimeUnit.SECONDS);
+	    executor.shutdown();
+	    assertEquals(THREADS * TRANSFERS, store.size());
+	    assertEquals(THREADS * TRANSFERS, store.all().size());
+	    for (int t = 0; t < THREADS; t++) {
+		List<BankTransfer> transfers = store.lastFrom(origin(t),
+			TRANSFERS);
+		assertEquals(TRANSFERS, transfers.size());
+		assertEquals(NOW.plusSeconds(TRANSFERS - 1L),
+			transfers.get(0).getRequestDate());
+	    }
+	    assertEquals(THREADS * TRANSFERS, registry.getStatistics()
+		    .overall().getCount());
+	}
+	try (TransferJournal journal = new TransferJournal(path, 64, 10L)) {
+	    assertEquals(THREADS * TRANSFERS, new BankTransferRegistry(
+		    new IndexedTransferStore(), journal).getStore().size());
+	}
+    }
+
+    @Test
+    void shouldRestoreSnapshot() throws IOException {
+	Path snapshot = Files.createTempFile("transfers", ".snapshot");
+	List<ExecutionScheduler> schedulers = new ArrayList<>();
+	Function<ObjLongConsumer<BankTransfer>, ExecutionScheduler> factory =
+		action -> {
+		    ExecutionScheduler scheduler = new ExecutionScheduler(
+			    action, 1);
+		    schedulers.add(scheduler);
+		    return scheduler;
+		};
+	LocalDateTime later = LocalDateTime.now().plusDays(1L);
+	List<String> expected = new ArrayList<>();
+	try {
+	    try (TransferJournal journal = new TransferJournal(path, 64,
+		    10L)) {
+		BankTransferRegistry registry = new BankTransferRegistry(
+			new ColumnarTransferStore(), journal, factory);
+		for (int i = 0; i < 15; i++) {
+		    if (i == 10) {
+			registry.snapshot(snapshot);
+		    }
+		    registry.register(new BankTransfer(
+			    Money.ofMinor(100L, BankTransfer.CURRENCY),
+			    NOW.plusSeconds(i), i % 4 == 0 ? later : null,
+			    origin(i), DESTINATION));
+		}
+		for (BankTransfer transfer : registry.getStore().all()) {
+		    expected.add(transfer.toString());
+		}
+	    }
+	    try (TransferJournal journal = new TransferJournal(path, 64,
+		    10L)) {
+		BankTransferRegistry registry = new BankTransferRegistry(
+			TransferSnapshot.read(snapshot), journal, factory,
+			null);
+		List<String> actual = new ArrayList<>();
+		for (BankTransfer transfer : registry.getStore().all()) {
+		    actual.add(transfer.toString());
+		}
+		assertEquals(expected, actual);
+		assertEquals(15L, registry.getVersion());
+		assertEquals(15L,
+			registry.getStatistics().overall().getCount());
+		assertEquals(4L, schedulers.get(1).pending());
+	    }
+	} finally {
+	    for (ExecutionScheduler scheduler : schedulers) {
+		scheduler.close();
+	    }
+	    Files.deleteIfExists(snapshot);
+	}
+    }
+
+    @Test
+    void shouldNotSnapshotWithoutJournal() {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new ColumnarTransferStore(), null);
+	assertThrows(IllegalStateException.class, () -> {
+	    registry.snapshot(path);
+	});
+    }
+
+    @Test
+    void shouldRejectDuplicates() {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new ColumnarTransferStore(), null, null,
+		new DuplicateFilter(60_000L, 1000));
+	assertEquals(Collections.singleton(1), registry.registerAll(
+		Arrays.asList(transfer(0, 0), transfer(0, 0), transfer(1, 0)))
+		.keySet());
+	assertEquals(Collections.singleton(0),
+		registry.registerAll(Collections.singletonList(transfer(1, 0)))
+			.keySet());
+	// Rejected by the store, so not remembered as a duplicate:
+	BankTransfer invalid = new BankTransfer(
+		Money.ofMinor(1L, BankTransfer.CURRENCY), NOW, null,
+		new Iban("FR", "76",
+			new Bban("30006", "00001", "1234567890a", "89")),
+		DESTINATION);
+	for (int i = 0; i < 2; i++) {
+	    IllegalArgumentException ex = assertThrows(
+		    IllegalArgumentException.class, () -> {
+			registry.register(invalid);
+		    });
+	    assertFalse(ex.getMessage().startsWith("duplicate"));
+	}
+	assertEquals(2, registry.getStore().size());
+    }
+
+    @Test
+    void shouldNotStoreWhatJournalFails() throws IOException {
+	AtomicBoolean failing = new AtomicBoolean();
+	try (TransferJournal journal = new TransferJournal(path, 64, 10L) {
+
+	    @Override
+	    public synchronized long append(BankTransfer transfer) {
+		if (failing.get()) {
+		    throw new UncheckedIOException(
+			    new IOException("disk full"));
+		}
+		return super.append(transfer);
+	    }
+	}) {
+	    BankTransferRegistry registry = new BankTransferRegistry(
+		    new ColumnarTransferStore(), journal, null,
+		    new DuplicateFilter(60_000L, 1000));
+	    registry.register(transfer(0, 0));
+	    failing.set(true);
+	    assertThrows(UncheckedIOException.class, () -> {
+		registry.register(transfer(1, 0));
+	    });
+	    assertEquals(1, registry.getStore().size());
+	    assertEquals(1L, registry.getVersion());
+	    failing.set(false);
+	    // Not stored, so not remembered as a duplicate:
+	    registry.register(transfer(1, 0));
+	    // Rejected by the store, so not appended either:
+	    assertThrows(IllegalArgumentException.class, () -> {
+		registry.register(new BankTransfer(
+			Money.ofMinor(1L, BankTransfer.CURRENCY), NOW, null,
+			new Iban("FR", "76", new Bban("30006", "00001",
+				"1234567890a", "89")),
+			DESTINATION));
+	    });
+	    assertEquals(2, registry.getStore().size());
+	    assertEquals(2L, registry.getVersion());
+	    assertEquals(2L, journal.mark().getTransfers());
+	}
+	try (TransferJournal journal = new TransferJournal(path, 64, 10L)) {
+	    BankTransferRegistry registry = new BankTransferRegistry(
+		    new ColumnarTransferStore(), journal);
+	    assertEquals(2, registry.getStore().size());
+	    assertEquals(transfer(1, 0).toString(),
+		    registry.getStore().last(1).get(0).toString());
+	}
+    }
+
+    @Test
+    void shouldNotifyRegistrations() {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new IndexedTransferStore(), null, null,
+		new DuplicateFilter(60_000L, 1000));
+	List<BankTransfer> registered = new ArrayList<>();
+	registry.addRegistrationListener(transfer -> {
+	    assertEquals(registered.size() + 1, registry.getStore().size());
+	    registered.add(transfer);
+	});
+	BankTransfer first = transfer(0, 0);
+	BankTransfer second = transfer(1, 0);
+	registry.registerAll(Arrays.asList(first, first, second));
+	assertEquals(Arrays.asList(first, second), registered);
+    }
+
+    @Test
+    void shouldRejectConcurrently() throws Exception {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new ColumnarTransferStore(), null);
+	// Rejected by the store, its account number not being packable:
+	BankTransfer invalid = new BankTransfer(
+		Money.ofMinor(1L, BankTransfer.CURRENCY), NOW, null,
+		new Iban("FR", "76",
+			new Bban("30006", "00001", "1234567890a", "89")),
+		DESTINATION);
+	ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+	List<Future<?>> writers = new ArrayList<>();
+	for (int t = 0; t < THREADS; t++) {
+	    int thread = t;
+	    writers.add(executor.submit(() -> {
+		for (int i = 0; i < 1000; i++) {
+		    Map<Integer, String> rejected = registry.registerAll(
+			    Arrays.asList(transfer(thread, i), invalid));
+		    assertEquals(Collections.singleton(1), rejected.keySet());
+		    assertThrows(IllegalArgumentException.class, () -> {
+			registry.register(invalid);
+		    });
+		}
+	    }));
+	}
+	for (Future<?> writer : writers) {
+	    writer.get(30L, TimeUnit.SECONDS);
+	}
+	executor.shutdown();
+	assertEquals(THREADS * 1000, registry.getStore().size());
+    }
+}
@@ -0,0 +1,129 @@
+package fr.formation.partiel1.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.*;
+
+import org.junit.jupiter.api.Test;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Test class to deal with {@code DuplicateFilter} class.
+ */
+class DuplicateFilterTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2018, 10, 1,
+	    10, 0);
+
+    private final ManualClock clock = new ManualClock();
+
+    private static BankTransfer transfer(long cents,
+	    LocalDateTime executionDate) {
+	return new BankTransfer(Money.ofMinor(cents, BankTransfer.CURRENCY),
+		NOW, executionDate,
+		new Iban("FR", "33",
+			new Bban("30002", "00550", "21345678936", "25")),
+		new Iban("FR", "76",
+			new Bban("30006", "00001", "12345678901", "89")));
+    }
+
+    private static BankTransfer transfer(long cents) {
+	return transfer(cents, null);
+    }
+
+    @Test
+    void shouldDetectSameFingerprint() {
+	DuplicateFilter filter = new DuplicateFilter(clock, 60_000L, 1000);
+	assertFalse(filter.isDuplicate(transfer(100L)));
+	filter.add(transfer(100L));
+	assertTrue(filter.isDuplicate(transfer(100L)));
+	// The execution date is not part of the fingerprint:
+	assertTrue(filter.isDuplicate(transfer(100L, NOW.plusDays(1L))));
+	assertFalse(filter.isDuplicate(transfer(101L)));
+    }
+
+    @Test
+    void shouldForgetAfterWindow() {
+	DuplicateFilter filter = new DuplicateFilter(clock, 3000L, 1000);
+	filter.add(transfer(100L));
+	clock.advance(1500L);
+	filter.add(transfer(200L));
+	clock.advance(1499L);
+	assertTrue(filter.isDuplicate(transfer(100L)));
+	clock.advance(1001L);
+	assertFalse(filter.isDuplicate(transfer(100L)));
+	assertTrue(filter.isDuplicate(transfer(200L)));
+	clock.advance(1_000_000L);
+	assertFalse(filter.isDuplicate(transfer(200L)));
+    }
+
+    @Test
+    void shouldBoundCapacity() {
+	DuplicateFilter filter = new DuplicateFilter(clock, 60_000L, 8);
+	for (int i = 1; i <= 20; i++) {
+	    filter.add(transfer(i));
+	}
+	for (int i = 1; i <= 14; i++) {
+	    assertFalse(filter.isDuplicate(transfer(i)), Integer.toString(i));
+	}
+	for (int i = 15; i <= 20; i++) {
+	    assertTrue(filter.isDuplicate(transfer(i)), Integer.toString(i));
+	}
+    }
+
+    @Test
+    void shouldTellApartManyFingerprints() {
+	DuplicateFilter filter = new DuplicateFilter(clock, 60_000L,
+		1 << 20);
+	for (int i = 1; i <= 100_000; i++) {
+	    filter.add(transfer(i));
+	}
+	for (int i = 1; i <= 100_000; i++) {
+	    assertTrue(filter.isDuplicate(transfer(i)));
+	    assertFalse(filter.isDuplicate(transfer(1_000_000L + i)));
+	}
+    }
+
+    @Test
+    void shouldNotCreateWithInvalidArguments() {
+	assertThrows(IllegalArgumentException.class, () -> {
+	    new DuplicateFilter(0L, 1000);
+	});
+	assertThrows(IllegalArgumentException.class, () -> {
+	    new DuplicateFilter(60_000L, DuplicateFilter.GENERATIONS - 1);
+	});
+    }
+
+    /**
+     * A clock advanced by hand, in UTC.
+     */
+    private static final class ManualClock extends Clock {
+
+	private long millis;
+
+	private void advance(long delta) {
+	    millis += delta;
+	}
+
+	@Override
+	public long millis() {
+	    return millis;
+	}
+
+	@Override
+	public Instant instant() {
+	    return Instant.ofEpochMilli(millis);
+	}
+
+	@Override
+	public ZoneId getZone() {
+	    return ZoneOffset.UTC;
+	}
+
+	@Override
+	public Clock withZone(ZoneId zone) {
+	    throw new UnsupportedOperationException();
+	}
+    }
+}
@@ -0,0 +1,180 @@
+package fr.formation.partiel1.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.ObjLongConsumer;
+
+import org.junit.jupiter.api.*;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Test class to deal with {@code ExecutionScheduler} class.
+ */
+class ExecutionSchedulerTest {
+
+    private static final Iban ORIGIN = new Iban("FR", "76",
+	new Bban("30006", "00001", "12345678901", "89"));
+
+    private static final Iban DESTINATION = new Iban("FR", "14",
+	new Bban("20041", "01005", "0500013M026", "06"));
+
+    private static final LocalDateTime START = LocalDateTime.of(2018, 6,
+	1, 12, 0);
+
+    private ManualClock clock;
+
+    private List<Long> executed;
+
+    private ExecutionScheduler scheduler;
+
+    @BeforeEach
+    void createScheduler() {
+	clock = new ManualClock(START.atZone(ZoneOffset.UTC).toInstant()
+		.toEpochMilli());
+	executed = new ArrayList<>();
+	scheduler = new ExecutionScheduler(clock, 1000L,
+		(transfer, sequence) -> executed.add(sequence), Runnable::run);
+    }
+
+    @AfterEach
+    void closeScheduler() {
+	scheduler.close();
+    }
+
+    private static BankTransfer transfer(LocalDateTime executionDate) {
+	LocalDateTime requestDate = executionDate == null ? START
+		: executionDate.minusDays(1L);
+	return new BankTransfer(Money.ofMinor(10_00L, BankTransfer.CURRENCY),
+		requestDate, executionDate,
+		ORIGIN, DESTINATION);
+    }
+
+    @Test
+    void shouldExecuteWhenDue() {
+	scheduler.schedule(0L, transfer(START.plusSeconds(2L)));
+	scheduler.schedule(1L, transfer(START.plusSeconds(1L)));
+	assertEquals(2L, scheduler.pending());
+	clock.advance(1000L);
+	scheduler.advance();
+	assertEquals(Collections.singletonList(1L), executed);
+	clock.advance(500L);
+	scheduler.advance();
+	assertEquals(1, executed.size());
+	clock.advance(500L);
+	scheduler.advance();
+	assertEquals(Arrays.asList(1L, 0L), executed);
+	assertEquals(0L, scheduler.pending());
+	assertEquals(2L, scheduler.executed());
+    }
+
+    @Test
+    void shouldExecuteLaterSpans() {
+	long seconds = 3L * ExecutionScheduler.SPAN + 10L;
+	scheduler.schedule(0L, transfer(START.plusSeconds(seconds)));
+	clock.advance((seconds - 1L) * 1000L);
+	scheduler.advance();
+	assertTrue(executed.isEmpty());
+	clock.advance(1000L);
+	scheduler.advance();
+	assertEquals(Collections.singletonList(0L), executed);
+    }
+
+    @Test
+    void shouldExecuteMissedOnNextTick() {
+	scheduler.schedule(0L, transfer(START.minusDays(1L)));
+	scheduler.advance();
+	assertTrue(executed.isEmpty());
+	clock.advance(1000L);
+	scheduler.advance();
+	assertEquals(Collections.singletonList(0L), executed);
+    }
+
+    @Test
+    void shouldRetryOnFailure() {
+	int[] failures = { 2 };
+	ObjLongConsumer<BankTransfer> action = (transfer, sequence) -> {
+	    if (sequence == 0L && failures[0]-- > 0) {
+		throw new IllegalStateException();
+	    }
+	    executed.add(sequence);
+	};
+	ExecutionScheduler failing = new ExecutionScheduler(clock, 1000L,
+		action, Runnable::run);
+	List<Throwable> reported = new ArrayList<>();
+	Thread thread = Thread.currentThread();
+	Thread.UncaughtExceptionHandler handler = thread
+		.getUncaughtExceptionHandler();
+	thread.setUncaughtExceptionHandler((t, ex) -> reported.add(ex));
+	try {
+	    failing.schedule(0L, transfer(START));
+	    failing.schedule(1L, transfer(START));
+	    clock.advance(1000L);
+	    failing.advance();
+	    // The rest of the batch is executed, the failed one kept pending:
+	    assertEquals(Collections.singletonList(1L), executed);
+	    assertEquals(1, reported.size());
+	    assertEquals(1L, failing.pending());
+	    clock.advance(1000L);
+	    failing.advance();
+	    assertEquals(2, reported.size());
+	    // Retried after twice the delay:
+	    clock.advance(1000L);
+	    failing.advance();
+	    assertEquals(1, executed.size());
+	    clock.advance(1000L);
+	    failing.advance();
+	    assertEquals(Arrays.asList(1L, 0L), executed);
+	    assertEquals(0L, failing.pending());
+	    assertEquals(2L, failing.executed());
+	} finally {
+	    thread.setUncaughtExceptionHandler(handler);
+	    failing.close();
+	}
+    }
+
+    @Test
+    void shouldNotScheduleWithoutExecutionDate() {
+	assertThrows(IllegalArgumentException.class, () -> {
+	    scheduler.schedule(0L, transfer(null));
+	});
+    }
+
+    /**
+     * A clock advanced by hand, in UTC.
+     */
+    private static final class ManualClock extends Clock {
+
+	private long millis;
+
+	private ManualClock(long millis) {
+	    this.millis = millis;
+	}
+
+	private void advance(long delta) {
+	    millis += delta;
+	}
+
+	@Override
+	public long millis() {
+	    return millis;
+	}
+
+	@Override
+	public Instant instant() {
+	    return Instant.ofEpochMilli(millis);
+	}
+
+	@Override
+	public ZoneId getZone() {
+	    return ZoneOffset.UTC;
+	}
+
+	@Override
+	public Clock withZone(ZoneId zone) {
+	    throw new UnsupportedOperationException();
+	}
+    }
+}
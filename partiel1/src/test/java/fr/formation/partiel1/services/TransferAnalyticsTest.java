@@ -0,0 +1,133 @@
+package fr.formation.partiel1.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.*;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fr.formation.partiel1.entities.*;
+import fr.formation.partiel1.stores.*;
+
+/**
+ * Test class to deal with {@code TransferAnalytics} class.
+ */
+class TransferAnalyticsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2018, 10, 1,
+	    10, 0);
+
+    private static final Iban FIRST_IBAN = new Iban("FR", "33",
+	    new Bban("30002", "00550", "21345678936", "25"));
+
+    private static final Iban SECOND_IBAN = new Iban("GB", "44",
+	    new Bban("30001", "00551", "11345678936", "45"));
+
+    private static final Iban THIRD_IBAN = new Iban("FR", "76",
+	    new Bban("30006", "00001", "12345678901", "89"));
+
+    private static BankTransfer transfer(String amount, int days,
+	    Iban origin, Iban destination) {
+	return new BankTransfer(Money.parse(amount, BankTransfer.CURRENCY),
+		NOW.plusDays(days), null, origin, destination);
+    }
+
+    private static TransferAnalytics analytics(TransferStore store) {
+	store.add(transfer("1000.50", 0, FIRST_IBAN, SECOND_IBAN));
+	store.add(transfer("20", 0, FIRST_IBAN, THIRD_IBAN));
+	store.add(transfer("0.05", 1, SECOND_IBAN, FIRST_IBAN));
+	store.add(transfer("3", 1, FIRST_IBAN, THIRD_IBAN));
+	store.add(transfer("150000", 1, THIRD_IBAN, FIRST_IBAN));
+	return new TransferAnalytics(store);
+    }
+
+    @Test
+    void shouldReturnTopCounterparties() {
+	TransferAnalytics analytics = analytics(new IndexedTransferStore());
+	List<CounterpartyStatistics> top = analytics.topCounterparties(2);
+	assertEquals(2, top.size());
+	assertEquals(THIRD_IBAN, top.get(0).getOrigin());
+	assertEquals(FIRST_IBAN, top.get(0).getDestination());
+	assertEquals("{origin=" + FIRST_IBAN + ", destination=" + SECOND_IBAN
+		+ ", totals={count=1, total={amount=1000.50, currency=EUR}}}",
+		top.get(1).toString());
+	List<CounterpartyStatistics> all = analytics.topCounterparties(10);
+	assertEquals(4, all.size());
+	assertEquals("{count=2, total={amount=23.00, currency=EUR}}",
+		all.get(2).getTotals().toString());
+	assertThrows(IllegalArgumentException.class,
+		() -> analytics.topCounterparties(0));
+    }
+
+    @Test
+    void shouldAggregateByCountry() {
+	List<CountryStatistics> countries = analytics(
+		new ColumnarTransferStore()).countries();
+	assertEquals(2, countries.size());
+	assertEquals("{country=FR, "
+		+ "outgoing={count=4, total={amount=151023.50, currency=EUR}}, "
+		+ "incoming={count=4, total={amount=150023.05, currency=EUR}}}",
+		countries.get(0).toString());
+	assertEquals("GB", countries.get(1).getCountry());
+	assertEquals(1L, countries.get(1).getOutgoing().getCount());
+	assertEquals(1L, countries.get(1).getIncoming().getCount());
+    }
+
+    @Test
+    void shouldDistributeAmountsByDay() {
+	TransferAnalytics analytics = analytics(new ShardedTransferStore(3,
+		IndexedTransferStore::new));
+	List<DailyDistribution> daily = analytics.daily(null, null);
+	assertEquals(2, daily.size());
+	assertEquals("{date=2018-10-02, "
+		+ "totals={count=3, total={amount=150003.05, currency=EUR}}, "
+		+ "min={amount=0.05, currency=EUR}, "
+		+ "max={amount=150000.00, currency=EUR}, "
+		+ "magnitudes={<1=1, <10=1, <100=0, <1000=0, <10000=0, "
+		+ "<100000=0, >=100000=1}}", daily.get(1).toString());
+	assertEquals(2L, daily.get(0).getTotals().getCount());
+	assertEquals(1L, (long) daily.get(0).getMagnitudes().get("<10000"));
+	LocalDate first = NOW.toLocalDate();
+	assertEquals(1, analytics.daily(first, first).size());
+	assertEquals(first.plusDays(1L),
+		analytics.daily(first.plusDays(1L), null).get(0).getDate());
+	assertEquals(first, analytics.daily(null, first).get(0).getDate());
+	assertTrue(analytics.daily(first.plusDays(2L), first.plusDays(3L))
+		.isEmpty());
+    }
+
+    @Test
+    void shouldMatchSequentialReductions() {
+	TransferStore store = new IndexedTransferStore();
+	Iban[] ibans = { FIRST_IBAN, SECOND_IBAN, THIRD_IBAN };
+	long cents = 0L;
+	for (int i = 0; i < 10_000; i++) {
+	    Money amount = Money.ofMinor(1L + i * 37L % 10_000_000L,
+		    BankTransfer.CURRENCY);
+	    cents += amount.getMinorUnits();
+	    store.add(new BankTransfer(amount, NOW.minusMinutes(i), null,
+		    ibans[i % 3], ibans[(i + 1 + i / 3 % 2) % 3]));
+	}
+	TransferAnalytics analytics = new TransferAnalytics(store);
+	long total = 0L;
+	long count = 0L;
+	for (CounterpartyStatistics statistics : analytics
+		.topCounterparties(100)) {
+	    total += statistics.getTotals().getTotal().getMinorUnits();
+	    count += statistics.getTotals().getCount();
+	}
+	assertEquals(cents, total);
+	assertEquals(10_000L, count);
+	total = 0L;
+	for (DailyDistribution distribution : analytics.daily(null, null)) {
+	    total += distribution.getTotals().getTotal().getMinorUnits();
+	    long counted = 0L;
+	    for (long magnitude : distribution.getMagnitudes().values()) {
+		counted += magnitude;
+	    }
+	    assertEquals(distribution.getTotals().getCount(), counted);
+	}
+	assertEquals(cents, total);
+    }
+}
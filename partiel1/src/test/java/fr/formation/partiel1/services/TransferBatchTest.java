@@ -0,0 +1,96 @@
+package fr.formation.partiel1.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fr.formation.partiel1.services.BatchResult.Status;
+import fr.formation.partiel1.stores.IndexedTransferStore;
+
+/**
+ * Test class to deal with {@code TransferBatch} class.
+ */
+class TransferBatchTest {
+
+    private static final String ORIGIN = "{\"country\":\"FR\",\"key\":\"33\","
+	    + "\"bban\":{\"bank\":\"30002\",\"counter\":\"00550\","
+	    + "\"account\":\"21345678936\",\"key\":\"25\"}}";
+
+    private static final String DESTINATION = "\"FR7630006000011234567890189\"";
+
+    private static String transfer(String amount, String requestDate,
+	    String executionDate, String destination) {
+	return "{\"amount\":" + amount + ",\"requestDate\":\"" + requestDate
+		+ "\",\"executionDate\":" + executionDate + ",\"origin\":"
+		+ ORIGIN + ",\"destination\":" + destination + "}";
+    }
+
+    private static TransferBatch read(String json) throws IOException {
+	return TransferBatch.read(new ByteArrayInputStream(
+		json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void shouldRegisterValidTransfers() throws IOException {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new IndexedTransferStore(), null);
+	TransferBatch batch = read("["
+		+ transfer("1000.50", "2018-10-01T10:00", "null", DESTINATION)
+		+ ","
+		+ transfer("-1", "2018-10-01T10:00", "null", DESTINATION)
+		+ ","
+		+ transfer("10", "2018-10-01T10:00",
+			"\"2018-10-01T12:00\"", DESTINATION)
+		+ "," + transfer("10", "2018-10-01T10:00", "null", ORIGIN)
+		+ "," + transfer("10", "not a date", "null", DESTINATION)
+		+ "," + transfer("2500.80", "2018-10-02T10:00",
+			"\"2018-10-03T10:00\"", DESTINATION)
+		+ "]");
+	List<BatchResult> results = batch.register(registry);
+	assertEquals(6, results.size());
+	Status[] expected = { Status.CREATED, Status.REJECTED,
+		Status.REJECTED, Status.REJECTED, Status.REJECTED,
+		Status.CREATED };
+	for (int i = 0; i < expected.length; i++) {
+	    assertEquals(i, results.get(i).getIndex());
+	    assertEquals(expected[i], results.get(i).getStatus());
+	    assertEquals(expected[i] == Status.REJECTED,
+		    results.get(i).getMessage() != null);
+	}
+	assertEquals("amount must be positive", results.get(1).getMessage());
+	assertEquals("accounts must not be equal",
+		results.get(3).getMessage());
+	assertEquals(2, registry.getStore().size());
+    }
+
+    @Test
+    void shouldReadServedIbans() throws IOException {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new IndexedTransferStore(), null);
+	// An account of the initial transfers, whose keys are not checked:
+	TransferBatch batch = read("[" + transfer("10", "2018-10-01T10:00",
+		"null", "\"GB4430001005511134567893645\"") + "]");
+	List<BatchResult> results = batch.register(registry);
+	assertEquals(Status.CREATED, results.get(0).getStatus());
+    }
+
+    @Test
+    void shouldReadNewlineDelimitedJson() throws IOException {
+	TransferBatch batch = read(
+		transfer("1", "2018-10-01T10:00", "null", DESTINATION) + "\n"
+			+ transfer("2", "2018-10-01T11:00", "null",
+				DESTINATION)
+			+ "\n");
+	assertEquals(2, batch.size());
+    }
+
+    @Test
+    void shouldNotReadMalformedJson() {
+	assertThrows(IllegalArgumentException.class,
+		() -> read("[{\"amount\":"));
+    }
+}
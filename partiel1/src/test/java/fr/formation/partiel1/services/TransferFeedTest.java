@@ -0,0 +1,162 @@
+package fr.formation.partiel1.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Test class to deal with {@code TransferFeed} class.
+ */
+class TransferFeedTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2018, 10, 1,
+	    10, 0);
+
+    private static final Iban ORIGIN = new Iban("FR", "33",
+	    new Bban("30002", "00550", "21345678936", "25"));
+
+    private static final Iban DESTINATION = new Iban("FR", "76",
+	    new Bban("30006", "00001", "12345678901", "89"));
+
+    private static BankTransfer transfer(int i) {
+	return new BankTransfer(Money.ofMinor(100L + i, BankTransfer.CURRENCY),
+		NOW.plusSeconds(i), null, ORIGIN, DESTINATION);
+    }
+
+    @Test
+    void shouldPushEvents() {
+	TransferFeed feed = new TransferFeed(8, 4, Runnable::run);
+	Recorder recorder = new Recorder();
+	feed.subscribe(TransferFeed.LIVE, recorder);
+	feed.created(transfer(0));
+	feed.executed(transfer(0));
+	assertEquals(Arrays.asList("1 transfer-created", "2 transfer-executed"),
+		recorder.events);
+	assertEquals(1, feed.size());
+    }
+
+    @Test
+    void shouldReplayMissedEvents() {
+	TransferFeed feed = new TransferFeed(4, 4, Runnable::run);
+	for (int i = 0; i < 6; i++) {
+	    feed.created(transfer(i));
+	}
+	Recorder recorder = new Recorder();
+	feed.subscribe(3L, recorder);
+	assertEquals(Arrays.asList("4 transfer-created", "5 transfer-created",
+		"6 transfer-created"), recorder.events);
+	feed.created(transfer(6));
+	assertEquals("7 transfer-created", recorder.events.get(3));
+	Recorder upToDate = new Recorder();
+	feed.subscribe(7L, upToDate);
+	assertTrue(upToDate.events.isEmpty());
+    }
+
+    @Test
+    void shouldResetWhenEventsAreDropped() {
+	TransferFeed feed = new TransferFeed(4, 4, Runnable::run);
+	for (int i = 0; i < 6; i++) {
+	    feed.created(transfer(i));
+	}
+	Recorder dropped = new Recorder();
+	feed.subscribe(1L, dropped);
+	assertEquals(Collections.singletonList("6 reset"), dropped.events);
+	Recorder unknown = new Recorder();
+	feed.subscribe(42L, unknown);
+	assertEquals(Collections.singletonList("6 reset"), unknown.events);
+	Recorder oldest = new Recorder();
+	feed.subscribe(2L, oldest);
+	assertEquals(4, oldest.events.size());
+    }
+
+    @Test
+    void shouldCloseOverflowingSubscriptions() {
+	Queue<Runnable> senders = new ArrayDeque<>();
+	TransferFeed feed = new TransferFeed(16, 2, senders::add);
+	Recorder slow = new Recorder();
+	TransferFeed.Subscription subscription = feed
+		.subscribe(TransferFeed.LIVE, slow);
+	for (int i = 0; i < 4; i++) {
+	    feed.created(transfer(i));
+	}
+	assertEquals(0, feed.size());
+	assertFalse(subscription.isClosed());
+	senders.poll().run();
+	// The events buffered are sent before closing:
+	assertEquals(Arrays.asList("1 transfer-created", "2 transfer-created"),
+		slow.events);
+	assertTrue(subscription.isClosed());
+	assertTrue(slow.closed);
+	Recorder resumed = new Recorder();
+	feed.subscribe(2L, resumed);
+	senders.poll().run();
+	assertEquals(Arrays.asList("3 transfer-created", "4 transfer-created"),
+		resumed.events);
+    }
+
+    @Test
+    void shouldCloseFailingSubscriptions() {
+	TransferFeed feed = new TransferFeed(8, 4, Runnable::run);
+	Recorder failing = new Recorder() {
+
+	    @Override
+	    public void send(TransferFeed.Event event) throws IOException {
+		throw new IOException("disconnected");
+	    }
+	};
+	TransferFeed.Subscription subscription = feed
+		.subscribe(TransferFeed.LIVE, failing);
+	feed.created(transfer(0));
+	assertTrue(subscription.isClosed());
+	assertTrue(failing.closed);
+	assertEquals(0, feed.size());
+    }
+
+    @Test
+    void shouldSendInOrderConcurrently() throws Exception {
+	ExecutorService senders = Executors.newFixedThreadPool(4);
+	TransferFeed feed = new TransferFeed(16, 10_000, senders);
+	Recorder recorder = new Recorder();
+	feed.subscribe(TransferFeed.LIVE, recorder);
+	try {
+	    for (int i = 0; i < 5_000; i++) {
+		feed.created(transfer(i));
+	    }
+	} finally {
+	    senders.shutdown();
+	}
+	assertTrue(senders.awaitTermination(10L, TimeUnit.SECONDS));
+	assertEquals(5_000, recorder.events.size());
+	for (int i = 0; i < 5_000; i++) {
+	    assertEquals((i + 1) + " transfer-created",
+		    recorder.events.get(i));
+	}
+    }
+
+    /**
+     * Records the events sent, as their identifier and name.
+     */
+    private static class Recorder implements TransferFeed.Sink {
+
+	private final List<String> events = new CopyOnWriteArrayList<>();
+
+	private volatile boolean closed;
+
+	@Override
+	public void send(TransferFeed.Event event) throws IOException {
+	    events.add(event.getId() + " " + event.getType().getName());
+	}
+
+	@Override
+	public void close() {
+	    closed = true;
+	}
+    }
+}
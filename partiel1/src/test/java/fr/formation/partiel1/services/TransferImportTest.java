@@ -0,0 +1,136 @@
+package fr.formation.partiel1.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import fr.formation.partiel1.stores.IndexedTransferStore;
+
+/**
+ * Test class to deal with {@code TransferImport} class.
+ */
+class TransferImportTest {
+
+    private static final String ORIGIN = "FR7630006000011234567890189";
+
+    private static final String DESTINATION = "FR1420041010050500013M02606";
+
+    private static ImportReport run(BankTransferRegistry registry,
+	    String file, ImportFormat format) throws IOException {
+	return new TransferImport(registry, 2).run(new ByteArrayInputStream(
+		file.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    @Test
+    void shouldImportCsvFile() throws IOException {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new IndexedTransferStore(), null);
+	StringBuilder file = new StringBuilder(
+		"amount;requestDate;executionDate;origin;destination\n");
+	int count = 3 * TransferImport.CHUNK_SIZE + 7;
+	for (int i = 0; i < count; i++) {
+	    if (i % 1000 == 999) {
+		file.append("0;2018-10-01T10:00;;" + ORIGIN + ";"
+			+ DESTINATION + "\n");
+	    } else {
+		file.append(i + 1).append(".50;2018-10-01T10:00:").append(
+			String.format("%02d", i % 60)).append(";2018-10-03;")
+			.append(ORIGIN).append(";").append(DESTINATION)
+			.append("\n");
+	    }
+	}
+	file.append("1;2018-10-01T10:00\n");
+	ImportReport report = run(registry, file.toString(),
+		ImportFormat.CSV);
+	assertEquals(count + 1, report.getRecords());
+	assertEquals(count - 3, report.getCreated());
+	assertEquals(4, report.getRejected());
+	assertEquals(count - 3, registry.getStore().size());
+	assertEquals(999, report.getErrors().get(0).getIndex());
+	assertEquals("amount must be positive",
+		report.getErrors().get(0).getMessage());
+	assertEquals(count, report.getErrors().get(3).getIndex());
+    }
+
+    @Test
+    void shouldImportSepaFile() throws IOException {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new IndexedTransferStore(), null);
+	String file = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+		+ "<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:"
+		+ "pain.001.001.03\"><CstmrCdtTrfInitn><GrpHdr>"
+		+ "<MsgId>1</MsgId><CreDtTm>2018-10-01T10:00:00</CreDtTm>"
+		+ "</GrpHdr><PmtInf><ReqdExctnDt>2018-10-03</ReqdExctnDt>"
+		+ "<DbtrAcct><Id><IBAN>" + ORIGIN + "</IBAN></Id></DbtrAcct>"
+		+ "<CdtTrfTxInf><Amt><InstdAmt Ccy=\"EUR\">1000.50</InstdAmt>"
+		+ "</Amt><CdtrAcct><Id><IBAN>" + DESTINATION
+		+ "</IBAN></Id></CdtrAcct></CdtTrfTxInf>"
+		+ "<CdtTrfTxInf><Amt><InstdAmt Ccy=\"EUR\">20</InstdAmt>"
+		+ "</Amt><CdtrAcct><Id><IBAN>" + ORIGIN
+		+ "</IBAN></Id></CdtrAcct></CdtTrfTxInf></PmtInf>"
+		+ "</CstmrCdtTrfInitn></Document>";
+	ImportReport report = run(registry, file, ImportFormat.PAIN_001);
+	assertEquals(2, report.getRecords());
+	assertEquals(1, report.getCreated());
+	assertEquals("accounts must not be equal",
+		report.getErrors().get(0).getMessage());
+	assertEquals("2018-10-03T00:00", registry.getStore().last(1).get(0)
+		.getExecutionDate().toString());
+    }
+
+    @Test
+    void shouldNotImportMalformedSepaFile() {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new IndexedTransferStore(), null);
+	assertThrows(IllegalArgumentException.class,
+		() -> run(registry, "<Document><GrpHdr>",
+			ImportFormat.PAIN_001));
+    }
+
+    @Test
+    void shouldImportDecimalCommaAmounts() throws IOException {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new IndexedTransferStore(), null);
+	ImportReport report = run(registry,
+		"1000,50;2018-10-01T10:00;2018-10-03;" + ORIGIN + ";"
+			+ DESTINATION + "\n",
+		ImportFormat.CSV);
+	assertEquals(1, report.getCreated());
+	assertEquals(100050L, registry.getStore().last(1).get(0)
+		.getAmount().getMinorUnits());
+	report = run(registry, "20.25,2018-10-01T10:00,2018-10-03," + ORIGIN
+		+ "," + DESTINATION + "\n", ImportFormat.CSV);
+	assertEquals(1, report.getCreated());
+    }
+
+    @Test
+    void shouldRegisterTransfersReadBeforeFailure() {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new IndexedTransferStore(), null);
+	String file = "<Document><CstmrCdtTrfInitn><GrpHdr>"
+		+ "<CreDtTm>2018-10-01T10:00:00</CreDtTm></GrpHdr><PmtInf>"
+		+ "<ReqdExctnDt>2018-10-03</ReqdExctnDt>"
+		+ "<DbtrAcct><Id><IBAN>" + ORIGIN + "</IBAN></Id></DbtrAcct>"
+		+ "<CdtTrfTxInf><Amt><InstdAmt Ccy=\"EUR\">10</InstdAmt>"
+		+ "</Amt><CdtrAcct><Id><IBAN>" + DESTINATION
+		+ "</IBAN></Id></CdtrAcct></CdtTrfTxInf>"
+		+ "<CdtTrfTxInf><Amt><InstdAmt Ccy=\"EUR\">20</InstdAmt>"
+		+ "</Amt><CdtrAcct><Id><IBAN>" + DESTINATION
+		+ "</IBAN></Id></CdtrAcct></CdtTrfTxInf><CdtTrfTxInf><Amt>";
+	assertThrows(IllegalArgumentException.class,
+		() -> run(registry, file, ImportFormat.PAIN_001));
+	assertEquals(2, registry.getStore().size());
+    }
+
+    @Test
+    void shouldFindFormat() {
+	assertEquals(ImportFormat.CSV, ImportFormat.of("text/csv", null));
+	assertEquals(ImportFormat.PAIN_001, ImportFormat
+		.of("application/octet-stream", "transfers.XML"));
+	assertThrows(IllegalArgumentException.class,
+		() -> ImportFormat.of("application/octet-stream", "a.txt"));
+    }
+}
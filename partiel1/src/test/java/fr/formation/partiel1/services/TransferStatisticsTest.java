@@ -0,0 +1,104 @@
+package fr.formation.partiel1.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.*;
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+import fr.formation.partiel1.entities.*;
+import fr.formation.partiel1.stores.IndexedTransferStore;
+
+/**
+ * Test class to deal with {@code TransferStatistics} class.
+ */
+class TransferStatisticsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2018, 10, 1,
+	    10, 0);
+
+    private static final Iban FIRST_IBAN = new Iban("FR", "33",
+	    new Bban("30002", "00550", "21345678936", "25"));
+
+    private static final Iban SECOND_IBAN = new Iban("GB", "44",
+	    new Bban("30001", "00551", "11345678936", "45"));
+
+    private static final Iban THIRD_IBAN = new Iban("FR", "76",
+	    new Bban("30006", "00001", "12345678901", "89"));
+
+    private static BankTransfer transfer(String amount, int days,
+	    Iban origin, Iban destination) {
+	return new BankTransfer(Money.parse(amount, BankTransfer.CURRENCY), NOW,
+		days == 0 ? null : NOW.plusDays(days), origin, destination);
+    }
+
+    @Test
+    void shouldAggregateByAccount() {
+	TransferStatistics statistics = new TransferStatistics();
+	statistics.add(transfer("1000.50", 1, FIRST_IBAN, SECOND_IBAN));
+	statistics.add(transfer("20", 1, FIRST_IBAN, THIRD_IBAN));
+	statistics.add(transfer("0.05", 2, SECOND_IBAN, FIRST_IBAN));
+	statistics.add(transfer("3", 0, THIRD_IBAN, FIRST_IBAN));
+	assertEquals("{count=4, total={amount=1023.55, currency=EUR}}",
+		statistics.overall().toString());
+	assertEquals("{outgoing={count=2, "
+		+ "total={amount=1020.50, currency=EUR}}, incoming={count=2, "
+		+ "total={amount=3.05, currency=EUR}}}",
+		statistics.account(FIRST_IBAN).toString());
+	assertNull(statistics.account(new Iban("FR", "76",
+		new Bban("30006", "00001", "12345678902", "89"))));
+    }
+
+    @Test
+    void shouldAggregateByDay() {
+	TransferStatistics statistics = new TransferStatistics();
+	statistics.add(transfer("1000.50", 1, FIRST_IBAN, SECOND_IBAN));
+	statistics.add(transfer("20", 1, FIRST_IBAN, THIRD_IBAN));
+	statistics.add(transfer("5", 2, SECOND_IBAN, FIRST_IBAN));
+	statistics.add(transfer("3", 0, THIRD_IBAN, FIRST_IBAN));
+	List<DailyStatistics> daily = statistics.daily(FIRST_IBAN, null,
+		null);
+	assertEquals(2, daily.size());
+	assertEquals("{date=2018-10-02, "
+		+ "outgoing={count=2, total={amount=1020.50, currency=EUR}}, "
+		+ "incoming={count=0, total={amount=0.00, currency=EUR}}}",
+		daily.get(0).toString());
+	assertEquals(LocalDate.of(2018, 10, 3), daily.get(1).getDate());
+	assertEquals(1, statistics.daily(FIRST_IBAN, null,
+		LocalDate.of(2018, 10, 2)).size());
+	assertEquals(1, statistics.daily(FIRST_IBAN,
+		LocalDate.of(2018, 10, 3), null).size());
+	assertTrue(statistics.daily(FIRST_IBAN, LocalDate.of(2018, 10, 4),
+		null).isEmpty());
+    }
+
+    @Test
+    void shouldAggregateConcurrently() throws Exception {
+	TransferStatistics statistics = new TransferStatistics();
+	ExecutorService executor = Executors.newFixedThreadPool(4);
+	for (int i = 0; i < 4; i++) {
+	    executor.execute(() -> {
+		for (int j = 0; j < 10_000; j++) {
+		    statistics.add(
+			    transfer("0.01", 1, FIRST_IBAN, SECOND_IBAN));
+		}
+	    });
+	}
+	executor.shutdown();
+	assertTrue(executor.awaitTermination(10L, TimeUnit.SECONDS));
+	assertEquals("{count=40000, total={amount=400.00, currency=EUR}}",
+		statistics.account(SECOND_IBAN).getIncoming().toString());
+    }
+
+    @Test
+    void shouldBeMaintainedByRegistry() {
+	BankTransferRegistry registry = new BankTransferRegistry(
+		new IndexedTransferStore(), null);
+	registry.register(transfer("10", 1, FIRST_IBAN, SECOND_IBAN));
+	assertEquals(1L, registry.getStatistics()
+		.account(IbanParser.split("GB4430001005511134567893645"))
+		.getIncoming().getCount());
+    }
+}
@@ -0,0 +1,45 @@
+package fr.formation.partiel1.stores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Test class to deal with {@code ColumnarTransferStore} class.
+ */
+class ColumnarTransferStoreTest extends TransferStoreTest {
+
+    @Override
+    TransferStore createStore() {
+	return new ColumnarTransferStore();
+    }
+
+    @Test
+    void shouldIterateOverSegments() {
+	Iban origin = new Iban("FR", "33",
+		new Bban("30002", "00550", "21345678936", "25"));
+	Iban destination = new Iban("FR", "33",
+		new Bban("30001", "00551", "11345678936", "45"));
+	LocalDateTime now = LocalDateTime.now();
+	TransferStore store = createStore();
+	int count = 70_000;
+	for (int i = 0; i < count; i++) {
+	    store.add(new BankTransfer(
+		    Money.ofMinor(i + 1, BankTransfer.CURRENCY),
+		    now.minusSeconds(i % 1000), null, origin, destination));
+	}
+	assertEquals(count, store.size());
+	int iterated = 0;
+	LocalDateTime previous = LocalDateTime.MAX;
+	for (BankTransfer transfer : store.all()) {
+	    assertFalse(transfer.getRequestDate().isAfter(previous));
+	    previous = transfer.getRequestDate();
+	    iterated++;
+	}
+	assertEquals(count, iterated);
+    }
+}
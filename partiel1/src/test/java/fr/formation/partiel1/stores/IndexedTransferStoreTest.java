@@ -0,0 +1,46 @@
+package fr.formation.partiel1.stores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.*;
+
+import org.junit.jupiter.api.Test;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Test class to deal with {@code IndexedTransferStore} class.
+ */
+class IndexedTransferStoreTest extends TransferStoreTest {
+
+    @Override
+    TransferStore createStore() {
+	return new IndexedTransferStore();
+    }
+
+    @Test
+    void shouldAddAfterFailedAdd() {
+	Bban bban = new Bban("30002", "00550", "21345678936", "25");
+	Iban failing = new Iban("FR", "33", bban) {
+
+	    @Override
+	    public int hashCode() {
+		throw new IllegalStateException("unhashable");
+	    }
+	};
+	Iban destination = new Iban("FR", "76",
+		new Bban("30006", "00001", "12345678901", "89"));
+	Money amount = Money.ofMinor(10_00L, BankTransfer.CURRENCY);
+	LocalDateTime now = LocalDateTime.of(2018, 10, 1, 10, 0);
+	TransferStore store = createStore();
+	assertThrows(IllegalStateException.class, () -> {
+	    store.add(new BankTransfer(amount, now, null, failing,
+		    destination));
+	});
+	assertTimeoutPreemptively(Duration.ofSeconds(5L), () -> {
+	    store.add(new BankTransfer(amount, now, null, destination,
+		    new Iban("FR", "33", bban)));
+	});
+	assertEquals(1, store.lastFrom(destination, 10).size());
+    }
+}
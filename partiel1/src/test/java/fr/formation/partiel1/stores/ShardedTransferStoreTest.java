@@ -0,0 +1,108 @@
+package fr.formation.partiel1.stores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Test class to deal with {@code ShardedTransferStore} class.
+ */
+class ShardedTransferStoreTest extends TransferStoreTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2018, 10, 1,
+	    10, 0);
+
+    private static final List<Supplier<TransferStore>> SHARDS = Arrays
+	    .asList(IndexedTransferStore::new, ColumnarTransferStore::new);
+
+    @Override
+    TransferStore createStore() {
+	return new ShardedTransferStore(3, IndexedTransferStore::new);
+    }
+
+    private static Iban iban(int number) {
+	return new Iban("FR", "76", new Bban("30002", "00550",
+		String.format("%011d", number), "25"));
+    }
+
+    /*
+     * Fills a store with transfers from many accounts, most of them sharing
+     * their request date with others.
+     */
+    private static TransferStore fill(Supplier<TransferStore> factory) {
+	TransferStore store = new ShardedTransferStore(4, factory);
+	for (int i = 0; i < 100; i++) {
+	    store.add(new BankTransfer(
+		    Money.ofMinor(100L + i, BankTransfer.CURRENCY),
+		    START.plusMinutes(i % 7), START.plusDays(2L + i % 3),
+		    iban(i % 13), iban(100)));
+	}
+	return store;
+    }
+
+    /*
+     * Returns the string representations of given transfers, telling them
+     * apart by their distinct amounts.
+     */
+    private static List<String> strings(Collection<BankTransfer> transfers) {
+	List<String> strings = new ArrayList<>();
+	transfers.forEach(transfer -> strings.add(transfer.toString()));
+	return strings;
+    }
+
+    @Test
+    void shouldMergeShards() {
+	for (Supplier<TransferStore> factory : SHARDS) {
+	    TransferStore store = fill(factory);
+	    assertEquals(100, store.size());
+	    List<BankTransfer> transfers = new ArrayList<>(store.all());
+	    List<String> all = strings(transfers);
+	    assertEquals(100, new HashSet<>(all).size());
+	    for (int i = 1; i < all.size(); i++) {
+		assertFalse(transfers.get(i).getRequestDate()
+			.isAfter(transfers.get(i - 1).getRequestDate()));
+	    }
+	    assertEquals(all, strings(store.last(100)));
+	    assertEquals(all.subList(0, 10), strings(store.last(10)));
+	    assertEquals(all, strings(store.lastTo(iban(100), 1000)));
+	    assertEquals(all.subList(0, 42), strings(store.between(
+		    START.plusMinutes(4L), START.plusMinutes(7L))));
+	    assertEquals(34, store.executingBetween(START.plusDays(2L),
+		    START.plusDays(3L)).size());
+	    assertEquals(8, store.lastFrom(iban(0), 100).size());
+	}
+    }
+
+    @Test
+    void shouldPageAcrossShards() {
+	for (Supplier<TransferStore> factory : SHARDS) {
+	    TransferStore store = fill(factory);
+	    for (int limit : new int[] { 1, 3, 7, 100 }) {
+		List<String> pages = new ArrayList<>();
+		TransferPage page = store.page(null, limit);
+		pages.addAll(strings(page.getTransfers()));
+		while (page.getNext() != null) {
+		    page = store.page(
+			    TransferCursor.parse(page.getNext().toString()),
+			    limit);
+		    assertFalse(page.getTransfers().isEmpty());
+		    pages.addAll(strings(page.getTransfers()));
+		}
+		assertEquals(strings(store.last(100)), pages, "limit " + limit);
+	    }
+	}
+    }
+
+    @Test
+    void shouldNotPageWithCursorOfUnknownShard() {
+	assertThrows(IllegalArgumentException.class, () -> {
+	    createStore().page(new TransferCursor(START, 3L << 48), 10);
+	});
+    }
+}
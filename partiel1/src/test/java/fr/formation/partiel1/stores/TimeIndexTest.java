@@ -0,0 +1,42 @@
+package fr.formation.partiel1.stores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class to deal with {@code TimeIndex} class.
+ */
+class TimeIndexTest {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1,
+	    0, 0);
+
+    @Test
+    void shouldSplitDaysAroundEpoch() {
+	TimeIndex<String> index = new TimeIndex<>();
+	index.add(EPOCH, 2L, "epoch");
+	index.add(EPOCH.minusNanos(1L), 1L, "before");
+	index.add(EPOCH.minusDays(1L), 3L, "day before");
+	index.add(EPOCH.plusDays(1L).minusNanos(1L), 4L, "end of day");
+	assertEquals(Arrays.asList("end of day", "epoch", "before"),
+		index.between(EPOCH.minusNanos(1L), EPOCH.plusDays(1L),
+			Long.MAX_VALUE));
+	assertEquals(Arrays.asList("before", "day before"),
+		index.between(EPOCH.minusDays(1L), EPOCH, Long.MAX_VALUE));
+    }
+
+    @Test
+    void shouldSkipValuesNotVisible() {
+	TimeIndex<String> index = new TimeIndex<>();
+	for (int i = 0; i < 100; i++) {
+	    index.add(EPOCH.plusHours(i % 10), i, Integer.toString(i));
+	}
+	List<String> values = index.between(EPOCH, EPOCH.plusHours(1L), 50L);
+	assertEquals(Arrays.asList("50", "40", "30", "20", "10", "0"), values);
+	assertTrue(index.between(EPOCH, EPOCH.plusDays(1L), -1L).isEmpty());
+    }
+}
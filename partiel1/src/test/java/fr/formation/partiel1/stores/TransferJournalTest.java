@@ -0,0 +1,161 @@
+package fr.formation.partiel1.stores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Test class to deal with {@code TransferJournal} class.
+ */
+class TransferJournalTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private static final Money TEN = Money.ofMinor(10_00L,
+	    BankTransfer.CURRENCY);
+
+    private static final Iban FIRST_IBAN = new Iban("FR", "33",
+	    new Bban("30002", "00550", "21345678936", "25"));
+
+    private static final Iban SECOND_IBAN = new Iban("GB", "44",
+	    new Bban("30001", "00551", "11345678936", "45"));
+
+    private Path path;
+
+    @BeforeEach
+    void createFile() throws IOException {
+	path = Files.createTempFile("transfers", ".journal");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+	Files.deleteIfExists(path);
+    }
+
+    private static List<String> replay(TransferJournal journal)
+	    throws IOException {
+	List<String> transfers = new ArrayList<>();
+	journal.replay(transfer -> transfers.add(transfer.toString()));
+	return transfers;
+    }
+
+    @Test
+    void shouldReplayAppendedTransfers() throws IOException {
+	List<String> expected = new ArrayList<>();
+	try (TransferJournal journal = new TransferJournal(path, 2, 10L)) {
+	    assertTrue(replay(journal).isEmpty());
+	    for (int i = 0; i < 5; i++) {
+		BankTransfer transfer = new BankTransfer(
+			Money.ofMinor(1000_0L + i * 10L, BankTransfer.CURRENCY),
+			NOW.minusDays(i),
+			i % 2 == 0 ? null : NOW.plusDays(i), FIRST_IBAN,
+			SECOND_IBAN);
+		journal.append(transfer);
+		expected.add(transfer.toString());
+	    }
+	}
+	try (TransferJournal journal = new TransferJournal(path, 2, 10L)) {
+	    assertEquals(expected, replay(journal));
+	}
+    }
+
+    @Test
+    void shouldStopAtCorruptedRecord() throws IOException {
+	BankTransfer transfer = new BankTransfer(TEN, NOW, null,
+		FIRST_IBAN, SECOND_IBAN);
+	try (TransferJournal journal = new TransferJournal(path, 1, 10L)) {
+	    replay(journal);
+	    journal.append(transfer);
+	    journal.append(transfer);
+	}
+	try (FileChannel channel = FileChannel.open(path,
+		StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+	    ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+	    channel.read(length, 0L);
+	    length.flip();
+	    // Corrupts the payload of the second record:
+	    channel.write(ByteBuffer.wrap(new byte[] { 42 }),
+		    2L * Integer.BYTES + length.getInt() + 12L);
+	}
+	try (TransferJournal journal = new TransferJournal(path, 1, 10L)) {
+	    assertEquals(1, replay(journal).size());
+	    journal.append(transfer);
+	}
+	try (TransferJournal journal = new TransferJournal(path, 1, 10L)) {
+	    assertEquals(2, replay(journal).size());
+	}
+    }
+
+    @Test
+    void shouldReplayExecutions() throws IOException {
+	BankTransfer transfer = new BankTransfer(TEN, NOW,
+		NOW.plusDays(1L), FIRST_IBAN, SECOND_IBAN);
+	try (TransferJournal journal = new TransferJournal(path, 1, 10L)) {
+	    replay(journal);
+	    assertEquals(0L, journal.append(transfer));
+	    assertEquals(1L, journal.append(transfer));
+	    journal.appendExecution(1L);
+	}
+	List<Long> executions = new ArrayList<>();
+	try (TransferJournal journal = new TransferJournal(path, 1, 10L)) {
+	    assertEquals(2L, journal.replay(t -> {
+	    }, executions::add));
+	    assertEquals(Collections.singletonList(1L), executions);
+	    assertEquals(2L, journal.append(transfer));
+	}
+    }
+
+    @Test
+    void shouldReplayFromMark() throws IOException {
+	BankTransfer transfer = new BankTransfer(TEN, NOW,
+		NOW.plusDays(1L), FIRST_IBAN, SECOND_IBAN);
+	TransferJournal.Mark mark;
+	try (TransferJournal journal = new TransferJournal(path, 1, 10L)) {
+	    replay(journal);
+	    journal.append(transfer);
+	    journal.append(transfer);
+	    mark = journal.mark();
+	    assertEquals(2L, mark.getTransfers());
+	    journal.append(new BankTransfer(TEN, NOW, null, SECOND_IBAN,
+		    FIRST_IBAN));
+	    journal.appendExecution(1L);
+	}
+	List<BankTransfer> transfers = new ArrayList<>();
+	List<Long> executions = new ArrayList<>();
+	try (TransferJournal journal = new TransferJournal(path, 1, 10L)) {
+	    assertEquals(3L,
+		    journal.replay(mark, transfers::add, executions::add));
+	    assertEquals(1, transfers.size());
+	    assertEquals(SECOND_IBAN, transfers.get(0).getOrigin());
+	    assertEquals(Collections.singletonList(1L), executions);
+	    assertEquals(3L, journal.append(transfer));
+	}
+	try (TransferJournal journal = new TransferJournal(path, 1, 10L)) {
+	    assertThrows(IllegalArgumentException.class, () -> {
+		journal.replay(new TransferJournal.Mark(1L << 40, 0L),
+			t -> {
+			}, sequence -> {
+			});
+	    });
+	}
+    }
+
+    @Test
+    void shouldNotAppendBeforeReplay() throws IOException {
+	try (TransferJournal journal = new TransferJournal(path, 1, 10L)) {
+	    assertThrows(IllegalStateException.class, () -> {
+		journal.append(new BankTransfer(TEN, NOW, null,
+			FIRST_IBAN, SECOND_IBAN));
+	    });
+	}
+    }
+}
@@ -0,0 +1,130 @@
+package fr.formation.partiel1.stores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Test class to deal with {@code TransferSnapshot} class.
+ */
+class TransferSnapshotTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2018, 10, 1,
+	    10, 0);
+
+    private static final int COUNT = 70_000;
+
+    private static final int ROWS = COUNT - 10;
+
+    private Path path;
+
+    @BeforeEach
+    void createFile() throws IOException {
+	path = Files.createTempFile("transfers", ".snapshot");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+	Files.deleteIfExists(path);
+    }
+
+    private static Iban iban(int i) {
+	return new Iban("FR", "33", new Bban("30002", "00550",
+		String.format("%011d", i % 100), "25"));
+    }
+
+    private static BankTransfer transfer(int i) {
+	return new BankTransfer(Money.ofMinor(i + 1L, BankTransfer.CURRENCY),
+		NOW.minusSeconds(i % 1000),
+		i % 3 == 0 ? NOW.plusDays(1L).plusSeconds(i) : null, iban(i),
+		iban(i + 1));
+    }
+
+    private static List<String> strings(List<BankTransfer> transfers) {
+	List<String> result = new ArrayList<>(transfers.size());
+	for (BankTransfer transfer : transfers) {
+	    result.add(transfer.toString());
+	}
+	return result;
+    }
+
+    @Test
+    void shouldRestoreRows() throws IOException {
+	ColumnarTransferStore store = new ColumnarTransferStore();
+	ColumnarTransferStore expected = new ColumnarTransferStore();
+	for (int i = 0; i < COUNT; i++) {
+	    store.add(transfer(i));
+	    if (i < ROWS) {
+		expected.add(transfer(i));
+	    }
+	}
+	TransferSnapshot.write(path, store, ROWS,
+		ByteBuffer.wrap(new byte[] { 4, 2 }));
+	TransferSnapshot snapshot = TransferSnapshot.read(path);
+	ColumnarTransferStore loaded = snapshot.getStore();
+	assertEquals(ByteBuffer.wrap(new byte[] { 4, 2 }),
+		snapshot.getMetadata());
+	assertEquals(ROWS, loaded.size());
+	for (int row = 0; row < ROWS; row += 7) {
+	    assertEquals(expected.get(row).toString(),
+		    loaded.get(row).toString());
+	}
+	assertEquals(strings(expected.last(100)), strings(loaded.last(100)));
+	assertEquals(strings(expected.lastFrom(iban(5), 50)),
+		strings(loaded.lastFrom(iban(5), 50)));
+	assertEquals(strings(expected.between(NOW.minusSeconds(10L), NOW)),
+		strings(loaded.between(NOW.minusSeconds(10L), NOW)));
+	LocalDateTime from = NOW.plusDays(1L);
+	LocalDateTime to = from.plusSeconds(1000L);
+	assertEquals(strings(expected.executingBetween(from, to)),
+		strings(loaded.executingBetween(from, to)));
+	assertThrows(IndexOutOfBoundsException.class, () -> {
+	    loaded.get(ROWS);
+	});
+    }
+
+    @Test
+    void shouldAddAfterRestore() throws IOException {
+	ColumnarTransferStore store = new ColumnarTransferStore();
+	for (int i = 0; i < ROWS; i++) {
+	    store.add(transfer(i));
+	}
+	TransferSnapshot.write(path, store, ROWS, ByteBuffer.allocate(0));
+	ColumnarTransferStore loaded = TransferSnapshot.read(path).getStore();
+	for (int i = ROWS; i < COUNT; i++) {
+	    store.add(transfer(i));
+	    loaded.add(transfer(i));
+	}
+	Iban newcomer = new Iban("FR", "76",
+		new Bban("30006", "00001", "12345678901", "89"));
+	BankTransfer last = new BankTransfer(
+		Money.ofMinor(1L, BankTransfer.CURRENCY), NOW.plusDays(1L),
+		NOW.plusDays(2L), newcomer, iban(0));
+	store.add(last);
+	loaded.add(last);
+	assertEquals(COUNT + 1, loaded.size());
+	assertEquals(last.toString(), loaded.get(COUNT).toString());
+	assertEquals(strings(store.last(100)), strings(loaded.last(100)));
+	assertEquals(strings(store.executingBetween(NOW, NOW.plusDays(3L))),
+		strings(loaded.executingBetween(NOW, NOW.plusDays(3L))));
+	assertEquals(1, loaded.lastFrom(newcomer, 10).size());
+	// Copied on write, the file keeps the rows of the snapshot:
+	assertEquals(ROWS, TransferSnapshot.read(path).getStore().size());
+    }
+
+    @Test
+    void shouldRejectMalformedSnapshot() throws IOException {
+	Files.write(path, new byte[100]);
+	assertThrows(IOException.class, () -> {
+	    TransferSnapshot.read(path);
+	});
+    }
+}
@@ -0,0 +1,241 @@
+package fr.formation.partiel1.stores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Base test class to deal with {@code TransferStore} implementations.
+ */
+abstract class TransferStoreTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private int amount;
+
+    private static final Iban FIRST_IBAN = new Iban("FR", "33",
+	    new Bban("30002", "00550", "21345678936", "25"));
+
+    private static final Iban SECOND_IBAN = new Iban("FR", "33",
+	    new Bban("30001", "00551", "11345678936", "45"));
+
+    private static final Iban THIRD_IBAN = new Iban("FR", "33",
+	    new Bban("30003", "00552", "31345678936", "65"));
+
+    /**
+     * Creates a new empty store to test.
+     *
+     * @return a new empty store
+     */
+    abstract TransferStore createStore();
+
+    /*
+     * Returns a new transfer, with a distinct amount to tell it apart from
+     * the other transfers once stored.
+     */
+    private BankTransfer transfer(LocalDateTime requestDate, Iban origin,
+	    Iban destination) {
+	Money value = Money.ofMinor(100_00L + ++amount,
+		BankTransfer.CURRENCY);
+	return new BankTransfer(value, requestDate, null, origin, destination);
+    }
+
+    private static void assertTransfers(List<BankTransfer> expected,
+	    Collection<BankTransfer> actual) {
+	List<String> expectedStrings = new ArrayList<>();
+	expected.forEach(transfer -> expectedStrings.add(transfer.toString()));
+	List<String> actualStrings = new ArrayList<>();
+	actual.forEach(transfer -> actualStrings.add(transfer.toString()));
+	assertEquals(expectedStrings, actualStrings);
+    }
+
+    @Test
+    void shouldBeEmpty() {
+	TransferStore store = createStore();
+	assertEquals(0, store.size());
+	assertTrue(store.last(1).isEmpty());
+	assertTrue(store.all().isEmpty());
+    }
+
+    @Test
+    void shouldReturnStoredAmounts() {
+	// Amounts of more decimals than the currency never reach a store:
+	assertThrows(IllegalArgumentException.class, () -> {
+	    Money.parse("1.005", BankTransfer.CURRENCY);
+	});
+	TransferStore store = createStore();
+	List<Money> amounts = Arrays.asList(
+		Money.parse("1.5", BankTransfer.CURRENCY),
+		Money.parse("0.01", BankTransfer.CURRENCY),
+		Money.parse("12345678.90", BankTransfer.CURRENCY),
+		Money.ofMinor(Long.MAX_VALUE, BankTransfer.CURRENCY));
+	for (int i = 0; i < amounts.size(); i++) {
+	    store.add(new BankTransfer(amounts.get(i), NOW.plusSeconds(i),
+		    null, FIRST_IBAN, SECOND_IBAN));
+	}
+	List<BankTransfer> stored = store.last(amounts.size());
+	Collections.reverse(stored);
+	for (int i = 0; i < amounts.size(); i++) {
+	    Money expected = amounts.get(i);
+	    Money actual = stored.get(i).getAmount();
+	    assertEquals(expected, actual);
+	    assertEquals(expected.getScale(), actual.getScale());
+	    assertEquals(expected.toBigDecimal(), actual.toBigDecimal());
+	}
+    }
+
+    @Test
+    void shouldReturnLastByRequestDate() {
+	TransferStore store = createStore();
+	BankTransfer older = transfer(NOW.minusDays(2L), FIRST_IBAN,
+		SECOND_IBAN);
+	BankTransfer newer = transfer(NOW, FIRST_IBAN, SECOND_IBAN);
+	BankTransfer oldest = transfer(NOW.minusDays(3L), FIRST_IBAN,
+		SECOND_IBAN);
+	store.add(older);
+	store.add(newer);
+	store.add(oldest);
+	assertEquals(3, store.size());
+	assertTransfers(Collections.singletonList(newer), store.last(1));
+	assertTransfers(Arrays.asList(newer, older), store.last(2));
+	assertTransfers(Arrays.asList(newer, older, oldest),
+		store.all());
+    }
+
+    @Test
+    void shouldKeepTransfersWithSameRequestDate() {
+	TransferStore store = createStore();
+	BankTransfer first = transfer(NOW, FIRST_IBAN, SECOND_IBAN);
+	BankTransfer second = transfer(NOW, FIRST_IBAN, SECOND_IBAN);
+	store.add(first);
+	store.add(second);
+	assertTransfers(Arrays.asList(second, first), store.last(2));
+    }
+
+    @Test
+    void shouldReturnTransfersBetweenDates() {
+	TransferStore store = createStore();
+	BankTransfer before = transfer(NOW.minusDays(3L), FIRST_IBAN,
+		SECOND_IBAN);
+	BankTransfer inside = transfer(NOW.minusDays(2L), FIRST_IBAN,
+		SECOND_IBAN);
+	BankTransfer upper = transfer(NOW, FIRST_IBAN, SECOND_IBAN);
+	store.add(before);
+	store.add(inside);
+	store.add(upper);
+	assertTransfers(Collections.singletonList(inside),
+		store.between(NOW.minusDays(2L), NOW));
+	assertTrue(store.between(NOW, NOW.minusDays(2L)).isEmpty());
+    }
+
+    @Test
+    void shouldReturnTransfersExecutingBetweenDates() {
+	TransferStore store = createStore();
+	LocalDateTime day = NOW.toLocalDate().atStartOfDay();
+	List<BankTransfer> transfers = new ArrayList<>();
+	// Executed at the bounds of each day, at the end of the day first:
+	for (int i = 0; i < 4; i++) {
+	    LocalDateTime execution = day.plusDays(i + 1L);
+	    LocalDateTime request = day.minusDays(1L);
+	    transfers.add(transfer(request, execution.minusNanos(1L)));
+	    transfers.add(transfer(request, execution.minusDays(1L)));
+	}
+	BankTransfer same = transfer(day.minusDays(1L), day.plusDays(2L));
+	transfers.forEach(store::add);
+	store.add(same);
+	store.add(transfer(day, FIRST_IBAN, SECOND_IBAN)); // Not executed
+	assertTransfers(Arrays.asList(transfers.get(2), transfers.get(3)),
+		store.executingBetween(day.plusDays(1L), day.plusDays(2L)));
+	assertTransfers(Arrays.asList(transfers.get(7), transfers.get(4), same,
+		transfers.get(5), transfers.get(2)),
+		store.executingBetween(day.plusDays(2L).minusNanos(1L),
+			day.plusDays(3L).plusNanos(1L)));
+	assertEquals(9, store.executingBetween(LocalDateTime.MIN,
+		LocalDateTime.MAX).size());
+	assertTrue(store.executingBetween(day.plusDays(5L), day.plusDays(9L))
+		.isEmpty());
+	assertTrue(store.executingBetween(day.plusDays(2L), day).isEmpty());
+    }
+
+    private BankTransfer transfer(LocalDateTime requestDate,
+	    LocalDateTime executionDate) {
+	Money value = Money.ofMinor(100_00L + ++amount,
+		BankTransfer.CURRENCY);
+	return new BankTransfer(value, requestDate, executionDate, FIRST_IBAN,
+		SECOND_IBAN);
+    }
+
+    @Test
+    void shouldStreamAllTransfersInParallel() {
+	TransferStore store = createStore();
+	Set<String> expected = new HashSet<>();
+	for (int i = 0; i < 1000; i++) {
+	    BankTransfer transfer = transfer(NOW.minusMinutes(i % 100),
+		    i % 2 == 0 ? FIRST_IBAN : THIRD_IBAN, SECOND_IBAN);
+	    store.add(transfer);
+	    expected.add(transfer.toString());
+	}
+	assertEquals(expected, store.parallelStream()
+		.map(BankTransfer::toString).collect(Collectors.toSet()));
+	assertEquals(1000L, store.parallelStream().count());
+    }
+
+    @Test
+    void shouldReturnTransfersByAccount() {
+	TransferStore store = createStore();
+	BankTransfer first = transfer(NOW.minusDays(1L), FIRST_IBAN,
+		SECOND_IBAN);
+	BankTransfer second = transfer(NOW, SECOND_IBAN, THIRD_IBAN);
+	store.add(first);
+	store.add(second);
+	assertTransfers(Collections.singletonList(first),
+		store.lastFrom(FIRST_IBAN, 10));
+	assertTransfers(Collections.singletonList(second),
+		store.lastFrom(SECOND_IBAN, 10));
+	assertTransfers(Collections.singletonList(first),
+		store.lastTo(SECOND_IBAN, 10));
+	assertTrue(store.lastTo(FIRST_IBAN, 10).isEmpty());
+    }
+
+    @Test
+    void shouldPageByRequestDate() {
+	TransferStore store = createStore();
+	BankTransfer first = transfer(NOW, FIRST_IBAN, SECOND_IBAN);
+	BankTransfer second = transfer(NOW, FIRST_IBAN, SECOND_IBAN);
+	BankTransfer third = transfer(NOW.minusDays(1L), FIRST_IBAN,
+		SECOND_IBAN);
+	store.add(first);
+	store.add(second);
+	store.add(third);
+	TransferPage page = store.page(null, 2);
+	assertTransfers(Arrays.asList(second, first), page.getTransfers());
+	assertNotNull(page.getNext());
+	store.add(transfer(NOW.plusDays(1L), FIRST_IBAN, SECOND_IBAN));
+	page = store.page(TransferCursor.parse(page.getNext().toString()), 2);
+	assertTransfers(Collections.singletonList(third), page.getTransfers());
+	assertNull(page.getNext());
+    }
+
+    @Test
+    void shouldNotPageWithLimitNotPositive() {
+	assertThrows(IllegalArgumentException.class, () -> {
+	    createStore().page(null, 0);
+	});
+    }
+
+    @Test
+    void shouldNotParseMalformedCursor() {
+	assertThrows(IllegalArgumentException.class, () -> {
+	    TransferCursor.parse("2018-05-01T10:15");
+	});
+	assertThrows(IllegalArgumentException.class, () -> {
+	    TransferCursor.parse("yesterday_1");
+	});
+    }
+}
@@ -0,0 +1,152 @@
+package fr.formation.partiel1.wire;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import fr.formation.partiel1.entities.*;
+
+/**
+ * Test class to deal with {@code TransferEncoder} and {@code TransferDecoder}
+ * classes.
+ */
+class TransferDecoderTest {
+
+    private static final Iban ORIGIN = new Iban("FR", "76",
+	    new Bban("30006", "00001", "12345678901", "89"));
+
+    private static final Iban DESTINATION = new Iban("FR", "14",
+	    new Bban("20041", "01005", "0500013M026", "06"));
+
+    // Same BBAN as ORIGIN, so equal to it, but another country:
+    private static final Iban FOREIGN = new Iban("MC", "58",
+	    new Bban("30006", "00001", "12345678901", "89"));
+
+    private static byte[] encode(List<BankTransfer> transfers)
+	    throws IOException {
+	ByteArrayOutputStream output = new ByteArrayOutputStream();
+	TransferEncoder encoder = new TransferEncoder(output);
+	for (BankTransfer transfer : transfers) {
+	    encoder.write(transfer);
+	}
+	encoder.finish();
+	return output.toByteArray();
+    }
+
+    private static List<BankTransfer> decode(byte[] bytes)
+	    throws IOException {
+	TransferDecoder decoder = new TransferDecoder(
+		new ByteArrayInputStream(bytes));
+	List<BankTransfer> transfers = new ArrayList<>();
+	BankTransfer transfer;
+	while ((transfer = decoder.read()) != null) {
+	    transfers.add(transfer);
+	}
+	assertNull(decoder.read());
+	return transfers;
+    }
+
+    private static List<BankTransfer> transfers(int count) {
+	List<BankTransfer> transfers = new ArrayList<>();
+	LocalDateTime date = LocalDateTime.parse("2018-10-01T10:00:00");
+	for (int i = 0; i < count; i++) {
+	    LocalDateTime request = date.minusMinutes(i * 7L);
+	    transfers.add(new BankTransfer(
+		    Money.ofMinor(100_000L + i * 37L, BankTransfer.CURRENCY),
+		    request,
+		    i % 2 == 0 ? request.plusDays(2L) : null,
+		    i % 3 == 0 ? ORIGIN : DESTINATION,
+		    i % 3 == 0 ? DESTINATION : ORIGIN));
+	}
+	return transfers;
+    }
+
+    @Test
+    void shouldDecodeEncodedTransfers() throws IOException {
+	List<BankTransfer> transfers = new ArrayList<>(transfers(10));
+	transfers.add(new BankTransfer(
+		Money.ofMinor(Long.MAX_VALUE, BankTransfer.CURRENCY),
+		LocalDateTime.parse("1969-07-20T20:17:40.123456789"),
+		LocalDateTime.parse("1969-07-21T20:17:41.5"), FOREIGN,
+		DESTINATION));
+	List<BankTransfer> decoded = decode(encode(transfers));
+	assertEquals(transfers.toString(), decoded.toString());
+	BankTransfer last = decoded.get(decoded.size() - 1);
+	assertEquals("MC", last.getOrigin().getCountry());
+	assertEquals("FR", decoded.get(0).getOrigin().getCountry());
+	assertSame(IbanPool.shared().intern(DESTINATION),
+		decoded.get(0).getDestination());
+    }
+
+    @Test
+    void shouldDecodeEmptyStream() throws IOException {
+	assertEquals(Collections.emptyList(),
+		decode(encode(Collections.emptyList())));
+    }
+
+    @Test
+    void shouldDecodeWhileReceiving() throws IOException {
+	List<BankTransfer> transfers = transfers(5000);
+	byte[] bytes = encode(transfers);
+	// A stream returning a few bytes at a time, then failing:
+	InputStream input = new ByteArrayInputStream(bytes, 0,
+		bytes.length / 2) {
+	    @Override
+	    public synchronized int read(byte[] b, int off, int len) {
+		return super.read(b, off, Math.min(len, 3));
+	    }
+	};
+	TransferDecoder decoder = new TransferDecoder(input);
+	for (int i = 0; i < 1000; i++) {
+	    assertEquals(transfers.get(i).toString(),
+		    decoder.read().toString());
+	}
+	assertThrows(EOFException.class, () -> {
+	    while (decoder.read() != null) {
+	    }
+	});
+    }
+
+    @Test
+    void shouldBeSmallerThanJson() throws IOException {
+	List<BankTransfer> transfers = transfers(1000);
+	int json = new ObjectMapper().writeValueAsBytes(transfers).length;
+	int binary = encode(transfers).length;
+	assertTrue(binary * 10 < json, binary + " bytes vs " + json);
+    }
+
+    @Test
+    void shouldRejectMalformedStream() {
+	assertThrows(StreamCorruptedException.class, () -> {
+	    decode("[{\"amount\":1}]".getBytes());
+	});
+	assertThrows(StreamCorruptedException.class, () -> {
+	    decode(new byte[] { 'B', 'T', 'X', 1, 2, 0, 2, 2, 0, 0, 0 });
+	});
+	assertThrows(EOFException.class, () -> {
+	    decode(new byte[] { 'B', 'T', 'X', 1 });
+	});
+	// An account number of 12 chars:
+	assertThrows(StreamCorruptedException.class, () -> {
+	    decode(new byte[] { 'B', 'T', 'X', 1, 1, 2, 'F', 'R', 2, '7',
+		    '6', 0, 0, 12, '1', '2', '3', '4', '5', '6', '7', '8',
+		    '9', '0', '1', '2', 0, 0 });
+	});
+    }
+
+    @Test
+    void shouldNotWriteOnceFinished() throws IOException {
+	TransferEncoder encoder = new TransferEncoder(
+		new ByteArrayOutputStream());
+	encoder.finish();
+	assertThrows(IllegalStateException.class, () -> {
+	    encoder.write(transfers(1).get(0));
+	});
+    }
+}